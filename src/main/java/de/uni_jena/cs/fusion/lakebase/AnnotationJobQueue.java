@@ -0,0 +1,467 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.jooq.impl.DSL.val;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.uni_jena.cs.fusion.lakebase.model.AnnotationJobStatus;
+import de.uni_jena.cs.fusion.lakebase.model.AnnotationJobStatus.State;
+import de.uni_jena.cs.fusion.lakebase.model.EntitiesAnnotation;
+import de.uni_jena.cs.fusion.lakebase.model.Entity;
+import de.uni_jena.cs.fusion.util.maintainer.Maintainable;
+import de.uni_jena.cs.fusion.util.maintainer.MaintenanceException;
+
+/**
+ * Bounded queue of annotation jobs, stored in the database and shared by all
+ * service instances. A job consists of the texts of one request, each stored
+ * as a separate task. The worker threads of any instance claim tasks with
+ * <code>SELECT ... FOR UPDATE SKIP LOCKED</code> in a short transaction,
+ * determine the annotations, persist them with the {@link AnnotationWriter}
+ * and mark the task as done in another short transaction. A worker claims
+ * multiple tasks at once and determines their annotations while the
+ * annotations of the previous tasks are waiting to be written. Failed
+ * attempts will be retried with exponential backoff. Tasks of crashed
+ * workers will be taken over after the lease time, unless the maximum number
+ * of attempts has been reached. As a task is marked done
+ * after its annotations have been committed, a task might be processed
+ * repeatedly, which is harmless as setting annotations is idempotent.
+ * 
+ * The number of texts that have been accepted, but not yet been processed, is
+ * limited by the capacity of the queue.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class AnnotationJobQueue implements Closeable, Maintainable {
+	private static Logger log = LoggerFactory.getLogger(AnnotationJobQueue.class);
+	private final static ObjectMapper JSON = new ObjectMapper();
+
+	private final DataSource dataSource;
+	private final Annotator annotator;
+	private final AnnotationWriter writer;
+	private final int capacity;
+	private final List<Thread> workers = new ArrayList<Thread>();
+	/**
+	 * monitor to wake up waiting local workers
+	 */
+	private final Object monitor = new Object();
+	private volatile boolean closed = false;
+	private volatile int attempts = 5;
+	private volatile long backoff = TimeUnit.SECONDS.toMillis(10);
+	private volatile long pollInterval = TimeUnit.SECONDS.toMillis(1);
+	private volatile long lease = TimeUnit.MINUTES.toMillis(5);
+	private volatile int pipelining = 4;
+
+	/**
+	 * @param dataSource
+	 *            {@link DataSource} of the database
+	 * @param annotator
+	 *            {@link Annotator} to determine annotations with
+	 * @param writer
+	 *            {@link AnnotationWriter} to persist annotations with
+	 * @param capacity
+	 *            maximum number of texts accepted, but not processed, by all
+	 *            instances
+	 * @param threads
+	 *            number of worker threads of this instance, zero to only submit
+	 *            jobs
+	 * @param threadFactory
+	 *            {@link ThreadFactory} to create the worker threads
+	 */
+	public AnnotationJobQueue(DataSource dataSource, Annotator annotator, AnnotationWriter writer, int capacity,
+			int threads, ThreadFactory threadFactory) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive.");
+		}
+		if (threads < 0) {
+			throw new IllegalArgumentException("Number of threads must not be negative.");
+		}
+		this.dataSource = dataSource;
+		this.annotator = annotator;
+		this.writer = writer;
+		this.capacity = capacity;
+		for (int i = 0; i < threads; i++) {
+			Thread worker = threadFactory.newThread(this::work);
+			this.workers.add(worker);
+			worker.start();
+		}
+	}
+
+	/**
+	 * @param attempts
+	 *            maximum number of attempts per text
+	 * @param backoff
+	 *            time to wait before the second attempt, doubled for each
+	 *            further attempt
+	 * @param unit
+	 *            unit of the backoff
+	 */
+	public void setRetry(int attempts, long backoff, TimeUnit unit) {
+		if (attempts < 1) {
+			throw new IllegalArgumentException("Attempts must be positive.");
+		}
+		if (backoff < 0) {
+			throw new IllegalArgumentException("Backoff must not be negative.");
+		}
+		this.attempts = attempts;
+		this.backoff = unit.toMillis(backoff);
+	}
+
+	/**
+	 * @param pollInterval
+	 *            maximum time idle workers wait before looking for new tasks
+	 * @param lease
+	 *            time after which a task claimed by a crashed worker will be
+	 *            taken over
+	 * @param unit
+	 *            unit of the poll interval and the lease
+	 */
+	public void setPolling(long pollInterval, long lease, TimeUnit unit) {
+		if (pollInterval < 1) {
+			throw new IllegalArgumentException("Poll interval must be positive.");
+		}
+		if (lease < 1) {
+			throw new IllegalArgumentException("Lease must be positive.");
+		}
+		this.pollInterval = unit.toMillis(pollInterval);
+		this.lease = unit.toMillis(lease);
+	}
+
+	/**
+	 * @param tasks
+	 *            maximum number of tasks a worker claims at once, to determine
+	 *            their annotations while the annotations of the previous tasks
+	 *            are waiting to be written
+	 */
+	public void setPipelining(int tasks) {
+		if (tasks < 1) {
+			throw new IllegalArgumentException("Number of tasks must be positive.");
+		}
+		this.pipelining = tasks;
+	}
+
+	/**
+	 * Submits a job to determine and persist the annotations of texts.
+	 * 
+	 * @param annotations
+	 *            the texts to annotate
+	 * @return the status of the new job
+	 * @throws RejectedExecutionException
+	 *             if the queue has not enough remaining capacity
+	 * @throws IllegalArgumentException
+	 *             if the job exceeds the capacity of the queue
+	 * @throws AnnotationJobQueueException
+	 */
+	public AnnotationJobStatus submit(EntitiesAnnotation[] annotations) throws AnnotationJobQueueException {
+		if (annotations.length > this.capacity) {
+			throw new IllegalArgumentException("Job exceeds queue capacity of " + this.capacity + " texts.");
+		}
+		UUID job = UUID.randomUUID();
+		String[] serialized = new String[annotations.length];
+		try {
+			for (int i = 0; i < annotations.length; i++) {
+				serialized[i] = JSON.writeValueAsString(annotations[i]);
+			}
+		} catch (IOException e) {
+			throw new AnnotationJobQueueException("Failed to serialize annotation job.", e);
+		}
+		try (Connection connection = this.dataSource.getConnection();
+				Transaction transaction = Transaction.begin(connection);
+				DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+			// serialize submissions of all instances to keep the capacity
+			context.execute("SELECT pg_advisory_xact_lock(hashtext('semantic.annotation_task'))");
+			if (pending(context) + annotations.length > this.capacity) {
+				throw new RejectedExecutionException("Annotation queue is full.");
+			}
+			context.execute(
+					"INSERT INTO semantic.annotation_task (job_id, annotation) SELECT {0}::uuid, annotation FROM unnest({1}) WITH ORDINALITY AS t(annotation, position) ORDER BY position",
+					val(job.toString()), val(serialized));
+			transaction.commit();
+		} catch (SQLException e) {
+			throw new AnnotationJobQueueException(e);
+		}
+		synchronized (this.monitor) {
+			this.monitor.notifyAll();
+		}
+		return new AnnotationJobStatus(job.toString(), State.queued, annotations.length, 0, 0);
+	}
+
+	/**
+	 * @param id
+	 *            ID of the job
+	 * @return the status of the job or <code>null</code>, if the job is unknown
+	 * @throws AnnotationJobQueueException
+	 */
+	public AnnotationJobStatus getStatus(String id) throws AnnotationJobQueueException {
+		try {
+			UUID.fromString(id);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		try (Connection connection = this.dataSource.getConnection();
+				DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+			Record record = context.resultQuery("SELECT count(*)::integer, "
+					+ "count(*) FILTER (WHERE state = 'done')::integer, "
+					+ "count(*) FILTER (WHERE state = 'failed')::integer, "
+					+ "count(*) FILTER (WHERE attempts > 0)::integer "
+					+ "FROM semantic.annotation_task WHERE job_id = {0}::uuid", val(id)).fetchOne();
+			int total = record.get(0, Integer.class);
+			int done = record.get(1, Integer.class);
+			int failed = record.get(2, Integer.class);
+			int started = record.get(3, Integer.class);
+			if (total == 0) {
+				return null;
+			}
+			State state;
+			if (done + failed == total) {
+				state = (failed == 0) ? State.done : State.failed;
+			} else if (started > 0) {
+				state = State.running;
+			} else {
+				state = State.queued;
+			}
+			return new AnnotationJobStatus(id, state, total, done, failed);
+		} catch (SQLException e) {
+			throw new AnnotationJobQueueException(e);
+		}
+	}
+
+	/**
+	 * @return number of texts accepted, but not processed, by all instances
+	 * @throws AnnotationJobQueueException
+	 */
+	public int size() throws AnnotationJobQueueException {
+		try (Connection connection = this.dataSource.getConnection();
+				DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+			return pending(context);
+		} catch (SQLException e) {
+			throw new AnnotationJobQueueException(e);
+		}
+	}
+
+	private static int pending(DSLContext context) {
+		return context
+				.resultQuery(
+						"SELECT count(*)::integer FROM semantic.annotation_task WHERE state IN ('queued', 'running')")
+				.fetchOne(0, Integer.class);
+	}
+
+	/**
+	 * Determines the annotations of a text and submits them to the
+	 * {@link AnnotationWriter}.
+	 * 
+	 * @param annotation
+	 *            the text to annotate
+	 * @return a future that completes after the annotations have been persisted
+	 */
+	public CompletableFuture<Void> save(EntitiesAnnotation annotation) {
+		try {
+			// replenish annotations
+			Map<String, IRI> determined = this.annotator.determineAnnotations(annotation.text,
+					annotation.getAcceptedAsMap(), annotation.getRejectedAsMap(),
+					(annotation.scopes.isEmpty()) ? Collections.singleton(Scope.all) : annotation.scopes);
+
+			Collection<EntityAnnotations> entities = new ArrayList<EntityAnnotations>();
+			for (Entity entity : annotation.entities) {
+				entities.add(new EntityAnnotations(entity, determined, annotation.getRejectedAsMap()));
+			}
+			return this.writer.submit(entities).whenComplete((result, e) -> {
+				if (e != null) {
+					log.error("Set Annotation Task failed for: " + annotation, e);
+				}
+			});
+		} catch (Throwable e) {
+			log.error("Set Annotation Task failed for: " + annotation, e);
+			CompletableFuture<Void> future = new CompletableFuture<Void>();
+			future.completeExceptionally(e);
+			return future;
+		}
+	}
+
+	private void work() {
+		while (!this.closed) {
+			try {
+				if (!processNext()) {
+					synchronized (this.monitor) {
+						if (!this.closed) {
+							this.monitor.wait(this.pollInterval);
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				return;
+			} catch (Throwable e) {
+				log.error("Failed to process annotation task.", e);
+				try {
+					Thread.sleep(this.pollInterval);
+				} catch (InterruptedException e1) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Claims and processes the next available tasks.
+	 * 
+	 * @return <code>true</code> if tasks have been processed,
+	 *         <code>false</code> if no task was available
+	 * @throws InterruptedException
+	 */
+	private boolean processNext() throws SQLException, InterruptedException {
+		// claim tasks
+		List<Record> tasks;
+		try (Connection connection = this.dataSource.getConnection();
+				Transaction transaction = Transaction.begin(connection);
+				DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+			// fail tasks of crashed workers without remaining attempts
+			context.execute("UPDATE semantic.annotation_task "
+					+ "SET state = 'failed', error = COALESCE(error, 'Maximum number of attempts exceeded.'), "
+					+ "updated = now() WHERE task_id IN (SELECT task_id FROM semantic.annotation_task "
+					+ "WHERE state IN ('queued', 'running') AND available <= now() AND attempts >= {0} "
+					+ "FOR UPDATE SKIP LOCKED)", val(this.attempts));
+			tasks = context
+					.resultQuery("UPDATE semantic.annotation_task SET state = 'running', attempts = attempts + 1, "
+							+ "available = now() + {0} * interval '1 millisecond', updated = now() "
+							+ "WHERE task_id IN (SELECT task_id FROM semantic.annotation_task "
+							+ "WHERE state IN ('queued', 'running') AND available <= now() AND attempts < {1} "
+							+ "ORDER BY task_id LIMIT {2} FOR UPDATE SKIP LOCKED) "
+							+ "RETURNING task_id, annotation, attempts",
+							val(this.lease), val(this.attempts), val(this.pipelining))
+					.fetch();
+			transaction.commit();
+		}
+		if (tasks.isEmpty()) {
+			return false;
+		}
+
+		// process tasks
+		List<CompletableFuture<Void>> saved = new ArrayList<CompletableFuture<Void>>();
+		for (Record task : tasks) {
+			try {
+				saved.add(save(JSON.readValue(task.get("annotation", String.class), EntitiesAnnotation.class)));
+			} catch (IOException e) {
+				CompletableFuture<Void> future = new CompletableFuture<Void>();
+				future.completeExceptionally(e);
+				saved.add(future);
+			}
+		}
+		List<String> errors = new ArrayList<String>();
+		for (CompletableFuture<Void> future : saved) {
+			try {
+				future.get();
+				errors.add(null);
+			} catch (ExecutionException e) {
+				errors.add(String.valueOf(e.getCause()));
+			}
+		}
+
+		// complete tasks
+		try (Connection connection = this.dataSource.getConnection();
+				Transaction transaction = Transaction.begin(connection);
+				DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+			for (int i = 0; i < tasks.size(); i++) {
+				long taskID = tasks.get(i).get("task_id", Long.class);
+				int attempt = tasks.get(i).get("attempts", Integer.class);
+				String error = errors.get(i);
+				if (error == null) {
+					context.execute("UPDATE semantic.annotation_task SET state = 'done', error = NULL, "
+							+ "updated = now() WHERE task_id = {0} AND attempts = {1}", val(taskID), val(attempt));
+				} else if (attempt >= this.attempts) {
+					context.execute("UPDATE semantic.annotation_task SET state = 'failed', error = {2}, "
+							+ "updated = now() WHERE task_id = {0} AND attempts = {1}", val(taskID), val(attempt),
+							val(error));
+				} else {
+					long delay = this.backoff << Math.min(attempt - 1, 20);
+					context.execute("UPDATE semantic.annotation_task SET state = 'queued', error = {2}, "
+							+ "available = now() + {3} * interval '1 millisecond', updated = now() "
+							+ "WHERE task_id = {0} AND attempts = {1}", val(taskID), val(attempt), val(error),
+							val(delay));
+				}
+			}
+			transaction.commit();
+		}
+		return true;
+	}
+
+	/**
+	 * Removes jobs finished more than a day ago.
+	 */
+	@Override
+	public void maintain() throws MaintenanceException {
+		try (Connection connection = this.dataSource.getConnection();
+				DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+			context.execute("DELETE FROM semantic.annotation_task WHERE job_id IN (SELECT job_id "
+					+ "FROM semantic.annotation_task GROUP BY job_id HAVING bool_and(state IN ('done', 'failed')) "
+					+ "AND max(updated) < now() - interval '1 day')");
+		} catch (SQLException e) {
+			throw new MaintenanceException(e);
+		}
+	}
+
+	/**
+	 * Stops the worker threads after their current task. Queued tasks remain
+	 * in the database.
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		synchronized (this.monitor) {
+			this.monitor.notifyAll();
+		}
+		for (Thread worker : this.workers) {
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+}
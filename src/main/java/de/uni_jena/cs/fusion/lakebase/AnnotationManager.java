@@ -30,19 +30,33 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import javax.sql.DataSource;
 
 import org.jooq.Condition;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
 import org.jooq.Field;
-import org.jooq.Record1;
+import org.jooq.Record;
 import org.jooq.SQLDialect;
-import org.jooq.SelectField;
+import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
 import org.semanticweb.owlapi.model.IRI;
 import org.slf4j.Logger;
@@ -65,12 +79,38 @@ public class AnnotationManager implements Maintainable {
 	private final DataSource dataSource;
 	private final ConceptManager conceptManager;
 	private final SemanticDataSource semanticDataSource;
+	private final SearchIndex searchIndex;
+	private final DataVersion dataVersion;
+	private int deprecationCheckParallelism = 8;
+	private long deprecationCheckInterval = TimeUnit.DAYS.toMillis(7);
 
 	public AnnotationManager(DataSource dataSource, SemanticDataSource semanticDataSource,
 			ConceptManager conceptManager) {
+		this(dataSource, semanticDataSource, conceptManager, new DataVersion());
+	}
+
+	/**
+	 * @param dataVersion
+	 *            {@link DataVersion} to increment on changes of annotations
+	 */
+	public AnnotationManager(DataSource dataSource, SemanticDataSource semanticDataSource,
+			ConceptManager conceptManager, DataVersion dataVersion) {
+		this(dataSource, semanticDataSource, conceptManager, dataVersion, new SearchIndex(dataSource));
+	}
+
+	/**
+	 * @param dataVersion
+	 *            {@link DataVersion} to increment on changes of annotations
+	 * @param searchIndex
+	 *            {@link SearchIndex} to update on changes of annotations
+	 */
+	public AnnotationManager(DataSource dataSource, SemanticDataSource semanticDataSource,
+			ConceptManager conceptManager, DataVersion dataVersion, SearchIndex searchIndex) {
 		this.dataSource = dataSource;
 		this.conceptManager = conceptManager;
 		this.semanticDataSource = semanticDataSource;
+		this.searchIndex = searchIndex;
+		this.dataVersion = dataVersion;
 	}
 
 	private Collection<Condition> entityConditions(long packageId, Long objectId, Long columnId, Long rowId,
@@ -198,6 +238,114 @@ public class AnnotationManager implements Maintainable {
 		return getAcceptedAnnotations(packageId, objectId, columnId, rowId, metaID, true);
 	}
 
+	/**
+	 * Returns the terms and their accepted annotations of multiple entities,
+	 * using a single query.
+	 * 
+	 * @param entities
+	 *            the entities to get the annotations of
+	 * @return a {@link Map} of each entity and a {@link Map} of its terms and
+	 *         their annotations
+	 * @throws AnnotationManagerException
+	 * 
+	 * @since 0.3.9
+	 */
+	public Map<Entity, Map<String, IRI>> getAcceptedAnnotations(Collection<Entity> entities)
+			throws AnnotationManagerException {
+		Map<Entity, Map<String, IRI>> annotations = new HashMap<Entity, Map<String, IRI>>();
+		for (Entity entity : entities) {
+			annotations.put(entity, new HashMap<String, IRI>());
+		}
+		for (Record record : fetchAnnotations("semantic.annotation", annotations.keySet())) {
+			annotations.get(entity(record)).put(record.get("term", String.class),
+					IRI.create(record.get("concept_iri", String.class)));
+		}
+		return annotations;
+	}
+
+	/**
+	 * Returns the terms and their rejected annotations of multiple entities,
+	 * using a single query.
+	 * 
+	 * @param entities
+	 *            the entities to get the rejected annotations of
+	 * @return a {@link Map} of each entity and a {@link Map} of its terms and
+	 *         their rejected annotations
+	 * @throws AnnotationManagerException
+	 * 
+	 * @since 0.3.9
+	 */
+	public Map<Entity, Map<String, List<IRI>>> getRejectedAnnotations(Collection<Entity> entities)
+			throws AnnotationManagerException {
+		Map<Entity, Map<String, List<IRI>>> rejections = new HashMap<Entity, Map<String, List<IRI>>>();
+		for (Entity entity : entities) {
+			rejections.put(entity, new HashMap<String, List<IRI>>());
+		}
+		for (Record record : fetchAnnotations("semantic.rejected_annotation", rejections.keySet())) {
+			rejections.get(entity(record))
+					.computeIfAbsent(record.get("term", String.class), term -> new ArrayList<IRI>())
+					.add(IRI.create(record.get("concept_iri", String.class)));
+		}
+		return rejections;
+	}
+
+	/**
+	 * Fetches the terms and concept IRIs of multiple entities from an
+	 * annotation table, joining the table with the unnested entity IDs.
+	 * 
+	 * @param table
+	 *            name of the annotation table
+	 * @param entities
+	 *            distinct entities to fetch the rows of
+	 * @return the rows, including the entity IDs
+	 * @throws AnnotationManagerException
+	 */
+	private List<Record> fetchAnnotations(String table, Collection<Entity> entities)
+			throws AnnotationManagerException {
+		if (entities.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Long[] packageIds = new Long[entities.size()];
+		Long[] objectIds = new Long[entities.size()];
+		Long[] columnIds = new Long[entities.size()];
+		Long[] rowIds = new Long[entities.size()];
+		Long[] metaIds = new Long[entities.size()];
+		int i = 0;
+		for (Entity entity : entities) {
+			if (entity.objectID == null && (entity.columnID != null || entity.rowID != null)) {
+				throw new IllegalArgumentException(
+						"Failed to determine affected annotations: objectId must not be null if columnId or rowId is not null.");
+			}
+			packageIds[i] = entity.packageID;
+			objectIds[i] = entity.objectID;
+			columnIds[i] = entity.columnID;
+			rowIds[i] = entity.rowID;
+			metaIds[i] = entity.metaID;
+			i++;
+		}
+		try (Connection connection = this.dataSource.getConnection();
+				DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+			return context.resultQuery("SELECT DISTINCT a.package_id, a.object_id, a.column_id, a.row_id, a.meta_id,"
+					+ " a.term, c.concept_iri"
+					+ " FROM unnest({0}, {1}, {2}, {3}, {4}) AS e (package_id, object_id, column_id, row_id, meta_id)"
+					+ " JOIN " + table + " AS a ON a.package_id = e.package_id"
+					+ " AND a.object_id IS NOT DISTINCT FROM e.object_id"
+					+ " AND a.column_id IS NOT DISTINCT FROM e.column_id"
+					+ " AND a.row_id IS NOT DISTINCT FROM e.row_id"
+					+ " AND a.meta_id IS NOT DISTINCT FROM e.meta_id"
+					+ " JOIN semantic.concept AS c ON c.concept_id = a.concept_id", val(packageIds), val(objectIds),
+					val(columnIds), val(rowIds), val(metaIds)).fetch();
+		} catch (SQLException e) {
+			throw new AnnotationManagerException(e);
+		}
+	}
+
+	private static Entity entity(Record record) {
+		return new Entity(record.get("package_id", Long.class), record.get("object_id", Long.class),
+				record.get("column_id", Long.class), record.get("row_id", Long.class),
+				record.get("meta_id", Long.class));
+	}
+
 	/**
 	 * Returns a {@link Map} of terms and their rejected annotations of the
 	 * specified field.
@@ -335,6 +483,8 @@ public class AnnotationManager implements Maintainable {
 		try (DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
 			removeAnnotations(context, packageId, objectId, columnId, rowId, metaID, false);
 		}
+		refreshSearchIndex(connection, packageId, objectId, columnId, rowId, metaID, false);
+		incrementVersion(connection);
 	}
 
 	/**
@@ -383,88 +533,19 @@ public class AnnotationManager implements Maintainable {
 	 */
 	public void removeAnnotationsWithin(long packageId, Long objectId, Long columnId, Long rowId, Long metaID)
 			throws AnnotationManagerException {
-		try (Connection connection = this.dataSource.getConnection()) {
+		try (Connection connection = this.dataSource.getConnection();
+				Transaction transaction = Transaction.begin(connection)) {
 			try (DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
 				removeAnnotations(context, packageId, objectId, columnId, rowId, metaID, true);
 			}
+			refreshSearchIndex(connection, packageId, objectId, columnId, rowId, metaID, true);
+			incrementVersion(connection);
+			transaction.commit();
 		} catch (SQLException e) {
 			throw new AnnotationManagerException(e);
 		}
 	}
 
-	/**
-	 * Associates a concept with a term.
-	 * 
-	 * @param connection
-	 *            {@link Connection} to use
-	 * @param packageId
-	 *            ID of the package
-	 * @param objectId
-	 *            ID of the object
-	 * @param columnId
-	 *            ID of the column
-	 * @param rowId
-	 *            ID of the row
-	 * @param metaId
-	 *            ID of the meta data property
-	 * @param term
-	 *            the annotated term
-	 * @param iri
-	 *            the annotated concept
-	 * @param rejected
-	 *            determines if a rejected (TRUE) or accepted (FALSE) annotation
-	 *            should be added
-	 * @throws AnnotationManagerException
-	 */
-	private void setAnnotation(Connection connection, long packageId, Long objectId, Long columnId, Long rowId,
-			Long metaId, String term, IRI iri, boolean rejected) throws AnnotationManagerException {
-
-		try (DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
-			Collection<Field<Object>> insertFields = new LinkedList<Field<Object>>();
-			Collection<SelectField<Object>> selectFields = new LinkedList<SelectField<Object>>();
-
-			insertFields.add(field("package_id"));
-			selectFields.add(val((Object) packageId));
-
-			if (objectId != null) {
-				insertFields.add(field("object_id"));
-				selectFields.add(val((Object) objectId));
-			}
-			if (columnId != null) {
-				insertFields.add(field("column_id"));
-				selectFields.add(val((Object) columnId));
-			}
-			if (rowId != null) {
-				insertFields.add(field("row_id"));
-				selectFields.add(val((Object) rowId));
-			}
-			if (metaId != null) {
-				insertFields.add(field("meta_id"));
-				selectFields.add(val((Object) metaId));
-			}
-			insertFields.add(field("concept_id"));
-			selectFields.add(field("concept.concept_id"));
-			insertFields.add(field("term"));
-			selectFields.add(val((Object) term));
-
-			this.conceptManager.add(connection, iri);
-
-			if (rejected) {
-				context.insertInto(table("semantic.rejected_annotation")).columns(insertFields)
-						.select(select(selectFields).from(table("semantic.concept"))
-								.where(field("concept.concept_iri").eq(iri.getIRIString())))
-						.execute();
-			} else {
-				context.insertInto(table("semantic.annotation")).columns(insertFields).select(select(selectFields)
-						.from(table("semantic.concept")).where(field("concept.concept_iri").eq(iri.getIRIString())))
-						.execute();
-			}
-		} catch (ConceptManagerException e) {
-			throw new AnnotationManagerException(e);
-		}
-
-	}
-
 	private void copyAnnotation(DSLContext context, Entity source, Entity target) {
 		Collection<Condition> conditions = entityConditions(source.packageID, source.objectID, source.columnID,
 				source.rowID, source.metaID, true);
@@ -503,12 +584,15 @@ public class AnnotationManager implements Maintainable {
 	}
 
 	public void copyAnnotation(Entity source, Entity target) throws AnnotationManagerException {
-		try (Connection connection = this.dataSource.getConnection()) {
-			connection.setAutoCommit(false);
+		try (Connection connection = this.dataSource.getConnection();
+				Transaction transaction = Transaction.begin(connection)) {
 			try (DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
 				copyAnnotation(context, source, target);
 			}
-			connection.commit();
+			refreshSearchIndex(connection, target.packageID, target.objectID, target.columnID, target.rowID,
+					target.metaID, true);
+			incrementVersion(connection);
+			transaction.commit();
 		} catch (SQLException e) {
 			throw new AnnotationManagerException(e);
 		}
@@ -538,17 +622,218 @@ public class AnnotationManager implements Maintainable {
 	public void setAnnotations(Connection connection, long packageId, Long objectId, Long columnId, Long rowId,
 			Long metaID, Map<String, IRI> annotations, Map<String, Collection<IRI>> rejections)
 			throws AnnotationManagerException {
-		// remove previous annotations and rejections
-		removeAnnotations(connection, packageId, objectId, columnId, rowId, metaID);
+		setAnnotations(connection, Collections.singleton(
+				new EntityAnnotations(new Entity(packageId, objectId, columnId, rowId, metaID), annotations, rejections)));
+	}
+
+	/**
+	 * Associates concepts with terms of multiple entities at once, replacing
+	 * their previous annotations and rejections. The annotations and rejections
+	 * of all entities get inserted with one statement per table, after
+	 * resolving the IDs of all concepts with the {@link ConceptManager}. If an entity occurs
+	 * multiple times, its last occurrence applies. Missing concepts should be
+	 * added in advance with {@link #addConcepts(Collection)} to avoid requests
+	 * of the {@link SemanticDataSource} inside of the transaction.
+	 * 
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param batch
+	 *            the entities and their annotations and rejections
+	 * @throws AnnotationManagerException
+	 */
+	public void setAnnotations(Connection connection, Collection<EntityAnnotations> batch)
+			throws AnnotationManagerException {
+		// keep last occurrence of each entity
+		Map<Entity, EntityAnnotations> entries = new LinkedHashMap<Entity, EntityAnnotations>();
+		for (EntityAnnotations entry : batch) {
+			entries.remove(entry.entity);
+			entries.put(entry.entity, entry);
+		}
+		if (entries.isEmpty()) {
+			return;
+		}
+
+		try (DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+			// remove previous annotations and rejections
+			deleteEntities(context, "semantic.annotation", entries.keySet());
+			deleteEntities(context, "semantic.rejected_annotation", entries.keySet());
+
+			// collect rows
+			AnnotationRows annotations = new AnnotationRows();
+			AnnotationRows rejections = new AnnotationRows();
+			for (EntityAnnotations entry : entries.values()) {
+				for (Entry<String, IRI> annotation : entry.annotations.entrySet()) {
+					annotations.add(entry.entity, annotation.getKey(), annotation.getValue());
+				}
+				for (Entry<String, Collection<IRI>> rejection : entry.rejections.entrySet()) {
+					for (IRI iri : rejection.getValue()) {
+						rejections.add(entry.entity, rejection.getKey(), iri);
+					}
+				}
+			}
+
+			// resolve concept IDs, adding missing concepts
+			Set<IRI> iris = concepts(entries.values());
+			this.conceptManager.addAll(connection, iris);
+			Map<IRI, Long> conceptIds = this.conceptManager.getIds(connection, iris);
+
+			annotations.insertInto(context, "semantic.annotation", conceptIds);
+			rejections.insertInto(context, "semantic.rejected_annotation", conceptIds);
+		} catch (ConceptManagerException e) {
+			throw new AnnotationManagerException(e);
+		}
+
+		try {
+			this.searchIndex.refreshEntities(connection, entries.keySet());
+		} catch (SearchIndexException e) {
+			throw new AnnotationManagerException(e);
+		}
+		incrementVersion(connection);
+	}
+
+	/**
+	 * Deletes the rows of the given entities with one statement joining the
+	 * keys of the entities.
+	 * 
+	 * @param context
+	 *            {@link DSLContext} to use
+	 * @param table
+	 *            table to delete from
+	 * @param entities
+	 *            the entities to delete the rows of
+	 */
+	private static void deleteEntities(DSLContext context, String table, Collection<Entity> entities) {
+		Long[] packageIds = new Long[entities.size()], objectIds = new Long[entities.size()],
+				columnIds = new Long[entities.size()], rowIds = new Long[entities.size()],
+				metaIds = new Long[entities.size()];
+		int i = 0;
+		for (Entity entity : entities) {
+			packageIds[i] = entity.packageID;
+			objectIds[i] = entity.objectID;
+			columnIds[i] = entity.columnID;
+			rowIds[i] = entity.rowID;
+			metaIds[i++] = entity.metaID;
+		}
+		context.execute("DELETE FROM " + table + " AS t "
+				+ "USING unnest({0}::bigint[], {1}::bigint[], {2}::bigint[], {3}::bigint[], {4}::bigint[]) "
+				+ "AS e (p, o, c, r, m) WHERE t.package_id = e.p AND t.object_id IS NOT DISTINCT FROM e.o "
+				+ "AND t.column_id IS NOT DISTINCT FROM e.c AND t.row_id IS NOT DISTINCT FROM e.r "
+				+ "AND t.meta_id IS NOT DISTINCT FROM e.m", val(packageIds), val(objectIds), val(columnIds),
+				val(rowIds), val(metaIds));
+	}
 
-		for (String term : annotations.keySet()) {
-			setAnnotation(connection, packageId, objectId, columnId, rowId, metaID, term, annotations.get(term), false);
+	/**
+	 * Adds the concepts of the given annotations and rejections, which are not
+	 * known yet, in own transactions. This includes requests of the
+	 * {@link SemanticDataSource} for the hierarchy of new concepts and should
+	 * therefore precede the transaction writing the annotations.
+	 * 
+	 * @param batch
+	 *            the entities and their annotations and rejections
+	 * @throws AnnotationManagerException
+	 */
+	public void addConcepts(Collection<EntityAnnotations> batch) throws AnnotationManagerException {
+		try {
+			this.conceptManager.addAll(concepts(batch));
+		} catch (ConceptManagerException e) {
+			throw new AnnotationManagerException(e);
 		}
-		for (String term : rejections.keySet()) {
-			for (IRI iri : rejections.get(term)) {
-				setAnnotation(connection, packageId, objectId, columnId, rowId, metaID, term, iri, true);
+	}
+
+	private static Set<IRI> concepts(Collection<EntityAnnotations> batch) {
+		Set<IRI> iris = new HashSet<IRI>();
+		for (EntityAnnotations entry : batch) {
+			iris.addAll(entry.annotations.values());
+			for (Collection<IRI> rejected : entry.rejections.values()) {
+				iris.addAll(rejected);
 			}
 		}
+		return iris;
+	}
+
+	/**
+	 * Column wise collection of annotation rows to insert with a single
+	 * statement.
+	 */
+	private static class AnnotationRows {
+		private final List<Long> packageIds = new ArrayList<Long>();
+		private final List<Long> objectIds = new ArrayList<Long>();
+		private final List<Long> columnIds = new ArrayList<Long>();
+		private final List<Long> rowIds = new ArrayList<Long>();
+		private final List<Long> metaIds = new ArrayList<Long>();
+		private final List<IRI> iris = new ArrayList<IRI>();
+		private final List<String> terms = new ArrayList<String>();
+
+		void add(Entity entity, String term, IRI iri) {
+			this.packageIds.add(entity.packageID);
+			this.objectIds.add(entity.objectID);
+			this.columnIds.add(entity.columnID);
+			this.rowIds.add(entity.rowID);
+			this.metaIds.add(entity.metaID);
+			this.iris.add(iri);
+			this.terms.add(term);
+		}
+
+		void insertInto(DSLContext context, String table, Map<IRI, Long> conceptIds) {
+			if (this.terms.isEmpty()) {
+				return;
+			}
+			Long[] concepts = this.iris.stream().map(conceptIds::get).toArray(Long[]::new);
+			context.execute("INSERT INTO " + table
+					+ " (package_id, object_id, column_id, row_id, meta_id, concept_id, term)"
+					+ " SELECT * FROM unnest({0}, {1}, {2}, {3}, {4}, {5}, {6})",
+					val(this.packageIds.toArray(new Long[0])), val(this.objectIds.toArray(new Long[0])),
+					val(this.columnIds.toArray(new Long[0])), val(this.rowIds.toArray(new Long[0])),
+					val(this.metaIds.toArray(new Long[0])), val(concepts), val(this.terms.toArray(new String[0])));
+		}
+	}
+
+	/**
+	 * Increments the {@link DataVersion} after the changes made on the given
+	 * {@link Connection} have been committed.
+	 * 
+	 * @param connection
+	 *            {@link Connection} the changes were made on
+	 * @throws AnnotationManagerException
+	 */
+	private void incrementVersion(Connection connection) throws AnnotationManagerException {
+		try {
+			this.dataVersion.incrementAfterCommit(connection);
+		} catch (SQLException e) {
+			throw new AnnotationManagerException(e);
+		}
+	}
+
+	/**
+	 * Updates the search index entries of the specified field after changing
+	 * its annotations.
+	 * 
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param packageId
+	 *            ID of the package
+	 * @param objectId
+	 *            ID of the object
+	 * @param columnId
+	 *            ID of the column
+	 * @param rowId
+	 *            ID of the row
+	 * @param metaID
+	 *            ID of the meta data property
+	 * @param deep
+	 *            determines if entries of specified field (FALSE) or the
+	 *            specified field an its subordinate fields should be updated
+	 * @throws AnnotationManagerException
+	 */
+	private void refreshSearchIndex(Connection connection, long packageId, Long objectId, Long columnId, Long rowId,
+			Long metaID, boolean deep) throws AnnotationManagerException {
+		try {
+			this.searchIndex.refreshEntities(connection,
+					entityConditions(packageId, objectId, columnId, rowId, metaID, deep),
+					new Entity(packageId, objectId, columnId, rowId, metaID), deep);
+		} catch (SearchIndexException e) {
+			throw new AnnotationManagerException(e);
+		}
 	}
 
 	/**
@@ -572,70 +857,267 @@ public class AnnotationManager implements Maintainable {
 	 */
 	public void setAnnotations(long packageId, Long objectId, Long columnId, Long rowId, Long metaID,
 			Map<String, IRI> annotations, Map<String, Collection<IRI>> rejections) throws AnnotationManagerException {
-		try (Connection connection = this.dataSource.getConnection()) {
-			connection.setAutoCommit(false);
+		addConcepts(Collections.singleton(
+				new EntityAnnotations(new Entity(packageId, objectId, columnId, rowId, metaID), annotations, rejections)));
+		try (Connection connection = this.dataSource.getConnection();
+				Transaction transaction = Transaction.begin(connection)) {
 			setAnnotations(connection, packageId, objectId, columnId, rowId, metaID, annotations, rejections);
-			connection.commit();
+			transaction.commit();
 		} catch (SQLException e) {
 			throw new AnnotationManagerException(e);
 		}
 	}
 
+	/**
+	 * Streams the annotations and rejections of a package or of all packages,
+	 * grouped by entity. The annotations are read with a server side cursor,
+	 * so that only the annotations of one entity are held in memory at a time.
+	 * 
+	 * @param packageId
+	 *            ID of the package or <code>null</code> for all packages
+	 * @param fetchSize
+	 *            number of rows to fetch from the database at once
+	 * @param consumer
+	 *            {@link Consumer} to pass the annotations of each entity to
+	 * @return the number of exported entities
+	 * @throws AnnotationManagerException
+	 */
+	public int exportAnnotations(Long packageId, int fetchSize, Consumer<EntityAnnotations> consumer)
+			throws AnnotationManagerException {
+		String where = (packageId != null) ? " WHERE package_id = {0}" : "";
+		Object[] parameters = (packageId != null) ? new Object[] { val(packageId) } : new Object[0];
+		int exported = 0;
+		// cursors require a transaction
+		try (Connection connection = this.dataSource.getConnection();
+				Transaction transaction = Transaction.begin(connection)) {
+			try (DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5);
+					Cursor<Record> cursor = context.resultQuery(
+							"SELECT package_id, object_id, column_id, row_id, meta_id, term, concept_iri, false AS rejected"
+									+ " FROM semantic.annotation JOIN semantic.concept USING (concept_id)" + where
+									+ " UNION ALL"
+									+ " SELECT package_id, object_id, column_id, row_id, meta_id, term, concept_iri, true"
+									+ " FROM semantic.rejected_annotation JOIN semantic.concept USING (concept_id)" + where
+									+ " ORDER BY package_id, object_id NULLS FIRST, column_id NULLS FIRST,"
+									+ " row_id NULLS FIRST, meta_id NULLS FIRST",
+							parameters).fetchSize(fetchSize).fetchLazy()) {
+				EntityAnnotations current = null;
+				for (Record record : cursor) {
+					Entity entity = entity(record);
+					if (current == null || !current.entity.equals(entity)) {
+						if (current != null) {
+							consumer.accept(current);
+							exported++;
+						}
+						current = new EntityAnnotations(entity, new HashMap<String, IRI>(),
+								new HashMap<String, Collection<IRI>>());
+					}
+					String term = record.get("term", String.class);
+					IRI iri = IRI.create(record.get("concept_iri", String.class));
+					if (record.get("rejected", Boolean.class)) {
+						current.rejections.computeIfAbsent(term, t -> new ArrayList<IRI>()).add(iri);
+					} else {
+						current.annotations.put(term, iri);
+					}
+				}
+				if (current != null) {
+					consumer.accept(current);
+					exported++;
+				}
+			}
+		} catch (SQLException e) {
+			throw new AnnotationManagerException(e);
+		}
+		return exported;
+	}
+
+	/**
+	 * Sets the annotations and rejections of a stream of entities, replacing
+	 * their previous annotations and rejections. The entities are written in
+	 * batches with one transaction per batch, so that only one batch is held
+	 * in memory at a time. If a batch fails, the previous batches remain
+	 * committed.
+	 * 
+	 * @param entries
+	 *            the entities and their annotations and rejections
+	 * @param batchSize
+	 *            maximum number of entities to write in one transaction
+	 * @return the number of imported entities
+	 * @throws AnnotationManagerException
+	 */
+	public int importAnnotations(Iterator<EntityAnnotations> entries, int batchSize)
+			throws AnnotationManagerException {
+		int imported = 0;
+		try (Connection connection = this.dataSource.getConnection();
+				Transaction transaction = Transaction.begin(connection)) {
+			List<EntityAnnotations> batch = new ArrayList<EntityAnnotations>(batchSize);
+			while (entries.hasNext()) {
+				batch.add(entries.next());
+				if (batch.size() >= batchSize || !entries.hasNext()) {
+					addConcepts(batch);
+					setAnnotations(connection, batch);
+					transaction.commit();
+					imported += batch.size();
+					batch.clear();
+				}
+			}
+		} catch (SQLException e) {
+			throw new AnnotationManagerException(e);
+		}
+		return imported;
+	}
+
+	/**
+	 * Configures the deprecation check of {@link #maintain()}.
+	 * 
+	 * @param parallelism
+	 *            maximum number of concepts to check concurrently
+	 * @param interval
+	 *            minimum time between two checks of a concept
+	 * @param unit
+	 *            unit of the interval
+	 */
+	public void setDeprecationCheck(int parallelism, long interval, TimeUnit unit) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive.");
+		}
+		if (interval < 0) {
+			throw new IllegalArgumentException("Interval must not be negative.");
+		}
+		this.deprecationCheckParallelism = parallelism;
+		this.deprecationCheckInterval = unit.toMillis(interval);
+	}
+
+	/**
+	 * Replaces deprecated concepts in annotations and rejected annotations.
+	 * Concepts checked within the configured interval will be skipped. Each
+	 * replacement gets applied in an own transaction, so that a failing
+	 * replacement does not prevent the others. Concepts with failed
+	 * replacements will be checked again in the next run.
+	 * 
+	 * @see #setDeprecationCheck(int, long, TimeUnit)
+	 */
 	@Override
 	public void maintain() throws MaintenanceException {
 		if (semanticDataSource.providingDeprecation()) {
-			try (Connection connection = this.dataSource.getConnection()) {
-				try (DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
-					// get IRIs used for annotation
-					Iterator<Record1<Object>> iriIterator = context.select(field("concept.concept_iri"))
-							.from(table("semantic.annotation")).naturalJoin(table("semantic.concept"))
-							.union(context.select(field("concept.concept_iri"))
-									.from(table("semantic.rejected_annotation")).naturalJoin(table("semantic.concept")))
-							.iterator();
-					while (iriIterator.hasNext()) {
-						IRI oldIri = IRI.create(iriIterator.next().get(0).toString());
-						if (semanticDataSource.isDeprecated(oldIri)) {
-							Collection<IRI> newIris = semanticDataSource.getReplacedBy(oldIri);
-							if (!newIris.isEmpty()) {
-								this.replaceAnnotation(context, oldIri, newIris.iterator().next());
+			try {
+				// get used concepts not checked within the interval
+				Map<Long, IRI> concepts = new HashMap<Long, IRI>();
+				try (Connection connection = this.dataSource.getConnection()) {
+					try (DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+						for (Record record : context.resultQuery("SELECT concept.concept_id, concept.concept_iri"
+								+ " FROM semantic.concept WHERE (EXISTS (SELECT 1 FROM semantic.annotation"
+								+ " WHERE annotation.concept_id = concept.concept_id)"
+								+ " OR EXISTS (SELECT 1 FROM semantic.rejected_annotation"
+								+ " WHERE rejected_annotation.concept_id = concept.concept_id))"
+								+ " AND NOT EXISTS (SELECT 1 FROM semantic.deprecation_check"
+								+ " WHERE deprecation_check.concept_id = concept.concept_id"
+								+ " AND deprecation_check.checked > now() - {0} * interval '1 millisecond')",
+								val(this.deprecationCheckInterval)).fetch()) {
+							concepts.put(record.get(0, Long.class), IRI.create(record.get(1, String.class)));
+						}
+					}
+				}
+
+				// check concepts in parallel
+				Map<Long, IRI> replacements = new ConcurrentHashMap<Long, IRI>();
+				Collection<Long> checked = new ConcurrentLinkedQueue<Long>();
+				List<Callable<Void>> checks = new ArrayList<Callable<Void>>();
+				for (Entry<Long, IRI> concept : concepts.entrySet()) {
+					checks.add(() -> {
+						IRI oldIri = concept.getValue();
+						try {
+							if (semanticDataSource.isDeprecated(oldIri)) {
+								Collection<IRI> newIris = semanticDataSource.getReplacedBy(oldIri);
+								if (!newIris.isEmpty() && !newIris.contains(oldIri)) {
+									IRI newIri = newIris.iterator().next();
+									log.info("Replacing deprecated IRI \"" + oldIri.getIRIString() + "\" by \""
+											+ newIri.getIRIString() + "\".");
+									replacements.put(concept.getKey(), newIri);
+								}
 							}
+							checked.add(concept.getKey());
+						} catch (SemanticDataSourceException | RuntimeException e) {
+							log.warn("Failed to check deprecation of IRI \"" + oldIri.getIRIString() + "\".", e);
+						}
+						return null;
+					});
+				}
+				ExecutorService executor = Executors.newFixedThreadPool(this.deprecationCheckParallelism);
+				try {
+					executor.invokeAll(checks);
+				} finally {
+					executor.shutdownNow();
+				}
+
+				// add replacing concepts outside of the replacing transactions
+				if (!replacements.isEmpty()) {
+					this.conceptManager.addAll(replacements.values());
+				}
+
+				// apply replacements separately and remember checks
+				try (Connection connection = this.dataSource.getConnection();
+						Transaction transaction = Transaction.begin(connection);
+						DSLContext context = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+					for (Entry<Long, IRI> replacement : replacements.entrySet()) {
+						try {
+							this.replaceAnnotations(connection, context, replacement.getKey(), replacement.getValue());
+							incrementVersion(connection);
+							transaction.commit();
+						} catch (AnnotationManagerException | DataAccessException e) {
+							transaction.rollback();
+							checked.remove(replacement.getKey());
+							log.warn("Failed to replace deprecated IRI \"" + concepts.get(replacement.getKey())
+									+ "\".", e);
 						}
 					}
+					context.execute("INSERT INTO semantic.deprecation_check (concept_id, checked)"
+							+ " SELECT concept_id, now() FROM unnest({0}) AS t (concept_id)"
+							+ " ON CONFLICT (concept_id) DO UPDATE SET checked = excluded.checked",
+							val(checked.toArray(new Long[0])));
+					transaction.commit();
 				}
-			} catch (SQLException | SemanticDataSourceException | AnnotationManagerException e) {
+			} catch (SQLException | ConceptManagerException | DataAccessException e) {
+				throw new MaintenanceException(e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
 				throw new MaintenanceException(e);
 			}
 		}
 	}
 
-	private void replaceAnnotation(DSLContext sql, IRI oldIri, IRI newIri) throws AnnotationManagerException {
+	/**
+	 * Replaces a concept in annotations and rejected annotations. Rejections
+	 * of the replaced concept get dropped, if the replacing concept has
+	 * already been rejected for the same term.
+	 * 
+	 * @param oldId
+	 *            ID of the replaced concept
+	 * @param newIri
+	 *            {@link IRI} of the replacing concept
+	 */
+	private void replaceAnnotations(Connection connection, DSLContext sql, long oldId, IRI newIri)
+			throws AnnotationManagerException {
 		try {
-			this.conceptManager.add(newIri);
-			log.info(
-					"Replacing deprecated IRI \"" + oldIri.getIRIString() + "\" by \"" + newIri.getIRIString() + "\".");
+			Long newId = this.conceptManager.getId(connection, newIri);
+			if (newId == null) {
+				throw new AnnotationManagerException("Unknown concept \"" + newIri + "\".");
+			}
 
 			// replace annotations
-			// Select<Record1<Object>> i = ;
-
-			sql.update(table("semantic.annotation"))
-					.set(field("concept_id", Long.class),
-							sql.select(field("concept_id", Long.class)).from(table("semantic.concept"))
-									.where(field("concept_iri").eq(newIri.getIRIString())))
-					.where(field("concept_id").eq(sql.select(field("concept_id")).from(table("semantic.concept"))
-							.where(field("concept_iri").eq(oldIri.getIRIString()))))
-					.execute();
-			// replace rejected annotations
-			sql.update(table("semantic.rejected_annotation"))
-					.set(field("concept_id", Long.class),
-							sql.select(field("concept_id", Long.class)).from(table("semantic.concept"))
-									.where(field("concept_iri").eq(newIri.getIRIString())))
-					.where(field("concept_id").eq(sql.select(field("concept_id")).from(table("semantic.concept"))
-							.where(field("concept_iri").eq(oldIri.getIRIString()))))
-					.execute();
-		} catch (ConceptManagerException e) {
-			throw new AnnotationManagerException("Failed to replace deprecated IRI \"" + oldIri.getIRIString() + "\".",
-					e);
+			sql.execute("UPDATE semantic.annotation SET concept_id = {1} WHERE concept_id = {0}", val(oldId),
+					val(newId));
+			// replace rejected annotations, skipping duplicates
+			sql.execute("DELETE FROM semantic.rejected_annotation AS a WHERE a.concept_id = {0}"
+					+ " AND EXISTS (SELECT 1 FROM semantic.rejected_annotation AS b WHERE b.concept_id = {1}"
+					+ " AND b.package_id = a.package_id AND b.object_id IS NOT DISTINCT FROM a.object_id"
+					+ " AND b.column_id IS NOT DISTINCT FROM a.column_id AND b.row_id IS NOT DISTINCT FROM a.row_id"
+					+ " AND b.meta_id IS NOT DISTINCT FROM a.meta_id AND b.term = a.term)", val(oldId), val(newId));
+			sql.execute("UPDATE semantic.rejected_annotation SET concept_id = {1} WHERE concept_id = {0}",
+					val(oldId), val(newId));
+			// update search index
+			this.searchIndex.refreshConcepts(connection, Arrays.asList(oldId, newId));
+		} catch (ConceptManagerException | SearchIndexException e) {
+			throw new AnnotationManagerException("Failed to replace deprecated IRI by \"" + newIri + "\".", e);
 		}
-
 	}
 }
@@ -0,0 +1,214 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists annotations with a single writer thread. Submitted annotations get
+ * collected until the batch size has been reached or the flush interval has
+ * elapsed since the first submission of the batch and are then written in
+ * one transaction. If a batch fails, its submissions will be written in
+ * separate transactions to isolate the failure.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class AnnotationWriter implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(AnnotationWriter.class);
+
+	private final DataSource dataSource;
+	private final AnnotationManager annotationManager;
+	private final int batchSize;
+	private final long flushInterval;
+	private final BlockingQueue<Submission> queue = new LinkedBlockingQueue<Submission>();
+	private final Thread thread;
+	private boolean closed = false;
+
+	/**
+	 * @param dataSource
+	 *            {@link DataSource} of the database
+	 * @param annotationManager
+	 *            {@link AnnotationManager} to write the annotations with
+	 * @param batchSize
+	 *            maximum number of entities to write in one transaction
+	 * @param flushInterval
+	 *            maximum time to wait for further submissions before writing
+	 *            a batch
+	 * @param unit
+	 *            unit of the flush interval
+	 */
+	public AnnotationWriter(DataSource dataSource, AnnotationManager annotationManager, int batchSize,
+			long flushInterval, TimeUnit unit) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive.");
+		}
+		if (flushInterval < 0) {
+			throw new IllegalArgumentException("Flush interval must not be negative.");
+		}
+		this.dataSource = dataSource;
+		this.annotationManager = annotationManager;
+		this.batchSize = batchSize;
+		this.flushInterval = unit.toNanos(flushInterval);
+		this.thread = new Thread(this::run, "annotation-writer");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Submits annotations to write. Missing concepts get added in the calling
+	 * thread in advance, to keep requests of the semantic data sources out of
+	 * the writer thread and its transactions.
+	 * 
+	 * @param annotations
+	 *            the entities and their annotations and rejections
+	 * @return a future that completes after the annotations have been committed
+	 */
+	public CompletableFuture<Void> submit(Collection<EntityAnnotations> annotations) {
+		Submission submission = new Submission(annotations);
+		try {
+			this.annotationManager.addConcepts(annotations);
+		} catch (AnnotationManagerException e) {
+			submission.future.completeExceptionally(e);
+			return submission.future;
+		}
+		synchronized (this.queue) {
+			if (this.closed) {
+				submission.future.completeExceptionally(new IllegalStateException("Annotation writer is closed."));
+			} else {
+				this.queue.add(submission);
+			}
+		}
+		return submission.future;
+	}
+
+	/**
+	 * Writes the pending submissions and stops the writer thread.
+	 */
+	@Override
+	public void close() {
+		synchronized (this.queue) {
+			this.closed = true;
+		}
+		try {
+			this.thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private boolean isDone() {
+		synchronized (this.queue) {
+			return this.closed && this.queue.isEmpty();
+		}
+	}
+
+	private void run() {
+		try {
+			while (!isDone()) {
+				Submission first = this.queue.poll(1, TimeUnit.SECONDS);
+				if (first == null) {
+					continue;
+				}
+				List<Submission> batch = new ArrayList<Submission>();
+				batch.add(first);
+				int entities = first.annotations.size();
+				long deadline = System.nanoTime() + this.flushInterval;
+				while (entities < this.batchSize) {
+					long remaining = deadline - System.nanoTime();
+					Submission next = (remaining > 0) ? this.queue.poll(remaining, TimeUnit.NANOSECONDS)
+							: this.queue.poll();
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+					entities += next.annotations.size();
+				}
+				write(batch);
+			}
+		} catch (InterruptedException e) {
+			log.warn("Annotation writer interrupted.");
+			synchronized (this.queue) {
+				this.closed = true;
+			}
+			Submission submission;
+			while ((submission = this.queue.poll()) != null) {
+				submission.future.completeExceptionally(e);
+			}
+		}
+	}
+
+	private void write(List<Submission> batch) {
+		List<EntityAnnotations> annotations = new ArrayList<EntityAnnotations>();
+		for (Submission submission : batch) {
+			annotations.addAll(submission.annotations);
+		}
+		try {
+			persist(annotations);
+			for (Submission submission : batch) {
+				submission.future.complete(null);
+			}
+		} catch (Throwable e) {
+			if (batch.size() == 1) {
+				log.error("Failed to write annotations.", e);
+				batch.get(0).future.completeExceptionally(e);
+			} else {
+				log.warn("Failed to write batch of annotations, writing submissions separately.", e);
+				for (Submission submission : batch) {
+					write(Collections.singletonList(submission));
+				}
+			}
+		}
+	}
+
+	private void persist(Collection<EntityAnnotations> annotations) throws SQLException, AnnotationManagerException {
+		try (Connection connection = this.dataSource.getConnection();
+				Transaction transaction = Transaction.begin(connection)) {
+			this.annotationManager.setAnnotations(connection, annotations);
+			transaction.commit();
+		}
+	}
+
+	private static class Submission {
+		final Collection<EntityAnnotations> annotations;
+		final CompletableFuture<Void> future = new CompletableFuture<Void>();
+
+		Submission(Collection<EntityAnnotations> annotations) {
+			this.annotations = annotations;
+		}
+	}
+}
@@ -26,12 +26,16 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.lang3.StringUtils;
 import org.semanticweb.owlapi.model.IRI;
 
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSource;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceException;
+import de.uni_jena.cs.fusion.util.concurrent.CompletableFutures;
 import de.uni_jena.cs.fusion.util.stopwords.StopWords;
 
 /**
@@ -241,112 +245,204 @@ public class Annotator {
 		// initialize results
 		Map<String, Map<IRI, Double>> results = new HashMap<String, Map<IRI, Double>>();
 
+		// split at punctuation and iterate parts
+		for (String[] words : fragments(query)) {
+
+			// match term list
+			Map<String, Map<IRI, Double>> match;
+			try {
+				match = this.adapterManager.getMatches(terms(words), Scope.getIris(scopes));
+			} catch (SemanticDataSourceException e) {
+				throw new AnnotatorException("Failed to match the given term.", e);
+			}
+
+			select(words, match, distinct, skipping, predefined, excluded, results);
+		}
+
+		return results;
+	}
+
+	/**
+	 * Proposes annotations for a given string using the asynchronous methods of
+	 * the {@link SemanticDataSource}. The matches of all query fragments are
+	 * requested at once.
+	 * 
+	 * @param query
+	 *            the {@link String} to annotate
+	 * @param scopes
+	 *            the scope of the annotations
+	 * @param executor
+	 *            the {@link Executor} to pass to the {@link SemanticDataSource}
+	 * @return future of a map with one entry per query containing a list of
+	 *         matching concepts descending sorted by rank, failing with an
+	 *         {@link AnnotatorException}
+	 * 
+	 * @since 0.3.9
+	 */
+	public CompletableFuture<Map<String, Map<IRI, Double>>> proposeAnnotationsAsync(String query,
+			Collection<Scope> scopes, Executor executor) {
+		List<String[]> fragments = fragments(query);
+		List<CompletableFuture<Map<String, Map<IRI, Double>>>> matches = new ArrayList<>();
+		for (String[] words : fragments) {
+			matches.add(this.adapterManager.getMatchesAsync(terms(words), Scope.getIris(scopes), executor));
+		}
+		return CompletableFutures.handle(CompletableFutures.all(matches), (match, e) -> {
+			if (e != null) {
+				throw new CompletionException(new AnnotatorException("Failed to match the given term.",
+						(e instanceof CompletionException) ? e.getCause() : e));
+			}
+			Map<String, Map<IRI, Double>> results = new HashMap<String, Map<IRI, Double>>();
+			for (int i = 0; i < fragments.size(); i++) {
+				select(fragments.get(i), match.get(i), false, false, Collections.emptyMap(), Collections.emptyMap(),
+						results);
+			}
+			return results;
+		});
+	}
+
+	/**
+	 * Splits a query at punctuation into the word lists of its non-empty
+	 * fragments.
+	 * 
+	 * @param query
+	 *            the {@link String} to split
+	 * @return the word lists of the fragments
+	 */
+	private static List<String[]> fragments(String query) {
+		List<String[]> fragments = new ArrayList<String[]>();
+
 		// clean up query
 		query = clean(query);
 
 		// split at punctuation and iterate parts
 		for (String queryFragment : query.split(punctuationRegEx)) {
-
 			if (0 < queryFragment.length()) {
-
-				// initialize list of terms to match
-				List<String> terms = new ArrayList<String>();
-
 				// generate word list
-				String[] words = queryFragment.split(" ");
+				fragments.add(queryFragment.split(" "));
+			}
+		}
+		return fragments;
+	}
 
-				// iterate first word of term
-				for (int i = 0; i < words.length; i++) {
+	/**
+	 * Returns all terms of up to {@link #maxWordsToProcess} subsequent words,
+	 * filtering stop words.
+	 * 
+	 * @param words
+	 *            the words of a query fragment
+	 * @return the terms to match
+	 */
+	private static List<String> terms(String[] words) {
+		// initialize list of terms to match
+		List<String> terms = new ArrayList<String>();
 
-					// iterate last word of term (backward)
-					for (int j = Math.min(i + maxWordsToProcess, words.length); j > i; j--) {
+		// iterate first word of term
+		for (int i = 0; i < words.length; i++) {
 
-						// add word sequence to term list, filtering stop words
-						String term = StringUtils.join(words, " ", i, j);
-						if (!StopWords.isStopWord(term)) {
-							terms.add(term);
-						}
-					}
-				}
+			// iterate last word of term (backward)
+			for (int j = Math.min(i + maxWordsToProcess, words.length); j > i; j--) {
 
-				// match term list
-				Map<String, Map<IRI, Double>> match;
-				try {
-					match = this.adapterManager.getMatches(terms, Scope.getIris(scopes));
-				} catch (SemanticDataSourceException e) {
-					throw new AnnotatorException("Failed to match the given term.", e);
+				// add word sequence to term list, filtering stop words
+				String term = StringUtils.join(words, " ", i, j);
+				if (!StopWords.isStopWord(term)) {
+					terms.add(term);
 				}
+			}
+		}
+		return terms;
+	}
 
-				// initialize skip position (end of term must be after the skip
-				// position, to make terms distinct)
-				int skipPosition = 0;
-
-				// select results
-				// iterate first word of term again
-				for (int i = 0; i < words.length; i++) {
-
-					// iterate last word of term (backward) again
-					for ( // s tart with max number of words
-							int j = Math.min(i + maxWordsToProcess, words.length);
-							// stop, if last word is before first word or before
-							// the skip position
-							j > Math.max(i, skipPosition);
-							// remove last word
-							j--) {
-
-						String term = StringUtils.join(words, " ", i, j);
-
-						if (predefined.containsKey(term)) {
-							// annotation for the term is predefined
-
-							Double predefinedRank = match.getOrDefault(term, Collections.emptyMap())
-									.getOrDefault(predefined.get(term), 1.0);
-
-							if (skipping) {
-								// use predefined annotation
-								results.put(term, Collections.singletonMap(predefined.get(term), predefinedRank));
-							} else {
-								results.put(term, match.getOrDefault(term, new HashMap<IRI, Double>()));
-								// enforce containing predefined
-								results.get(term).put(predefined.get(term), predefinedRank);
+	/**
+	 * Selects the annotations of a query fragment from its matches.
+	 * 
+	 * @param words
+	 *            the words of the query fragment
+	 * @param match
+	 *            the matches of the terms of the query fragment
+	 * @param distinct
+	 *            if <code>true</code> the results will not contain results for
+	 *            subterms of terms, that provide a result
+	 * @param skipping
+	 *            if <code>true</code> the result will not contain further results
+	 *            for terms contained in the set of predefined terms
+	 * @param predefined
+	 *            the predefined annotations to consider
+	 * @param excluded
+	 *            the {@link Map} of terms and {@link IRI}s to exclude from
+	 *            annotation
+	 * @param results
+	 *            the {@link Map} to put the selected annotations into
+	 */
+	private static void select(String[] words, Map<String, Map<IRI, Double>> match, boolean distinct,
+			boolean skipping, Map<String, IRI> predefined, Map<String, Collection<IRI>> excluded,
+			Map<String, Map<IRI, Double>> results) {
+
+		// initialize skip position (end of term must be after the skip
+		// position, to make terms distinct)
+		int skipPosition = 0;
+
+		// select results
+		// iterate first word of term again
+		for (int i = 0; i < words.length; i++) {
+
+			// iterate last word of term (backward) again
+			for ( // s tart with max number of words
+					int j = Math.min(i + maxWordsToProcess, words.length);
+					// stop, if last word is before first word or before
+					// the skip position
+					j > Math.max(i, skipPosition);
+					// remove last word
+					j--) {
+
+				String term = StringUtils.join(words, " ", i, j);
+
+				if (predefined.containsKey(term)) {
+					// annotation for the term is predefined
+
+					Double predefinedRank = match.getOrDefault(term, Collections.emptyMap())
+							.getOrDefault(predefined.get(term), 1.0);
+
+					if (skipping) {
+						// use predefined annotation
+						results.put(term, Collections.singletonMap(predefined.get(term), predefinedRank));
+					} else {
+						results.put(term, match.getOrDefault(term, new HashMap<IRI, Double>()));
+						// enforce containing predefined
+						results.get(term).put(predefined.get(term), predefinedRank);
+					}
+
+					// do not select subterms
+					skipPosition = j;
+					break;
+				} else {
+					if (match.containsKey(term)) {
+						// term provided results
+
+						// remove excluded IRIs for the term
+						if (excluded.containsKey(term)) {
+							for (IRI excludedIri : excluded.get(term)) {
+								match.get(term).remove(excludedIri);
 							}
+						}
+
+						if (!match.get(term).isEmpty()) {
+							// term still provided results
+
+							// put term and match list to results
+							results.put(term, match.get(term));
 
-							// do not select subterms
-							skipPosition = j;
-							break;
-						} else {
-							if (match.containsKey(term)) {
-								// term provided results
-
-								// remove excluded IRIs for the term
-								if (excluded.containsKey(term)) {
-									for (IRI excludedIri : excluded.get(term)) {
-										match.get(term).remove(excludedIri);
-									}
-								}
-
-								if (!match.get(term).isEmpty()) {
-									// term still provided results
-
-									// put term and match list to results
-									results.put(term, match.get(term));
-
-									if (distinct) {
-										// distinct results are requested
-
-										// do not select subterms
-										skipPosition = j;
-										break;
-									}
-								}
+							if (distinct) {
+								// distinct results are requested
+
+								// do not select subterms
+								skipPosition = j;
+								break;
 							}
 						}
 					}
 				}
 			}
 		}
-
-		return results;
 	}
 
 	/**
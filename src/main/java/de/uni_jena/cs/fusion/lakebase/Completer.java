@@ -22,9 +22,23 @@ package de.uni_jena.cs.fusion.lakebase;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
 
 import org.apache.commons.lang3.StringUtils;
 import org.semanticweb.owlapi.model.IRI;
@@ -33,6 +47,7 @@ import de.uni_jena.cs.fusion.lakebase.model.Annotation;
 import de.uni_jena.cs.fusion.lakebase.model.Completion;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSource;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceException;
+import de.uni_jena.cs.fusion.util.concurrent.CompletableFutures;
 
 /**
  * 
@@ -42,11 +57,44 @@ import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceException;
 public class Completer {
 
 	private static final int minStumpLength = 4;
+	/**
+	 * number of completions per stump, adapters might truncate at
+	 */
+	public static final int LIMIT = 10;
 
 	private SemanticDataSource semanticDataSource;
+	private final CompletionIndex completionIndex;
+	private final CompletionSessions completionSessions;
 
 	public Completer(SemanticDataSource adapterManager) {
+		this(adapterManager, null);
+	}
+
+	/**
+	 * @since 0.3.9
+	 */
+	public Completer(SemanticDataSource adapterManager, @Nullable CompletionIndex completionIndex) {
+		this(adapterManager, completionIndex, null);
+	}
+
+	/**
+	 * @param adapterManager
+	 *            {@link SemanticDataSource} providing the suggestions
+	 * @param completionIndex
+	 *            {@link CompletionIndex} to use instead of the
+	 *            {@link SemanticDataSource} as soon as it is populated, or
+	 *            <code>null</code>
+	 * @param completionSessions
+	 *            {@link CompletionSessions} to keep the candidates of sessions
+	 *            in, or <code>null</code> to ignore sessions
+	 * 
+	 * @since 0.3.9
+	 */
+	public Completer(SemanticDataSource adapterManager, @Nullable CompletionIndex completionIndex,
+			@Nullable CompletionSessions completionSessions) {
 		this.semanticDataSource = adapterManager;
+		this.completionIndex = completionIndex;
+		this.completionSessions = completionSessions;
 	}
 
 	/**
@@ -57,6 +105,71 @@ public class Completer {
 	 * @throws SemanticDataSourceException
 	 */
 	public List<Completion> complete(String query, Collection<Scope> scopes) throws SemanticDataSourceException {
+		return complete(query, scopes, null);
+	}
+
+	/**
+	 * Completes the stumps of a query. If a session is given, the candidates
+	 * of the previous request of the session get narrowed for extended stumps,
+	 * if the {@link CompletionIndex} reported them to be exhaustive, and a
+	 * previous request of the session still in progress gets cancelled.
+	 * 
+	 * @param query
+	 *            the text to complete
+	 * @param scopes
+	 *            the scopes of the completions
+	 * @param session
+	 *            key of the session of the client or <code>null</code>
+	 * @return {@link List} of {@link Completion}s
+	 * @throws SemanticDataSourceException
+	 * @throws CancellationException
+	 *             if superseded by a later request of the same session
+	 * 
+	 * @since 0.3.9
+	 */
+	public List<Completion> complete(String query, Collection<Scope> scopes, @Nullable String session)
+			throws SemanticDataSourceException {
+		CompletableFuture<List<Completion>> completions = completeAsync(query, scopes, session, Runnable::run);
+		try {
+			return completions.get();
+		} catch (InterruptedException e) {
+			completions.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new SemanticDataSourceException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SemanticDataSourceException) {
+				throw (SemanticDataSourceException) e.getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else {
+				throw new SemanticDataSourceException(e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Completes the stumps of a query like
+	 * {@link #complete(String, Collection, String)}, but composes the futures
+	 * of the adapters instead of waiting for them. A superseded call of the
+	 * same session gets cancelled by cancelling its adapter futures.
+	 * 
+	 * @param query
+	 *            the text to complete
+	 * @param scopes
+	 *            the scopes of the completions
+	 * @param session
+	 *            key of the session of the client or <code>null</code>
+	 * @param executor
+	 *            the {@link Executor} to pass to the {@link SemanticDataSource}
+	 * @return future of the {@link List} of {@link Completion}s, failing with a
+	 *         {@link SemanticDataSourceException} or a
+	 *         {@link CancellationException}, if superseded by a later request
+	 *         of the same session
+	 * 
+	 * @since 0.3.9
+	 */
+	public CompletableFuture<List<Completion>> completeAsync(String query, Collection<Scope> scopes,
+			@Nullable String session, Executor executor) {
 
 		// TODO consider punctuation
 
@@ -80,23 +193,113 @@ public class Completer {
 			}
 		}
 
-		List<Completion> completions = new ArrayList<Completion>();
+		if (session == null || completionSessions == null) {
+			return CompletableFutures.map(getSuggestionsAsync(stumps, scopes, null, executor), suggestionsPerStump -> {
+				List<Completion> completions = new ArrayList<Completion>();
+				for (Entry<String, Map<IRI, String>> suggestions : suggestionsPerStump.entrySet()) {
+					Completion completion = new Completion();
+					completion.stump = suggestions.getKey();
+					completion.completions = annotations(suggestions.getValue());
+					completions.add(completion);
+				}
+				return completions;
+			});
+		}
 
-		for (Entry<String, Map<IRI, String>> suggestions : semanticDataSource
-				.getSuggestions(stumps, Scope.getIris(scopes)).entrySet()) {
-			Completion completion = new Completion();
+		CompletionSessions.Call call = completionSessions.begin(session + "\n"
+				+ scopes.stream().map(Scope::name).sorted().collect(Collectors.joining(",")));
+		Map<String, CompletionSessions.Candidates> narrowedCandidates = new HashMap<String, CompletionSessions.Candidates>();
+		List<String> missingStumps = new ArrayList<String>();
+		for (String stump : stumps) {
+			CompletionSessions.Candidates narrowed = call.narrow(stump);
+			if (narrowed != null) {
+				narrowedCandidates.put(stump.toLowerCase(Locale.ROOT), narrowed);
+			} else {
+				missingStumps.add(stump);
+			}
+		}
+		Set<String> exhaustiveStumps = new HashSet<String>();
+		CompletableFuture<Map<String, Map<IRI, String>>> missingSuggestions = missingStumps.isEmpty()
+				? CompletableFuture.completedFuture(Collections.emptyMap())
+				: getSuggestionsAsync(missingStumps, scopes, exhaustiveStumps, executor);
+		call.setFuture(missingSuggestions);
 
-			completion.stump = suggestions.getKey();
-			completion.completions = new ArrayList<Annotation>();
+		return CompletableFutures.handle(missingSuggestions, (suggestions, e) -> {
+			Map<String, CompletionSessions.Candidates> candidates = null;
+			try {
+				if (e == null) {
+					candidates = narrowedCandidates;
+					for (String stump : missingStumps) {
+						List<Annotation> annotations = annotations(
+								suggestions.getOrDefault(stump, Collections.emptyMap()));
+						candidates.put(stump.toLowerCase(Locale.ROOT),
+								new CompletionSessions.Candidates(annotations, exhaustiveStumps.contains(stump)));
+					}
+				}
+			} finally {
+				call.end(candidates);
+			}
+			if (call.isCancelled()) {
+				throw new CancellationException("Superseded by a later request of the same session.");
+			}
+			if (e != null) {
+				throw (e instanceof CompletionException) ? (CompletionException) e : new CompletionException(e);
+			}
 
-			for (Entry<IRI, String> suggestion : suggestions.getValue().entrySet()) {
-				completion.completions.add(new Annotation(suggestion.getKey(), suggestion.getValue()));
+			List<Completion> completions = new ArrayList<Completion>();
+			for (String stump : stumps) {
+				List<Annotation> annotations = candidates.get(stump.toLowerCase(Locale.ROOT)).annotations;
+				if (!annotations.isEmpty()) {
+					Completion completion = new Completion();
+					completion.stump = stump;
+					completion.completions = new ArrayList<Annotation>(annotations);
+					completions.add(completion);
+				}
 			}
+			return completions;
+		});
+	}
 
-			completions.add(completion);
+	/**
+	 * @param stumps
+	 *            the stumps to complete
+	 * @param scopes
+	 *            the scopes of the completions
+	 * @param exhaustiveStumps
+	 *            {@link Collection} to add the stumps with suggestions
+	 *            containing all labels starting with the stump to, or
+	 *            <code>null</code>
+	 * @param executor
+	 *            the {@link Executor} to pass to the {@link SemanticDataSource}
+	 * @return future of the suggestions by stump
+	 */
+	private CompletableFuture<Map<String, Map<IRI, String>>> getSuggestionsAsync(List<String> stumps,
+			Collection<Scope> scopes, @Nullable Collection<String> exhaustiveStumps, Executor executor) {
+		if (completionIndex != null && completionIndex.isReady()) {
+			Collection<IRI> scopeIris = Scope.getIris(scopes);
+			Map<String, Map<IRI, String>> suggestionsPerStump = new LinkedHashMap<String, Map<IRI, String>>();
+			for (String stump : stumps) {
+				CompletionIndex.Completions suggestions = completionIndex.lookup(stump, scopeIris);
+				if (!suggestions.completions.isEmpty()) {
+					suggestionsPerStump.put(stump, suggestions.completions);
+				}
+				if (exhaustiveStumps != null && suggestions.exhaustive) {
+					exhaustiveStumps.add(stump);
+				}
+			}
+			return CompletableFuture.completedFuture(suggestionsPerStump);
+		} else {
+			// adapters neither report truncation nor match like the sessions
+			return semanticDataSource.getSuggestionsAsync(stumps, Scope.getIris(scopes), executor);
 		}
+	}
 
-		return completions;
+	private static List<Annotation> annotations(Map<IRI, String> suggestions) {
+		List<Annotation> annotations = new ArrayList<Annotation>();
+		for (Entry<IRI, String> suggestion : suggestions.entrySet()) {
+			annotations.add(new Annotation(suggestion.getKey(), suggestion.getValue()));
+		}
+		return annotations;
 	}
 
 }
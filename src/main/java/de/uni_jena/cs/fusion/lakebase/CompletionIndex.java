@@ -0,0 +1,229 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSource;
+import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceException;
+import de.uni_jena.cs.fusion.util.maintainer.Maintainable;
+import de.uni_jena.cs.fusion.util.maintainer.MaintenanceException;
+import de.uni_jena.cs.fusion.util.trie.CompletionTrie;
+
+/**
+ * <p>
+ * In-memory completion index, alternative to the suggestions of the adapters.
+ * </p>
+ * 
+ * <p>
+ * The index contains the labels and alternative labels of the concepts of
+ * adapters with locally available signatures, one {@link CompletionTrie} per
+ * adapter to respect the scopes of the adapters. Completions are ranked by the
+ * number of annotations of the concepts according to
+ * <code>semantic.used_concept</code>, so that frequently used concepts come
+ * first.
+ * </p>
+ * 
+ * <p>
+ * The index must be populated by {@link #rebuild()} before use and gets
+ * rebuilt during maintenance to include updates of the adapters and usage
+ * counts.
+ * </p>
+ * 
+ * @since 0.3.9
+ *
+ */
+public class CompletionIndex implements Maintainable {
+
+	private final static Logger log = LoggerFactory.getLogger(CompletionIndex.class);
+
+	private final ConceptManager conceptManager;
+	private final Collection<SemanticDataSource> adapters;
+	private final int limit;
+	/**
+	 * tries by adapter, <code>null</code> until the first rebuild
+	 */
+	private volatile Map<SemanticDataSource, CompletionTrie<IRI>> tries;
+
+	/**
+	 * @param conceptManager
+	 *            {@link ConceptManager} providing the usage of the concepts
+	 * @param adapters
+	 *            adapters to index, which must provide their signature and
+	 *            labels
+	 * @param limit
+	 *            maximum number of completions per stump
+	 */
+	public CompletionIndex(ConceptManager conceptManager, Collection<SemanticDataSource> adapters, int limit) {
+		this.conceptManager = conceptManager;
+		this.adapters = new ArrayList<SemanticDataSource>(adapters);
+		this.limit = limit;
+	}
+
+	/**
+	 * Rebuilds the whole index. Completions will use the previous state of the
+	 * index until the rebuild is completed. The previous state of an adapter is
+	 * kept, if its concepts are currently not available.
+	 * 
+	 * @throws ConceptManagerException
+	 */
+	public void rebuild() throws ConceptManagerException {
+		log.info("rebuilding ...");
+		Map<IRI, Long> usage = conceptManager.getUsage();
+		Map<SemanticDataSource, CompletionTrie<IRI>> previous = this.tries;
+		Map<SemanticDataSource, CompletionTrie<IRI>> rebuilt = new LinkedHashMap<SemanticDataSource,
+				CompletionTrie<IRI>>();
+		int size = 0;
+		for (SemanticDataSource adapter : adapters) {
+			try {
+				CompletionTrie.Builder<IRI> builder = new CompletionTrie.Builder<IRI>();
+				for (IRI iri : adapter.getSignature()) {
+					long weight = usage.getOrDefault(iri, 0L);
+					for (String label : adapter.getLabels(iri)) {
+						builder.add(label, iri, weight);
+					}
+					if (adapter.providingAlternativeLabels()) {
+						for (String label : adapter.getAlternativeLabels(iri)) {
+							builder.add(label, iri, weight);
+						}
+					}
+				}
+				rebuilt.put(adapter, builder.build(limit));
+			} catch (SemanticDataSourceException | RuntimeException e) {
+				log.warn("Failed to index \"{}\".", adapter, e);
+				if (previous != null && previous.containsKey(adapter)) {
+					rebuilt.put(adapter, previous.get(adapter));
+				}
+			}
+			if (rebuilt.containsKey(adapter)) {
+				size += rebuilt.get(adapter).size();
+			}
+		}
+		this.tries = rebuilt;
+		log.info("rebuilt with {} labels", size);
+	}
+
+	/**
+	 * @return <code>true</code>, if the index has been populated
+	 */
+	public boolean isReady() {
+		return this.tries != null;
+	}
+
+	/**
+	 * Returns the top ranked concepts with a label starting with the given
+	 * stump.
+	 * 
+	 * @param stump
+	 *            the stump to complete, matched case insensitive
+	 * @param scopes
+	 *            {@link IRI}s of the scopes of the adapters to use
+	 * @return {@link Map} of the concept {@link IRI}s and their matching labels
+	 *         in rank order
+	 */
+	public Map<IRI, String> complete(String stump, Collection<IRI> scopes) {
+		return lookup(stump, scopes).completions;
+	}
+
+	/**
+	 * Returns the top ranked concepts with a label starting with the given
+	 * stump and whether these are all matching labels.
+	 * 
+	 * @param stump
+	 *            the stump to complete, matched case insensitive
+	 * @param scopes
+	 *            {@link IRI}s of the scopes of the adapters to use
+	 * @return the {@link Completions} of the stump
+	 */
+	public Completions lookup(String stump, Collection<IRI> scopes) {
+		Map<SemanticDataSource, CompletionTrie<IRI>> tries = this.tries;
+		if (tries == null) {
+			return new Completions(Collections.emptyMap(), false);
+		}
+		boolean exhaustive = true;
+		List<CompletionTrie.Completion<IRI>> completions = new ArrayList<CompletionTrie.Completion<IRI>>();
+		for (Map.Entry<SemanticDataSource, CompletionTrie<IRI>> entry : tries.entrySet()) {
+			try {
+				if (!Collections.disjoint(entry.getKey().getScopes(), scopes)) {
+					completions.addAll(entry.getValue().complete(stump, limit));
+					exhaustive &= entry.getValue().isExhaustive(stump, limit);
+				}
+			} catch (SemanticDataSourceException e) {
+				log.warn("Failed to get scopes of \"{}\".", entry.getKey(), e);
+				exhaustive = false;
+			}
+		}
+		// same order as inside of the tries, stable for equal labels of different adapters
+		completions.sort(Comparator.comparingLong((CompletionTrie.Completion<IRI> completion) -> -completion.weight)
+				.thenComparingInt(completion -> completion.text.length()));
+		Map<IRI, String> results = new LinkedHashMap<IRI, String>();
+		for (CompletionTrie.Completion<IRI> completion : completions) {
+			if (results.size() == limit) {
+				break;
+			}
+			results.putIfAbsent(completion.value, completion.text);
+		}
+		// labels omitted by the limit or for concepts of several adapters are missing
+		return new Completions(results, exhaustive && results.size() == completions.size());
+	}
+
+	/**
+	 * Completions of a stump.
+	 * 
+	 * @since 0.3.9
+	 */
+	public static class Completions {
+		/**
+		 * concept {@link IRI}s and their matching labels in rank order
+		 */
+		public final Map<IRI, String> completions;
+		/**
+		 * <code>true</code>, if the completions contain all labels of all
+		 * concepts starting with the stump
+		 */
+		public final boolean exhaustive;
+
+		private Completions(Map<IRI, String> completions, boolean exhaustive) {
+			this.completions = completions;
+			this.exhaustive = exhaustive;
+		}
+	}
+
+	@Override
+	public void maintain() throws MaintenanceException {
+		try {
+			this.rebuild();
+		} catch (ConceptManagerException e) {
+			throw new MaintenanceException("Failed to rebuild completion index.", e);
+		}
+	}
+}
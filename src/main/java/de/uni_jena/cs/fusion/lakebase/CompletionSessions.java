@@ -0,0 +1,234 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import de.uni_jena.cs.fusion.lakebase.model.Annotation;
+
+/**
+ * <p>
+ * Short-lived state of completion sessions, e.g. the completion requests
+ * caused by the keystrokes of a user typing into one input field.
+ * </p>
+ * 
+ * <p>
+ * Each session keeps the candidates of the stumps of its previous request.
+ * Candidates of an extended stump are derived locally from the candidates of
+ * its longest previous prefix stump, if these contained all labels starting
+ * with the prefix stump. Each
+ * session has at most one call in progress. Beginning a new call cancels the
+ * previous call by cancelling its future, so that the adapters stop working on
+ * it.
+ * </p>
+ * 
+ * @since 0.3.9
+ *
+ */
+public class CompletionSessions {
+
+	private final Cache<String, Session> sessions;
+
+	/**
+	 * @param capacity
+	 *            maximum number of sessions
+	 * @param expiry
+	 *            time after the last request of a session until it expires
+	 * @param unit
+	 *            unit of the expiry
+	 */
+	public CompletionSessions(long capacity, long expiry, TimeUnit unit) {
+		this.sessions = CacheBuilder.newBuilder().maximumSize(capacity).expireAfterAccess(expiry, unit).build();
+	}
+
+	/**
+	 * Begins a new call of a session and cancels the previous call of the
+	 * session, if still in progress.
+	 * 
+	 * @param key
+	 *            key of the session, including all parameters beside of the
+	 *            query the completions depend on
+	 * @return the new {@link Call}, which must be ended
+	 */
+	public Call begin(String key) {
+		Session session;
+		try {
+			session = this.sessions.get(key, Session::new);
+		} catch (ExecutionException e) {
+			// unreachable, as session creation does not fail
+			throw new IllegalStateException(e);
+		}
+		return session.begin();
+	}
+
+	/**
+	 * Candidates of a stump.
+	 */
+	static class Candidates {
+		final List<Annotation> annotations;
+		/**
+		 * <code>true</code>, if the candidates contain all labels starting with
+		 * the stump
+		 */
+		final boolean complete;
+
+		Candidates(List<Annotation> annotations, boolean complete) {
+			this.annotations = annotations;
+			this.complete = complete;
+		}
+	}
+
+	private static class Session {
+		/**
+		 * candidates by lower case stump
+		 */
+		private Map<String, Candidates> candidates = Collections.emptyMap();
+		private Call current;
+
+		private synchronized Call begin() {
+			if (this.current != null) {
+				this.current.cancel();
+			}
+			this.current = new Call(this);
+			return this.current;
+		}
+
+		private synchronized void end(Call call, Map<String, Candidates> candidates) {
+			if (candidates != null && !call.isCancelled()) {
+				this.candidates = candidates;
+			}
+			if (this.current == call) {
+				this.current = null;
+			}
+		}
+
+		private synchronized Map<String, Candidates> getCandidates() {
+			return this.candidates;
+		}
+	}
+
+	/**
+	 * A single call of a completion session.
+	 */
+	public static class Call {
+		private final Session session;
+		private Future<?> future;
+		private boolean cancelled = false;
+		private boolean ended = false;
+
+		private Call(Session session) {
+			this.session = session;
+		}
+
+		private synchronized void cancel() {
+			if (!this.ended) {
+				this.cancelled = true;
+				if (this.future != null) {
+					this.future.cancel(true);
+				}
+			}
+		}
+
+		/**
+		 * Sets the future to cancel, if this call gets superseded. The future
+		 * gets cancelled immediately, if this call has already been superseded.
+		 * 
+		 * @param future
+		 *            the future of the adapter requests of this call
+		 */
+		void setFuture(Future<?> future) {
+			boolean cancelled;
+			synchronized (this) {
+				this.future = future;
+				cancelled = this.cancelled;
+			}
+			if (cancelled) {
+				// outside of the lock, as cancellation completes dependent stages
+				future.cancel(true);
+			}
+		}
+
+		/**
+		 * @return <code>true</code>, if this call has been superseded by a later
+		 *         call of the same session
+		 */
+		public synchronized boolean isCancelled() {
+			return this.cancelled;
+		}
+
+		/**
+		 * Derives the candidates of a stump from the candidates of the previous
+		 * call.
+		 * 
+		 * @param stump
+		 *            the stump to complete
+		 * @return the derived candidates or <code>null</code>, if the stump
+		 *         requires a full lookup
+		 */
+		Candidates narrow(String stump) {
+			String key = stump.toLowerCase(Locale.ROOT);
+			Candidates prefixCandidates = null;
+			int prefixLength = -1;
+			for (Entry<String, Candidates> entry : this.session.getCandidates().entrySet()) {
+				if (key.startsWith(entry.getKey()) && entry.getKey().length() > prefixLength) {
+					prefixCandidates = entry.getValue();
+					prefixLength = entry.getKey().length();
+				}
+			}
+			if (prefixCandidates == null || !prefixCandidates.complete) {
+				return null;
+			}
+			List<Annotation> annotations = prefixCandidates.annotations.stream()
+					.filter(annotation -> annotation.label != null
+							&& annotation.label.toLowerCase(Locale.ROOT).startsWith(key))
+					.collect(Collectors.toList());
+			return annotations.isEmpty() ? null : new Candidates(annotations, true);
+		}
+
+		/**
+		 * Ends this call.
+		 * 
+		 * @param candidates
+		 *            candidates by lower case stump to derive the candidates of
+		 *            the next call from, or <code>null</code> if this call
+		 *            failed
+		 */
+		void end(Map<String, Candidates> candidates) {
+			synchronized (this) {
+				this.ended = true;
+				this.future = null;
+			}
+			this.session.end(this, candidates);
+		}
+	}
+}
@@ -22,17 +22,26 @@ package de.uni_jena.cs.fusion.lakebase;
 
 import static org.jooq.impl.DSL.field;
 import static org.jooq.impl.DSL.table;
+import static org.jooq.impl.DSL.val;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EventListener;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.sql.DataSource;
 
 import org.jooq.DSLContext;
+import org.jooq.Record;
 import org.jooq.SQLDialect;
 import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
@@ -40,10 +49,22 @@ import org.semanticweb.owlapi.model.IRI;
 
 import de.uni_jena.cs.fusion.lakebase.util.jooq.StringToIRIConverter;
 
+/**
+ * Manages the concepts known to the service. Keeps a dictionary of the
+ * {@link IRI}s and IDs of known concepts, which gets populated lazily, to avoid
+ * database roundtrips for already known concepts.
+ * <p>
+ * Concepts added or read inside of a {@link Transaction} are only added to the
+ * dictionary after its commit, as the transaction might get rolled back.
+ */
 public class ConceptManager {
 
 	private final DataSource dataSource;
 	private final Collection<EventListener> listeners = new Vector<EventListener>();
+	/**
+	 * IDs of concepts known to be committed
+	 */
+	private final Map<String, Long> ids = new ConcurrentHashMap<String, Long>();
 
 	public ConceptManager(DataSource dataSource) throws ConceptManagerException {
 		this.dataSource = dataSource;
@@ -71,21 +92,28 @@ public class ConceptManager {
 
 	public boolean add(Connection connection, IRI iri, ConceptManagerListener ignoringListener)
 			throws ConceptManagerException {
+		if (this.ids.containsKey(iri.getIRIString())) {
+			return false;
+		}
 		try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5);) {
 
-			int result = sql.insertInto(table("semantic.concept"), field("concept_iri")).values(iri.getIRIString())
-					.onDuplicateKeyIgnore().execute();
+			Record record = sql.resultQuery(
+					"INSERT INTO semantic.concept (concept_iri) VALUES ({0}) ON CONFLICT DO NOTHING RETURNING concept_id",
+					val(iri.getIRIString())).fetchOne();
 
-			if (result > 0) {
+			if (record != null) {
+				remember(connection, Collections.singletonMap(iri.getIRIString(), record.get(0, Long.class)));
 				for (EventListener listener : listeners) {
 					if (listener instanceof ConceptManagerListener
 							&& (ignoringListener == null || ignoringListener != listener)) {
 						((ConceptManagerListener) listener).newConcept(iri, connection);
 					}
 				}
+			} else {
+				lookup(sql, connection, Collections.singleton(iri.getIRIString()));
 			}
 
-			return result > 0;
+			return record != null;
 
 		} catch (DataAccessException | ConceptManagerListenerException e) {
 			throw new ConceptManagerException("Failed to add IRI \"" + iri + "\".", e);
@@ -93,32 +121,145 @@ public class ConceptManager {
 	}
 
 	public boolean addAll(Collection<IRI> iris) throws ConceptManagerException {
-		Collection<IRI> newIris = new ArrayList<IRI>();
 		try (Connection connection = dataSource.getConnection()) {
-			try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5);) {
+			return this.addAll(connection, iris);
+		} catch (SQLException e) {
+			throw new ConceptManagerException("Failed to add IRIs \"" + iris + "\".", e);
+		}
+	}
 
-				// TODO use batch for performance? But how to get new iris?
-				for (IRI iri : iris) {
-					if (sql.insertInto(table("semantic.concept"), field("concept_iri")).values(iri.getIRIString())
-							.onDuplicateKeyIgnore().execute() > 0) {
-						newIris.add(iri);
-					}
-				}
+	/**
+	 * Adds multiple concepts. Concepts not contained in the dictionary get
+	 * inserted with a single statement.
+	 * 
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param iris
+	 *            {@link IRI}s of the concepts to add
+	 * @return <code>true</code>, if at least one concept was not known before
+	 * @throws ConceptManagerException
+	 */
+	public boolean addAll(Connection connection, Collection<IRI> iris) throws ConceptManagerException {
+		Set<String> unknown = new HashSet<String>();
+		for (IRI iri : iris) {
+			if (!this.ids.containsKey(iri.getIRIString())) {
+				unknown.add(iri.getIRIString());
 			}
+		}
+		if (unknown.isEmpty()) {
+			return false;
+		}
+		Collection<IRI> newIris = new ArrayList<IRI>();
+		try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5);) {
+			Map<String, Long> inserted = new HashMap<String, Long>();
+			for (Record record : sql.resultQuery(
+					"INSERT INTO semantic.concept (concept_iri) SELECT iri FROM unnest({0}) AS t (iri) ON CONFLICT DO NOTHING RETURNING concept_iri, concept_id",
+					val(unknown.toArray(new String[0]))).fetch()) {
+				String iri = record.get(0, String.class);
+				inserted.put(iri, record.get(1, Long.class));
+				unknown.remove(iri);
+				newIris.add(IRI.create(iri));
+			}
+			remember(connection, inserted);
 
-			for (EventListener listener : listeners) {
-				if (listener instanceof ConceptManagerListener) {
-					((ConceptManagerListener) listener).newConcepts(newIris, connection);
+			// learn IDs of concepts added before
+			lookup(sql, connection, unknown);
+
+			if (!newIris.isEmpty()) {
+				for (EventListener listener : listeners) {
+					if (listener instanceof ConceptManagerListener) {
+						((ConceptManagerListener) listener).newConcepts(newIris, connection);
+					}
 				}
 			}
 
 			return !newIris.isEmpty();
 
-		} catch (DataAccessException | SQLException | ConceptManagerListenerException e) {
+		} catch (DataAccessException | ConceptManagerListenerException e) {
 			throw new ConceptManagerException("Failed to add IRIs \"" + iris + "\".", e);
 		}
 	}
 
+	/**
+	 * Returns the ID of a concept.
+	 * 
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param iri
+	 *            {@link IRI} of the concept
+	 * @return the ID of the concept or <code>null</code>, if the concept is
+	 *         unknown
+	 * @throws ConceptManagerException
+	 */
+	public Long getId(Connection connection, IRI iri) throws ConceptManagerException {
+		return getIds(connection, Collections.singleton(iri)).get(iri);
+	}
+
+	/**
+	 * Returns the IDs of concepts. Only IDs not contained in the dictionary will
+	 * be queried from the database.
+	 * 
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param iris
+	 *            {@link IRI}s of the concepts
+	 * @return {@link Map} of the {@link IRI}s of known concepts and their IDs
+	 * @throws ConceptManagerException
+	 */
+	public Map<IRI, Long> getIds(Connection connection, Collection<IRI> iris) throws ConceptManagerException {
+		Map<IRI, Long> result = new HashMap<IRI, Long>();
+		Set<String> unknown = new HashSet<String>();
+		for (IRI iri : iris) {
+			Long id = this.ids.get(iri.getIRIString());
+			if (id != null) {
+				result.put(iri, id);
+			} else {
+				unknown.add(iri.getIRIString());
+			}
+		}
+		if (!unknown.isEmpty()) {
+			try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5);) {
+				for (Entry<String, Long> entry : lookup(sql, connection, unknown).entrySet()) {
+					result.put(IRI.create(entry.getKey()), entry.getValue());
+				}
+			} catch (DataAccessException e) {
+				throw new ConceptManagerException("Failed to get IDs of IRIs \"" + unknown + "\".", e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Queries the IDs of concepts and adds them to the dictionary.
+	 */
+	private Map<String, Long> lookup(DSLContext sql, Connection connection, Collection<String> iris) {
+		Map<String, Long> result = new HashMap<String, Long>();
+		if (!iris.isEmpty()) {
+			for (Record record : sql.select(field("concept_iri"), field("concept_id")).from(table("semantic.concept"))
+					.where(field("concept_iri", String.class).eq(DSL.any(iris.toArray(new String[0])))).fetch()) {
+				result.put(record.get(0, String.class), record.get(1, Long.class));
+			}
+			remember(connection, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds IDs to the dictionary after the current transaction of the given
+	 * {@link Connection} has been committed. IDs obtained inside of a
+	 * transaction without a {@link Transaction} will not be added.
+	 */
+	private void remember(Connection connection, Map<String, Long> ids) {
+		if (ids.isEmpty()) {
+			return;
+		}
+		try {
+			Transaction.afterCommit(connection, () -> this.ids.putAll(ids));
+		} catch (SQLException | IllegalStateException e) {
+			// not known to get committed, will be queried again
+		}
+	}
+
 	public Collection<IRI> getAll() throws ConceptManagerException {
 		try (Connection connection = dataSource.getConnection()) {
 			try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5);) {
@@ -140,4 +281,28 @@ public class ConceptManager {
 			throw new ConceptManagerException(e);
 		}
 	}
+
+	/**
+	 * Returns the number of annotations of each annotated concept.
+	 * 
+	 * @return {@link Map} of the concept {@link IRI}s and their number of
+	 *         annotations
+	 * @throws ConceptManagerException
+	 * 
+	 * @since 0.3.9
+	 */
+	public Map<IRI, Long> getUsage() throws ConceptManagerException {
+		try (Connection connection = dataSource.getConnection()) {
+			try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5);) {
+				Map<IRI, Long> usage = new HashMap<IRI, Long>();
+				for (Record record : sql.resultQuery("SELECT c.concept_iri, count(*) FROM semantic.used_concept c "
+						+ "JOIN semantic.annotation a ON a.concept_id = c.concept_id GROUP BY c.concept_iri")) {
+					usage.put(IRI.create(record.get(0, String.class)), record.get(1, Long.class));
+				}
+				return usage;
+			}
+		} catch (DataAccessException | SQLException e) {
+			throw new ConceptManagerException(e);
+		}
+	}
 }
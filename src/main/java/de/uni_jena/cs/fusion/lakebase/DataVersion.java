@@ -0,0 +1,218 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+
+import de.uni_jena.cs.fusion.util.maintainer.Maintainable;
+import de.uni_jena.cs.fusion.util.maintainer.MaintenanceException;
+
+/**
+ * <p>
+ * Counter of changes of the annotations and the concept hierarchy. Results
+ * derived from these data can be cached together with the version they were
+ * computed at and are outdated as soon as the version changed.
+ * </p>
+ * 
+ * <p>
+ * With a {@link DataSource}, the version is shared by all service instances
+ * using <code>semantic.data_version</code> and read on each {@link #get()}.
+ * Changing transactions increment it right before their commit and record
+ * their changes of the search index in <code>semantic.data_change</code>, so
+ * that other instances can update their in-memory search index. Without a
+ * {@link DataSource}, the version is only valid inside of this instance.
+ * </p>
+ * 
+ * @since 0.3.9
+ *
+ */
+public class DataVersion implements Maintainable {
+
+	/**
+	 * ID of this service instance in <code>semantic.data_change</code>
+	 */
+	private final UUID origin = UUID.randomUUID();
+	private final DataSource dataSource;
+	private final AtomicLong version = new AtomicLong();
+	private final Runnable increment = this::increment;
+
+	public DataVersion() {
+		this(null);
+	}
+
+	/**
+	 * @param dataSource
+	 *            {@link DataSource} to share the version with other service
+	 *            instances or <code>null</code>
+	 */
+	public DataVersion(@Nullable DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * @return the current version
+	 * @throws DataAccessException
+	 *             if the shared version could not be read
+	 */
+	public long get() {
+		if (this.dataSource == null) {
+			return this.version.get();
+		}
+		try (Connection connection = this.dataSource.getConnection();
+				DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+			return sql.fetchOne("SELECT version FROM semantic.data_version").get(0, Long.class);
+		} catch (SQLException e) {
+			throw new DataAccessException("Failed to read data version.", e);
+		}
+	}
+
+	/**
+	 * Increments the version. Must be called after changes have been
+	 * committed.
+	 * 
+	 * @throws DataAccessException
+	 *             if the shared version could not be incremented
+	 */
+	public void increment() {
+		if (this.dataSource == null) {
+			this.version.incrementAndGet();
+			return;
+		}
+		try (Connection connection = this.dataSource.getConnection()) {
+			new Change(connection).run();
+		} catch (SQLException e) {
+			throw new DataAccessException("Failed to increment data version.", e);
+		}
+	}
+
+	/**
+	 * Increments the version once after the changes made on the given
+	 * {@link Connection} have been committed, or immediately, if the
+	 * {@link Connection} is in auto commit mode. The shared version gets
+	 * incremented inside of the transaction right before its commit.
+	 * 
+	 * @param connection
+	 *            {@link Connection} the changes were made on
+	 * @throws SQLException
+	 * @see Transaction#afterCommit(Connection, Runnable)
+	 * @see Transaction#beforeCommit(Connection, Object, java.util.function.Supplier)
+	 */
+	public void incrementAfterCommit(Connection connection) throws SQLException {
+		if (this.dataSource == null) {
+			Transaction.afterCommit(connection, this.increment);
+		} else if (this.change(connection) == null) {
+			new Change(connection).run();
+		}
+	}
+
+	/**
+	 * Returns the {@link Change} of the transaction in progress on the given
+	 * {@link Connection} to record changes of the search index, which will be
+	 * published together with the version increment.
+	 * 
+	 * @param connection
+	 *            {@link Connection} the changes were made on
+	 * @return the {@link Change} or <code>null</code>, if the version is not
+	 *         shared or the {@link Connection} is in auto commit mode
+	 * @throws SQLException
+	 */
+	@Nullable
+	Change change(Connection connection) throws SQLException {
+		if (this.dataSource == null) {
+			return null;
+		}
+		return Transaction.beforeCommit(connection, this, () -> new Change(connection));
+	}
+
+	/**
+	 * @return the ID of this service instance in
+	 *         <code>semantic.data_change</code>
+	 */
+	UUID getOrigin() {
+		return this.origin;
+	}
+
+	/**
+	 * Deletes recorded changes older than one day. Instances that missed
+	 * deleted changes rebuild their in-memory search index.
+	 */
+	@Override
+	public void maintain() throws MaintenanceException {
+		if (this.dataSource == null) {
+			return;
+		}
+		try (Connection connection = this.dataSource.getConnection();
+				DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+			sql.execute("DELETE FROM semantic.data_change WHERE created < current_timestamp - interval '1 day'");
+		} catch (DataAccessException | SQLException e) {
+			throw new MaintenanceException("Failed to delete recorded data changes.", e);
+		}
+	}
+
+	/**
+	 * Changes of the search index made inside of one transaction, recorded
+	 * together with the increment of the shared version.
+	 */
+	class Change implements Transaction.Preparation {
+
+		private final Connection connection;
+		boolean rebuild = false;
+		final Set<Long> narrowerConceptIds = new HashSet<Long>();
+		final Set<Long> annotatedConceptIds = new HashSet<Long>();
+		final Set<Long> packageIds = new HashSet<Long>();
+
+		private Change(Connection connection) {
+			this.connection = connection;
+		}
+
+		@Override
+		public void run() throws SQLException {
+			try (DSLContext sql = DSL.using(this.connection, SQLDialect.POSTGRES_9_5)) {
+				// the row lock orders the versions by commit
+				sql.execute("WITH v AS (UPDATE semantic.data_version SET version = version + 1 RETURNING version) "
+						+ "INSERT INTO semantic.data_change (version, origin, rebuild, narrower_concept_ids, "
+						+ "annotated_concept_ids, package_ids) SELECT v.version, {0}::uuid, {1}, {2}, {3}, {4} FROM v",
+						DSL.val(origin.toString()), DSL.val(this.rebuild), DSL.val(toArray(this.narrowerConceptIds)),
+						DSL.val(toArray(this.annotatedConceptIds)), DSL.val(toArray(this.packageIds)));
+			} catch (DataAccessException e) {
+				throw new SQLException("Failed to increment data version.", e);
+			}
+		}
+	}
+
+	private static Long[] toArray(Collection<Long> values) {
+		return values.toArray(new Long[values.size()]);
+	}
+}
@@ -0,0 +1,53 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.semanticweb.owlapi.model.IRI;
+
+import de.uni_jena.cs.fusion.lakebase.model.Entity;
+
+/**
+ * Annotations and rejected annotations to set for an entity.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class EntityAnnotations {
+
+	public final Entity entity;
+	/**
+	 * terms and their annotations
+	 */
+	public final Map<String, IRI> annotations;
+	/**
+	 * terms and their rejected annotations
+	 */
+	public final Map<String, Collection<IRI>> rejections;
+
+	public EntityAnnotations(Entity entity, Map<String, IRI> annotations, Map<String, Collection<IRI>> rejections) {
+		this.entity = entity;
+		this.annotations = annotations;
+		this.rejections = rejections;
+	}
+}
@@ -24,13 +24,21 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
@@ -40,6 +48,9 @@ import org.semanticweb.owlapi.model.IRI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListeningScheduledExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 
@@ -51,10 +62,13 @@ import de.uni_jena.cs.fusion.semantic.datasource.fallback.KeywordFallbackWrapper
 import de.uni_jena.cs.fusion.semantic.datasource.gfbio.TerminologyServerDataSource;
 import de.uni_jena.cs.fusion.semantic.datasource.lakebase.Parameter;
 import de.uni_jena.cs.fusion.semantic.datasource.lakebase.StudySite;
+import de.uni_jena.cs.fusion.semantic.datasource.ontology.OntologyDataSource;
 import de.uni_jena.cs.fusion.semantic.datasource.ontology.OntologyDataSourceFactory;
 import de.uni_jena.cs.fusion.semantic.datasource.wikidata.WikidataDataSourceFactory;
 import de.uni_jena.cs.fusion.semantic.datasource.worms.Worms;
 import de.uni_jena.cs.fusion.util.maintainer.Maintainer;
+import de.uni_jena.cs.fusion.util.metrics.Metrics;
+import de.uni_jena.cs.fusion.util.quota.AdmissionControl;
 
 /**
  * @since 0.1
@@ -68,19 +82,45 @@ public class Environment implements Closeable {
 	private final static Collection<java.util.logging.Logger> configuredLoggers = new ArrayList<java.util.logging.Logger>();
 
 	private final ListeningScheduledExecutorService executor;
+	private final ExecutorService requestExecutor;
+	private final AdmissionControl admissionControl;
+	private final Metrics metrics = new Metrics();
 	private final Annotator annotator;
 	private final Completer suggestor;
+	private final CompletionIndex completionIndex;
 	private final Searcher searcher;
+	private final SearchIndex searchIndex;
 	private final SemanticDataSource semanticDataSource;
+	private final SemanticDataSourceManager semanticDataSourceManager;
 	private final DataSource databaseManager;
 	private final HierarchyManager hierarchyManager;
 	private final AnnotationManager annotationManager;
+	private final AnnotationWriter annotationWriter;
+	private final AnnotationJobQueue annotationJobQueue;
 	private final ConceptManager conceptManager;
+	private final DataVersion dataVersion;
+	private final DataVersion adapterVersion = new DataVersion();
+	private final ResponseCache responseCache;
+	private final boolean searchProfiling;
+	private final String adminKey;
+	private final Set<String> apiKeys;
 
 	private final Maintainer dailyMaintainer;
 	private final Maintainer hourlyMaintainer;
 
 	public Environment(DataSource dataSource) throws Exception {
+		this(dataSource, new Properties());
+	}
+
+	/**
+	 * @param dataSource
+	 *            {@link DataSource} of the database
+	 * @param configuration
+	 *            deployment specific settings, see
+	 *            <code>installation.md</code>
+	 * @throws Exception
+	 */
+	public Environment(DataSource dataSource, Properties configuration) throws Exception {
 		logger.info("Initialization started.");
 
 		/*
@@ -126,13 +166,42 @@ public class Environment implements Closeable {
 		// TODO adjust thread pool size
 		// NOTE: thread pool size should be large enough to allow some threads
 		// to wait for service responses
-		executor = MoreExecutors.listeningDecorator(Executors.newScheduledThreadPool(100, deamonThreadFactory));
+		ScheduledThreadPoolExecutor adapterPool = (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(100,
+				deamonThreadFactory);
+		executor = MoreExecutors.listeningDecorator(adapterPool);
 		TerminologyServerDataSource.setExecutor(executor);
+		// bounded pool processing the requests, released from the request threads
+		int requestConcurrency = Integer.parseInt(configuration.getProperty("servlet.concurrency", "100"));
+		ThreadPoolExecutor requestPool = new ThreadPoolExecutor(requestConcurrency, requestConcurrency, 1,
+				TimeUnit.MINUTES, new ArrayBlockingQueue<Runnable>(
+						Integer.parseInt(configuration.getProperty("servlet.queue", "1000"))),
+				deamonThreadFactory);
+		requestPool.allowCoreThreadTimeOut(true);
+		requestExecutor = requestPool;
+		metrics.gauge("lakebase_executor_queue_size", "Number of tasks waiting in the executor", "executor",
+				"adapter", () -> adapterPool.getQueue().size());
+		metrics.gauge("lakebase_executor_queue_size", "Number of tasks waiting in the executor", "executor",
+				"request", () -> requestPool.getQueue().size());
+		metrics.gauge("lakebase_executor_active_threads", "Number of threads executing tasks", "executor",
+				"adapter", adapterPool::getActiveCount);
+		metrics.gauge("lakebase_executor_active_threads", "Number of threads executing tasks", "executor",
+				"request", requestPool::getActiveCount);
+		// limits per endpoint, optionally overridden for single endpoints
+		int endpointConcurrency = Integer
+				.parseInt(configuration.getProperty("servlet.endpoint.concurrency", "50"));
+		admissionControl = new AdmissionControl(
+				endpoint -> Integer.parseInt(configuration.getProperty(
+						"servlet.endpoint.concurrency" + endpoint.replace('/', '.'),
+						Integer.toString(endpointConcurrency))),
+				Integer.parseInt(configuration.getProperty("servlet.endpoint.queue", "100")),
+				Long.parseLong(configuration.getProperty("servlet.endpoint.wait", "100")),
+				Long.parseLong(configuration.getProperty("servlet.client.burst", "200")),
+				Double.parseDouble(configuration.getProperty("servlet.client.rate", "50")), TimeUnit.MILLISECONDS);
 
 		databaseManager = new DatabaseManager(dataSource);
 
 		// initialize adapter
-		SemanticDataSourceManager semanticDataSourceManager = new SemanticDataSourceManager(executor);
+		semanticDataSourceManager = new SemanticDataSourceManager(executor);
 		// WORMS with cache (604800 = one week)
 		SemanticDataSource worms = new Worms(false).useExternalIRIs("ncbi");
 		DatabaseCacheWrapper wormsCache = DatabaseCacheWrapper.wrap(worms, databaseManager, "semantic.adapter_cache",
@@ -197,24 +266,122 @@ public class Environment implements Closeable {
 		Parameter parameter = new Parameter(databaseManager);
 		semanticDataSourceManager.registerAdapter(parameter);
 
+		// adapters with locally available labels
+		Collection<SemanticDataSource> localAdapters = new ArrayList<SemanticDataSource>();
+		for (SemanticDataSource adapter : semanticDataSourceManager.getAdapters()) {
+			if (adapter instanceof OntologyDataSource) {
+				localAdapters.add(adapter);
+			}
+		}
+		localAdapters.add(studySites);
+		localAdapters.add(parameter);
+
 		// fallback wrapper
 		semanticDataSource = new KeywordFallbackWrapper(0.1, databaseManager, "semantic.concept", "concept_iri",
 				semanticDataSourceManager);
 
 		// initialize services
 		annotator = new Annotator(semanticDataSource);
-		suggestor = new Completer(semanticDataSource);
-		searcher = new Searcher(databaseManager);
+		// shared with other instances to invalidate their caches
+		dataVersion = new DataVersion(databaseManager);
+		InvertedSearchIndex invertedIndex;
+		switch (configuration.getProperty("search.backend", "sql")) {
+		case "sql":
+			invertedIndex = null;
+			break;
+		case "memory":
+			invertedIndex = new InvertedSearchIndex();
+			break;
+		default:
+			throw new IllegalArgumentException(
+					"Unknown search backend \"" + configuration.getProperty("search.backend") + "\".");
+		}
+		searchIndex = new SearchIndex(databaseManager, invertedIndex, dataVersion);
+		searcher = new Searcher(databaseManager, dataVersion,
+				Long.parseLong(configuration.getProperty("search.cache.capacity", "1000")), invertedIndex);
+		metrics.ratio("lakebase_cache_hit_ratio", "Ratio of requests answered by the cache", "cache", "search",
+				() -> searcher.getCacheStats().hitRate());
+		metrics.counter("lakebase_cache_hits_total", "Requests answered by the cache", "cache", "search",
+				() -> searcher.getCacheStats().hitCount());
+		metrics.counter("lakebase_cache_misses_total", "Requests not answered by the cache", "cache", "search",
+				() -> searcher.getCacheStats().missCount());
+		responseCache = new ResponseCache(
+				Long.parseLong(configuration.getProperty("servlet.cache.capacity", "64")) * 1024 * 1024,
+				Long.parseLong(configuration.getProperty("servlet.cache.maxAge", "60")), TimeUnit.SECONDS);
+		searchProfiling = Boolean.parseBoolean(configuration.getProperty("search.profiling", "false"));
+		adminKey = Strings.emptyToNull(configuration.getProperty("servlet.admin.key"));
+		apiKeys = ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings()
+				.split(configuration.getProperty("servlet.client.keys", "")));
 		conceptManager = new ConceptManager(databaseManager);
-		annotationManager = new AnnotationManager(databaseManager, semanticDataSource, conceptManager);
-		hierarchyManager = new HierarchyManager(databaseManager, semanticDataSource, conceptManager);
+		switch (configuration.getProperty("complete.backend", "adapter")) {
+		case "adapter":
+			completionIndex = null;
+			break;
+		case "memory":
+			completionIndex = new CompletionIndex(conceptManager, localAdapters, Completer.LIMIT);
+			break;
+		default:
+			throw new IllegalArgumentException(
+					"Unknown completion backend \"" + configuration.getProperty("complete.backend") + "\".");
+		}
+		suggestor = new Completer(semanticDataSource, completionIndex,
+				new CompletionSessions(Long.parseLong(configuration.getProperty("complete.session.capacity", "10000")),
+						Long.parseLong(configuration.getProperty("complete.session.expiry", "60")), TimeUnit.SECONDS));
+		annotationManager = new AnnotationManager(databaseManager, semanticDataSource, conceptManager, dataVersion,
+				searchIndex);
+		annotationManager.setDeprecationCheck(
+				Integer.parseInt(configuration.getProperty("annotation.deprecationCheck.parallelism", "8")),
+				Long.parseLong(configuration.getProperty("annotation.deprecationCheck.interval", "168")),
+				TimeUnit.HOURS);
+		annotationWriter = new AnnotationWriter(databaseManager, annotationManager,
+				Integer.parseInt(configuration.getProperty("annotation.batchSize", "500")),
+				Long.parseLong(configuration.getProperty("annotation.flushInterval", "200")), TimeUnit.MILLISECONDS);
+		// separate worker pool to not block interactive requests
+		annotationJobQueue = new AnnotationJobQueue(databaseManager, annotator, annotationWriter,
+				Integer.parseInt(configuration.getProperty("annotation.queue.capacity", "10000")),
+				Integer.parseInt(configuration.getProperty("annotation.queue.threads", "4")), deamonThreadFactory);
+		annotationJobQueue.setRetry(Integer.parseInt(configuration.getProperty("annotation.queue.attempts", "5")),
+				Long.parseLong(configuration.getProperty("annotation.queue.backoff", "10")), TimeUnit.SECONDS);
+		annotationJobQueue
+				.setPipelining(Integer.parseInt(configuration.getProperty("annotation.queue.pipelining", "4")));
+		annotationJobQueue.setPolling(1, TimeUnit.MINUTES
+				.toSeconds(Long.parseLong(configuration.getProperty("annotation.queue.lease", "5"))), TimeUnit.SECONDS);
+		// populates the search indices
+		hierarchyManager = new HierarchyManager(databaseManager, semanticDataSource, conceptManager, dataVersion,
+				searchIndex);
 
 		// initialize maintenance
 		hourlyMaintainer = new Maintainer(executor, "hourly");
 		dailyMaintainer = new Maintainer(executor, "daily");
-		hourlyMaintainer.register(wormsCache).register(hierarchyManager).register(studySites).register(parameter)
-				.schedule(1, TimeUnit.HOURS);
-		dailyMaintainer.register(semanticDataSourceManager).register(annotationManager).schedule(1, TimeUnit.DAYS);
+		// adapter state might have changed after each maintenance
+		hourlyMaintainer.register(wormsCache).register(hierarchyManager).register(studySites).register(parameter);
+		if (completionIndex != null) {
+			hourlyMaintainer.register(completionIndex);
+			// initial population in background, adapters are used meanwhile
+			executor.execute(() -> {
+				try {
+					completionIndex.rebuild();
+				} catch (ConceptManagerException e) {
+					logger.error("Failed to populate completion index.", e);
+				}
+			});
+		}
+		hourlyMaintainer.register(adapterVersion::increment).schedule(1, TimeUnit.HOURS);
+		if (invertedIndex != null) {
+			// apply changes of other instances
+			long synchronizationInterval = Long
+					.parseLong(configuration.getProperty("search.synchronization.interval", "1000"));
+			executor.scheduleWithFixedDelay(() -> {
+				try {
+					searchIndex.synchronize();
+				} catch (SearchIndexException | RuntimeException e) {
+					// keep the schedule
+					logger.error("Failed to synchronize search index.", e);
+				}
+			}, synchronizationInterval, synchronizationInterval, TimeUnit.MILLISECONDS);
+		}
+		dailyMaintainer.register(semanticDataSourceManager).register(annotationManager).register(annotationJobQueue)
+				.register(dataVersion).register(adapterVersion::increment).schedule(1, TimeUnit.DAYS);
 
 		logger.info("Initialization completed.");
 	}
@@ -224,13 +391,45 @@ public class Environment implements Closeable {
 		logger.info("shutdown");
 		hourlyMaintainer.close();
 		dailyMaintainer.close();
+		annotationJobQueue.close();
+		annotationWriter.close();
+		requestExecutor.shutdownNow();
 		executor.shutdownNow();
+		semanticDataSourceManager.close();
 	}
 
 	public ListeningScheduledExecutorService getExecutor() {
 		return executor;
 	}
 
+	/**
+	 * @return the {@link ExecutorService} processing the requests of the
+	 *         servlet
+	 * 
+	 * @since 0.3.9
+	 */
+	public ExecutorService getRequestExecutor() {
+		return requestExecutor;
+	}
+
+	/**
+	 * @return the {@link AdmissionControl} of the servlet
+	 * 
+	 * @since 0.3.9
+	 */
+	public AdmissionControl getAdmissionControl() {
+		return admissionControl;
+	}
+
+	/**
+	 * @return the {@link Metrics} of the servlet and the workers
+	 * 
+	 * @since 0.3.9
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
 	public Annotator getAnnotator() {
 		return annotator;
 	}
@@ -239,6 +438,16 @@ public class Environment implements Closeable {
 		return suggestor;
 	}
 
+	/**
+	 * @return the {@link CompletionIndex} used by the {@link Completer}, or
+	 *         <code>null</code>, if completions are provided by the adapters
+	 * 
+	 * @since 0.3.9
+	 */
+	public CompletionIndex getCompletionIndex() {
+		return completionIndex;
+	}
+
 	public SemanticDataSource getSemanticDataSource() {
 		return semanticDataSource;
 	}
@@ -255,10 +464,83 @@ public class Environment implements Closeable {
 		return annotationManager;
 	}
 
+	public AnnotationWriter getAnnotationWriter() {
+		return annotationWriter;
+	}
+
+	public AnnotationJobQueue getAnnotationJobQueue() {
+		return annotationJobQueue;
+	}
+
 	public Searcher getSearcher() {
 		return searcher;
 	}
 
+	/**
+	 * @return the {@link SearchIndex} used by the {@link Searcher}
+	 * 
+	 * @since 0.3.9
+	 */
+	public SearchIndex getSearchIndex() {
+		return searchIndex;
+	}
+
+	public DataVersion getDataVersion() {
+		return dataVersion;
+	}
+
+	/**
+	 * @return the {@link DataVersion} of the adapter state, incremented after
+	 *         each maintenance
+	 * 
+	 * @since 0.3.9
+	 */
+	public DataVersion getAdapterVersion() {
+		return adapterVersion;
+	}
+
+	/**
+	 * @return the {@link ResponseCache} of the servlet
+	 * 
+	 * @since 0.3.9
+	 */
+	public ResponseCache getResponseCache() {
+		return responseCache;
+	}
+
+	/**
+	 * @param key
+	 *            key provided by a client
+	 * @return <code>true</code>, if an administration key is configured and
+	 *         equals the given key
+	 * 
+	 * @since 0.3.9
+	 */
+	public boolean isAdminKey(String key) {
+		return adminKey != null && key != null && MessageDigest.isEqual(adminKey.getBytes(StandardCharsets.UTF_8),
+				key.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param key
+	 *            API key provided by a client
+	 * @return <code>true</code>, if the given key is one of the configured API
+	 *         keys
+	 * 
+	 * @since 0.3.9
+	 */
+	public boolean isApiKey(String key) {
+		return key != null && apiKeys.contains(key);
+	}
+
+	/**
+	 * @return <code>true</code>, if clients are allowed to request profiles of
+	 *         searches
+	 */
+	public boolean isSearchProfilingEnabled() {
+		return searchProfiling;
+	}
+
 	public static File file(String path) {
 		return new File(Thread.currentThread().getContextClassLoader().getResource(path).getFile());
 	}
@@ -23,14 +23,23 @@ package de.uni_jena.cs.fusion.lakebase;
 import static org.jooq.impl.DSL.field;
 import static org.jooq.impl.DSL.select;
 import static org.jooq.impl.DSL.table;
+import static org.jooq.impl.DSL.val;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
 import org.jooq.SQLDialect;
 import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
@@ -58,9 +67,31 @@ public class HierarchyManager implements Maintainable {
 	private final DataSource dataSource;
 	private final ConceptManager conceptManager;
 	private final ConceptManagerListener listener;
+	private final SearchIndex searchIndex;
+	private final DataVersion dataVersion;
 
 	public HierarchyManager(DataSource dataSource, SemanticDataSource semanticDataSource, ConceptManager conceptManager)
 			throws HierarchyException {
+		this(dataSource, semanticDataSource, conceptManager, new DataVersion());
+	}
+
+	/**
+	 * @param dataVersion
+	 *            {@link DataVersion} to increment on changes of the hierarchy
+	 */
+	public HierarchyManager(DataSource dataSource, SemanticDataSource semanticDataSource, ConceptManager conceptManager,
+			DataVersion dataVersion) throws HierarchyException {
+		this(dataSource, semanticDataSource, conceptManager, dataVersion, new SearchIndex(dataSource));
+	}
+
+	/**
+	 * @param dataVersion
+	 *            {@link DataVersion} to increment on changes of the hierarchy
+	 * @param searchIndex
+	 *            {@link SearchIndex} to update on changes of the hierarchy
+	 */
+	public HierarchyManager(DataSource dataSource, SemanticDataSource semanticDataSource, ConceptManager conceptManager,
+			DataVersion dataVersion, SearchIndex searchIndex) throws HierarchyException {
 		// logging
 		log.info("initializing ...");
 		long startTime = System.currentTimeMillis();
@@ -70,29 +101,87 @@ public class HierarchyManager implements Maintainable {
 		this.semanticDataSource = semanticDataSource;
 		this.conceptManager = conceptManager;
 		this.listener = new HierarchyManager.Listener(this);
+		this.searchIndex = searchIndex;
+		this.dataVersion = dataVersion;
 		conceptManager.registerListener(this.listener);
 
 		// populate
-		this.refresh();
+		if (!this.refresh()) {
+			try {
+				this.searchIndex.load();
+			} catch (SearchIndexException e) {
+				throw new HierarchyException("Failed to load search index.", e);
+			}
+		}
 
 		log.info("initialization took " + (System.currentTimeMillis() - startTime) + " ms");
 	}
 
-	private void refresh() throws HierarchyException {
-		try (Connection connection = this.dataSource.getConnection()) {
+	/**
+	 * Rebuilds the hierarchy of all used concepts inside of one transaction, so
+	 * that other connections use the previous hierarchy until the commit. The
+	 * search index gets rebuilt only if the hierarchy has been changed.
+	 * 
+	 * @return <code>true</code> if the hierarchy has been changed, otherwise
+	 *         <code>false</code>
+	 * @throws HierarchyException
+	 */
+	private boolean refresh() throws HierarchyException {
+		try (Connection connection = this.dataSource.getConnection();
+				Transaction transaction = Transaction.begin(connection)) {
 			try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
-				sql.truncate(table("semantic.concept_hierarchy")).execute();
+				sql.execute("CREATE TEMPORARY TABLE previous_concept_hierarchy ON COMMIT DROP AS "
+						+ "SELECT broader_concept_id, narrower_concept_id FROM semantic.concept_hierarchy");
+				sql.deleteFrom(table("semantic.concept_hierarchy")).execute();
 			} catch (DataAccessException e) {
-				throw new HierarchyException("Failed to truncate hierarchy.", e);
+				throw new HierarchyException("Failed to clear hierarchy.", e);
 			}
-			this.addAll(this.conceptManager.getAllUsed(), connection);
+			this.addAll(this.conceptManager.getAllUsed(), connection, null);
+			boolean changed;
+			try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+				changed = sql.fetchOne("SELECT EXISTS (SELECT broader_concept_id, narrower_concept_id "
+						+ "FROM previous_concept_hierarchy EXCEPT SELECT broader_concept_id, narrower_concept_id "
+						+ "FROM semantic.concept_hierarchy) OR EXISTS (SELECT broader_concept_id, narrower_concept_id "
+						+ "FROM semantic.concept_hierarchy EXCEPT SELECT broader_concept_id, narrower_concept_id "
+						+ "FROM previous_concept_hierarchy)").get(0, Boolean.class);
+			} catch (DataAccessException e) {
+				throw new HierarchyException("Failed to compare hierarchy.", e);
+			}
+			if (changed) {
+				this.searchIndex.rebuild(connection);
+				this.dataVersion.incrementAfterCommit(connection);
+			} else {
+				log.info("hierarchy unchanged, skipping search index rebuild");
+			}
+			transaction.commit();
+			return changed;
 		} catch (ConceptManagerException e) {
 			throw new HierarchyException("Failed to get all concepts from concept manager.", e);
+		} catch (SearchIndexException e) {
+			throw new HierarchyException("Failed to rebuild search index.", e);
 		} catch (SQLException e) {
 			throw new HierarchyException(e);
 		}
 	}
 
+	/**
+	 * Updates the search index for changed concepts.
+	 * 
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param changed
+	 *            {@link Changes} of the hierarchy
+	 * @throws HierarchyException
+	 */
+	private void refreshSearchIndex(Connection connection, Changes changed) throws HierarchyException {
+		try {
+			this.searchIndex.refreshNarrowers(connection, changed.narrowers);
+			this.searchIndex.refreshConcepts(connection, changed.broaders);
+		} catch (SearchIndexException e) {
+			throw new HierarchyException("Failed to update search index.", e);
+		}
+	}
+
 	/**
 	 * Adds the given {@link IRI} and all its broaders and synonyms provided by
 	 * the {@link SemanticDataSource} to the hierarchy.
@@ -128,24 +217,49 @@ public class HierarchyManager implements Maintainable {
 	 * @throws HierarchyException
 	 */
 	public boolean add(IRI iri, Connection connection) throws HierarchyException {
-		boolean result = this.setBroader(iri, ROOT, connection);
+		Changes changed = new Changes();
+		boolean result = this.add(iri, connection, changed);
+		this.refreshSearchIndex(connection, changed);
+		return result;
+	}
+
+	/**
+	 * Adds the given {@link IRI} and all its broaders and synonyms provided by
+	 * the {@link SemanticDataSource} to the hierarchy.
+	 * 
+	 * @param iri
+	 *            {@link IRI} of the concept
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param changed
+	 *            {@link Changes} to add the IDs of changed concepts to or
+	 *            <code>null</code>
+	 * @return <code>true</code> if the hierarchy has been changed, otherwise
+	 *         <code>false</code>
+	 * @throws HierarchyException
+	 */
+	private boolean add(IRI iri, Connection connection, Changes changed) throws HierarchyException {
+		boolean result = this.setBroader(iri, ROOT, connection, changed);
 
 		if (this.semanticDataSource.providingAllBroaders()) {
 			try {
-				result = this.setBroaders(iri, this.semanticDataSource.getAllBroaders(iri), connection) || result;
+				result = this.setBroaders(iri, this.semanticDataSource.getAllBroaders(iri), connection, changed)
+						|| result;
 			} catch (SemanticDataSourceException e) {
 				log.warn("Failed to add all broaders of \"" + iri.getIRIString() + "\".", e);
 			}
 		} else if (this.semanticDataSource.providingBroaders()) {
 			try {
-				result = this.setBroaders(iri, this.semanticDataSource.getBroaders(iri), connection) || result;
+				result = this.setBroaders(iri, this.semanticDataSource.getBroaders(iri), connection, changed)
+						|| result;
 			} catch (SemanticDataSourceException e) {
 				log.warn("Failed to add broaders of \"" + iri.getIRIString() + "\".", e);
 			}
 		}
 		if (this.semanticDataSource.providingSynonyms()) {
 			try {
-				result = this.setSynonyms(iri, this.semanticDataSource.getSynonyms(iri), connection) || result;
+				result = this.setSynonyms(iri, this.semanticDataSource.getSynonyms(iri), connection, changed)
+						|| result;
 			} catch (SemanticDataSourceException e) {
 				log.warn("Failed to add synonyms of \"" + iri.getIRIString() + "\".", e);
 			}
@@ -188,9 +302,32 @@ public class HierarchyManager implements Maintainable {
 	 * @throws HierarchyException
 	 */
 	public boolean addAll(Collection<IRI> iris, Connection connection) throws HierarchyException {
+		Changes changed = new Changes();
+		boolean result = this.addAll(iris, connection, changed);
+		this.refreshSearchIndex(connection, changed);
+		return result;
+	}
+
+	/**
+	 * Adds the given {@link Collection} of {@link IRI}s and all their broaders
+	 * and synonyms provided by the {@link SemanticDataSource} to the hierarchy.
+	 * 
+	 * @param iris
+	 *            {@link Collection} of {@link IRI}s to add
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param changed
+	 *            {@link Changes} to add the IDs of changed concepts to or
+	 *            <code>null</code>
+	 * @return <code>true</code> if the hierarchy has been changed, otherwise
+	 *         <code>false</code>
+	 * @throws HierarchyException
+	 */
+	private boolean addAll(Collection<IRI> iris, Connection connection, Changes changed)
+			throws HierarchyException {
 		boolean result = false;
 		for (IRI concept : iris) {
-			result = this.add(concept, connection) || result;
+			result = this.add(concept, connection, changed) || result;
 		}
 		return result;
 	}
@@ -530,6 +667,307 @@ public class HierarchyManager implements Maintainable {
 		}
 	}
 
+	/**
+	 * Begins a read only transaction on the given {@link Connection}, so that
+	 * all subsequent queries using this {@link Connection} operate on the same
+	 * consistent snapshot of the hierarchy until the transaction ends. The
+	 * caller has to end the transaction, also in case of failure, and to
+	 * restore the auto commit mode afterwards.
+	 * 
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @throws HierarchyException
+	 */
+	public void beginSnapshot(Connection connection) throws HierarchyException {
+		try {
+			connection.setAutoCommit(false);
+			try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+				sql.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ, READ ONLY");
+			}
+		} catch (SQLException | DataAccessException e) {
+			throw new HierarchyException("Failed to begin snapshot.", e);
+		}
+	}
+
+	private static String[] iriStrings(Collection<IRI> iris) {
+		String[] strings = new String[iris.size()];
+		int i = 0;
+		for (IRI iri : iris) {
+			strings[i++] = iri.getIRIString();
+		}
+		return strings;
+	}
+
+	private static Map<IRI, Collection<IRI>> emptyResults(Collection<IRI> iris) {
+		Map<IRI, Collection<IRI>> results = new HashMap<IRI, Collection<IRI>>();
+		for (IRI iri : iris) {
+			results.put(iri, new ArrayList<IRI>());
+		}
+		return results;
+	}
+
+	/**
+	 * Returns for each of the given {@link IRI}s, if it is contained in the
+	 * hierarchy.
+	 * 
+	 * @param iris
+	 *            {@link Collection} of {@link IRI}s to check
+	 * @return {@link Map} of the given {@link IRI}s and <code>true</code> if
+	 *         the concept is contained in the hierarchy, otherwise
+	 *         <code>false</code>
+	 * @see #contains(IRI)
+	 * @see #contains(Collection, Connection)
+	 * @throws HierarchyException
+	 */
+	public Map<IRI, Boolean> contains(Collection<IRI> iris) throws HierarchyException {
+		try (Connection connection = this.dataSource.getConnection()) {
+			return contains(iris, connection);
+		} catch (SQLException e) {
+			throw new HierarchyException(e);
+		}
+	}
+
+	/**
+	 * Returns for each of the given {@link IRI}s, if it is contained in the
+	 * hierarchy.
+	 * 
+	 * @param iris
+	 *            {@link Collection} of {@link IRI}s to check
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @return {@link Map} of the given {@link IRI}s and <code>true</code> if
+	 *         the concept is contained in the hierarchy, otherwise
+	 *         <code>false</code>
+	 * @see #contains(IRI, Connection)
+	 * @see #contains(Collection)
+	 * @throws HierarchyException
+	 */
+	public Map<IRI, Boolean> contains(Collection<IRI> iris, Connection connection) throws HierarchyException {
+		Map<IRI, Boolean> results = new HashMap<IRI, Boolean>();
+		for (IRI iri : iris) {
+			results.put(iri, false);
+		}
+		if (!iris.isEmpty()) {
+			try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+				for (Record record : sql.selectDistinct(field("concept.concept_iri"))
+						.from(table("semantic.concept_hierarchy")).join(table("semantic.concept"))
+						.on(field("concept.concept_id").eq(field("concept_hierarchy.broader_concept_id"))
+								.or(field("concept.concept_id").eq(field("concept_hierarchy.narrower_concept_id"))))
+						.where(field("concept.concept_iri", String.class).eq(DSL.any(iriStrings(iris)))).fetch()) {
+					results.put(IRI.create(record.get(0, String.class)), true);
+				}
+			} catch (DataAccessException e) {
+				throw new HierarchyException("Failed to execute contains for \"" + iris + "\".", e);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Returns for each of the given {@link IRI}s a {@link Collection} of the
+	 * {@link IRI}s of its broader concepts.
+	 * 
+	 * @param iris
+	 *            {@link Collection} of {@link IRI}s of the concepts
+	 * @return {@link Map} of the given {@link IRI}s and {@link Collection}s of
+	 *         the {@link IRI}s of their broader concepts
+	 * @see #getBroaders(IRI)
+	 * @see #getBroaders(Collection, Connection)
+	 * @throws HierarchyException
+	 */
+	public Map<IRI, Collection<IRI>> getBroaders(Collection<IRI> iris) throws HierarchyException {
+		try (Connection connection = this.dataSource.getConnection()) {
+			return getBroaders(iris, connection);
+		} catch (SQLException e) {
+			throw new HierarchyException(e);
+		}
+	}
+
+	/**
+	 * Returns for each of the given {@link IRI}s a {@link Collection} of the
+	 * {@link IRI}s of its broader concepts.
+	 * 
+	 * @param iris
+	 *            {@link Collection} of {@link IRI}s of the concepts
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @return {@link Map} of the given {@link IRI}s and {@link Collection}s of
+	 *         the {@link IRI}s of their broader concepts
+	 * @see #getBroaders(IRI, Connection)
+	 * @see #getBroaders(Collection)
+	 * @throws HierarchyException
+	 */
+	public Map<IRI, Collection<IRI>> getBroaders(Collection<IRI> iris, Connection connection)
+			throws HierarchyException {
+		Map<IRI, Collection<IRI>> results = emptyResults(iris);
+		if (!iris.isEmpty()) {
+			try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+				for (Record record : sql.select(field("h.narrower_concept_iri"), field("h.broader_concept_iri"))
+						.from(table("semantic.concept_iri_hierarchy").as("h"))
+						.where(field("h.narrower_concept_iri", String.class).eq(DSL.any(iriStrings(iris))))
+						.and(field("h.broader_concept_id").ne(field("h.narrower_concept_id")))
+						.andNotExists(DSL.selectOne().from(table("semantic.concept_hierarchy").as("e"))
+								.where(field("e.broader_concept_id").eq(field("h.narrower_concept_id")))
+								.and(field("h.broader_concept_id").eq(field("e.narrower_concept_id"))))
+						.fetch()) {
+					results.get(IRI.create(record.get(0, String.class)))
+							.add(IRI.create(record.get(1, String.class)));
+				}
+			} catch (DataAccessException e) {
+				throw new HierarchyException("Failed to get broaders of \"" + iris + "\".", e);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Returns for each of the given {@link IRI}s the {@link Collection} of
+	 * those candidate {@link IRI}s, that are broaders of the concept.
+	 * 
+	 * @param iris
+	 *            {@link Collection} of {@link IRI}s of the narrower concepts
+	 * @param candidates
+	 *            {@link Collection} of {@link IRI}s of the candidate broader
+	 *            concepts
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @return {@link Map} of the given {@link IRI}s and {@link Collection}s of
+	 *         the {@link IRI}s of the candidates that are broaders of them
+	 * @see #isBroader(IRI, IRI, Connection)
+	 * @throws HierarchyException
+	 */
+	public Map<IRI, Collection<IRI>> getBroaders(Collection<IRI> iris, Collection<IRI> candidates,
+			Connection connection) throws HierarchyException {
+		Map<IRI, Collection<IRI>> results = emptyResults(iris);
+		if (!iris.isEmpty() && !candidates.isEmpty()) {
+			try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+				for (Record record : sql.select(field("narrower_concept_iri"), field("broader_concept_iri"))
+						.from(table("semantic.concept_iri_hierarchy"))
+						.where(field("narrower_concept_iri", String.class).eq(DSL.any(iriStrings(iris))))
+						.and(field("broader_concept_iri", String.class).eq(DSL.any(iriStrings(candidates))))
+						.fetch()) {
+					results.get(IRI.create(record.get(0, String.class)))
+							.add(IRI.create(record.get(1, String.class)));
+				}
+			} catch (DataAccessException e) {
+				throw new HierarchyException("Failed to get broaders \"" + candidates + "\" of \"" + iris + "\".", e);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Returns for each of the given {@link IRI}s a {@link Collection} of the
+	 * {@link IRI}s of its narrower concepts.
+	 * 
+	 * @param iris
+	 *            {@link Collection} of {@link IRI}s of the concepts
+	 * @return {@link Map} of the given {@link IRI}s and {@link Collection}s of
+	 *         the {@link IRI}s of their narrower concepts
+	 * @see #getNarrowers(IRI)
+	 * @see #getNarrowers(Collection, Connection)
+	 * @throws HierarchyException
+	 */
+	public Map<IRI, Collection<IRI>> getNarrowers(Collection<IRI> iris) throws HierarchyException {
+		try (Connection connection = this.dataSource.getConnection()) {
+			return getNarrowers(iris, connection);
+		} catch (SQLException e) {
+			throw new HierarchyException(e);
+		}
+	}
+
+	/**
+	 * Returns for each of the given {@link IRI}s a {@link Collection} of the
+	 * {@link IRI}s of its narrower concepts.
+	 * 
+	 * @param iris
+	 *            {@link Collection} of {@link IRI}s of the concepts
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @return {@link Map} of the given {@link IRI}s and {@link Collection}s of
+	 *         the {@link IRI}s of their narrower concepts
+	 * @see #getNarrowers(IRI, Connection)
+	 * @see #getNarrowers(Collection)
+	 * @throws HierarchyException
+	 */
+	public Map<IRI, Collection<IRI>> getNarrowers(Collection<IRI> iris, Connection connection)
+			throws HierarchyException {
+		Map<IRI, Collection<IRI>> results = emptyResults(iris);
+		if (!iris.isEmpty()) {
+			try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+				for (Record record : sql.selectDistinct(field("h.broader_concept_iri"), field("h.narrower_concept_iri"))
+						.from(table("semantic.concept_iri_hierarchy").as("h"))
+						.where(field("h.broader_concept_iri", String.class).eq(DSL.any(iriStrings(iris))))
+						.and(field("h.broader_concept_id").ne(field("h.narrower_concept_id")))
+						.andNotExists(DSL.selectOne().from(table("semantic.concept_hierarchy").as("e"))
+								.where(field("e.broader_concept_id").eq(field("h.narrower_concept_id")))
+								.and(field("h.broader_concept_id").eq(field("e.narrower_concept_id"))))
+						.fetch()) {
+					results.get(IRI.create(record.get(0, String.class)))
+							.add(IRI.create(record.get(1, String.class)));
+				}
+			} catch (DataAccessException e) {
+				throw new HierarchyException("Failed to get narrowers of \"" + iris + "\".", e);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Returns for each of the given {@link IRI}s a {@link Collection} of the
+	 * {@link IRI}s of its synonym concepts.
+	 * 
+	 * @param iris
+	 *            {@link Collection} of {@link IRI}s of the concepts
+	 * @return {@link Map} of the given {@link IRI}s and {@link Collection}s of
+	 *         the {@link IRI}s of their synonym concepts
+	 * @see #getSynonyms(IRI)
+	 * @see #getSynonyms(Collection, Connection)
+	 * @throws HierarchyException
+	 */
+	public Map<IRI, Collection<IRI>> getSynonyms(Collection<IRI> iris) throws HierarchyException {
+		try (Connection connection = this.dataSource.getConnection()) {
+			return getSynonyms(iris, connection);
+		} catch (SQLException e) {
+			throw new HierarchyException(e);
+		}
+	}
+
+	/**
+	 * Returns for each of the given {@link IRI}s a {@link Collection} of the
+	 * {@link IRI}s of its synonym concepts.
+	 * 
+	 * @param iris
+	 *            {@link Collection} of {@link IRI}s of the concepts
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @return {@link Map} of the given {@link IRI}s and {@link Collection}s of
+	 *         the {@link IRI}s of their synonym concepts
+	 * @see #getSynonyms(IRI, Connection)
+	 * @see #getSynonyms(Collection)
+	 * @throws HierarchyException
+	 */
+	public Map<IRI, Collection<IRI>> getSynonyms(Collection<IRI> iris, Connection connection)
+			throws HierarchyException {
+		Map<IRI, Collection<IRI>> results = emptyResults(iris);
+		if (!iris.isEmpty()) {
+			try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+				for (Record record : sql.select(field("a.narrower_concept_iri"), field("a.broader_concept_iri"))
+						.from(table("semantic.concept_iri_hierarchy").as("a"))
+						.join(table("semantic.concept_hierarchy").as("b"))
+						.on(field("a.narrower_concept_id").eq(field("b.broader_concept_id"))
+								.and(field("b.narrower_concept_id").eq(field("a.broader_concept_id"))))
+						.where(field("a.narrower_concept_iri", String.class).eq(DSL.any(iriStrings(iris)))).fetch()) {
+					results.get(IRI.create(record.get(0, String.class)))
+							.add(IRI.create(record.get(1, String.class)));
+				}
+			} catch (DataAccessException e) {
+				throw new HierarchyException("Failed to get synonyms of \"" + iris + "\".", e);
+			}
+		}
+		return results;
+	}
+
 	@Override
 	public void maintain() throws MaintenanceException {
 		try {
@@ -576,47 +1014,86 @@ public class HierarchyManager implements Maintainable {
 	 * @throws HierarchyException
 	 */
 	public boolean setBroader(IRI narrower, IRI broader, Connection connection) throws HierarchyException {
+		Changes changed = new Changes();
+		boolean result = this.setBroader(narrower, broader, connection, changed);
+		this.refreshSearchIndex(connection, changed);
+		return result;
+	}
+
+	/**
+	 * Adds the second concept to the broader concepts of the first concept.
+	 * 
+	 * @param narrower
+	 *            {@link IRI} of the narrower concept
+	 * @param broader
+	 *            {@link IRI} of the broader concept
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param changed
+	 *            {@link Changes} to add the IDs of changed concepts to or
+	 *            <code>null</code>
+	 * @return <code>true</code> if the hierarchy has been changed, otherwise
+	 *         <code>false</code>
+	 * @throws HierarchyException
+	 */
+	private boolean setBroader(IRI narrower, IRI broader, Connection connection, Changes changed)
+			throws HierarchyException {
 		try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
 			this.conceptManager.add(connection, broader);
 			this.conceptManager.add(connection, narrower, this.listener);
-			return sql.insertInto(table("semantic.concept_hierarchy"))
-					.columns(field("narrower_concept_id"), field("broader_concept_id"))
-					.select(/* direct broader */select(field("n.concept_id"), field("b.concept_id"))
-							.from(table("semantic.concept").as("n")).crossJoin(table("semantic.concept").as("b"))
-							.where(field("n.concept_iri").eq(narrower.getIRIString()))
-							.and(field("b.concept_iri").eq(broader.getIRIString()))
-							.and(field("n.concept_id").ne(field("b.concept_id")))
+			Map<IRI, Long> ids = this.conceptManager.getIds(connection, Arrays.asList(narrower, broader));
+			if (!ids.containsKey(narrower) || !ids.containsKey(broader)) {
+				throw new HierarchyException("Unknown concept \"" + (ids.containsKey(narrower) ? broader : narrower)
+						+ "\" in broader relation.");
+			}
+			Field<Long> narrowerId = val(ids.get(narrower));
+			Field<Long> broaderId = val(ids.get(broader));
+			boolean result = sql.insertInto(table("semantic.concept_hierarchy"))
+					.columns(field("narrower_concept_id", Long.class), field("broader_concept_id", Long.class))
+					.select(/* direct broader */select(narrowerId, broaderId).where(narrowerId.ne(broaderId))
 							.andNotExists(DSL.selectOne().from(table("semantic.concept_hierarchy").as("e"))
-									.where(field("e.narrower_concept_id").eq(field("n.concept_id"))
-											.and(field("e.broader_concept_id").eq(field("b.concept_id")))))
-							.union(/* own transitive broaders */select(field("n.concept_id"),
-									field("h.broader_concept_id")).from(table("semantic.concept").as("n"))
-											.crossJoin(table("semantic.concept").as("b"))
-											.join(table("semantic.concept_hierarchy").as("h"))
-											.on(field("b.concept_id").eq(field("h.narrower_concept_id")))
-											.where(field("n.concept_iri").eq(narrower.getIRIString()))
-											.and(field("b.concept_iri").eq(broader.getIRIString()))
-											.and(field("n.concept_id").ne(field("h.broader_concept_id")))
+									.where(field("e.narrower_concept_id", Long.class).eq(narrowerId)
+											.and(field("e.broader_concept_id", Long.class).eq(broaderId))))
+							.union(/* own transitive broaders */select(narrowerId,
+									field("h.broader_concept_id", Long.class))
+											.from(table("semantic.concept_hierarchy").as("h"))
+											.where(field("h.narrower_concept_id", Long.class).eq(broaderId))
+											.and(field("h.broader_concept_id", Long.class).ne(narrowerId))
+											.andNotExists(DSL.selectOne()
+													.from(table("semantic.concept_hierarchy").as("e"))
+													.where(field("e.narrower_concept_id", Long.class)
+															.eq(narrowerId).and(field("e.broader_concept_id")
+																	.eq(field("h.broader_concept_id"))))))
+							.union(/* others transitive broaders */select(field("h.narrower_concept_id", Long.class),
+									broaderId).from(table("semantic.concept_hierarchy").as("h"))
+											.where(field("h.broader_concept_id", Long.class).eq(narrowerId))
+											.and(field("h.narrower_concept_id", Long.class).ne(broaderId))
 											.andNotExists(DSL.selectOne()
-													.from(table("semantic.concept_hierarchy").as("e")).where(
-															field("e.narrower_concept_id").eq(field("n.concept_id"))
-																	.and(field("e.broader_concept_id")
-																			.eq(field("h.broader_concept_id"))))))
-							.union(/* others transitive broaders */select(field("h.narrower_concept_id"),
-									field("b.concept_id")).from(table("semantic.concept").as("n"))
-											.crossJoin(table("semantic.concept").as("b"))
-											.join(table("semantic.concept_hierarchy").as("h"))
-											.on(field("n.concept_id").eq(field("h.broader_concept_id")))
-											.where(field("n.concept_iri").eq(narrower.getIRIString()))
-											.and(field("b.concept_iri").eq(broader.getIRIString()))
-											.and(field("h.narrower_concept_id").ne(field("b.concept_id"))).andNotExists(
-													DSL.selectOne().from(table("semantic.concept_hierarchy").as("e"))
-															.where(field("e.narrower_concept_id")
-																	.eq(field("h.narrower_concept_id"))
-																	.and(field("e.broader_concept_id")
-																			.eq(field("b.concept_id")))))))
+													.from(table("semantic.concept_hierarchy").as("e"))
+													.where(field("e.narrower_concept_id")
+															.eq(field("h.narrower_concept_id"))
+															.and(field("e.broader_concept_id", Long.class)
+																	.eq(broaderId))))))
 					.execute() > 0;
-		} catch (DataAccessException | ConceptManagerException e) {
+			if (result) {
+				this.dataVersion.incrementAfterCommit(connection);
+			}
+			if (result && changed != null) {
+				// the broader and its broaders gained narrowers
+				changed.narrowers.addAll(sql.select(broaderId)
+						.union(sql.select(field("h.broader_concept_id", Long.class))
+								.from(table("semantic.concept_hierarchy").as("h"))
+								.where(field("h.narrower_concept_id", Long.class).eq(broaderId)))
+						.fetch(0, Long.class));
+				// the narrower and its narrowers gained broaders
+				changed.broaders.addAll(sql.select(narrowerId)
+						.union(sql.select(field("h.narrower_concept_id", Long.class))
+								.from(table("semantic.concept_hierarchy").as("h"))
+								.where(field("h.broader_concept_id", Long.class).eq(narrowerId)))
+						.fetch(0, Long.class));
+			}
+			return result;
+		} catch (DataAccessException | ConceptManagerException | SQLException e) {
 			throw new HierarchyException("Failed to set broader \"" + broader + "\" of narrower \"" + narrower + "\".",
 					e);
 		}
@@ -662,9 +1139,34 @@ public class HierarchyManager implements Maintainable {
 	 */
 	public boolean setBroaders(IRI narrower, Collection<IRI> broaders, Connection connection)
 			throws HierarchyException {
+		Changes changed = new Changes();
+		boolean result = this.setBroaders(narrower, broaders, connection, changed);
+		this.refreshSearchIndex(connection, changed);
+		return result;
+	}
+
+	/**
+	 * Adds the {@link Collection} of concepts to the broader concepts of the
+	 * concept.
+	 * 
+	 * @param narrower
+	 *            {@link IRI} of the narrower concept
+	 * @param broaders
+	 *            {@link Collection} of {@link IRI}s of the broader concepts
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param changed
+	 *            {@link Changes} to add the IDs of changed concepts to or
+	 *            <code>null</code>
+	 * @return <code>true</code> if the hierarchy has been changed, otherwise
+	 *         <code>false</code>
+	 * @throws HierarchyException
+	 */
+	private boolean setBroaders(IRI narrower, Collection<IRI> broaders, Connection connection,
+			Changes changed) throws HierarchyException {
 		boolean result = false;
 		for (IRI broader : broaders) {
-			result = this.setBroader(narrower, broader, connection) || result;
+			result = this.setBroader(narrower, broader, connection, changed) || result;
 		}
 		return result;
 	}
@@ -707,7 +1209,32 @@ public class HierarchyManager implements Maintainable {
 	 * @throws HierarchyException
 	 */
 	public boolean setSynonym(IRI iri, IRI synonym, Connection connection) throws HierarchyException {
-		return this.setBroader(iri, synonym, connection) | this.setBroader(synonym, iri, connection);
+		Changes changed = new Changes();
+		boolean result = this.setSynonym(iri, synonym, connection, changed);
+		this.refreshSearchIndex(connection, changed);
+		return result;
+	}
+
+	/**
+	 * Adds the synonym concept to the synonyms of the concept.
+	 * 
+	 * @param iri
+	 *            {@link IRI} of the concept
+	 * @param synonym
+	 *            {@link IRI} of the synonym
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param changed
+	 *            {@link Changes} to add the IDs of changed concepts to or
+	 *            <code>null</code>
+	 * @return <code>true</code> if the hierarchy has been changed, otherwise
+	 *         <code>false</code>
+	 * @throws HierarchyException
+	 */
+	private boolean setSynonym(IRI iri, IRI synonym, Connection connection, Changes changed)
+			throws HierarchyException {
+		return this.setBroader(iri, synonym, connection, changed)
+				| this.setBroader(synonym, iri, connection, changed);
 	}
 
 	/**
@@ -747,13 +1274,55 @@ public class HierarchyManager implements Maintainable {
 	 * @throws HierarchyException
 	 */
 	public boolean setSynonyms(IRI iri, Collection<IRI> synonyms, Connection connection) throws HierarchyException {
+		Changes changed = new Changes();
+		boolean result = this.setSynonyms(iri, synonyms, connection, changed);
+		this.refreshSearchIndex(connection, changed);
+		return result;
+	}
+
+	/**
+	 * Adds the {@link Collection} of concepts to the synonyms of the concept.
+	 * 
+	 * @param iri
+	 *            {@link IRI} of the concept
+	 * @param synonyms
+	 *            {@link Collection} of {@link IRI}s of the synonyms
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param changed
+	 *            {@link Changes} to add the IDs of changed concepts to or
+	 *            <code>null</code>
+	 * @return <code>true</code> if the hierarchy has been changed, otherwise
+	 *         <code>false</code>
+	 * @throws HierarchyException
+	 */
+	private boolean setSynonyms(IRI iri, Collection<IRI> synonyms, Connection connection, Changes changed)
+			throws HierarchyException {
 		boolean result = false;
 		for (IRI synonym : synonyms) {
-			result = this.setSynonym(iri, synonym, connection) || result;
+			result = this.setSynonym(iri, synonym, connection, changed) || result;
 		}
 		return result;
 	}
 
+	/**
+	 * IDs of concepts with changed narrowers or broaders, collected to update
+	 * the search index.
+	 * 
+	 * @since 0.3.9
+	 *
+	 */
+	private static class Changes {
+		/**
+		 * IDs of concepts that gained narrowers
+		 */
+		private final Set<Long> narrowers = new HashSet<Long>();
+		/**
+		 * IDs of concepts that gained broaders
+		 */
+		private final Set<Long> broaders = new HashSet<Long>();
+	}
+
 	/**
 	 * Listener to trigger hierarchy updates.
 	 * 
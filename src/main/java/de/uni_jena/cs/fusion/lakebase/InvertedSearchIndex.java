@@ -0,0 +1,665 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.Nullable;
+
+import org.jooq.Condition;
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.Record2;
+import org.jooq.Record7;
+import org.jooq.SelectJoinStep;
+import org.jooq.impl.DSL;
+import org.roaringbitmap.RoaringBitmap;
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.uni_jena.cs.fusion.lakebase.model.Entity;
+import de.uni_jena.cs.fusion.lakebase.model.SearchResponse;
+
+/**
+ * <p>
+ * In-memory search index, alternative to the SQL based search on
+ * <code>semantic.search_index</code>.
+ * </p>
+ * 
+ * <p>
+ * Each annotated entity gets a dense integer ID, which gets reused after the
+ * entity lost all its annotations. For each concept the index
+ * contains a compressed bitmap of the IDs of the entities annotated with this
+ * concept, as well as its transitive narrowers (including synonyms) according
+ * to <code>semantic.concept_hierarchy</code>. Searched concepts are expanded
+ * to their narrowers, rankings are computed from the numbers of narrowers and
+ * exclusions are applied as bitmap difference.
+ * </p>
+ * 
+ * <p>
+ * The index gets updated from committed data by the {@link SearchIndex} it is
+ * attached to and must be populated by {@link SearchIndex#rebuild()} or
+ * {@link SearchIndex#load()} before use. Updates are serialized, so that the latest update reflects the latest
+ * commit, and block searches only while being applied.
+ * </p>
+ * 
+ * @since 0.3.9
+ *
+ */
+public class InvertedSearchIndex {
+
+	private final static Logger log = LoggerFactory.getLogger(InvertedSearchIndex.class);
+
+	private final static long[] noConcepts = new long[0];
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * concept IDs by concept IRI
+	 */
+	private Map<String, Long> conceptIds = new HashMap<String, Long>();
+	/**
+	 * transitive narrowers, including synonyms, by concept ID
+	 */
+	private Map<Long, long[]> narrowers = new HashMap<Long, long[]>();
+	/**
+	 * bitmaps of annotated entity IDs by concept ID
+	 */
+	private Map<Long, RoaringBitmap> annotated = new HashMap<Long, RoaringBitmap>();
+	/**
+	 * entities by entity ID, <code>null</code> for unused IDs
+	 */
+	private List<Entity> entities = new ArrayList<Entity>();
+	/**
+	 * unused entity IDs
+	 */
+	private Deque<Integer> unusedIds = new ArrayDeque<Integer>();
+	/**
+	 * annotated concept IDs by entity ID
+	 */
+	private List<long[]> entityConcepts = new ArrayList<long[]>();
+	/**
+	 * entity IDs by entity
+	 */
+	private Map<Entity, Integer> entityIds = new HashMap<Entity, Integer>();
+	/**
+	 * bitmaps of entity IDs by package ID
+	 */
+	private Map<Long, RoaringBitmap> packages = new HashMap<Long, RoaringBitmap>();
+	/**
+	 * bitmaps of entity IDs by package and object ID
+	 */
+	private Map<Entity, RoaringBitmap> objects = new HashMap<Entity, RoaringBitmap>();
+
+	private static SelectJoinStep<Record7<Long, String, Long, Long, Long, Long, Long>> selectAnnotations(
+			DSLContext sql) {
+		return sql
+				.selectDistinct(field("a.concept_id", Long.class), field("c.concept_iri", String.class),
+						field("a.package_id", Long.class), field("a.object_id", Long.class),
+						field("a.column_id", Long.class), field("a.row_id", Long.class),
+						field("a.meta_id", Long.class))
+				.from(table("semantic.annotation").as("a").join(table("semantic.concept").as("c"))
+						.on(field("c.concept_id").eq(field("a.concept_id"))));
+	}
+
+	private static Entity entity(Record record) {
+		return new Entity(record.get(2, Long.class), record.get(3, Long.class), record.get(4, Long.class),
+				record.get(5, Long.class), record.get(6, Long.class));
+	}
+
+	/**
+	 * Rebuilds the whole index from <code>semantic.annotation</code> and
+	 * <code>semantic.concept_hierarchy</code>. Searches will use the previous
+	 * state of the index until the rebuild is completed.
+	 * 
+	 * @param sql
+	 *            {@link DSLContext} to use
+	 */
+	synchronized void rebuild(DSLContext sql) {
+		log.info("rebuilding ...");
+		long startTime = System.currentTimeMillis();
+
+		InvertedSearchIndex index = new InvertedSearchIndex();
+
+		// load hierarchy
+		Map<Long, List<Long>> narrowerLists = new HashMap<Long, List<Long>>();
+		try (Cursor<Record2<Long, Long>> cursor = sql
+				.select(field("broader_concept_id", Long.class), field("narrower_concept_id", Long.class))
+				.from(table("semantic.concept_hierarchy")).fetchSize(10000).fetchLazy()) {
+			for (Record2<Long, Long> record : cursor) {
+				narrowerLists.computeIfAbsent(record.value1(), k -> new ArrayList<Long>()).add(record.value2());
+			}
+		}
+		for (Map.Entry<Long, List<Long>> entry : narrowerLists.entrySet()) {
+			index.narrowers.put(entry.getKey(), toArray(entry.getValue()));
+		}
+
+		// load concepts
+		try (Cursor<Record2<Long, String>> cursor = sql
+				.select(field("concept_id", Long.class), field("concept_iri", String.class))
+				.from(table("semantic.concept")).fetchSize(10000).fetchLazy()) {
+			for (Record2<Long, String> record : cursor) {
+				index.conceptIds.put(record.value2(), record.value1());
+			}
+		}
+
+		// load annotations
+		Map<Integer, Set<Long>> concepts = new HashMap<Integer, Set<Long>>();
+		try (Cursor<Record7<Long, String, Long, Long, Long, Long, Long>> cursor = selectAnnotations(sql)
+				.fetchSize(10000).fetchLazy()) {
+			for (Record record : cursor) {
+				int id = index.entityId(entity(record));
+				long conceptId = record.get(0, Long.class);
+				concepts.computeIfAbsent(id, k -> new HashSet<Long>()).add(conceptId);
+				index.annotated.computeIfAbsent(conceptId, k -> new RoaringBitmap()).add(id);
+			}
+		}
+		for (Map.Entry<Integer, Set<Long>> entry : concepts.entrySet()) {
+			index.entityConcepts.set(entry.getKey(), toArray(entry.getValue()));
+		}
+
+		// compress bitmaps
+		for (RoaringBitmap bitmap : index.annotated.values()) {
+			bitmap.runOptimize();
+		}
+		for (RoaringBitmap bitmap : index.packages.values()) {
+			bitmap.runOptimize();
+		}
+		for (RoaringBitmap bitmap : index.objects.values()) {
+			bitmap.runOptimize();
+		}
+
+		this.lock.writeLock().lock();
+		try {
+			this.conceptIds = index.conceptIds;
+			this.narrowers = index.narrowers;
+			this.annotated = index.annotated;
+			this.entities = index.entities;
+			this.unusedIds = index.unusedIds;
+			this.entityConcepts = index.entityConcepts;
+			this.entityIds = index.entityIds;
+			this.packages = index.packages;
+			this.objects = index.objects;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+
+		log.info("rebuild of {} entities took {} ms", index.entityIds.size(), System.currentTimeMillis() - startTime);
+	}
+
+	/**
+	 * Updates the narrowers of the given concepts.
+	 * 
+	 * @param sql
+	 *            {@link DSLContext} to use
+	 * @param ids
+	 *            IDs of the concepts with changed narrowers
+	 */
+	synchronized void refreshNarrowers(DSLContext sql, Long[] ids) {
+		Map<Long, List<Long>> narrowerLists = new HashMap<Long, List<Long>>();
+		for (Record2<Long, Long> record : sql
+				.select(field("broader_concept_id", Long.class), field("narrower_concept_id", Long.class))
+				.from(table("semantic.concept_hierarchy"))
+				.where(field("broader_concept_id", Long.class).eq(DSL.any(ids))).fetch()) {
+			narrowerLists.computeIfAbsent(record.value1(), k -> new ArrayList<Long>()).add(record.value2());
+		}
+		Map<String, Long> iris = selectIris(sql, ids);
+
+		this.lock.writeLock().lock();
+		try {
+			this.conceptIds.putAll(iris);
+			for (Long id : ids) {
+				List<Long> narrowerList = narrowerLists.get(id);
+				if (narrowerList != null) {
+					this.narrowers.put(id, toArray(narrowerList));
+				} else {
+					this.narrowers.remove(id);
+				}
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Updates the entities annotated with the given concepts.
+	 * 
+	 * @param sql
+	 *            {@link DSLContext} to use
+	 * @param ids
+	 *            IDs of the changed concepts
+	 */
+	synchronized void refreshConcepts(DSLContext sql, Long[] ids) {
+		Map<String, Long> iris = selectIris(sql, ids);
+		List<Record7<Long, String, Long, Long, Long, Long, Long>> annotations = selectAnnotations(sql)
+				.where(field("a.concept_id", Long.class).eq(DSL.any(ids))).fetch();
+
+		this.lock.writeLock().lock();
+		try {
+			this.conceptIds.putAll(iris);
+			Set<Long> changed = new HashSet<Long>(Arrays.asList(ids));
+
+			// determine new annotated concepts of affected entities
+			Map<Integer, Set<Long>> concepts = new HashMap<Integer, Set<Long>>();
+			for (Long id : ids) {
+				RoaringBitmap bitmap = this.annotated.get(id);
+				if (bitmap != null) {
+					for (int entityId : bitmap) {
+						concepts.computeIfAbsent(entityId, k -> unchangedConcepts(k, changed));
+					}
+				}
+			}
+			for (Record record : annotations) {
+				concepts.computeIfAbsent(entityId(entity(record)), k -> unchangedConcepts(k, changed))
+						.add(record.get(0, Long.class));
+			}
+			for (Map.Entry<Integer, Set<Long>> entry : concepts.entrySet()) {
+				setConcepts(entry.getKey(), entry.getValue());
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	private static Map<String, Long> selectIris(DSLContext sql, Long[] ids) {
+		Map<String, Long> iris = new HashMap<String, Long>();
+		for (Record2<String, Long> record : sql
+				.select(field("concept_iri", String.class), field("concept_id", Long.class))
+				.from(table("semantic.concept")).where(field("concept_id", Long.class).eq(DSL.any(ids))).fetch()) {
+			iris.put(record.value1(), record.value2());
+		}
+		return iris;
+	}
+
+	/**
+	 * Replaces the annotations of all entities matching the specified entities
+	 * by the given annotations.
+	 * 
+	 * @param sql
+	 *            {@link DSLContext} to use
+	 * @param condition
+	 *            condition on the unqualified entity fields matching the
+	 *            specified entities
+	 * @param specified
+	 *            the specified entities
+	 * @param deep
+	 *            determines if the specified fields (FALSE) or the specified
+	 *            fields an its subordinate fields should be updated
+	 */
+	synchronized void refreshEntities(DSLContext sql, Condition condition, Collection<Entity> specified,
+			boolean deep) {
+		List<Record7<Long, String, Long, Long, Long, Long, Long>> annotations = selectAnnotations(sql)
+				.where(condition).fetch();
+
+		this.lock.writeLock().lock();
+		try {
+			Map<Integer, Set<Long>> concepts = new HashMap<Integer, Set<Long>>();
+			// remove previous annotations
+			for (Entity entity : specified) {
+				if (deep) {
+					RoaringBitmap packageEntities = this.packages.get(entity.packageID);
+					if (packageEntities != null) {
+						for (int id : packageEntities) {
+							if (matches(this.entities.get(id), entity, deep)) {
+								concepts.put(id, new HashSet<Long>());
+							}
+						}
+					}
+				} else {
+					Integer id = this.entityIds.get(entity);
+					if (id != null) {
+						concepts.put(id, new HashSet<Long>());
+					}
+				}
+			}
+			// add current annotations
+			for (Record record : annotations) {
+				this.conceptIds.put(record.get(1, String.class), record.get(0, Long.class));
+				concepts.computeIfAbsent(entityId(entity(record)), k -> new HashSet<Long>())
+						.add(record.get(0, Long.class));
+			}
+			for (Map.Entry<Integer, Set<Long>> entry : concepts.entrySet()) {
+				setConcepts(entry.getKey(), entry.getValue());
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the ID of the given entity. Unknown entities will get an unused
+	 * or a new ID. Requires the write lock.
+	 */
+	private int entityId(Entity entity) {
+		Integer id = this.entityIds.get(entity);
+		if (id == null) {
+			id = this.unusedIds.poll();
+			if (id == null) {
+				id = this.entities.size();
+				this.entities.add(entity);
+				this.entityConcepts.add(noConcepts);
+			} else {
+				this.entities.set(id, entity);
+			}
+			this.entityIds.put(entity, id);
+			this.packages.computeIfAbsent(entity.packageID, k -> new RoaringBitmap()).add(id);
+			this.objects.computeIfAbsent(objectKey(entity), k -> new RoaringBitmap()).add(id);
+		}
+		return id;
+	}
+
+	/**
+	 * Removes an entity without annotated concepts and marks its ID as unused.
+	 * Requires the write lock.
+	 */
+	private void removeEntity(int id) {
+		Entity entity = this.entities.get(id);
+		this.entityIds.remove(entity);
+		removeFrom(this.packages, entity.packageID, id);
+		removeFrom(this.objects, objectKey(entity), id);
+		this.entities.set(id, null);
+		this.unusedIds.push(id);
+	}
+
+	private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int id) {
+		RoaringBitmap bitmap = bitmaps.get(key);
+		bitmap.remove(id);
+		if (bitmap.isEmpty()) {
+			bitmaps.remove(key);
+		}
+	}
+
+	/**
+	 * Returns the annotated concepts of an entity without the changed
+	 * concepts. Requires the write lock.
+	 */
+	private Set<Long> unchangedConcepts(int entityId, Set<Long> changed) {
+		Set<Long> concepts = new HashSet<Long>();
+		for (long conceptId : this.entityConcepts.get(entityId)) {
+			if (!changed.contains(conceptId)) {
+				concepts.add(conceptId);
+			}
+		}
+		return concepts;
+	}
+
+	/**
+	 * Replaces the annotated concepts of an entity and removes the entity, if
+	 * no concepts remain. Requires the write lock.
+	 */
+	private void setConcepts(int entityId, Collection<Long> concepts) {
+		for (long conceptId : this.entityConcepts.get(entityId)) {
+			RoaringBitmap bitmap = this.annotated.get(conceptId);
+			bitmap.remove(entityId);
+			if (bitmap.isEmpty()) {
+				this.annotated.remove(conceptId);
+			}
+		}
+		for (long conceptId : concepts) {
+			this.annotated.computeIfAbsent(conceptId, k -> new RoaringBitmap()).add(entityId);
+		}
+		this.entityConcepts.set(entityId, toArray(concepts));
+		if (concepts.isEmpty()) {
+			removeEntity(entityId);
+		}
+	}
+
+	private static long[] toArray(Collection<Long> values) {
+		long[] array = new long[values.size()];
+		int i = 0;
+		for (Long value : values) {
+			array[i++] = value;
+		}
+		return array;
+	}
+
+	private static Entity objectKey(Entity entity) {
+		return new Entity(entity.packageID, entity.objectID, null, null, null);
+	}
+
+	/**
+	 * Returns <code>true</code> if the entity is part of the specified entity,
+	 * according to {@link AnnotationManager}.
+	 */
+	private static boolean matches(Entity entity, Entity specified, boolean deep) {
+		if (entity.packageID != specified.packageID) {
+			return false;
+		}
+		if (specified.objectID != null ? !specified.objectID.equals(entity.objectID)
+				: !deep && entity.objectID != null) {
+			return false;
+		}
+		if (specified.columnID != null ? !specified.columnID.equals(entity.columnID)
+				: (!deep || specified.rowID != null) && entity.columnID != null) {
+			return false;
+		}
+		if (specified.rowID != null ? !specified.rowID.equals(entity.rowID)
+				: (!deep || specified.columnID != null) && entity.rowID != null) {
+			return false;
+		}
+		if (specified.metaID != null ? !specified.metaID.equals(entity.metaID) : !deep && entity.metaID != null) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the entity the results get grouped by, depending on the entity
+	 * to search inside.
+	 */
+	private static Entity group(Entity entity, @Nullable Entity inside) {
+		if (inside == null) {
+			return new Entity(entity.packageID, null, null, null, null);
+		} else if (inside.objectID == null) {
+			return new Entity(entity.packageID, entity.objectID, null, null, null);
+		} else {
+			return new Entity(entity.packageID, entity.objectID, entity.columnID, entity.rowID, null);
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the group can be excluded. As in SQL, groups
+	 * with missing IDs are not equal to any other group.
+	 */
+	private static boolean excludable(Entity group, @Nullable Entity inside) {
+		if (inside == null) {
+			return true;
+		} else if (inside.objectID == null) {
+			return group.objectID != null;
+		} else {
+			return group.objectID != null && group.columnID != null && group.rowID != null;
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the entity is inside of the given entity.
+	 */
+	private static boolean inside(Entity entity, Entity inside) {
+		return entity.packageID == inside.packageID
+				&& (inside.objectID == null || inside.objectID.equals(entity.objectID))
+				&& (inside.columnID == null || inside.columnID.equals(entity.columnID))
+				&& (inside.rowID == null || inside.rowID.equals(entity.rowID));
+	}
+
+	/**
+	 * Returns the IDs of the given concepts and their narrowers. Requires the
+	 * read lock.
+	 */
+	private RoaringBitmap annotatedWithin(Collection<Long> conceptIds) {
+		RoaringBitmap result = new RoaringBitmap();
+		for (Long conceptId : conceptIds) {
+			RoaringBitmap bitmap = this.annotated.get(conceptId);
+			if (bitmap != null) {
+				result.or(bitmap);
+			}
+			for (long narrower : this.narrowers.getOrDefault(conceptId, noConcepts)) {
+				bitmap = this.annotated.get(narrower);
+				if (bitmap != null) {
+					result.or(bitmap);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the IDs of all entities in the given groups. Requires the read
+	 * lock.
+	 */
+	private RoaringBitmap groupMembers(Collection<Entity> groups, @Nullable Entity inside) {
+		RoaringBitmap result = new RoaringBitmap();
+		for (Entity group : groups) {
+			if (inside == null) {
+				result.or(this.packages.get(group.packageID));
+			} else if (inside.objectID == null) {
+				result.or(this.objects.get(group));
+			} else {
+				for (int id : this.objects.get(objectKey(group))) {
+					if (group(this.entities.get(id), inside).equals(group)) {
+						result.add(id);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private Collection<Long> conceptIds(Collection<IRI> iris) {
+		Collection<Long> ids = new ArrayList<Long>();
+		for (IRI iri : iris) {
+			Long id = this.conceptIds.get(iri.getIRIString());
+			if (id != null) {
+				ids.add(id);
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Returns the entities annotated with the included concepts or their
+	 * narrowers, excluding entities in groups annotated with the excluded
+	 * concepts or their narrowers. Results are grouped and ranked like in
+	 * {@link Searcher#search(Collection, Collection, Entity)}.
+	 * 
+	 * @param include
+	 *            {@link IRI}s of the searched concepts
+	 * @param exclude
+	 *            {@link IRI}s of the excluded concepts
+	 * @param inside
+	 *            the entity to search inside or <code>null</code>
+	 * @return unordered search results
+	 */
+	public List<SearchResponse> search(Collection<IRI> include, Collection<IRI> exclude, @Nullable Entity inside) {
+		this.lock.readLock().lock();
+		try {
+			// determine entities to skip
+			RoaringBitmap skipped = new RoaringBitmap();
+			if (inside != null) {
+				RoaringBitmap packageEntities = this.packages.get(inside.packageID);
+				if (packageEntities == null) {
+					return Collections.emptyList();
+				}
+				skipped.add(0L, this.entities.size());
+				skipped.andNot(packageEntities);
+			}
+			if (!exclude.isEmpty()) {
+				Set<Entity> excludedGroups = new HashSet<Entity>();
+				for (int id : annotatedWithin(conceptIds(exclude))) {
+					Entity entity = this.entities.get(id);
+					if (inside == null || inside(entity, inside)) {
+						Entity group = group(entity, inside);
+						if (excludable(group, inside)) {
+							excludedGroups.add(group);
+						}
+					}
+				}
+				skipped.or(groupMembers(excludedGroups, inside));
+			}
+
+			// sum rankings
+			Map<Entity, Double> rankings = new HashMap<Entity, Double>();
+			for (Long searched : new HashSet<Long>(conceptIds(include))) {
+				long[] searchedNarrowers = this.narrowers.getOrDefault(searched, noConcepts);
+				rank(rankings, searched, 1.0, skipped, inside);
+				for (long narrower : searchedNarrowers) {
+					rank(rankings, narrower,
+							(1.0 + this.narrowers.getOrDefault(narrower, noConcepts).length)
+									/ (1.0 + searchedNarrowers.length),
+							skipped, inside);
+				}
+			}
+
+			List<SearchResponse> results = new ArrayList<SearchResponse>(rankings.size());
+			for (Map.Entry<Entity, Double> entry : rankings.entrySet()) {
+				results.add(new SearchResponse(entry.getKey(), entry.getValue()));
+			}
+			return results;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds the ranking of the annotated concept to the groups of all entities
+	 * annotated with it. Requires the read lock.
+	 */
+	private void rank(Map<Entity, Double> rankings, long annotatedConcept, double ranking, RoaringBitmap skipped,
+			@Nullable Entity inside) {
+		RoaringBitmap bitmap = this.annotated.get(annotatedConcept);
+		if (bitmap != null) {
+			for (int id : RoaringBitmap.andNot(bitmap, skipped)) {
+				Entity entity = this.entities.get(id);
+				if (inside == null || inside(entity, inside)) {
+					rankings.merge(group(entity, inside), ranking, Double::sum);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return number of indexed entities
+	 */
+	public int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.entityIds.size();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+}
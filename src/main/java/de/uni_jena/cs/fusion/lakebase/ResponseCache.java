@@ -0,0 +1,144 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Bounded cache of serialized responses of requests, which are pure functions
+ * of their normalized input and a data version. Entries are identified by a
+ * tag derived from the request and the version, suitable as HTTP entity tag.
+ * Entries of outdated versions are not hit anymore and get evicted as the
+ * least recently used ones.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class ResponseCache {
+
+	private final Cache<String, Entry> cache;
+	private final long maxAge;
+
+	/**
+	 * @param capacity
+	 *            maximum total size of the cached responses in bytes
+	 * @param maxAge
+	 *            time clients may reuse a response without revalidation
+	 * @param unit
+	 *            unit of the maximum age
+	 */
+	public ResponseCache(long capacity, long maxAge, TimeUnit unit) {
+		this.cache = CacheBuilder.newBuilder().maximumWeight(capacity)
+				.weigher((String tag, Entry entry) -> entry.body.length + tag.length()).build();
+		this.maxAge = unit.toSeconds(maxAge);
+	}
+
+	/**
+	 * Determines the tag of a response.
+	 * 
+	 * @param parts
+	 *            the service, the normalized input and all other values the
+	 *            response depends on, including the data version
+	 * @return the tag of the response
+	 */
+	public String tag(String... parts) {
+		Hasher hasher = Hashing.sha256().newHasher();
+		for (String part : parts) {
+			// length prefix to separate the parts unambiguously
+			String value = String.valueOf(part);
+			hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+		}
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * @param tag
+	 *            the tag of the response
+	 * @return the cached response or <code>null</code>
+	 */
+	public Entry get(String tag) {
+		return this.cache.getIfPresent(tag);
+	}
+
+	/**
+	 * @param tag
+	 *            the tag of the response
+	 * @param entry
+	 *            the response to cache
+	 */
+	public void put(String tag, Entry entry) {
+		this.cache.put(tag, entry);
+	}
+
+	/**
+	 * @return time in seconds clients may reuse a response without
+	 *         revalidation
+	 */
+	public long getMaxAge() {
+		return this.maxAge;
+	}
+
+	/**
+	 * Checks if an entity tag matches the value of an
+	 * <code>If-None-Match</code> header, using the weak comparison.
+	 * 
+	 * @param ifNoneMatch
+	 *            value of the <code>If-None-Match</code> header, might be
+	 *            <code>null</code>
+	 * @param etag
+	 *            the quoted entity tag of the response
+	 * @return <code>true</code>, if the entity tag matches
+	 */
+	public static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			candidate = candidate.trim();
+			if (candidate.startsWith("W/")) {
+				candidate = candidate.substring(2);
+			}
+			if (candidate.equals("*") || candidate.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Serialized response.
+	 */
+	public static class Entry {
+		public final String contentType;
+		public final byte[] body;
+
+		public Entry(String contentType, byte[] body) {
+			this.contentType = contentType;
+			this.body = body;
+		}
+	}
+}
@@ -0,0 +1,574 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.select;
+import static org.jooq.impl.DSL.table;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Record6;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.uni_jena.cs.fusion.lakebase.model.Entity;
+
+/**
+ * <p>
+ * Maintains the materialized search index in
+ * <code>semantic.search_index</code> and the narrower counts in
+ * <code>semantic.concept_narrower_count</code> used for its rankings.
+ * </p>
+ * 
+ * <p>
+ * The index contains for each annotated entity one entry per annotated concept
+ * and each of its broaders or synonyms as searched concept. The rankings
+ * <code>(1 + narrowers(annotated)) / (1 + narrowers(searched))</code> are not
+ * stored but computed on search from the narrower counts, so that changes of
+ * the narrowers of a concept only update its narrower count.
+ * </p>
+ * 
+ * <p>
+ * The index gets updated incrementally by the {@link AnnotationManager} for
+ * changed entities and by the {@link HierarchyManager} for concepts with
+ * changed broaders or narrowers. Concurrent updates of entries are serialized
+ * using transaction level advisory locks: Updates of entities lock only the
+ * updated entities or, for package or subordinate updates, the package or
+ * object, whereas updates of concepts and rebuilds lock the whole index.
+ * Updates of concepts should therefore precede updates of entities inside of
+ * the same transaction.
+ * </p>
+ * 
+ * <p>
+ * Optionally, an attached {@link InvertedSearchIndex} gets updated alongside.
+ * As it is visible to all connections, it gets updated from the committed data
+ * after the changes have been committed. Therefore, changes inside of a
+ * transaction require a {@link Transaction}. Changes are also recorded with
+ * the shared {@link DataVersion}, so that other service instances apply them
+ * to their {@link InvertedSearchIndex} on {@link #synchronize()}.
+ * </p>
+ * 
+ * @since 0.3.9
+ *
+ */
+public class SearchIndex {
+
+	private final static Logger log = LoggerFactory.getLogger(SearchIndex.class);
+
+	/**
+	 * key of the advisory lock of the whole index, held shared by updates of
+	 * entities
+	 */
+	private final static long lockKey = 7452398011L;
+
+	/**
+	 * classes of the advisory locks of packages, objects and entities
+	 */
+	private final static int packageLockClass = 745239802, objectLockClass = 745239803,
+			entityLockClass = 745239804;
+
+	/**
+	 * statement to insert index entries for annotations matching the conditions
+	 * {0} (hierarchy part) and {1} (annotated concept part)
+	 */
+	private final static String insertEntries = "INSERT INTO semantic.search_index "
+			+ "(searched_concept_id, annotated_concept_id, package_id, object_id, column_id, row_id, meta_id) "
+			+ "SELECT h.broader_concept_id, a.concept_id, a.package_id, a.object_id, a.column_id, a.row_id, a.meta_id "
+			+ "FROM semantic.annotation a "
+			+ "INNER JOIN semantic.concept_hierarchy h ON h.narrower_concept_id = a.concept_id " //
+			+ "WHERE {0} " //
+			+ "UNION " //
+			+ "SELECT a.concept_id, a.concept_id, a.package_id, a.object_id, a.column_id, a.row_id, a.meta_id "
+			+ "FROM semantic.annotation a " //
+			+ "WHERE {1}";
+
+	private final DataSource dataSource;
+
+	private final InvertedSearchIndex invertedIndex;
+
+	private final DataVersion dataVersion;
+
+	/**
+	 * version of the last change applied to the attached
+	 * {@link InvertedSearchIndex}, <code>-1</code> if not populated yet
+	 */
+	private long appliedVersion = -1;
+
+	public SearchIndex(DataSource dataSource) {
+		this(dataSource, null);
+	}
+
+	/**
+	 * @param dataSource
+	 *            {@link DataSource} to use
+	 * @param invertedIndex
+	 *            {@link InvertedSearchIndex} to update alongside or
+	 *            <code>null</code>
+	 */
+	public SearchIndex(DataSource dataSource, @Nullable InvertedSearchIndex invertedIndex) {
+		this(dataSource, invertedIndex, new DataVersion());
+	}
+
+	/**
+	 * @param dataSource
+	 *            {@link DataSource} to use
+	 * @param invertedIndex
+	 *            {@link InvertedSearchIndex} to update alongside or
+	 *            <code>null</code>
+	 * @param dataVersion
+	 *            {@link DataVersion} to record changes with
+	 */
+	public SearchIndex(DataSource dataSource, @Nullable InvertedSearchIndex invertedIndex,
+			DataVersion dataVersion) {
+		this.dataSource = dataSource;
+		this.invertedIndex = invertedIndex;
+		this.dataVersion = dataVersion;
+	}
+
+	/**
+	 * Operation on the index to execute inside of a locked transaction.
+	 */
+	private interface Operation {
+		void execute(DSLContext sql) throws DataAccessException;
+	}
+
+	/**
+	 * Update of the {@link InvertedSearchIndex} using committed data.
+	 */
+	private interface Update {
+		void apply(InvertedSearchIndex invertedIndex, DSLContext sql) throws DataAccessException;
+	}
+
+	/**
+	 * Executes the given {@link Operation}, which has to acquire its locks
+	 * first. If the given {@link Connection} is in auto commit mode, the
+	 * {@link Operation} will be executed in an own transaction. Otherwise the
+	 * locks will be held until the end of the current transaction. The change
+	 * gets recorded with the {@link DataVersion} of the transaction. Afterwards,
+	 * the given {@link Update} of the attached {@link InvertedSearchIndex}
+	 * will be applied after the commit.
+	 * 
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param operation
+	 *            {@link Operation} to execute
+	 * @param record
+	 *            records the change for other service instances
+	 * @param update
+	 *            {@link Update} to apply after the commit
+	 * @throws SQLException
+	 */
+	private void execute(Connection connection, Operation operation, Consumer<DataVersion.Change> record,
+			Update update) throws SQLException {
+		if (connection.getAutoCommit()) {
+			try (Transaction transaction = Transaction.begin(connection);
+					DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+				operation.execute(sql);
+				this.record(connection, record);
+				transaction.commit();
+			}
+		} else {
+			try (DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+				operation.execute(sql);
+			}
+			this.record(connection, record);
+		}
+		if (this.invertedIndex != null) {
+			Transaction.afterCommit(connection, () -> {
+				try (Connection committed = this.dataSource.getConnection();
+						DSLContext sql = DSL.using(committed, SQLDialect.POSTGRES_9_5)) {
+					update.apply(this.invertedIndex, sql);
+				} catch (DataAccessException | SQLException e) {
+					log.error("Failed to update inverted search index, rebuild required.", e);
+				}
+			});
+		}
+	}
+
+	private void record(Connection connection, Consumer<DataVersion.Change> record) throws SQLException {
+		DataVersion.Change change = this.dataVersion.change(connection);
+		if (change != null) {
+			record.accept(change);
+		}
+	}
+
+	/**
+	 * Locks the whole index until the end of the current transaction.
+	 */
+	private static void lockIndex(DSLContext sql) {
+		sql.execute("SELECT pg_advisory_xact_lock(?)", lockKey);
+	}
+
+	/**
+	 * Locks the given entities until the end of the current transaction. The
+	 * shared lock of the whole index gets acquired first, followed by the locks
+	 * of all packages, objects and entities in one statement in the order of
+	 * their classes and keys, to avoid deadlocks between updates of
+	 * overlapping entities. Colliding keys only cause unnecessary waits.
+	 * 
+	 * @param entities
+	 *            the entities to lock
+	 * @param deep
+	 *            determines if only the specified fields (FALSE) or also
+	 *            their subordinate fields get locked
+	 */
+	private static void lockEntities(DSLContext sql, Collection<Entity> entities, boolean deep) {
+		// lock class and key -> exclusive
+		SortedMap<Long, Boolean> locks = new TreeMap<Long, Boolean>();
+		for (Entity entity : entities) {
+			int packageKey = Long.hashCode(entity.packageID);
+			if (entity.objectID == null) {
+				addLock(locks, packageLockClass, packageKey, true);
+			} else {
+				addLock(locks, packageLockClass, packageKey, false);
+				int objectKey = Objects.hash(entity.packageID, entity.objectID);
+				if (deep) {
+					addLock(locks, objectLockClass, objectKey, true);
+				} else {
+					addLock(locks, objectLockClass, objectKey, false);
+					addLock(locks, entityLockClass, Objects.hash(entity.packageID, entity.objectID,
+							entity.columnID, entity.rowID, entity.metaID), true);
+				}
+			}
+		}
+		Integer[] classes = new Integer[locks.size()];
+		Integer[] keys = new Integer[locks.size()];
+		Boolean[] exclusive = new Boolean[locks.size()];
+		int i = 0;
+		for (Map.Entry<Long, Boolean> lock : locks.entrySet()) {
+			classes[i] = (int) (lock.getKey() >>> 32);
+			keys[i] = (int) (lock.getKey() - ((long) classes[i] << 32) + Integer.MIN_VALUE);
+			exclusive[i++] = lock.getValue();
+		}
+		sql.execute("SELECT pg_advisory_xact_lock_shared(?)", lockKey);
+		// the rows of unnest are processed in the order of the arrays
+		sql.execute("SELECT CASE WHEN l.x THEN pg_advisory_xact_lock(l.c, l.k)::text "
+				+ "ELSE pg_advisory_xact_lock_shared(l.c, l.k)::text END "
+				+ "FROM unnest({0}::int[], {1}::int[], {2}::boolean[]) AS l (c, k, x)", DSL.val(classes),
+				DSL.val(keys), DSL.val(exclusive));
+	}
+
+	/**
+	 * Adds a lock to the given locks sorted by class and key. Exclusive locks
+	 * supersede shared locks with the same class and key.
+	 */
+	private static void addLock(SortedMap<Long, Boolean> locks, int lockClass, int key, boolean exclusive) {
+		locks.merge(((long) lockClass << 32) + ((long) key - Integer.MIN_VALUE), exclusive, Boolean::logicalOr);
+	}
+
+	/**
+	 * Rebuilds the whole search index and the narrower counts from
+	 * <code>semantic.annotation</code> and
+	 * <code>semantic.concept_hierarchy</code>.
+	 * 
+	 * @throws SearchIndexException
+	 * @see #rebuild(Connection)
+	 */
+	public void rebuild() throws SearchIndexException {
+		try (Connection connection = this.dataSource.getConnection()) {
+			this.rebuild(connection);
+		} catch (SQLException e) {
+			throw new SearchIndexException(e);
+		}
+	}
+
+	/**
+	 * Rebuilds the whole search index and the narrower counts from
+	 * <code>semantic.annotation</code> and
+	 * <code>semantic.concept_hierarchy</code>. Searches use the previous
+	 * entries until the rebuild has been committed, whereas updates wait for
+	 * the commit.
+	 * 
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @throws SearchIndexException
+	 * @see #rebuild()
+	 */
+	public void rebuild(Connection connection) throws SearchIndexException {
+		log.info("rebuilding ...");
+		long startTime = System.currentTimeMillis();
+		try {
+			this.execute(connection, sql -> {
+				lockIndex(sql);
+				// delete instead of truncate to keep the previous entries
+				// visible to searches until the commit
+				sql.deleteFrom(table("semantic.search_index")).execute();
+				sql.deleteFrom(table("semantic.concept_narrower_count")).execute();
+				sql.insertInto(table("semantic.concept_narrower_count"))
+						.columns(field("concept_id"), field("narrower_count"))
+						.select(select(field("broader_concept_id"), field("COUNT(*)"))
+								.from(table("semantic.concept_hierarchy")).groupBy(field("broader_concept_id")))
+						.execute();
+				sql.execute(insertEntries, DSL.trueCondition(), DSL.trueCondition());
+			}, change -> change.rebuild = true, (invertedIndex, sql) -> this.rebuildInvertedIndex(sql));
+		} catch (DataAccessException | SQLException e) {
+			throw new SearchIndexException("Failed to rebuild search index.", e);
+		}
+		log.info("rebuild took " + (System.currentTimeMillis() - startTime) + " ms");
+	}
+
+	/**
+	 * Populates the attached {@link InvertedSearchIndex}, if any, from the
+	 * committed data without rebuilding the search index.
+	 * 
+	 * @throws SearchIndexException
+	 */
+	public void load() throws SearchIndexException {
+		if (this.invertedIndex != null) {
+			try (Connection connection = this.dataSource.getConnection();
+					DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+				this.rebuildInvertedIndex(sql);
+			} catch (DataAccessException | SQLException e) {
+				throw new SearchIndexException("Failed to load inverted search index.", e);
+			}
+		}
+	}
+
+	/**
+	 * Updates the narrower counts of the given concepts. Must be called after
+	 * adding hierarchy relations for all concepts that gained narrowers. The
+	 * index entries are not affected, as their rankings get computed on search.
+	 * 
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param conceptIds
+	 *            IDs of the concepts with changed narrowers
+	 * @throws SearchIndexException
+	 */
+	public void refreshNarrowers(Connection connection, Collection<Long> conceptIds) throws SearchIndexException {
+		if (conceptIds.isEmpty()) {
+			return;
+		}
+		Long[] ids = conceptIds.toArray(new Long[conceptIds.size()]);
+		try {
+			this.execute(connection, sql -> {
+				sql.execute("INSERT INTO semantic.concept_narrower_count (concept_id, narrower_count) "
+						+ "SELECT broader_concept_id, COUNT(*) FROM semantic.concept_hierarchy "
+						+ "WHERE broader_concept_id = ANY ({0}) GROUP BY broader_concept_id "
+						+ "ON CONFLICT (concept_id) DO UPDATE SET narrower_count = EXCLUDED.narrower_count",
+						DSL.val(ids));
+			}, change -> change.narrowerConceptIds.addAll(conceptIds),
+					(invertedIndex, sql) -> invertedIndex.refreshNarrowers(sql, ids));
+		} catch (DataAccessException | SQLException e) {
+			throw new SearchIndexException("Failed to refresh narrower counts of concepts " + conceptIds + ".", e);
+		}
+	}
+
+	/**
+	 * Replaces all index entries with one of the given concepts as annotated
+	 * concept by entries for the current annotations and broaders of these
+	 * concepts. Must be called after adding hierarchy relations for all
+	 * concepts that gained broaders, and after replacing annotated concepts for
+	 * the replaced and the replacing concepts.
+	 * 
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param conceptIds
+	 *            IDs of the changed concepts
+	 * @throws SearchIndexException
+	 */
+	public void refreshConcepts(Connection connection, Collection<Long> conceptIds) throws SearchIndexException {
+		if (conceptIds.isEmpty()) {
+			return;
+		}
+		Long[] ids = conceptIds.toArray(new Long[conceptIds.size()]);
+		try {
+			this.execute(connection, sql -> {
+				lockIndex(sql);
+				sql.deleteFrom(table("semantic.search_index"))
+						.where(field("annotated_concept_id", Long.class).eq(DSL.any(ids))).execute();
+				Condition annotated = field("a.concept_id", Long.class).eq(DSL.any(ids));
+				sql.execute(insertEntries, annotated, annotated);
+			}, change -> change.annotatedConceptIds.addAll(conceptIds),
+					(invertedIndex, sql) -> invertedIndex.refreshConcepts(sql, ids));
+		} catch (DataAccessException | SQLException e) {
+			throw new SearchIndexException("Failed to refresh search index for concepts " + conceptIds + ".", e);
+		}
+	}
+
+	/**
+	 * Replaces all index entries of entities matching the given conditions by
+	 * entries for their current annotations. Must be called after changing
+	 * annotations of these entities.
+	 * 
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param entityConditions
+	 *            conditions on the unqualified entity fields
+	 *            <code>package_id</code>, <code>object_id</code>,
+	 *            <code>column_id</code>, <code>row_id</code> and
+	 *            <code>meta_id</code>
+	 * @param entity
+	 *            the entity matched by the conditions
+	 * @param deep
+	 *            determines if the conditions match the specified field
+	 *            (FALSE) or the specified field an its subordinate fields
+	 * @throws SearchIndexException
+	 */
+	void refreshEntities(Connection connection, Collection<Condition> entityConditions, Entity entity,
+			boolean deep) throws SearchIndexException {
+		this.refreshEntities(connection, DSL.and(entityConditions), Collections.singleton(entity), deep);
+	}
+
+	/**
+	 * Replaces all index entries of the given entities, excluding their
+	 * subordinate entities, by entries for their current annotations using one
+	 * statement per step for all entities. Must be called after changing
+	 * annotations of these entities.
+	 * 
+	 * @param connection
+	 *            {@link Connection} to use
+	 * @param entities
+	 *            the changed entities
+	 * @throws SearchIndexException
+	 */
+	void refreshEntities(Connection connection, Collection<Entity> entities) throws SearchIndexException {
+		if (entities.isEmpty()) {
+			return;
+		}
+		Long[] packageIds = new Long[entities.size()], objectIds = new Long[entities.size()],
+				columnIds = new Long[entities.size()], rowIds = new Long[entities.size()],
+				metaIds = new Long[entities.size()];
+		int i = 0;
+		for (Entity entity : entities) {
+			packageIds[i] = entity.packageID;
+			objectIds[i] = entity.objectID;
+			columnIds[i] = entity.columnID;
+			rowIds[i] = entity.rowID;
+			metaIds[i++] = entity.metaID;
+		}
+		Condition condition = DSL.condition("EXISTS (SELECT 1 "
+				+ "FROM unnest({0}::bigint[], {1}::bigint[], {2}::bigint[], {3}::bigint[], {4}::bigint[]) "
+				+ "AS e (p, o, c, r, m) WHERE package_id = e.p AND object_id IS NOT DISTINCT FROM e.o "
+				+ "AND column_id IS NOT DISTINCT FROM e.c AND row_id IS NOT DISTINCT FROM e.r "
+				+ "AND meta_id IS NOT DISTINCT FROM e.m)", DSL.val(packageIds), DSL.val(objectIds),
+				DSL.val(columnIds), DSL.val(rowIds), DSL.val(metaIds));
+		this.refreshEntities(connection, condition, entities, false);
+	}
+
+	private void refreshEntities(Connection connection, Condition condition, Collection<Entity> entities,
+			boolean deep) throws SearchIndexException {
+		try {
+			this.execute(connection, sql -> {
+				lockEntities(sql, entities, deep);
+				sql.deleteFrom(table("semantic.search_index")).where(condition).execute();
+				sql.execute(insertEntries, condition, condition);
+			}, change -> entities.forEach(entity -> change.packageIds.add(entity.packageID)),
+					(invertedIndex, sql) -> invertedIndex.refreshEntities(sql, condition, entities, deep));
+		} catch (DataAccessException | SQLException e) {
+			throw new SearchIndexException("Failed to refresh search index for entities.", e);
+		}
+	}
+
+	/**
+	 * Rebuilds the attached {@link InvertedSearchIndex} and remembers the
+	 * version it includes all changes of.
+	 */
+	private synchronized void rebuildInvertedIndex(DSLContext sql) {
+		long version = currentVersion(sql);
+		this.invertedIndex.rebuild(sql);
+		this.appliedVersion = version;
+	}
+
+	private static long currentVersion(DSLContext sql) {
+		return sql.fetchOne("SELECT version FROM semantic.data_version").get(0, Long.class);
+	}
+
+	/**
+	 * Applies the changes recorded by other service instances since the last
+	 * synchronization to the attached {@link InvertedSearchIndex}, if any. The
+	 * {@link InvertedSearchIndex} gets rebuilt if changes have already been
+	 * deleted.
+	 * 
+	 * @throws SearchIndexException
+	 */
+	public synchronized void synchronize() throws SearchIndexException {
+		if (this.invertedIndex == null || this.appliedVersion < 0) {
+			return;
+		}
+		try (Connection connection = this.dataSource.getConnection();
+				DSLContext sql = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+			long version = currentVersion(sql);
+			if (version <= this.appliedVersion) {
+				return;
+			}
+			Result<Record6<Long, UUID, Boolean, Long[], Long[], Long[]>> changes = sql
+					.select(field("version", Long.class), field("origin", UUID.class),
+							field("rebuild", Boolean.class), field("narrower_concept_ids", Long[].class),
+							field("annotated_concept_ids", Long[].class), field("package_ids", Long[].class))
+					.from(table("semantic.data_change")).where(field("version", Long.class).gt(this.appliedVersion))
+					.and(field("version", Long.class).le(version)).orderBy(field("version")).fetch();
+			if (changes.isEmpty() || changes.get(0).value1() != this.appliedVersion + 1) {
+				log.warn("Missed deleted changes, rebuilding inverted search index.");
+				this.rebuildInvertedIndex(sql);
+				return;
+			}
+			for (Record6<Long, UUID, Boolean, Long[], Long[], Long[]> change : changes) {
+				if (!this.dataVersion.getOrigin().equals(change.value2())) {
+					if (change.value3()) {
+						this.rebuildInvertedIndex(sql);
+						return;
+					}
+					Long[] narrowerIds = change.value4();
+					if (narrowerIds.length > 0) {
+						this.invertedIndex.refreshNarrowers(sql, narrowerIds);
+					}
+					Long[] annotatedIds = change.value5();
+					if (annotatedIds.length > 0) {
+						this.invertedIndex.refreshConcepts(sql, annotatedIds);
+					}
+					Long[] packageIds = change.value6();
+					if (packageIds.length > 0) {
+						Collection<Entity> packages = new ArrayList<Entity>();
+						for (Long packageId : packageIds) {
+							packages.add(new Entity(packageId, null, null, null, null));
+						}
+						this.invertedIndex.refreshEntities(sql,
+								field("package_id", Long.class).eq(DSL.any(packageIds)), packages, true);
+					}
+				}
+				this.appliedVersion = change.value1();
+			}
+		} catch (DataAccessException | SQLException e) {
+			throw new SearchIndexException("Failed to synchronize inverted search index.", e);
+		}
+	}
+}
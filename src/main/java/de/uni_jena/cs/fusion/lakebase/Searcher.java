@@ -24,11 +24,21 @@ import static org.jooq.impl.DSL.field;
 import static org.jooq.impl.DSL.notExists;
 import static org.jooq.impl.DSL.table;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 import javax.sql.DataSource;
@@ -37,23 +47,122 @@ import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record;
+import org.jooq.Record1;
 import org.jooq.RecordMapper;
 import org.jooq.SQLDialect;
+import org.jooq.Select;
+import org.jooq.SelectHavingStep;
+import org.jooq.SortField;
 import org.jooq.impl.DSL;
 import org.jooq.util.postgres.PostgresDataType;
 import org.semanticweb.owlapi.model.IRI;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 import de.uni_jena.cs.fusion.lakebase.model.Entity;
+import de.uni_jena.cs.fusion.lakebase.model.SearchPage;
 import de.uni_jena.cs.fusion.lakebase.model.SearchResponse;
+import de.uni_jena.cs.fusion.util.profiler.Profile;
 
 public class Searcher {
 
 	private final DataSource dataSource;
 
+	private final DataVersion dataVersion;
+
+	/**
+	 * in-memory index to search on instead of the database, or
+	 * <code>null</code>
+	 */
+	private final InvertedSearchIndex invertedIndex;
+
+	/**
+	 * cache of search results, keyed by the {@link DataVersion} and the search
+	 * parameters
+	 */
+	private final Cache<List<Object>, Object> cache;
+
 	private final RecordMapper<Record, SearchResponse> searchResultMapper = new SearchResultMapper();
 
+	/**
+	 * Creates a {@link Searcher} without result cache.
+	 */
 	public Searcher(DataSource dataSource) {
+		this(dataSource, new DataVersion(), 0);
+	}
+
+	/**
+	 * @param dataSource
+	 *            {@link DataSource} to use
+	 * @param dataVersion
+	 *            {@link DataVersion} of annotations and concept hierarchy
+	 * @param cacheSize
+	 *            maximum number of cached search results
+	 */
+	public Searcher(DataSource dataSource, DataVersion dataVersion, long cacheSize) {
+		this(dataSource, dataVersion, cacheSize, null);
+	}
+
+	/**
+	 * @param dataSource
+	 *            {@link DataSource} to use
+	 * @param dataVersion
+	 *            {@link DataVersion} of annotations and concept hierarchy
+	 * @param cacheSize
+	 *            maximum number of cached search results
+	 * @param invertedIndex
+	 *            {@link InvertedSearchIndex} to search on instead of the
+	 *            database, or <code>null</code>
+	 */
+	public Searcher(DataSource dataSource, DataVersion dataVersion, long cacheSize,
+			@Nullable InvertedSearchIndex invertedIndex) {
 		this.dataSource = dataSource;
+		this.dataVersion = dataVersion;
+		this.invertedIndex = invertedIndex;
+		this.cache = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+	}
+
+	/**
+	 * @return statistics of the search result cache
+	 */
+	public CacheStats getCacheStats() {
+		return this.cache.stats();
+	}
+
+	/**
+	 * Returns the cached result for the given search parameters or loads and
+	 * caches it. Results of previous {@link DataVersion}s will not be used and
+	 * get evicted eventually.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T cached(Callable<T> loader, Object... parameters) throws SearcherException {
+		List<Object> key = new ArrayList<Object>(parameters.length + 1);
+		// get version before loading to not cache outdated results as current
+		key.add(this.dataVersion.get());
+		key.addAll(Arrays.asList(parameters));
+		boolean[] loaded = { false };
+		try {
+			T result = (T) this.cache.get(key, () -> {
+				loaded[0] = true;
+				return loader.call();
+			});
+			Profile.cacheAccess("search result cache", !loaded[0]);
+			return result;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SearcherException) {
+				throw (SearcherException) e.getCause();
+			}
+			throw new SearcherException(e.getCause());
+		} catch (UncheckedExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
 	}
 
 	private Collection<String> getIRIStrings(Collection<IRI> iris) {
@@ -64,6 +173,11 @@ public class Searcher {
 		return strings;
 	}
 
+	private Select<Record1<Object>> conceptIds(DSLContext create, Collection<IRI> iris) {
+		return create.select(field("concept_id")).from(table("semantic.concept"))
+				.where(field("concept_iri").in(getIRIStrings(iris)));
+	}
+
 	private Collection<Condition> includeEntityConditions(@Nullable Entity entity) {
 		Collection<Condition> conditions = new ArrayList<Condition>();
 		if (entity != null) {
@@ -107,38 +221,291 @@ public class Searcher {
 		return fields;
 	}
 
+	private SelectHavingStep<Record> query(DSLContext create, Collection<IRI> include, Collection<IRI> exclude,
+			@Nullable Entity entity) {
+		// define entity conditions
+		Collection<Condition> includeConditions = includeEntityConditions(entity);
+		// define include conditions if available
+		if (!include.isEmpty()) {
+			includeConditions.add(field("include.searched_concept_id").in(conceptIds(create, include)));
+		}
+		// define exclude condition if available
+		if (!exclude.isEmpty()) {
+			Collection<Condition> excludeConditions = excludeEntityConditions(entity);
+			excludeConditions.add(field("exclude.searched_concept_id").in(conceptIds(create, exclude)));
+			includeConditions.add(notExists(
+					create.selectOne().from(table("semantic.search_index").as("exclude")).where(excludeConditions)));
+		}
+		// define group fields
+		Collection<Field<? extends Object>> groupFields = entityFields(entity);
+		// define select fields
+		Collection<Field<? extends Object>> selectFields = new ArrayList<Field<? extends Object>>(groupFields);
+
+		selectFields.add(ranking().as("ranking"));
+
+		return create.select(selectFields).from(table("semantic.search_index").as("include"))
+				.leftJoin(table("semantic.concept_narrower_count").as("n"))
+				.on(field("n.concept_id").eq(field("include.annotated_concept_id")))
+				.leftJoin(table("semantic.concept_narrower_count").as("b"))
+				.on(field("b.concept_id").eq(field("include.searched_concept_id"))).where(includeConditions)
+				.groupBy(groupFields);
+	}
+
+	/**
+	 * Returns the ranking of an entity, which is the sum of
+	 * <code>(1 + narrowers(annotated)) / (1 + narrowers(searched))</code> over
+	 * all its index entries.
+	 */
+	private Field<Double> ranking() {
+		return field("(1.0 + COALESCE(n.narrower_count, 0)) / (1.0 + COALESCE(b.narrower_count, 0))").sum()
+				.cast(PostgresDataType.DOUBLEPRECISION);
+	}
+
+	/**
+	 * Returns the entity fields used to order results of equal rank. Missing
+	 * IDs are replaced by <code>-1</code> to get a total order.
+	 */
+	private List<Field<Long>> orderFields(@Nullable Entity entity) {
+		List<Field<Long>> fields = new ArrayList<Field<Long>>();
+		for (Field<? extends Object> field : entityFields(entity)) {
+			fields.add(DSL.coalesce(field.coerce(Long.class), -1L));
+		}
+		return fields;
+	}
+
+	/**
+	 * Returns a condition selecting results ordered after the given position.
+	 */
+	private Condition after(List<Field<Long>> orderFields, SearchResponse position) {
+		Long[] ids = { position.entity.packageID, position.entity.objectID, position.entity.columnID,
+				position.entity.rowID };
+		Condition condition = DSL.falseCondition();
+		for (int i = orderFields.size() - 1; i >= 0; i--) {
+			Long value = (ids[i] != null) ? ids[i] : -1L;
+			condition = orderFields.get(i).gt(value).or(orderFields.get(i).eq(value).and(condition));
+		}
+		return ranking().lt(position.rank).or(ranking().eq(position.rank).and(condition));
+	}
+
 	public List<SearchResponse> search(Collection<IRI> include, Collection<IRI> exclude, @Nullable Entity entity)
 			throws SearcherException {
+		Set<IRI> includeSet = ImmutableSet.copyOf(include);
+		Set<IRI> excludeSet = ImmutableSet.copyOf(exclude);
+		return cached(() -> Collections.unmodifiableList(load(includeSet, excludeSet, entity)), includeSet,
+				excludeSet, entity);
+	}
+
+	private List<SearchResponse> load(Collection<IRI> include, Collection<IRI> exclude, @Nullable Entity entity)
+			throws SearcherException {
+		if (this.invertedIndex != null) {
+			return this.invertedIndex.search(include, exclude, entity);
+		}
 		try (Connection connection = this.dataSource.getConnection()) {
 			try (DSLContext create = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
-				// define entity conditions
-				Collection<Condition> includeConditions = includeEntityConditions(entity);
-				// define include conditions if available
-				if (!include.isEmpty()) {
-					includeConditions.add(field("searched_concept_iri").in(getIRIStrings(include)));
-				}
-				// define exclude condition if available
-				if (!exclude.isEmpty()) {
-					Collection<Condition> excludeConditions = excludeEntityConditions(entity);
-					excludeConditions.add(field("exclude.searched_concept_iri").in(getIRIStrings(exclude)));
-					includeConditions.add(notExists(
-							create.selectOne().from(table("semantic.search").as("exclude")).where(excludeConditions)));
-				}
-				// define group fields
-				Collection<Field<? extends Object>> groupFields = entityFields(entity);
-				// define select fields
-				Collection<Field<? extends Object>> selectFields = new ArrayList<Field<? extends Object>>(groupFields);
+				return query(create, include, exclude, entity).fetch(searchResultMapper);
+			}
+		} catch (SQLException e) {
+			throw new SearcherException("Failed to search data package due to a database error.", e);
+		}
+	}
 
-				selectFields.add(field("ranking").sum().cast(PostgresDataType.DOUBLEPRECISION).as("ranking"));
+	/**
+	 * Returns a page of the search results ordered by descending rank. Results
+	 * of equal rank are ordered by the entity IDs.
+	 * 
+	 * @param include
+	 *            {@link IRI}s of the searched concepts
+	 * @param exclude
+	 *            {@link IRI}s of the excluded concepts
+	 * @param entity
+	 *            the entity to search inside or <code>null</code>
+	 * @param limit
+	 *            maximum number of results on the page
+	 * @param cursor
+	 *            continuation token of the previous page or <code>null</code>
+	 *            for the first page
+	 * @return page of search results
+	 * @throws SearcherException
+	 * @throws IllegalArgumentException
+	 *             if the limit is not positive or the cursor is invalid
+	 */
+	public SearchPage search(Collection<IRI> include, Collection<IRI> exclude, @Nullable Entity entity, int limit,
+			@Nullable String cursor) throws SearcherException {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Limit must be positive.");
+		}
+		Set<IRI> includeSet = ImmutableSet.copyOf(include);
+		Set<IRI> excludeSet = ImmutableSet.copyOf(exclude);
+		return cached(() -> load(includeSet, excludeSet, entity, limit, cursor), includeSet, excludeSet, entity, limit,
+				cursor);
+	}
 
-				return create.select(selectFields).from(table("semantic.search").as("include")).where(includeConditions)
-						.groupBy(groupFields).fetch(searchResultMapper);
+	private SearchPage load(Collection<IRI> include, Collection<IRI> exclude, @Nullable Entity entity, int limit,
+			@Nullable String cursor) throws SearcherException {
+		if (this.invertedIndex != null) {
+			return page(this.invertedIndex.search(include, exclude, entity), limit, cursor);
+		}
+		try (Connection connection = this.dataSource.getConnection()) {
+			try (DSLContext create = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+				// fetch one additional result to determine presence of a next page
+				List<SearchResponse> results = pageQuery(create, include, exclude, entity, limit, cursor)
+						.fetch(searchResultMapper);
+
+				if (results.size() > limit) {
+					results = Collections.unmodifiableList(new ArrayList<SearchResponse>(results.subList(0, limit)));
+					return new SearchPage(results, encodeCursor(results.get(limit - 1)));
+				} else {
+					return new SearchPage(Collections.unmodifiableList(results), null);
+				}
 			}
 		} catch (SQLException e) {
 			throw new SearcherException("Failed to search data package due to a database error.", e);
 		}
 	}
 
+	/**
+	 * Returns the query of a page, including one additional result to determine
+	 * the presence of a next page.
+	 */
+	private Select<Record> pageQuery(DSLContext create, Collection<IRI> include, Collection<IRI> exclude,
+			@Nullable Entity entity, int limit, @Nullable String cursor) {
+		SelectHavingStep<Record> query = query(create, include, exclude, entity);
+		List<Field<Long>> orderFields = orderFields(entity);
+
+		// define order
+		List<SortField<?>> order = new ArrayList<SortField<?>>();
+		order.add(ranking().desc());
+		for (Field<Long> field : orderFields) {
+			order.add(field.asc());
+		}
+
+		if (cursor != null) {
+			return query.having(after(orderFields, decodeCursor(cursor))).orderBy(order).limit(limit + 1);
+		} else {
+			return query.orderBy(order).limit(limit + 1);
+		}
+	}
+
+	/**
+	 * Returns the execution plan of the database query of a search, as provided
+	 * by {@code EXPLAIN (ANALYZE, BUFFERS)}. The query will be executed without
+	 * using the result cache.
+	 * 
+	 * @param include
+	 *            {@link IRI}s of the searched concepts
+	 * @param exclude
+	 *            {@link IRI}s of the excluded concepts
+	 * @param entity
+	 *            the entity to search inside or <code>null</code>
+	 * @param limit
+	 *            maximum number of results on the page or <code>null</code> for
+	 *            an unpaged search
+	 * @param cursor
+	 *            continuation token of the previous page or <code>null</code>
+	 * @return lines of the execution plan or <code>null</code>, if searches are
+	 *         not served by the database
+	 * @throws SearcherException
+	 */
+	public List<String> explain(Collection<IRI> include, Collection<IRI> exclude, @Nullable Entity entity,
+			@Nullable Integer limit, @Nullable String cursor) throws SearcherException {
+		if (this.invertedIndex != null) {
+			return null;
+		}
+		try (Connection connection = this.dataSource.getConnection()) {
+			try (DSLContext create = DSL.using(connection, SQLDialect.POSTGRES_9_5)) {
+				Select<Record> query;
+				if (limit != null) {
+					query = pageQuery(create, include, exclude, entity, limit, cursor);
+				} else {
+					query = query(create, include, exclude, entity);
+				}
+				List<String> plan = new ArrayList<String>();
+				for (Record record : create.resultQuery("EXPLAIN (ANALYZE, BUFFERS) {0}", query).fetch()) {
+					plan.add(record.get(0, String.class));
+				}
+				return plan;
+			}
+		} catch (SQLException e) {
+			throw new SearcherException("Failed to explain search due to a database error.", e);
+		}
+	}
+
+	/**
+	 * Returns a page of the given unordered results, in the same order as
+	 * provided by the database.
+	 */
+	private static SearchPage page(List<SearchResponse> results, int limit, @Nullable String cursor) {
+		Comparator<SearchResponse> order = Comparator.<SearchResponse>comparingDouble(result -> -result.rank)
+				.thenComparingLong(result -> result.entity.packageID)
+				.thenComparingLong(result -> orderValue(result.entity.objectID))
+				.thenComparingLong(result -> orderValue(result.entity.columnID))
+				.thenComparingLong(result -> orderValue(result.entity.rowID));
+		Stream<SearchResponse> stream = results.stream();
+		if (cursor != null) {
+			SearchResponse position = decodeCursor(cursor);
+			stream = stream.filter(result -> order.compare(result, position) > 0);
+		}
+		List<SearchResponse> page = stream.sorted(order).limit(limit + 1).collect(Collectors.toList());
+		if (page.size() > limit) {
+			page = Collections.unmodifiableList(new ArrayList<SearchResponse>(page.subList(0, limit)));
+			return new SearchPage(page, encodeCursor(page.get(limit - 1)));
+		} else {
+			return new SearchPage(Collections.unmodifiableList(page), null);
+		}
+	}
+
+	private static long orderValue(Long id) {
+		return (id != null) ? id : -1L;
+	}
+
+	/**
+	 * Returns a continuation token for the position after the given result.
+	 */
+	private static String encodeCursor(SearchResponse position) {
+		String value = position.rank + "|" + position.entity.packageID + "|" + position.entity.objectID + "|"
+				+ position.entity.columnID + "|" + position.entity.rowID;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the position described by the given continuation token.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the continuation token is invalid
+	 */
+	private static SearchResponse decodeCursor(String cursor) {
+		try {
+			String[] values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+			if (values.length != 5) {
+				throw new IllegalArgumentException("Invalid cursor.");
+			}
+			return new SearchResponse(new Entity(Long.parseLong(values[1]), parseId(values[2]), parseId(values[3]),
+					parseId(values[4]), null), Double.parseDouble(values[0]));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid cursor.", e);
+		}
+	}
+
+	/**
+	 * @param cursor
+	 *            continuation token provided by a client
+	 * @return <code>true</code>, if the given continuation token is valid
+	 * 
+	 * @since 0.3.9
+	 */
+	public static boolean isValidCursor(String cursor) {
+		try {
+			decodeCursor(cursor);
+			return true;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private static Long parseId(String value) {
+		return value.equals("null") ? null : Long.valueOf(value);
+	}
+
 	private class SearchResultMapper implements RecordMapper<Record, SearchResponse> {
 		@Override
 		public SearchResponse map(Record record) {
@@ -0,0 +1,242 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * <p>
+ * Transaction on a {@link Connection}, which runs registered actions after
+ * each successful commit. Actions are used to update state held in memory,
+ * like the {@link DataVersion}, only after the changes it depends on are
+ * visible to other connections, and to skip the update on rollback.
+ * </p>
+ * 
+ * <p>
+ * Components changing data on a given {@link Connection} register their
+ * actions with {@link #afterCommit(Connection, Runnable)}. Therefore, changes
+ * on a {@link Connection} not in auto commit mode have to be made inside of a
+ * {@link Transaction}. Closing the {@link Transaction} rolls back uncommitted
+ * changes and restores the auto commit mode, as pooled connections are
+ * returned as they are.
+ * </p>
+ * 
+ * <p>
+ * Components that have to record changes inside of the changing transaction,
+ * like the shared {@link DataVersion}, register a {@link Preparation} with
+ * {@link #beforeCommit(Connection, Object, Supplier)}, which runs right before
+ * the commit to hold row locks as short as possible.
+ * </p>
+ * 
+ * @since 0.3.9
+ *
+ */
+public class Transaction implements AutoCloseable {
+
+	private final static Logger log = LoggerFactory.getLogger(Transaction.class);
+
+	/**
+	 * transactions in progress by their connections, compared by identity
+	 */
+	private final static Map<Connection, Transaction> transactions = new MapMaker().weakKeys().makeMap();
+
+	private final Connection connection;
+	private final List<Runnable> actions = new ArrayList<Runnable>();
+	private final Map<Object, Preparation> preparations = new LinkedHashMap<Object, Preparation>();
+
+	/**
+	 * Action to run inside of a {@link Transaction} before its commit.
+	 */
+	public interface Preparation {
+		void run() throws SQLException;
+	}
+
+	private Transaction(Connection connection) {
+		this.connection = connection;
+	}
+
+	/**
+	 * Begins a {@link Transaction} on the given {@link Connection}.
+	 * 
+	 * @param connection
+	 *            {@link Connection} in auto commit mode
+	 * @return the {@link Transaction}
+	 * @throws SQLException
+	 * @throws IllegalStateException
+	 *             if a transaction is already in progress on the
+	 *             {@link Connection}
+	 */
+	public static Transaction begin(Connection connection) throws SQLException {
+		if (!connection.getAutoCommit() || transactions.containsKey(connection)) {
+			throw new IllegalStateException("Transaction already in progress.");
+		}
+		Transaction transaction = new Transaction(connection);
+		connection.setAutoCommit(false);
+		transactions.put(connection, transaction);
+		return transaction;
+	}
+
+	/**
+	 * Registers an action to run after the changes made on the given
+	 * {@link Connection} have been committed. The action runs immediately, if
+	 * the {@link Connection} is in auto commit mode.
+	 * 
+	 * @param connection
+	 *            {@link Connection} the changes were made on
+	 * @param action
+	 *            action to run after the commit
+	 * @throws SQLException
+	 * @throws IllegalStateException
+	 *             if the {@link Connection} is not in auto commit mode, but no
+	 *             {@link Transaction} is in progress
+	 */
+	public static void afterCommit(Connection connection, Runnable action) throws SQLException {
+		Transaction transaction = transactions.get(connection);
+		if (transaction != null) {
+			transaction.afterCommit(action);
+		} else if (connection.getAutoCommit()) {
+			action.run();
+		} else {
+			throw new IllegalStateException("Changes without auto commit require a Transaction.");
+		}
+	}
+
+	/**
+	 * Returns the {@link Preparation} registered with the given key to run
+	 * before the next commit of the transaction in progress on the given
+	 * {@link Connection}, after registering the supplied {@link Preparation},
+	 * if none has been registered with the key yet.
+	 * 
+	 * @param connection
+	 *            {@link Connection} the changes were made on
+	 * @param key
+	 *            key of the {@link Preparation}
+	 * @param preparation
+	 *            {@link Supplier} of the {@link Preparation} to register
+	 * @return the registered {@link Preparation} or <code>null</code>, if the
+	 *         {@link Connection} is in auto commit mode
+	 * @throws SQLException
+	 * @throws IllegalStateException
+	 *             if the {@link Connection} is not in auto commit mode, but no
+	 *             {@link Transaction} is in progress
+	 */
+	@SuppressWarnings("unchecked")
+	public static <P extends Preparation> P beforeCommit(Connection connection, Object key, Supplier<P> preparation)
+			throws SQLException {
+		Transaction transaction = transactions.get(connection);
+		if (transaction != null) {
+			synchronized (transaction.actions) {
+				return (P) transaction.preparations.computeIfAbsent(key, k -> preparation.get());
+			}
+		} else if (connection.getAutoCommit()) {
+			return null;
+		} else {
+			throw new IllegalStateException("Changes without auto commit require a Transaction.");
+		}
+	}
+
+	/**
+	 * Registers an action to run after the next commit of this
+	 * {@link Transaction}. Actions registered multiple times run once.
+	 * 
+	 * @param action
+	 *            action to run after the commit
+	 */
+	public void afterCommit(Runnable action) {
+		synchronized (this.actions) {
+			if (!this.actions.contains(action)) {
+				this.actions.add(action);
+			}
+		}
+	}
+
+	/**
+	 * Runs the registered {@link Preparation}s, commits the changes and runs
+	 * the registered actions afterwards. The {@link Transaction} stays in
+	 * progress for further changes.
+	 * 
+	 * @throws SQLException
+	 */
+	public void commit() throws SQLException {
+		List<Preparation> prepared;
+		synchronized (this.actions) {
+			prepared = new ArrayList<Preparation>(this.preparations.values());
+			this.preparations.clear();
+		}
+		for (Preparation preparation : prepared) {
+			preparation.run();
+		}
+		this.connection.commit();
+		List<Runnable> committed;
+		synchronized (this.actions) {
+			committed = new ArrayList<Runnable>(this.actions);
+			this.actions.clear();
+		}
+		for (Runnable action : committed) {
+			try {
+				action.run();
+			} catch (RuntimeException e) {
+				log.error("Failed to run action after commit.", e);
+			}
+		}
+	}
+
+	/**
+	 * Rolls back the changes and discards the registered {@link Preparation}s
+	 * and actions. The {@link Transaction} stays in progress for further
+	 * changes.
+	 * 
+	 * @throws SQLException
+	 */
+	public void rollback() throws SQLException {
+		synchronized (this.actions) {
+			this.preparations.clear();
+			this.actions.clear();
+		}
+		this.connection.rollback();
+	}
+
+	/**
+	 * Rolls back uncommitted changes, discards the registered actions and
+	 * restores the auto commit mode of the {@link Connection}.
+	 */
+	@Override
+	public void close() throws SQLException {
+		try {
+			this.rollback();
+		} finally {
+			transactions.remove(this.connection);
+			this.connection.setAutoCommit(true);
+		}
+	}
+}
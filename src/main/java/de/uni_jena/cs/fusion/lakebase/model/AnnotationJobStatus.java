@@ -0,0 +1,72 @@
+package de.uni_jena.cs.fusion.lakebase.model;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Processing status of an annotation job.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class AnnotationJobStatus {
+
+	public enum State {
+		/**
+		 * no text of the job has been processed yet
+		 */
+		queued,
+		/**
+		 * some texts of the job are being processed
+		 */
+		running,
+		/**
+		 * all texts of the job have been processed successfully
+		 */
+		done,
+		/**
+		 * all texts of the job have been processed, but some failed
+		 */
+		failed
+	}
+
+	public String job;
+	public State status;
+	/**
+	 * number of texts of the job
+	 */
+	public int total;
+	/**
+	 * number of successfully persisted texts
+	 */
+	public int done;
+	/**
+	 * number of failed texts
+	 */
+	public int failed;
+
+	public AnnotationJobStatus(String job, State status, int total, int done, int failed) {
+		this.job = job;
+		this.status = status;
+		this.total = total;
+		this.done = done;
+		this.failed = failed;
+	}
+}
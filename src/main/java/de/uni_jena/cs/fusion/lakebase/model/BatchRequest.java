@@ -0,0 +1,59 @@
+package de.uni_jena.cs.fusion.lakebase.model;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Call of a service as part of a batch.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class BatchRequest {
+	/**
+	 * path of the service, e.g. <code>/describe</code>
+	 */
+	public String service;
+	/**
+	 * query of the service, as parameter <code>q</code> of a single call,
+	 * either a string or JSON
+	 */
+	public JsonNode q;
+	/**
+	 * scope of the service, as parameter <code>s</code> of a single call
+	 */
+	public String s;
+	/**
+	 * key of the completion session, as header <code>X-Session-ID</code> of
+	 * a single call
+	 */
+	public String session;
+
+	public BatchRequest() {
+	}
+
+	public BatchRequest(String service, JsonNode q, String s) {
+		this.service = service;
+		this.q = q;
+		this.s = s;
+	}
+}
@@ -27,9 +27,23 @@ import de.uni_jena.cs.fusion.lakebase.Scope;
 public class CompleteRequest {
 	public String stump;
 	public Collection<Scope> scopes;
+	/**
+	 * key of the completion session of the client, might be <code>null</code>
+	 * 
+	 * @since 0.3.9
+	 */
+	public String session;
 
 	public CompleteRequest(String stump, Collection<Scope> scopes) {
+		this(stump, scopes, null);
+	}
+
+	/**
+	 * @since 0.3.9
+	 */
+	public CompleteRequest(String stump, Collection<Scope> scopes, String session) {
 		this.stump = stump;
 		this.scopes = scopes;
+		this.session = session;
 	}
 }
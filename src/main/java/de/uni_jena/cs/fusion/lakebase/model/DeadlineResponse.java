@@ -0,0 +1,50 @@
+package de.uni_jena.cs.fusion.lakebase.model;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collection;
+
+import de.uni_jena.cs.fusion.util.deadline.Deadline;
+
+/**
+ * Response of a request with a time budget.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class DeadlineResponse {
+	public Object result;
+	/**
+	 * <code>true</code>, if the result is incomplete because adapters missed
+	 * the deadline
+	 */
+	public boolean partial;
+	/**
+	 * names of the adapters that missed the deadline
+	 */
+	public Collection<String> skipped;
+
+	public DeadlineResponse(Object result, Deadline deadline) {
+		this.result = result;
+		this.skipped = deadline.getSkipped();
+		this.partial = !this.skipped.isEmpty();
+	}
+}
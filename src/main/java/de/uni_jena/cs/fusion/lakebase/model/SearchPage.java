@@ -0,0 +1,47 @@
+package de.uni_jena.cs.fusion.lakebase.model;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * Page of search results ordered by descending rank.
+ * 
+ * @since 0.3.9
+ *
+ */
+@JsonInclude(Include.NON_NULL)
+public class SearchPage {
+	public List<SearchResponse> results;
+	/**
+	 * continuation token to request the next page, or <code>null</code> if
+	 * this is the last page
+	 */
+	public String next;
+
+	public SearchPage(List<SearchResponse> results, String next) {
+		this.results = results;
+		this.next = next;
+	}
+}
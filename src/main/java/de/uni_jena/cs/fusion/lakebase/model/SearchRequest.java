@@ -24,6 +24,21 @@ public class SearchRequest {
 	public EntitiesAnnotation include = new EntitiesAnnotation();
 	public EntitiesAnnotation exclude = new EntitiesAnnotation();
 	public Entity entity;
+	/**
+	 * maximum number of results to return, or <code>null</code> to return all
+	 * results unordered
+	 */
+	public Integer limit;
+	/**
+	 * continuation token of the previous page, or <code>null</code> to return
+	 * the first page
+	 */
+	public String cursor;
+	/**
+	 * <code>true</code> to return a profile of the search together with the
+	 * results, if enabled by the configuration
+	 */
+	public boolean profile;
 
 	public SearchRequest() {
 	}
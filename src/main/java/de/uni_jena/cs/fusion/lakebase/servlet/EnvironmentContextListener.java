@@ -21,8 +21,14 @@ package de.uni_jena.cs.fusion.lakebase.servlet;
  */
 
 import java.io.IOException;
+import java.util.Properties;
 
+import javax.naming.Binding;
+import javax.naming.Context;
 import javax.naming.InitialContext;
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
@@ -43,7 +49,7 @@ public class EnvironmentContextListener implements ServletContextListener {
 		ServletContext context = sce.getServletContext();
 		try {
 			DataSource dataSource = (DataSource) InitialContext.doLookup("java:/comp/env/jdbc/lakebase");
-			context.setAttribute("environment", new Environment(dataSource));
+			context.setAttribute("environment", new Environment(dataSource, configuration()));
 		} catch (Exception e) {
 			log.error("Failed to initialize environment.", e);
 			try {
@@ -56,6 +62,25 @@ public class EnvironmentContextListener implements ServletContextListener {
 		}
 	}
 
+	/**
+	 * Returns the deployment specific settings defined as environment entries
+	 * below <code>java:/comp/env/lakebase</code>.
+	 */
+	private static Properties configuration() throws NamingException {
+		Properties configuration = new Properties();
+		try {
+			Context context = InitialContext.doLookup("java:/comp/env/lakebase");
+			NamingEnumeration<Binding> bindings = context.listBindings("");
+			while (bindings.hasMore()) {
+				Binding binding = bindings.next();
+				configuration.setProperty(binding.getName(), String.valueOf(binding.getObject()));
+			}
+		} catch (NameNotFoundException e) {
+			// no settings defined
+		}
+		return configuration;
+	}
+
 	@Override
 	public void contextDestroyed(ServletContextEvent sce) {
 		ServletContext context = sce.getServletContext();
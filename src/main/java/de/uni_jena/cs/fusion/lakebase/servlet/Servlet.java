@@ -20,51 +20,58 @@ package de.uni_jena.cs.fusion.lakebase.servlet;
  * #L%
  */
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.lang.invoke.MethodHandles;
 import java.nio.charset.StandardCharsets;
 import java.util.Map.Entry;
-import java.util.Objects;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.IOUtils;
-import org.semanticweb.owlapi.model.IRI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
 
 import de.uni_jena.cs.fusion.lakebase.Environment;
-import de.uni_jena.cs.fusion.lakebase.Scope;
-import de.uni_jena.cs.fusion.lakebase.model.AnnotationCopyRequest;
-import de.uni_jena.cs.fusion.lakebase.model.CompleteRequest;
-import de.uni_jena.cs.fusion.lakebase.model.EntitiesAnnotation;
-import de.uni_jena.cs.fusion.lakebase.model.Entity;
-import de.uni_jena.cs.fusion.lakebase.model.SearchRequest;
-import de.uni_jena.cs.fusion.lakebase.model.SuggestRequest;
-import de.uni_jena.cs.fusion.lakebase.servlet.worker.CompleteWorker;
-import de.uni_jena.cs.fusion.lakebase.servlet.worker.AnnotationCopyWorker;
-import de.uni_jena.cs.fusion.lakebase.servlet.worker.DeleteAnnotationWorker;
-import de.uni_jena.cs.fusion.lakebase.servlet.worker.DescribeWorker;
-import de.uni_jena.cs.fusion.lakebase.servlet.worker.GetAnnotationWorker;
-import de.uni_jena.cs.fusion.lakebase.servlet.worker.SearchWorker;
+import de.uni_jena.cs.fusion.lakebase.ResponseCache;
+import de.uni_jena.cs.fusion.lakebase.model.BatchRequest;
+import de.uni_jena.cs.fusion.lakebase.model.DeadlineResponse;
+import de.uni_jena.cs.fusion.lakebase.servlet.worker.BatchWorker;
+import de.uni_jena.cs.fusion.lakebase.servlet.worker.CacheableServiceWorker;
+import de.uni_jena.cs.fusion.lakebase.servlet.worker.ServiceDispatcher;
 import de.uni_jena.cs.fusion.lakebase.servlet.worker.ServiceWorker;
 import de.uni_jena.cs.fusion.lakebase.servlet.worker.ServiceWorkerException;
-import de.uni_jena.cs.fusion.lakebase.servlet.worker.SetAnnotationWorker;
-import de.uni_jena.cs.fusion.lakebase.servlet.worker.SuggestAnnotationWorker;
+import de.uni_jena.cs.fusion.lakebase.servlet.worker.StreamingContent;
+import de.uni_jena.cs.fusion.util.context.ThreadContext;
+import de.uni_jena.cs.fusion.util.http.ContentEncoding;
+import de.uni_jena.cs.fusion.util.http.ContentFormat;
+import de.uni_jena.cs.fusion.util.deadline.Deadline;
 import de.uni_jena.cs.fusion.util.javascript.JavaScriptValidator;
+import de.uni_jena.cs.fusion.util.metrics.Timer;
+import de.uni_jena.cs.fusion.util.quota.AdmissionControl;
+import de.uni_jena.cs.fusion.util.quota.AdmissionException;
+import de.uni_jena.cs.fusion.util.quota.Quota;
 
 /**
  * 
@@ -75,6 +82,22 @@ public class Servlet extends HttpServlet {
 	private final static long serialVersionUID = 9169718181263619042L;
 	private final static Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 	private final static ObjectMapper jsonMapper = new ObjectMapper();
+	/**
+	 * seconds a client should wait before retrying, if too many requests are
+	 * processed concurrently
+	 */
+	private final static long RETRY_AFTER = 5;
+	/**
+	 * paths of the services, distinguished in the metrics
+	 */
+	private final static Set<String> SERVICES = ImmutableSet.of("/annotation/suggest", "/annotation/delete",
+			"/annotation/set", "/annotation/status", "/annotation/get", "/annotation/export", "/annotation/import",
+			"/annotation/copy", "/search", "/search/rebuild", "/complete", "/describe", "/batch");
+	/**
+	 * paths of the services accepting a time budget
+	 */
+	private final static Set<String> BUDGETED_SERVICES = ImmutableSet.of("/annotation/suggest", "/search",
+			"/complete");
 	{
 		// do not close target stream after writing JSON (required for JSONP)
 		jsonMapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
@@ -84,14 +107,7 @@ public class Servlet extends HttpServlet {
 		return (Environment) getServletContext().getAttribute("environment");
 	}
 
-	private SuggestAnnotationWorker suggestAnnotationWorker = new SuggestAnnotationWorker();
-	private DeleteAnnotationWorker deleteAnnotationWorker = new DeleteAnnotationWorker();
-	private AnnotationCopyWorker copyAnnotationWorker = new AnnotationCopyWorker();
-	private GetAnnotationWorker getAnnotationWorker = new GetAnnotationWorker();
-	private SetAnnotationWorker setAnnotationWorker = new SetAnnotationWorker(true);
-	private SearchWorker searchWorker = new SearchWorker();
-	private CompleteWorker completeWorker = new CompleteWorker();
-	private DescribeWorker describeWorker = new DescribeWorker();
+	private final ServiceDispatcher dispatcher = new ServiceDispatcher();
 
 	@Override
 	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException {
@@ -103,6 +119,12 @@ public class Servlet extends HttpServlet {
 						IOUtils.copy(in, out, StandardCharsets.UTF_8);
 					}
 				}
+			} else if (request.getServletPath().equals("/metrics")) {
+				response.setContentType("text/plain; version=0.0.4");
+				response.setCharacterEncoding("UTF-8");
+				try (PrintWriter out = response.getWriter()) {
+					getEnvironment().getMetrics().write(out);
+				}
 			} else {
 				response.sendError(405);
 			}
@@ -113,106 +135,338 @@ public class Servlet extends HttpServlet {
 
 	@Override
 	protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException {
+		ServiceWorker worker;
+		Object input;
+		String callback;
+		ContentFormat format;
+		String tag;
+		Deadline deadline;
+		Quota quota;
+		Environment environment = getEnvironment();
+		ResponseCache cache = environment.getResponseCache();
+		AdmissionControl admission = environment.getAdmissionControl();
+		Timer timer = environment.getMetrics().timer("lakebase_request", "Servlet request", "path",
+				SERVICES.contains(request.getServletPath()) ? request.getServletPath() : "other");
+		long start = timer.start();
+		String client = getClient(environment, request);
 		try {
-			ServiceWorker worker;
-			Object input;
-			switch (request.getServletPath()) {
-			case "/annotation/suggest":
-				worker = suggestAnnotationWorker;
-				input = new SuggestRequest(getQuery(request), getScope(request));
-				break;
-			case "/annotation/delete":
-				worker = deleteAnnotationWorker;
-				input = jsonMapper.readValue(getQuery(request), Entity[].class);
-				break;
-			case "/annotation/set":
-				worker = setAnnotationWorker;
-				input = jsonMapper.readValue(getQuery(request), EntitiesAnnotation[].class);
-				break;
-			case "/annotation/get":
-				worker = getAnnotationWorker;
-				input = jsonMapper.readValue(getQuery(request), Entity[].class);
-				break;
-			case "/annotation/copy":
-				worker = copyAnnotationWorker;
-				input = jsonMapper.readValue(getQuery(request), AnnotationCopyRequest.class);
-				break;
-			case "/search":
-				worker = searchWorker;
-				input = jsonMapper.readValue(getQuery(request), SearchRequest.class);
-				break;
-			case "/complete":
-				worker = completeWorker;
-				input = new CompleteRequest(getQuery(request), getScope(request));
-				break;
-			case "/describe":
-				worker = describeWorker;
-				input = jsonMapper.readValue(getQuery(request), IRI[].class);
-				break;
-			default:
-				throw new IllegalArgumentException("Unknown service.");
+			// reject clients exceeding their rate before reading the request
+			checkRate(admission, client, 1);
+			if (request.getServletPath().equals("/search/rebuild")) {
+				checkAdmin(environment, request);
 			}
-			Object content = worker.processRequest(getEnvironment(), input);
-			String callback = getCallback(request);
-
-			if (content != null) {
-				response.setCharacterEncoding("UTF-8");
-				try (PrintWriter out = response.getWriter()) {
-					if (content instanceof String) {
-						// String as plain, other as JSON
-						response.setContentType("text/plain");
-						out.println(content.toString());
-					} else if (callback != null) {
-						// it is an JSONP request
-						response.setContentType("application/javascript");
-						// encapsulate content in callback function
-						out.print(callback + "(");
-						jsonMapper.writeValue(out, content);
-						out.print(");");
-					} else {
-						response.setContentType("application/json");
-						jsonMapper.writeValue(out, content);
+			ServiceDispatcher.Dispatch dispatch = dispatcher.dispatch(request.getServletPath(), new Call(request, client));
+			worker = dispatch.worker;
+			input = dispatch.input;
+			if (worker instanceof BatchWorker) {
+				BatchRequest[] calls = (BatchRequest[]) input;
+				// charge each further call of the batch
+				checkRate(admission, client, calls.length - 1);
+				// qualify sessions like the header of single calls
+				for (BatchRequest call : calls) {
+					if (call != null && call.session != null) {
+						call.session = getSession(client, call.session);
 					}
 				}
+			}
+			callback = getCallback(request);
+			// JSONP requires JSON
+			format = (callback != null) ? ContentFormat.JSON : ContentFormat.negotiate(request.getHeader("Accept"));
+			if (BUDGETED_SERVICES.contains(request.getServletPath())) {
+				deadline = getDeadline(request);
 			} else {
-				response.setStatus(204); // status "no content"
+				deadline = null;
 			}
+			if (worker instanceof CacheableServiceWorker) {
+				CacheableServiceWorker cacheable = (CacheableServiceWorker) worker;
+				// responses with budget are wrapped
+				tag = cache.tag(request.getServletPath(), callback, format.name(), cacheable.cacheKey(input),
+						cacheable.cacheVersion(environment), Boolean.toString(deadline != null));
+				if (respondCached(request, response, cache, tag)) {
+					timer.stop(start, false);
+					return;
+				}
+			} else {
+				tag = null;
+			}
+			quota = enter(admission, request.getServletPath());
 		} catch (Throwable e) {
 			// NOTE: using Throwable to catch RuntimeExceptions too
-			int code;
-			if (e instanceof ServiceWorkerException) {
-				code = ((ServiceWorkerException) e).getCode();
-			} else {
-				code = 500;
+			timer.stop(start, true);
+			fail(request, response, e);
+			return;
+		}
+
+		// continue asynchronously to not block the request thread while
+		// processing, the input has already been read on the request thread
+		AsyncContext async = request.startAsync();
+		// no time limit, as in synchronous processing
+		async.setTimeout(0);
+		CompletableFuture<Object> result;
+		try (ThreadContext.Scope scope = (deadline != null) ? deadline.activate() : null) {
+			result = worker.processRequestAsync(environment, input, environment.getRequestExecutor());
+		} catch (RejectedExecutionException e) {
+			result = new CompletableFuture<Object>();
+			result.completeExceptionally(
+					new ServiceWorkerException("Too many concurrent requests.", 503, RETRY_AFTER));
+		}
+		result.whenComplete((content, e) -> {
+			try {
+				if (e == null && deadline != null) {
+					content = new DeadlineResponse(content, deadline);
+					if (deadline.isPartial()) {
+						// do not reuse incomplete responses
+						response.setHeader("Cache-Control", "no-store");
+						respond(request, response, content, callback, format);
+						return;
+					}
+				}
+				if (e == null && tag != null && content != null) {
+					ResponseCache.Entry entry = new ResponseCache.Entry(contentType(content, callback, format),
+							serialize(content, callback, format));
+					cache.put(tag, entry);
+					setCacheHeaders(request, response, cache, tag);
+					respond(request, response, entry, callback, format);
+				} else if (e == null) {
+					respond(request, response, content, callback, format);
+				} else {
+					fail(request, response,
+							(e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e);
+				}
+			} catch (Throwable e1) {
+				log.error("Failed to reply to request \"" + request.getRequestURI() + "\".", e1);
+			} finally {
+				quota.release();
+				timer.stop(start, e != null);
+				async.complete();
 			}
-			String url;
-			if (request.getQueryString() != null) {
-				url = request.getRequestURI() + "?" + request.getQueryString();
-			} else {
-				url = request.getRequestURI();
+		});
+	}
+
+	/**
+	 * Sets the caching headers of a cacheable response.
+	 * 
+	 * @return the entity tag of the response
+	 */
+	private static String setCacheHeaders(HttpServletRequest request, HttpServletResponse response,
+			ResponseCache cache, String tag) {
+		String encoding = ContentEncoding.negotiate(request.getHeader("Accept-Encoding"));
+		// distinct entity tags for distinct encodings
+		String etag = "\"" + tag + ((encoding != null) ? "-" + encoding : "") + "\"";
+		response.setHeader("ETag", etag);
+		response.setHeader("Cache-Control", "public, max-age=" + cache.getMaxAge());
+		return etag;
+	}
+
+	/**
+	 * Answers the request of a cacheable response with 304 or from the cache,
+	 * if possible.
+	 * 
+	 * @return <code>true</code>, if the request has been answered
+	 */
+	private static boolean respondCached(HttpServletRequest request, HttpServletResponse response,
+			ResponseCache cache, String tag) throws Exception {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			String encoding = ContentEncoding.negotiate(request.getHeader("Accept-Encoding"));
+			if (ResponseCache.matches(ifNoneMatch,
+					"\"" + tag + ((encoding != null) ? "-" + encoding : "") + "\"")) {
+				setCacheHeaders(request, response, cache, tag);
+				response.addHeader("Vary", "Accept, Accept-Encoding");
+				response.setStatus(304); // status "not modified"
+				return true;
 			}
-			StringBuilder parameters = new StringBuilder();
-			for (Entry<String, String[]> parameter : request.getParameterMap().entrySet()) {
-				parameters.append("\n   ");
-				parameters.append(parameter.getKey());
-				parameters.append("=");
-				parameters.append(
-						String.join("\n   " + Strings.repeat(" ", parameter.getKey().length()), parameter.getValue()));
+		}
+		ResponseCache.Entry cached = cache.get(tag);
+		if (cached != null) {
+			setCacheHeaders(request, response, cache, tag);
+			respond(request, response, cached, null, null);
+			return true;
+		}
+		return false;
+	}
+
+	private static String contentType(Object content, String callback, ContentFormat format) {
+		if (content instanceof StreamingContent) {
+			return ((StreamingContent) content).getContentType();
+		} else if (content instanceof ResponseCache.Entry) {
+			return ((ResponseCache.Entry) content).contentType;
+		} else if (content instanceof String) {
+			// String as plain, other as JSON
+			return "text/plain";
+		} else if (callback != null) {
+			// it is an JSONP request
+			return "application/javascript";
+		} else {
+			return format.getMediaType();
+		}
+	}
+
+	private static byte[] serialize(Object content, String callback, ContentFormat format) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		write(out, content, callback, format);
+		return out.toByteArray();
+	}
+
+	private static void respond(HttpServletRequest request, HttpServletResponse response, Object content,
+			String callback, ContentFormat format) throws Exception {
+		if (content == null) {
+			response.setStatus(204); // status "no content"
+			return;
+		}
+		String contentType = contentType(content, callback, format);
+		ContentFormat contentFormat = ContentFormat.of(contentType);
+		if (contentFormat == null || !contentFormat.isBinary()) {
+			response.setCharacterEncoding("UTF-8");
+		}
+		response.setContentType(contentType);
+		// compress if accepted by the client
+		String encoding = ContentEncoding.negotiate(request.getHeader("Accept-Encoding"));
+		response.addHeader("Vary", "Accept, Accept-Encoding");
+		if (encoding != null) {
+			response.setHeader("Content-Encoding", encoding);
+		}
+		try (OutputStream out = ContentEncoding.encode(response.getOutputStream(), encoding)) {
+			write(out, content, callback, format);
+		}
+	}
+
+	private static void write(OutputStream out, Object content, String callback, ContentFormat format)
+			throws Exception {
+		if (content instanceof StreamingContent) {
+			((StreamingContent) content).write(out);
+		} else if (content instanceof ResponseCache.Entry) {
+			out.write(((ResponseCache.Entry) content).body);
+		} else if (content instanceof String) {
+			out.write((content + "\n").getBytes(StandardCharsets.UTF_8));
+		} else {
+			// write JSON or binary format incrementally
+			try (JsonGenerator generator = format.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+				if (callback != null) {
+					// encapsulate content in callback function
+					generator.writeRaw(callback + "(");
+					jsonMapper.writeValue(generator, content);
+					generator.writeRaw(");");
+				} else {
+					jsonMapper.writeValue(generator, content);
+				}
+			}
+		}
+	}
+
+	private static void fail(HttpServletRequest request, HttpServletResponse response, Throwable e)
+			throws ServletException {
+		int code;
+		if (e instanceof ServiceWorkerException) {
+			code = ((ServiceWorkerException) e).getCode();
+			if (((ServiceWorkerException) e).getRetryAfter() != null) {
+				response.setHeader("Retry-After", ((ServiceWorkerException) e).getRetryAfter().toString());
 			}
-			UUID errorUUID = UUID.randomUUID();
-			String message = e.getMessage() + " (Error UUID: " + errorUUID + ")";
-			log.error(
-					"Failed to reply to request \"" + url + "\". (UUID: " + errorUUID + ")\n Parameters:" + parameters,
-					e);
+		} else {
+			code = 500;
+		}
+		String url;
+		if (request.getQueryString() != null) {
+			url = request.getRequestURI() + "?" + request.getQueryString();
+		} else {
+			url = request.getRequestURI();
+		}
+		StringBuilder parameters = new StringBuilder();
+		for (Entry<String, String[]> parameter : request.getParameterMap().entrySet()) {
+			parameters.append("\n   ");
+			parameters.append(parameter.getKey());
+			parameters.append("=");
+			parameters.append(
+					String.join("\n   " + Strings.repeat(" ", parameter.getKey().length()), parameter.getValue()));
+		}
+		UUID errorUUID = UUID.randomUUID();
+		String message = e.getMessage() + " (Error UUID: " + errorUUID + ")";
+		log.error(
+				"Failed to reply to request \"" + url + "\". (UUID: " + errorUUID + ")\n Parameters:" + parameters,
+				e);
+		try {
+			response.sendError(code, message);
+		} catch (IOException e1) {
+			log.error("Failed to send error message. (UUID: " + errorUUID + ")", e1);
+			throw new ServletException(message);
+		}
+	}
+
+	/**
+	 * @return key of the client, the API key if provided and configured or
+	 *         else the remote address, so that made up keys do not bypass the
+	 *         limits of the address
+	 */
+	private static String getClient(Environment environment, HttpServletRequest request) {
+		String apiKey = request.getHeader("X-API-Key");
+		if (environment.isApiKey(apiKey)) {
+			return "key:" + apiKey;
+		}
+		return "address:" + request.getRemoteAddr();
+	}
+
+	/**
+	 * @return key of the given completion session, qualified by the client to
+	 *         not interfere with sessions of other clients, or
+	 *         <code>null</code>
+	 */
+	private static String getSession(String client, String session) {
+		if (session != null && !session.isEmpty()) {
+			return client + "\n" + session;
+		}
+		return null;
+	}
+
+	/**
+	 * Rejects requests without the administration key in the header
+	 * <code>X-Admin-Key</code>.
+	 */
+	private static void checkAdmin(Environment environment, HttpServletRequest request)
+			throws ServiceWorkerException {
+		if (!environment.isAdminKey(request.getHeader("X-Admin-Key"))) {
+			throw new ServiceWorkerException("Administration key required.", 403);
+		}
+	}
+
+	private static void checkRate(AdmissionControl admission, String client, long cost)
+			throws ServiceWorkerException {
+		if (cost > 0) {
 			try {
-				response.sendError(code, message);
-			} catch (IOException e1) {
-				log.error("Failed to send error message. (UUID: " + errorUUID + ")", e1);
-				throw new ServletException(message);
+				admission.checkRate(client, cost);
+			} catch (AdmissionException e) {
+				throw new ServiceWorkerException(e.getMessage(), 429, e.getRetryAfter());
 			}
 		}
 	}
 
+	private static Quota enter(AdmissionControl admission, String endpoint) throws ServiceWorkerException {
+		try {
+			return admission.enter(endpoint);
+		} catch (AdmissionException e) {
+			throw new ServiceWorkerException(e.getMessage(), 503, e.getRetryAfter());
+		}
+	}
+
+	/**
+	 * @return the {@link Deadline} of the time budget in milliseconds given by
+	 *         the header <code>X-Time-Budget</code> or <code>null</code>, if
+	 *         absent
+	 */
+	private static Deadline getDeadline(HttpServletRequest request) throws ServiceWorkerException {
+		String budget = request.getHeader("X-Time-Budget");
+		if (budget == null) {
+			return null;
+		}
+		try {
+			long milliseconds = Long.parseLong(budget.trim());
+			if (milliseconds > 0) {
+				return new Deadline(milliseconds, TimeUnit.MILLISECONDS);
+			}
+		} catch (NumberFormatException e) {
+		}
+		throw new ServiceWorkerException("Illegal time budget value.", 400);
+	}
+
 	private static String getCallback(HttpServletRequest request) throws ServiceWorkerException {
 		String callback = request.getParameter("callback");
 		if (callback != null && !JavaScriptValidator.validFunctionName(callback)) {
@@ -221,25 +475,62 @@ public class Servlet extends HttpServlet {
 		return callback;
 	}
 
-	private Collection<Scope> getScope(HttpServletRequest request) throws ServiceWorkerException {
-		try {
-			String scopeParameter = request.getParameter("s");
-			if (Objects.nonNull(scopeParameter) && !scopeParameter.isEmpty()) {
-				return Collections.singleton(Scope.valueOf(Scope.class, request.getParameter("s")));
-			} else {
-				return Collections.singleton(Scope.all);
-			}
-		} catch (Throwable e) {
-			log.info("Illegal scope value.", e);
-			throw new ServiceWorkerException("Illegal scope value.", 400);
+	/**
+	 * Parameters of a single call given by the request parameters, headers and
+	 * body.
+	 */
+	private static class Call implements ServiceDispatcher.Call {
+		private final HttpServletRequest request;
+		private final String client;
+
+		Call(HttpServletRequest request, String client) {
+			this.request = request;
+			this.client = client;
 		}
-	}
 
-	private static String getQuery(HttpServletRequest request) throws ServiceWorkerException {
-		String query = request.getParameter("q");
-		if (query == null) {
+		@Override
+		public String getQuery() {
+			return this.request.getParameter("q");
+		}
+
+		/**
+		 * Reads the JSON input of a request from the parameter <code>q</code>
+		 * or, if absent, incrementally from a request body of a
+		 * {@link ContentFormat} like <code>application/json</code>.
+		 */
+		@Override
+		public <T> T readJson(Class<T> type) throws ServiceWorkerException, IOException {
+			String query = this.request.getParameter("q");
+			if (query != null) {
+				return jsonMapper.readValue(query, type);
+			}
+			ContentFormat format = ContentFormat.of(this.request.getContentType());
+			if (format != null) {
+				try (JsonParser parser = format.getFactory().createParser(this.request.getInputStream())) {
+					return jsonMapper.readValue(parser, type);
+				}
+			}
 			throw new ServiceWorkerException("Illegal query value.", 400);
 		}
-		return query;
+
+		@Override
+		public String getScope() {
+			return this.request.getParameter("s");
+		}
+
+		/**
+		 * @return key of the completion session given by the header
+		 *         <code>X-Session-ID</code>, qualified by the client, or
+		 *         <code>null</code>
+		 */
+		@Override
+		public String getSession() {
+			return Servlet.getSession(this.client, this.request.getHeader("X-Session-ID"));
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			return this.request.getInputStream();
+		}
 	}
 }
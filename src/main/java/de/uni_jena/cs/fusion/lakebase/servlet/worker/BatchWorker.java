@@ -0,0 +1,244 @@
+package de.uni_jena.cs.fusion.lakebase.servlet.worker;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.uni_jena.cs.fusion.lakebase.Environment;
+import de.uni_jena.cs.fusion.lakebase.model.BatchRequest;
+import de.uni_jena.cs.fusion.lakebase.model.BatchResponse;
+import de.uni_jena.cs.fusion.util.context.ThreadContext;
+import de.uni_jena.cs.fusion.util.deadline.Deadline;
+
+/**
+ * Processes multiple calls of read-only services concurrently and returns
+ * their results in order. At most {@link #MAX_PARALLELISM} calls of a batch
+ * are processed at the same time, so that a batch occupies only a few threads
+ * of the executor. Calls of a {@link CacheableServiceWorker} with equal
+ * normalized input are processed only once per batch.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class BatchWorker implements ServiceWorker {
+	private final static Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private final static ObjectMapper jsonMapper = new ObjectMapper();
+	/**
+	 * maximum number of calls per batch
+	 */
+	public final static int MAX_SIZE = 100;
+	/**
+	 * maximum number of calls per batch processed at the same time
+	 */
+	public final static int MAX_PARALLELISM = 4;
+	/**
+	 * seconds a client should wait before retrying a call, if too many
+	 * requests are processed concurrently
+	 */
+	private final static long RETRY_AFTER = 5;
+
+	private final ServiceDispatcher dispatcher;
+
+	public BatchWorker() {
+		this(new ServiceDispatcher());
+	}
+
+	/**
+	 * @param dispatcher
+	 *            {@link ServiceDispatcher} to dispatch the calls with
+	 */
+	public BatchWorker(ServiceDispatcher dispatcher) {
+		this.dispatcher = dispatcher;
+	}
+
+	@Override
+	public Object processRequest(Environment environment, Object input) throws ServiceWorkerException {
+		// process the calls one after another in the calling thread
+		return ServiceWorker.join(processRequestAsync(environment, input, Runnable::run));
+	}
+
+	/**
+	 * Dispatches the calls to the given {@link Executor} without blocking the
+	 * calling thread while waiting for their results. Further calls get
+	 * dispatched on completion of previous calls.
+	 */
+	@Override
+	public CompletableFuture<Object> processRequestAsync(Environment environment, Object input,
+			Executor executor) {
+		BatchRequest[] requests = (BatchRequest[]) input;
+		if (requests.length > MAX_SIZE) {
+			return failed(new ServiceWorkerException("Too many calls in batch.", 413));
+		}
+		Map<String, CompletableFuture<Object>> shared = new HashMap<String, CompletableFuture<Object>>();
+		@SuppressWarnings("unchecked")
+		CompletableFuture<BatchResponse>[] responses = new CompletableFuture[requests.length];
+		for (int i = 0; i < requests.length; i++) {
+			responses[i] = new CompletableFuture<BatchResponse>();
+		}
+		Deadline deadline = Deadline.current();
+		AtomicInteger next = new AtomicInteger();
+		Runnable dispatchNext = new Runnable() {
+			@Override
+			public void run() {
+				int i = next.getAndIncrement();
+				if (i < requests.length) {
+					CompletableFuture<Object> result;
+					try (ThreadContext.Scope scope = (deadline != null) ? deadline.activate() : null) {
+						synchronized (shared) {
+							result = call(environment, requests[i], executor, shared);
+						}
+					}
+					result.handle(BatchWorker::response).thenAccept(response -> {
+						responses[i].complete(response);
+						this.run();
+					});
+				}
+			}
+		};
+		for (int i = 0; i < Math.min(MAX_PARALLELISM, requests.length); i++) {
+			dispatchNext.run();
+		}
+		return CompletableFuture.allOf(responses).thenApply(nothing -> {
+			List<BatchResponse> result = new ArrayList<BatchResponse>(responses.length);
+			for (CompletableFuture<BatchResponse> response : responses) {
+				result.add(response.join());
+			}
+			return result;
+		});
+	}
+
+	private CompletableFuture<Object> call(Environment environment, BatchRequest request, Executor executor,
+			Map<String, CompletableFuture<Object>> shared) {
+		ServiceDispatcher.Dispatch dispatch;
+		try {
+			if (request == null || request.service == null) {
+				throw new ServiceWorkerException("Missing service.", 400);
+			}
+			if (!ServiceDispatcher.BATCHABLE.contains(request.service)) {
+				throw new ServiceWorkerException("Unknown or not batchable service.", 400);
+			}
+			dispatch = this.dispatcher.dispatch(request.service, new Call(request));
+		} catch (Throwable e) {
+			// NOTE: using Throwable to catch RuntimeExceptions too
+			return failed(e);
+		}
+		try {
+			if (dispatch.worker instanceof CacheableServiceWorker) {
+				// share results of equal calls
+				String key = request.service + "\n"
+						+ ((CacheableServiceWorker) dispatch.worker).cacheKey(dispatch.input);
+				CompletableFuture<Object> result = shared.get(key);
+				if (result == null) {
+					result = dispatch.worker.processRequestAsync(environment, dispatch.input, executor);
+					shared.put(key, result);
+				}
+				return result;
+			} else {
+				return dispatch.worker.processRequestAsync(environment, dispatch.input, executor);
+			}
+		} catch (RejectedExecutionException e) {
+			return failed(new ServiceWorkerException("Too many concurrent requests.", 503, RETRY_AFTER));
+		}
+	}
+
+	private static BatchResponse response(Object content, Throwable e) {
+		if (e == null) {
+			return new BatchResponse((content != null) ? 200 : 204, content, null);
+		}
+		if (e instanceof CompletionException && e.getCause() != null) {
+			e = e.getCause();
+		}
+		if (e instanceof ServiceWorkerException) {
+			return new BatchResponse(((ServiceWorkerException) e).getCode(), null, e.getMessage());
+		} else {
+			log.error("Failed to process call of batch.", e);
+			return new BatchResponse(500, null, e.getMessage());
+		}
+	}
+
+	private static <T> CompletableFuture<T> failed(Throwable e) {
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		future.completeExceptionally(e);
+		return future;
+	}
+
+	/**
+	 * Parameters of a call of a batch.
+	 */
+	private static class Call implements ServiceDispatcher.Call {
+		private final BatchRequest request;
+
+		Call(BatchRequest request) {
+			this.request = request;
+		}
+
+		@Override
+		public String getQuery() {
+			return (this.request.q != null && this.request.q.isTextual()) ? this.request.q.textValue() : null;
+		}
+
+		/**
+		 * Reads the JSON query of a call, given either as JSON or as string
+		 * containing JSON like the parameter <code>q</code> of a single call.
+		 */
+		@Override
+		public <T> T readJson(Class<T> type) throws ServiceWorkerException, IOException {
+			if (this.request.q == null || this.request.q.isNull()) {
+				throw new ServiceWorkerException("Illegal query value.", 400);
+			} else if (this.request.q.isTextual()) {
+				return jsonMapper.readValue(this.request.q.textValue(), type);
+			} else {
+				return jsonMapper.treeToValue(this.request.q, type);
+			}
+		}
+
+		@Override
+		public String getScope() {
+			return this.request.s;
+		}
+
+		@Override
+		public String getSession() {
+			return this.request.session;
+		}
+
+		@Override
+		public InputStream getBody() throws ServiceWorkerException {
+			throw new ServiceWorkerException("Illegal query value.", 400);
+		}
+	}
+}
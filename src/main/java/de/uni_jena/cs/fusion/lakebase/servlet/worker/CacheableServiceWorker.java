@@ -0,0 +1,59 @@
+package de.uni_jena.cs.fusion.lakebase.servlet.worker;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+import de.uni_jena.cs.fusion.lakebase.Environment;
+import de.uni_jena.cs.fusion.lakebase.Scope;
+
+/**
+ * {@link ServiceWorker} whose responses are pure functions of the input and a
+ * version of the data and may therefore be cached.
+ * 
+ * @since 0.3.9
+ *
+ */
+public interface CacheableServiceWorker extends ServiceWorker {
+
+	/**
+	 * @param input
+	 * @return normalized representation of the input, equal for all inputs
+	 *         with equal responses
+	 */
+	public String cacheKey(Object input);
+
+	/**
+	 * @param environment
+	 * @return version of the data the responses depend on
+	 */
+	public String cacheVersion(Environment environment);
+
+	/**
+	 * @param scopes
+	 * @return normalized representation of the scopes, independent of their
+	 *         order
+	 */
+	public static String scopesKey(Collection<Scope> scopes) {
+		return scopes.stream().map(Scope::name).sorted().collect(Collectors.joining(","));
+	}
+}
@@ -20,25 +20,65 @@ package de.uni_jena.cs.fusion.lakebase.servlet.worker;
  * #L%
  */
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
 import de.uni_jena.cs.fusion.lakebase.Completer;
 import de.uni_jena.cs.fusion.lakebase.Environment;
 import de.uni_jena.cs.fusion.lakebase.model.CompleteRequest;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceException;
+import de.uni_jena.cs.fusion.util.concurrent.CompletableFutures;
 
-public class CompleteWorker implements ServiceWorker {
+public class CompleteWorker implements CacheableServiceWorker {
 
 	@Override
 	public Object processRequest(Environment environment, Object input) throws ServiceWorkerException {
+		return ServiceWorker.join(processRequestAsync(environment, input, Runnable::run));
+	}
+
+	/**
+	 * Composes the futures of the adapters instead of waiting for them.
+	 * 
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Object> processRequestAsync(Environment environment, Object input,
+			Executor executor) {
 
 		// load environment
 		Completer suggestor = environment.getSuggestor();
 
 		// respond
-		try {
-			return suggestor.complete(((CompleteRequest) input).stump, ((CompleteRequest) input).scopes);
-		} catch (SemanticDataSourceException e) {
-			throw new ServiceWorkerException(500, e);
-		}
+		return ServiceWorker.timed(environment, this,
+				() -> CompletableFutures.handle(suggestor.completeAsync(((CompleteRequest) input).stump,
+						((CompleteRequest) input).scopes, ((CompleteRequest) input).session, executor),
+						(completions, e) -> {
+							if (e != null) {
+								if (e instanceof CompletionException && e.getCause() != null) {
+									e = e.getCause();
+								}
+								if (e instanceof SemanticDataSourceException) {
+									throw new CompletionException(new ServiceWorkerException(500, e));
+								} else if (e instanceof CancellationException) {
+									throw new CompletionException(new ServiceWorkerException(e.getMessage(), 409, e));
+								}
+								throw new CompletionException(e);
+							}
+							return completions;
+						}));
+	}
+
+	@Override
+	public String cacheKey(Object input) {
+		return CacheableServiceWorker.scopesKey(((CompleteRequest) input).scopes) + "\n"
+				+ ((CompleteRequest) input).stump;
+	}
+
+	@Override
+	public String cacheVersion(Environment environment) {
+		return Long.toString(environment.getAdapterVersion().get());
 	}
 
 }
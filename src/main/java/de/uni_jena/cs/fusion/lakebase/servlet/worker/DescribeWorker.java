@@ -21,9 +21,19 @@ package de.uni_jena.cs.fusion.lakebase.servlet.worker;
  */
 
 import java.net.URL;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import org.semanticweb.owlapi.model.IRI;
 
@@ -33,65 +43,162 @@ import de.uni_jena.cs.fusion.lakebase.HierarchyManager;
 import de.uni_jena.cs.fusion.lakebase.model.Description;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSource;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceException;
+import de.uni_jena.cs.fusion.util.concurrent.CompletableFutures;
+import de.uni_jena.cs.fusion.util.deadline.Deadline;
 
-public class DescribeWorker implements ServiceWorker {
+public class DescribeWorker implements CacheableServiceWorker {
+
+	/**
+	 * broader concepts determining the types of a described concept
+	 */
+	private final static Map<IRI, String> types = new LinkedHashMap<IRI, String>();
+	static {
+		types.put(IRI.create("http://www.ontology-of-units-of-measure.org/resource/om-2/Unit"), "unit");
+		types.put(IRI.create("http://www.ontology-of-units-of-measure.org/resource/om-2/Quantity"), "quantityKind");
+		types.put(IRI.create("http://sws.geonames.org/6295630/"), "location");
+		types.put(IRI.create("urn:lsid:marinespecies.org:taxname:1"), "species");
+		types.put(IRI.create("http://www.w3.org/2006/time#DateTimeInterval"), "datetime");
+	}
 
 	@Override
 	public Object processRequest(Environment environment, Object input) throws ServiceWorkerException {
-		try {
+		return ServiceWorker.join(processRequestAsync(environment, input, Runnable::run));
+	}
 
-			// load environment
-			SemanticDataSource semanticDataSource = environment.getSemanticDataSource();
-			HierarchyManager hierarchyManager = environment.getHierarchyManager();
+	/**
+	 * Queries the concept hierarchy with the given {@link Executor} and
+	 * composes the futures of the labels and descriptions provided by the
+	 * adapters instead of waiting for them.
+	 * 
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Object> processRequestAsync(Environment environment, Object input,
+			Executor executor) {
+		return ServiceWorker.timed(environment, this, () -> CompletableFutures
+				.handle(CompletableFutures.compose(Deadline.wrap(() -> describe(environment, (IRI[]) input, executor)),
+						executor), (descriptions, e) -> {
+							if (e != null) {
+								if (e instanceof CompletionException && e.getCause() != null) {
+									e = e.getCause();
+								}
+								if (e instanceof SemanticDataSourceException || e instanceof HierarchyException
+										|| e instanceof SQLException) {
+									throw new CompletionException(new ServiceWorkerException(500, e));
+								}
+								throw new CompletionException(e);
+							}
+							return descriptions;
+						}));
+	}
 
-			List<Description> descriptions = new ArrayList<Description>();
+	private CompletableFuture<Object> describe(Environment environment, IRI[] input, Executor executor)
+			throws SemanticDataSourceException, HierarchyException, SQLException {
 
-			for (IRI iri : (IRI[]) input) {
-				if (semanticDataSource.isPresent(iri)) {
-					Description description = new Description();
-					descriptions.add(description);
+		// load environment
+		SemanticDataSource semanticDataSource = environment.getSemanticDataSource();
+		HierarchyManager hierarchyManager = environment.getHierarchyManager();
 
-					if (!hierarchyManager.contains(iri)) {
-						hierarchyManager.add(iri);
-					}
+		// determine present concepts
+		Collection<IRI> iris = new LinkedHashSet<IRI>();
+		for (IRI iri : input) {
+			if (semanticDataSource.isPresent(iri)) {
+				iris.add(iri);
+			}
+		}
 
-					description.iri = iri;
-					description.labels = semanticDataSource.getLabels(iri);
-					description.alternativLabels = semanticDataSource.getAlternativeLabels(iri);
-					description.descriptions = semanticDataSource.getDescriptions(iri);
-					// make URLs distinct
-					TreeSet<URL> urlSet = new TreeSet<URL>((e1, e2) -> e1.toString().compareTo(e2.toString()));
-					urlSet.addAll(semanticDataSource.getUrls(iri));
-					description.urls = new ArrayList<URL>(urlSet);
-					description.types = new ArrayList<String>();
-					if (hierarchyManager.isBroader(iri,
-							IRI.create("http://www.ontology-of-units-of-measure.org/resource/om-2/Unit"))) {
-						description.types.add("unit");
-					}
-					if (hierarchyManager.isBroader(iri,
-							IRI.create("http://www.ontology-of-units-of-measure.org/resource/om-2/Quantity"))) {
-						description.types.add("quantityKind");
-					}
-					if (hierarchyManager.isBroader(iri, IRI.create("http://sws.geonames.org/6295630/"))) {
-						description.types.add("location");
-					}
-					if (hierarchyManager.isBroader(iri, IRI.create("urn:lsid:marinespecies.org:taxname:1"))) {
-						description.types.add("species");
+		// add missing concepts to the hierarchy
+		for (Entry<IRI, Boolean> contained : hierarchyManager.contains(iris).entrySet()) {
+			if (!contained.getValue()) {
+				hierarchyManager.add(contained.getKey());
+			}
+		}
+
+		// request labels and descriptions of all concepts at once
+		List<IRI> describedIris = new ArrayList<IRI>();
+		List<CompletableFuture<Collection<String>>> texts = new ArrayList<CompletableFuture<Collection<String>>>();
+		for (IRI iri : input) {
+			if (iris.contains(iri)) {
+				describedIris.add(iri);
+				texts.add(semanticDataSource.getLabelsAsync(iri, executor));
+				texts.add(semanticDataSource.getDescriptionsAsync(iri, executor));
+			}
+		}
+		CompletableFuture<List<Collection<String>>> allTexts = CompletableFutures.all(texts);
+
+		List<Description> descriptions = new ArrayList<Description>();
+		try {
+			// query hierarchy of all concepts at once
+			Map<IRI, Collection<IRI>> typeBroaders;
+			Map<IRI, Collection<IRI>> synonyms;
+			Map<IRI, Collection<IRI>> broaders;
+			try (Connection connection = environment.getDatabaseManager().getConnection()) {
+				try {
+					hierarchyManager.beginSnapshot(connection);
+					typeBroaders = hierarchyManager.getBroaders(iris, types.keySet(), connection);
+					synonyms = hierarchyManager.getSynonyms(iris, connection);
+					broaders = hierarchyManager.getBroaders(iris, connection);
+					connection.commit();
+				} catch (HierarchyException | SQLException | RuntimeException e) {
+					if (!connection.getAutoCommit()) {
+						connection.rollback();
 					}
-					if (hierarchyManager.isBroader(iri, IRI.create("http://www.w3.org/2006/time#DateTimeInterval"))) {
-						description.types.add("datetime");
+					throw e;
+				} finally {
+					// pooled connections are returned as they are
+					connection.setAutoCommit(true);
+				}
+			}
+
+			for (IRI iri : describedIris) {
+				Description description = new Description();
+				descriptions.add(description);
+
+				description.iri = iri;
+				description.alternativLabels = semanticDataSource.getAlternativeLabels(iri);
+				// make URLs distinct
+				TreeSet<URL> urlSet = new TreeSet<URL>((e1, e2) -> e1.toString().compareTo(e2.toString()));
+				urlSet.addAll(semanticDataSource.getUrls(iri));
+				description.urls = new ArrayList<URL>(urlSet);
+				description.types = new ArrayList<String>();
+				for (Entry<IRI, String> type : types.entrySet()) {
+					if (typeBroaders.get(iri).contains(type.getKey())) {
+						description.types.add(type.getValue());
 					}
-					description.synonyms = hierarchyManager.getSynonyms(iri);
-					description.broaders = hierarchyManager.getBroaders(iri);
-					// filter fall back entities
-					description.broaders.removeIf(p -> p.getIRIString().startsWith("string:"));
 				}
+				description.synonyms = new ArrayList<IRI>(synonyms.get(iri));
+				description.broaders = new ArrayList<IRI>(broaders.get(iri));
+				// filter fall back entities
+				description.broaders.removeIf(p -> p.getIRIString().startsWith("string:"));
 			}
+		} catch (SemanticDataSourceException | HierarchyException | SQLException | RuntimeException e) {
+			allTexts.cancel(true);
+			throw e;
+		}
 
+		return CompletableFutures.map(allTexts, textLists -> {
+			for (int i = 0; i < descriptions.size(); i++) {
+				descriptions.get(i).labels = textLists.get(2 * i);
+				descriptions.get(i).descriptions = textLists.get(2 * i + 1);
+			}
 			return descriptions;
+		});
+	}
 
-		} catch (SemanticDataSourceException | HierarchyException e) {
-			throw new ServiceWorkerException(500, e);
+	@Override
+	public String cacheKey(Object input) {
+		StringBuilder key = new StringBuilder();
+		for (IRI iri : (IRI[]) input) {
+			key.append(iri.getIRIString()).append('\n');
 		}
+		return key.toString();
+	}
+
+	/**
+	 * Depends on the adapters and on the concept hierarchy.
+	 */
+	@Override
+	public String cacheVersion(Environment environment) {
+		return environment.getAdapterVersion().get() + "." + environment.getDataVersion().get();
 	}
 }
@@ -0,0 +1,110 @@
+package de.uni_jena.cs.fusion.lakebase.servlet.worker;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.semanticweb.owlapi.model.IRI;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.uni_jena.cs.fusion.lakebase.AnnotationManager;
+import de.uni_jena.cs.fusion.lakebase.EntityAnnotations;
+import de.uni_jena.cs.fusion.lakebase.Environment;
+import de.uni_jena.cs.fusion.lakebase.model.Annotation;
+import de.uni_jena.cs.fusion.lakebase.model.EntitiesAnnotation;
+
+/**
+ * Exports the annotations of a package or of all packages as newline delimited
+ * JSON, one line per entity in the format of <code>/annotation/get</code>.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class ExportAnnotationWorker implements ServiceWorker {
+
+	private final static ObjectMapper JSON = new ObjectMapper();
+	/**
+	 * number of rows to fetch from the database at once
+	 */
+	private final static int FETCH_SIZE = 1000;
+
+	@Override
+	public Object processRequest(Environment environment, Object input) throws ServiceWorkerException {
+		Long packageId;
+		try {
+			packageId = (input != null) ? Long.valueOf((String) input) : null;
+		} catch (NumberFormatException e) {
+			throw new ServiceWorkerException("Illegal package ID.", 400, e);
+		}
+		AnnotationManager annotationManager = environment.getAnnotationManager();
+
+		return new StreamingContent() {
+
+			@Override
+			public String getContentType() {
+				return "application/x-ndjson";
+			}
+
+			@Override
+			public void write(OutputStream output) throws Exception {
+				try (JsonGenerator generator = JSON.getFactory().createGenerator(output)) {
+					generator.setRootValueSeparator(null);
+					try {
+						annotationManager.exportAnnotations(packageId, FETCH_SIZE, entry -> {
+							try {
+								generator.writeObject(toEntitiesAnnotation(entry));
+								generator.writeRaw('\n');
+							} catch (IOException e) {
+								throw new UncheckedIOException(e);
+							}
+						});
+					} catch (UncheckedIOException e) {
+						throw e.getCause();
+					}
+				}
+			}
+		};
+	}
+
+	private static EntitiesAnnotation toEntitiesAnnotation(EntityAnnotations entry) {
+		List<Annotation> accepted = new ArrayList<Annotation>();
+		for (Entry<String, IRI> annotation : entry.annotations.entrySet()) {
+			accepted.add(new Annotation(annotation.getKey(), annotation.getValue(), null));
+		}
+		List<Annotation> rejected = new ArrayList<Annotation>();
+		for (Entry<String, Collection<IRI>> rejection : entry.rejections.entrySet()) {
+			for (IRI iri : rejection.getValue()) {
+				rejected.add(new Annotation(rejection.getKey(), iri, null));
+			}
+		}
+		return new EntitiesAnnotation(null, Collections.emptyList(), Collections.singletonList(entry.entity),
+				accepted, rejected);
+	}
+}
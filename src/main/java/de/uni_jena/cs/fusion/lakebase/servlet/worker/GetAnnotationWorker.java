@@ -21,8 +21,11 @@ package de.uni_jena.cs.fusion.lakebase.servlet.worker;
  */
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import org.semanticweb.owlapi.model.IRI;
@@ -46,25 +49,30 @@ public class GetAnnotationWorker implements ServiceWorker {
 			AnnotationManager annotationManager = environment.getAnnotationManager();
 			SemanticDataSource semanticDataSource = environment.getSemanticDataSource();
 
+			// fetch annotations of all entities at once
+			List<Entity> entities = Arrays.asList((Entity[]) input);
+			Map<Entity, Map<String, IRI>> accepted = annotationManager.getAcceptedAnnotations(entities);
+			Map<Entity, Map<String, List<IRI>>> rejected = annotationManager.getRejectedAnnotations(entities);
+			// determine each label once
+			Map<IRI, String> labels = new HashMap<IRI, String>();
+
 			List<EntitiesAnnotation> entitiesAnnotations = new ArrayList<EntitiesAnnotation>();
-			for (Entity entity : (Entity[]) input) {
+			for (Entity entity : entities) {
 				EntitiesAnnotation entitiesAnnotation = new EntitiesAnnotation();
 				entitiesAnnotations.add(entitiesAnnotation);
 				entitiesAnnotation.entities = Collections.singletonList(entity);
 				entitiesAnnotation.accepted = new ArrayList<Annotation>();
-				for (Entry<String, IRI> entry : annotationManager.getAcceptedAnnotations(entity.packageID,
-						entity.objectID, entity.columnID, entity.rowID, entity.metaID).entrySet()) {
+				for (Entry<String, IRI> entry : accepted.get(entity).entrySet()) {
 					String term = entry.getKey();
 					IRI iri = entry.getValue();
-					String label = semanticDataSource.getLabel(iri).orElse(null);
+					String label = getLabel(semanticDataSource, labels, iri);
 					entitiesAnnotation.accepted.add(new Annotation(term, iri, label));
 				}
 				entitiesAnnotation.rejected = new ArrayList<Annotation>();
-				for (Entry<String, List<IRI>> entry : annotationManager.getRejectedAnnotations(entity.packageID,
-						entity.objectID, entity.columnID, entity.rowID, entity.metaID).entrySet()) {
+				for (Entry<String, List<IRI>> entry : rejected.get(entity).entrySet()) {
 					String term = entry.getKey();
 					for (IRI iri : entry.getValue()) {
-						String label = semanticDataSource.getLabel(iri).orElse(null);
+						String label = getLabel(semanticDataSource, labels, iri);
 						entitiesAnnotation.rejected.add(new Annotation(term, iri, label));
 					}
 				}
@@ -76,4 +84,12 @@ public class GetAnnotationWorker implements ServiceWorker {
 			throw new ServiceWorkerException(500, e);
 		}
 	}
+
+	private static String getLabel(SemanticDataSource semanticDataSource, Map<IRI, String> labels, IRI iri)
+			throws SemanticDataSourceException {
+		if (!labels.containsKey(iri)) {
+			labels.put(iri, semanticDataSource.getLabel(iri).orElse(null));
+		}
+		return labels.get(iri);
+	}
 }
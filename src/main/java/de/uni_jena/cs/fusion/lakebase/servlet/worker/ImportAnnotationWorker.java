@@ -0,0 +1,71 @@
+package de.uni_jena.cs.fusion.lakebase.servlet.worker;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.google.common.collect.Iterators;
+
+import de.uni_jena.cs.fusion.lakebase.AnnotationManagerException;
+import de.uni_jena.cs.fusion.lakebase.EntityAnnotations;
+import de.uni_jena.cs.fusion.lakebase.Environment;
+import de.uni_jena.cs.fusion.lakebase.model.EntitiesAnnotation;
+
+/**
+ * Imports annotations from newline delimited JSON in the format of
+ * <code>/annotation/export</code>, replacing the annotations of the contained
+ * entities. The input is parsed incrementally and written in batches.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class ImportAnnotationWorker implements ServiceWorker {
+
+	private final static ObjectMapper JSON = new ObjectMapper();
+	/**
+	 * maximum number of entities to write in one transaction
+	 */
+	private final static int BATCH_SIZE = 1000;
+
+	@Override
+	public Object processRequest(Environment environment, Object input) throws ServiceWorkerException {
+		try (MappingIterator<EntitiesAnnotation> annotations = JSON.readerFor(EntitiesAnnotation.class)
+				.readValues((InputStream) input)) {
+			Iterator<EntityAnnotations> entries = Iterators.concat(Iterators.transform(annotations,
+					annotation -> annotation.entities.stream()
+							.map(entity -> new EntityAnnotations(entity, annotation.getAcceptedAsMap(),
+									annotation.getRejectedAsMap()))
+							.collect(Collectors.toList()).iterator()));
+			environment.getAnnotationManager().importAnnotations(entries, BATCH_SIZE);
+		} catch (RuntimeJsonMappingException | IllegalArgumentException | IOException e) {
+			throw new ServiceWorkerException(e.getMessage(), 400, e);
+		} catch (AnnotationManagerException e) {
+			throw new ServiceWorkerException(500, e);
+		}
+		return null;
+	}
+}
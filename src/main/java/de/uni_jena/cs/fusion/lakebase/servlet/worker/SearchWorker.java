@@ -25,6 +25,8 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 import org.semanticweb.owlapi.model.IRI;
 
@@ -33,8 +35,12 @@ import de.uni_jena.cs.fusion.lakebase.AnnotatorException;
 import de.uni_jena.cs.fusion.lakebase.Environment;
 import de.uni_jena.cs.fusion.lakebase.Searcher;
 import de.uni_jena.cs.fusion.lakebase.SearcherException;
+import de.uni_jena.cs.fusion.lakebase.model.ProfiledResponse;
+import de.uni_jena.cs.fusion.lakebase.model.SearchPage;
 import de.uni_jena.cs.fusion.lakebase.model.SearchRequest;
 import de.uni_jena.cs.fusion.lakebase.model.SearchResponse;
+import de.uni_jena.cs.fusion.util.context.ThreadContext;
+import de.uni_jena.cs.fusion.util.profiler.Profile;
 
 public class SearchWorker implements ServiceWorker {
 
@@ -49,44 +55,105 @@ public class SearchWorker implements ServiceWorker {
 			// parse input
 			SearchRequest search = (SearchRequest) input;
 
-			List<SearchResponse> results;
+			if (search.limit != null && search.limit < 1) {
+				throw new ServiceWorkerException("Limit must be positive.", 400);
+			}
+			if (search.cursor != null && !Searcher.isValidCursor(search.cursor)) {
+				throw new ServiceWorkerException("Invalid cursor.", 400);
+			}
+			if (search.profile && !environment.isSearchProfilingEnabled()) {
+				throw new ServiceWorkerException("Search profiling is disabled.", 403);
+			}
 
-			if (search.include.text != null) {
-				// annotate included terms (annotated phrases do not overlap)
-				Map<String, Map<IRI, Double>> includeAnnotations = annotator.augmentAnnotations(search.include.text,
-						search.include.getAcceptedAsMap(), search.include.getRejectedAsMap());
+			Profile profile = new Profile();
+			Object result;
+			List<String> explain = null;
+			try (ThreadContext.Scope scope = search.profile ? profile.activate() : null) {
+				if (search.include.text != null) {
+					// annotate included terms (annotated phrases do not overlap)
+					Map<String, Map<IRI, Double>> includeAnnotations;
+					try (Profile.Stage stage = profile.stage("include annotation")) {
+						includeAnnotations = annotator.augmentAnnotations(search.include.text,
+								search.include.getAcceptedAsMap(), search.include.getRejectedAsMap());
+						stage.detail("terms", iriStrings(includeAnnotations));
+					}
 
-				// get collection of included searched iris
-				Collection<IRI> includeIRIs = new HashSet<IRI>();
-				for (String term : includeAnnotations.keySet()) {
-					includeIRIs.addAll(includeAnnotations.get(term).keySet());
-				}
+					// get collection of included searched iris
+					Collection<IRI> includeIRIs = new HashSet<IRI>();
+					for (String term : includeAnnotations.keySet()) {
+						includeIRIs.addAll(includeAnnotations.get(term).keySet());
+					}
+
+					Collection<IRI> excludeIRIs;
+					if (search.exclude.text != null) {
+						// annotate excluded terms (annotated phrases do not
+						// overlap)
+						Map<String, Map<IRI, Double>> excludeAnnotations;
+						try (Profile.Stage stage = profile.stage("exclude annotation")) {
+							excludeAnnotations = annotator.augmentAnnotations(search.exclude.text,
+									search.exclude.getAcceptedAsMap(), search.exclude.getRejectedAsMap());
+							stage.detail("terms", iriStrings(excludeAnnotations));
+						}
+						excludeIRIs = new HashSet<IRI>();
+						// get collection of excluded searched iris
+						for (String term : excludeAnnotations.keySet()) {
+							excludeIRIs.addAll(excludeAnnotations.get(term).keySet());
+						}
+					} else {
+						excludeIRIs = Collections.emptySet();
+					}
+
+					try (Profile.Stage stage = profile.stage("search")) {
+						stage.detail("include", iriStrings(includeIRIs));
+						stage.detail("exclude", iriStrings(excludeIRIs));
+						if (search.limit != null) {
+							SearchPage page = searcher.search(includeIRIs, excludeIRIs, search.entity, search.limit,
+									search.cursor);
+							stage.detail("results", page.results.size());
+							result = page;
+						} else {
+							List<SearchResponse> results = searcher.search(includeIRIs, excludeIRIs, search.entity);
+							stage.detail("results", results.size());
+							result = results;
+						}
+					}
 
-				Collection<IRI> excludeIRIs;
-				if (search.exclude.text != null) {
-					// annotate excluded terms (annotated phrases do not
-					// overlap)
-					Map<String, Map<IRI, Double>> excludeAnnotations = annotator.augmentAnnotations(search.exclude.text,
-							search.exclude.getAcceptedAsMap(), search.exclude.getRejectedAsMap());
-					excludeIRIs = new HashSet<IRI>();
-					// get collection of excluded searched iris
-					for (String term : excludeAnnotations.keySet()) {
-						excludeIRIs.addAll(excludeAnnotations.get(term).keySet());
+					if (search.profile) {
+						try (Profile.Stage stage = profile.stage("explain")) {
+							explain = searcher.explain(includeIRIs, excludeIRIs, search.entity, search.limit,
+									search.cursor);
+						}
 					}
 				} else {
-					excludeIRIs = Collections.emptySet();
+					if (search.limit != null) {
+						result = new SearchPage(Collections.emptyList(), null);
+					} else {
+						result = Collections.emptyList();
+					}
 				}
+			}
 
-				results = searcher.search(includeIRIs, excludeIRIs, search.entity);
+			if (search.profile) {
+				return new ProfiledResponse(result, profile, explain);
 			} else {
-				results = Collections.emptyList();
+				return result;
 			}
 
-			return results;
-
 		} catch (SearcherException | AnnotatorException e) {
 			throw new ServiceWorkerException(500, e);
 		}
 	}
 
+	private static Collection<String> iriStrings(Collection<IRI> iris) {
+		return iris.stream().map(IRI::getIRIString).sorted().collect(Collectors.toList());
+	}
+
+	private static Map<String, Collection<String>> iriStrings(Map<String, Map<IRI, Double>> annotations) {
+		Map<String, Collection<String>> terms = new TreeMap<String, Collection<String>>();
+		for (String term : annotations.keySet()) {
+			terms.put(term, iriStrings(annotations.get(term).keySet()));
+		}
+		return terms;
+	}
+
 }
@@ -0,0 +1,191 @@
+package de.uni_jena.cs.fusion.lakebase.servlet.worker;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.IRI;
+
+import com.google.common.collect.ImmutableSet;
+
+import de.uni_jena.cs.fusion.lakebase.Scope;
+import de.uni_jena.cs.fusion.lakebase.model.AnnotationCopyRequest;
+import de.uni_jena.cs.fusion.lakebase.model.BatchRequest;
+import de.uni_jena.cs.fusion.lakebase.model.CompleteRequest;
+import de.uni_jena.cs.fusion.lakebase.model.EntitiesAnnotation;
+import de.uni_jena.cs.fusion.lakebase.model.Entity;
+import de.uni_jena.cs.fusion.lakebase.model.SearchRequest;
+import de.uni_jena.cs.fusion.lakebase.model.SuggestRequest;
+
+/**
+ * Maps the paths of the services to their {@link ServiceWorker}s and reads
+ * their inputs from the parameters of a {@link Call}. Used for single requests
+ * as well as for the calls of a batch, so that both get interpreted equally.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class ServiceDispatcher {
+
+	/**
+	 * paths of the read-only services accepted as calls of a batch
+	 */
+	public final static Set<String> BATCHABLE = ImmutableSet.of("/annotation/suggest", "/annotation/get",
+			"/annotation/status", "/search", "/complete", "/describe");
+
+	/**
+	 * Parameters of a call of a service.
+	 */
+	public interface Call {
+
+		/**
+		 * @return the parameter <code>q</code> as text or <code>null</code>, if
+		 *         absent
+		 */
+		String getQuery();
+
+		/**
+		 * @return the JSON of the parameter <code>q</code> or, if supported,
+		 *         of the request body
+		 * @throws ServiceWorkerException
+		 *             if absent
+		 */
+		<T> T readJson(Class<T> type) throws ServiceWorkerException, IOException;
+
+		/**
+		 * @return the parameter <code>s</code> or <code>null</code>, if absent
+		 */
+		String getScope();
+
+		/**
+		 * @return the key of the completion session, qualified by the client,
+		 *         or <code>null</code>, if absent
+		 */
+		String getSession();
+
+		/**
+		 * @return the request body
+		 * @throws ServiceWorkerException
+		 *             if not supported
+		 */
+		InputStream getBody() throws ServiceWorkerException, IOException;
+	}
+
+	/**
+	 * {@link ServiceWorker} and input of a call.
+	 */
+	public static class Dispatch {
+		public final ServiceWorker worker;
+		public final Object input;
+
+		Dispatch(ServiceWorker worker, Object input) {
+			this.worker = worker;
+			this.input = input;
+		}
+	}
+
+	private final SuggestAnnotationWorker suggestAnnotationWorker = new SuggestAnnotationWorker();
+	private final DeleteAnnotationWorker deleteAnnotationWorker = new DeleteAnnotationWorker();
+	private final AnnotationCopyWorker copyAnnotationWorker = new AnnotationCopyWorker();
+	private final GetAnnotationWorker getAnnotationWorker = new GetAnnotationWorker();
+	private final SetAnnotationWorker setAnnotationWorker = new SetAnnotationWorker(true);
+	private final AnnotationStatusWorker annotationStatusWorker = new AnnotationStatusWorker();
+	private final ExportAnnotationWorker exportAnnotationWorker = new ExportAnnotationWorker();
+	private final ImportAnnotationWorker importAnnotationWorker = new ImportAnnotationWorker();
+	private final SearchWorker searchWorker = new SearchWorker();
+	private final CompleteWorker completeWorker = new CompleteWorker();
+	private final DescribeWorker describeWorker = new DescribeWorker();
+	private final BatchWorker batchWorker = new BatchWorker(this);
+	private final RebuildSearchIndexWorker rebuildSearchIndexWorker = new RebuildSearchIndexWorker();
+
+	/**
+	 * Determines the {@link ServiceWorker} and reads the input of a call.
+	 * 
+	 * @param service
+	 *            path of the service
+	 * @param call
+	 *            parameters of the call
+	 * @return the {@link ServiceWorker} and the input
+	 * @throws ServiceWorkerException
+	 *             if the parameters are illegal
+	 * @throws IllegalArgumentException
+	 *             if the service is unknown
+	 */
+	public Dispatch dispatch(String service, Call call) throws ServiceWorkerException, IOException {
+		switch (service) {
+		case "/annotation/suggest":
+			return new Dispatch(suggestAnnotationWorker, new SuggestRequest(getQuery(call), getScope(call)));
+		case "/annotation/delete":
+			return new Dispatch(deleteAnnotationWorker, call.readJson(Entity[].class));
+		case "/annotation/set":
+			return new Dispatch(setAnnotationWorker, call.readJson(EntitiesAnnotation[].class));
+		case "/annotation/status":
+			return new Dispatch(annotationStatusWorker, getQuery(call));
+		case "/annotation/get":
+			return new Dispatch(getAnnotationWorker, call.readJson(Entity[].class));
+		case "/annotation/export":
+			// optional package ID
+			return new Dispatch(exportAnnotationWorker, call.getQuery());
+		case "/annotation/import":
+			return new Dispatch(importAnnotationWorker, call.getBody());
+		case "/annotation/copy":
+			return new Dispatch(copyAnnotationWorker, call.readJson(AnnotationCopyRequest.class));
+		case "/search":
+			return new Dispatch(searchWorker, call.readJson(SearchRequest.class));
+		case "/search/rebuild":
+			return new Dispatch(rebuildSearchIndexWorker, null);
+		case "/complete":
+			return new Dispatch(completeWorker,
+					new CompleteRequest(getQuery(call), getScope(call), call.getSession()));
+		case "/describe":
+			return new Dispatch(describeWorker, call.readJson(IRI[].class));
+		case "/batch":
+			return new Dispatch(batchWorker, call.readJson(BatchRequest[].class));
+		default:
+			throw new IllegalArgumentException("Unknown service.");
+		}
+	}
+
+	private static String getQuery(Call call) throws ServiceWorkerException {
+		String query = call.getQuery();
+		if (query == null) {
+			throw new ServiceWorkerException("Illegal query value.", 400);
+		}
+		return query;
+	}
+
+	private static Collection<Scope> getScope(Call call) throws ServiceWorkerException {
+		String scope = call.getScope();
+		if (scope == null || scope.isEmpty()) {
+			return Collections.singleton(Scope.all);
+		}
+		try {
+			return Collections.singleton(Scope.valueOf(scope));
+		} catch (IllegalArgumentException e) {
+			throw new ServiceWorkerException("Illegal scope value.", 400);
+		}
+	}
+}
@@ -20,7 +20,18 @@ package de.uni_jena.cs.fusion.lakebase.servlet.worker;
  * #L%
  */
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
 import de.uni_jena.cs.fusion.lakebase.Environment;
+import de.uni_jena.cs.fusion.util.concurrent.CompletableFutures;
+import de.uni_jena.cs.fusion.util.context.ThreadContext;
+import de.uni_jena.cs.fusion.util.deadline.Deadline;
+import de.uni_jena.cs.fusion.util.metrics.Metrics;
+import de.uni_jena.cs.fusion.util.metrics.Timer;
 
 /**
  * 
@@ -39,4 +50,119 @@ public interface ServiceWorker {
 	 */
 	public Object processRequest(Environment environment, Object input) throws ServiceWorkerException;
 
+	/**
+	 * Processes a request without blocking the calling thread. By default,
+	 * {@link #processRequest(Environment, Object)} will be executed by the
+	 * given {@link Executor} and its latency recorded in the {@link Metrics}
+	 * of the {@link Environment}. A {@link Deadline} active in the calling
+	 * thread stays active during the processing. This releases the calling
+	 * thread only: The executing thread still blocks while the worker waits
+	 * for upstream calls. Workers able to compose futures, like the
+	 * {@link BatchWorker} composing the futures of its calls or the
+	 * {@link DescribeWorker} composing the futures of the adapters, override
+	 * this method to not block a thread while waiting and use
+	 * {@link #timed(Environment, ServiceWorker, Supplier)} to record their
+	 * latency.
+	 * 
+	 * @param environment
+	 * @param input
+	 * @param executor
+	 *            {@link Executor} to process the request with
+	 * @return future of the content of the response
+	 * @throws RejectedExecutionException
+	 *             if the executor does not accept further requests
+	 * 
+	 * @since 0.3.9
+	 */
+	public default CompletableFuture<Object> processRequestAsync(Environment environment, Object input,
+			Executor executor) {
+		CompletableFuture<Object> future = new CompletableFuture<Object>();
+		Timer timer = timer(environment, this);
+		Deadline deadline = Deadline.current();
+		executor.execute(() -> {
+			long start = timer.start();
+			try (ThreadContext.Scope scope = (deadline != null) ? deadline.activate() : null) {
+				Object content = processRequest(environment, input);
+				// stop before completion, which might already write the response
+				timer.stop(start, false);
+				future.complete(content);
+			} catch (Throwable e) {
+				timer.stop(start, true);
+				future.completeExceptionally(e);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Records the latency of an asynchronous processing in the {@link Metrics}
+	 * of the {@link Environment} like
+	 * {@link #processRequestAsync(Environment, Object, Executor)} does by
+	 * default.
+	 * 
+	 * @param environment
+	 * @param worker
+	 *            the {@link ServiceWorker} processing the request
+	 * @param processing
+	 *            starts the processing and returns its future
+	 * @return future of the content of the response
+	 * 
+	 * @since 0.3.9
+	 */
+	public static CompletableFuture<Object> timed(Environment environment, ServiceWorker worker,
+			Supplier<? extends CompletableFuture<?>> processing) {
+		Timer timer = timer(environment, worker);
+		long start = timer.start();
+		CompletableFuture<?> future;
+		try {
+			future = processing.get();
+		} catch (RuntimeException e) {
+			timer.stop(start, true);
+			throw e;
+		}
+		return CompletableFutures.handle(future, (content, e) -> {
+			// stop before completion, which might already write the response
+			timer.stop(start, e != null);
+			if (e != null) {
+				throw (e instanceof CompletionException) ? (CompletionException) e : new CompletionException(e);
+			}
+			return content;
+		});
+	}
+
+	/**
+	 * Waits for the result of an asynchronous processing, e.g. to implement
+	 * {@link #processRequest(Environment, Object)} by
+	 * {@link #processRequestAsync(Environment, Object, Executor)}.
+	 * 
+	 * @param future
+	 *            future of the content of the response
+	 * @return content of the response
+	 * @throws ServiceWorkerException
+	 * 
+	 * @since 0.3.9
+	 */
+	public static Object join(CompletableFuture<Object> future) throws ServiceWorkerException {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof ServiceWorkerException) {
+				throw (ServiceWorkerException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @param environment
+	 * @param worker
+	 * @return the {@link Timer} of the calls of the given worker
+	 * 
+	 * @since 0.3.9
+	 */
+	public static Timer timer(Environment environment, ServiceWorker worker) {
+		return environment.getMetrics().timer("lakebase_worker_call", "Worker call", "worker",
+				worker.getClass().getSimpleName());
+	}
+
 }
@@ -28,24 +28,54 @@ package de.uni_jena.cs.fusion.lakebase.servlet.worker;
 public class ServiceWorkerException extends Exception {
 	private static final long serialVersionUID = -4129601407900741569L;
 	private final int code;
+	private final Long retryAfter;
 
 	public ServiceWorkerException(String message, int code) {
 		super(message);
 		this.code = code;
+		this.retryAfter = null;
 	}
 
 	public ServiceWorkerException(int code, Throwable cause) {
 		super(cause);
 		this.code = code;
+		this.retryAfter = null;
 	}
 
 	public ServiceWorkerException(String message, int code, Throwable cause) {
 		super(message, cause);
 		this.code = code;
+		this.retryAfter = null;
 	}
 	
+	/**
+	 * @param message
+	 *            the detail message
+	 * @param code
+	 *            the HTTP status code
+	 * @param retryAfter
+	 *            seconds the client should wait before retrying the request
+	 * 
+	 * @since 0.3.9
+	 */
+	public ServiceWorkerException(String message, int code, long retryAfter) {
+		super(message);
+		this.code = code;
+		this.retryAfter = retryAfter;
+	}
+
 	public int getCode() {
 		return this.code;
 	}
 
+	/**
+	 * @return seconds the client should wait before retrying the request or
+	 *         <code>null</code>, if not specified
+	 * 
+	 * @since 0.3.9
+	 */
+	public Long getRetryAfter() {
+		return this.retryAfter;
+	}
+
 }
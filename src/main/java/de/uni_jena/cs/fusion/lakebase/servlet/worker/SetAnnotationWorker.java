@@ -20,23 +20,29 @@ package de.uni_jena.cs.fusion.lakebase.servlet.worker;
  * #L%
  */
 
-import java.sql.Connection;
-import java.util.Collections;
-import java.util.Map;
-
-import org.semanticweb.owlapi.model.IRI;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import com.google.common.util.concurrent.ListeningScheduledExecutorService;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import de.uni_jena.cs.fusion.lakebase.AnnotationJobQueue;
+import de.uni_jena.cs.fusion.lakebase.AnnotationJobQueueException;
 import de.uni_jena.cs.fusion.lakebase.Environment;
-import de.uni_jena.cs.fusion.lakebase.Scope;
 import de.uni_jena.cs.fusion.lakebase.model.EntitiesAnnotation;
-import de.uni_jena.cs.fusion.lakebase.model.Entity;
 
+/**
+ * Determines the annotations of the submitted texts and hands them over to the
+ * {@link de.uni_jena.cs.fusion.lakebase.AnnotationWriter}, which persists them
+ * in batches. In asynchronous mode, the texts are enqueued as a job of the
+ * {@link AnnotationJobQueue} and the status of the job is returned.
+ */
 public class SetAnnotationWorker implements ServiceWorker {
-	private static Logger log = LoggerFactory.getLogger(SetAnnotationWorker.class);
+
+	/**
+	 * seconds a client should wait before retrying, if the queue is full
+	 */
+	private final static long RETRY_AFTER = 10;
 
 	private boolean asynchron;
 
@@ -47,55 +53,40 @@ public class SetAnnotationWorker implements ServiceWorker {
 	@Override
 	public Object processRequest(Environment environment, Object input) throws ServiceWorkerException {
 		// load environment
-		ListeningScheduledExecutorService executor = environment.getExecutor();
+		AnnotationJobQueue queue = environment.getAnnotationJobQueue();
 
-		for (EntitiesAnnotation annotation : (EntitiesAnnotation[]) input) {
-			// generate task
-			SaveAnnotationTask task = new SaveAnnotationTask(environment, annotation, log);
+		EntitiesAnnotation[] annotations = (EntitiesAnnotation[]) input;
 
-			// process asynchrony
-			if (asynchron) {
-				executor.execute(task);
-			} else {
-				task.run();
+		// process asynchrony
+		if (asynchron) {
+			try {
+				return queue.submit(annotations);
+			} catch (IllegalArgumentException e) {
+				throw new ServiceWorkerException(e.getMessage(), 413, e);
+			} catch (RejectedExecutionException e) {
+				throw new ServiceWorkerException(e.getMessage(), 429, RETRY_AFTER);
+			} catch (AnnotationJobQueueException e) {
+				throw new ServiceWorkerException(500, e);
 			}
 		}
 
-		return null;
-	}
-
-	private class SaveAnnotationTask implements Runnable {
-
-		EntitiesAnnotation annotation;
-		Environment environment;
-		Logger log;
-
-		SaveAnnotationTask(Environment environment, EntitiesAnnotation annotation, Logger log) {
-			this.annotation = annotation;
-			this.environment = environment;
-			this.log = log;
+		List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+		for (EntitiesAnnotation annotation : annotations) {
+			futures.add(queue.save(annotation));
 		}
 
-		@Override
-		public void run() {
+		// wait until written
+		for (CompletableFuture<Void> future : futures) {
 			try {
-				// replenish annotations
-				Map<String, IRI> determined = environment.getAnnotator().determineAnnotations(annotation.text,
-						annotation.getAcceptedAsMap(), annotation.getRejectedAsMap(), ((annotation.scopes.isEmpty())? Collections.singleton(Scope.all) : annotation.scopes));
-
-				try (Connection connection = environment.getDatabaseManager().getConnection()) {
-					connection.setAutoCommit(false);
-
-					for (Entity entity : annotation.entities) {
-						environment.getAnnotationManager().setAnnotations(connection, entity.packageID, entity.objectID,
-								entity.columnID, entity.rowID, entity.metaID, determined,
-								annotation.getRejectedAsMap());
-					}
-					connection.commit();
-				}
-			} catch (Throwable e) {
-				log.error("Set Annotation Task failed for: " + this.annotation, e);
+				future.get();
+			} catch (ExecutionException e) {
+				// already logged
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ServiceWorkerException(500, e);
 			}
 		}
+
+		return null;
 	}
 }
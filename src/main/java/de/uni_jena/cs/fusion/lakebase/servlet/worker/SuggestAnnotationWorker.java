@@ -23,11 +23,19 @@ package de.uni_jena.cs.fusion.lakebase.servlet.worker;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 import org.semanticweb.owlapi.model.IRI;
 
@@ -39,8 +47,10 @@ import de.uni_jena.cs.fusion.lakebase.model.AnnotationSuggestion;
 import de.uni_jena.cs.fusion.lakebase.model.SuggestRequest;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSource;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceException;
+import de.uni_jena.cs.fusion.util.concurrent.CompletableFutures;
+import de.uni_jena.cs.fusion.util.deadline.Deadline;
 
-public class SuggestAnnotationWorker implements ServiceWorker {
+public class SuggestAnnotationWorker implements CacheableServiceWorker {
 
 	/**
 	 * Filters suggested annotations (with term t1 and rating r1), for that an
@@ -91,13 +101,21 @@ public class SuggestAnnotationWorker implements ServiceWorker {
 		}
 	}
 
-	private void filterWorseSynonyms(Map<String, Map<IRI, Double>> annotations, SemanticDataSource semanticDataSource)
-			throws SemanticDataSourceException {
+	/**
+	 * Filters suggested annotations, for that a synonym with a better rating
+	 * exists.
+	 * 
+	 * @param annotations
+	 * @param allSynonyms
+	 *            the synonyms of all suggested annotations
+	 */
+	private void filterWorseSynonyms(Map<String, Map<IRI, Double>> annotations,
+			Map<IRI, Collection<IRI>> allSynonyms) {
 		for (Map<IRI, Double> termAnnotations : annotations.values()) {
 			Iterator<Entry<IRI, Double>> termAnnotationIterator = termAnnotations.entrySet().iterator();
 			while (termAnnotationIterator.hasNext()) {
 				Entry<IRI, Double> termAnnotation = termAnnotationIterator.next();
-				Collection<IRI> synonyms = semanticDataSource.getSynonyms(termAnnotation.getKey());
+				Collection<IRI> synonyms = new HashSet<IRI>(allSynonyms.get(termAnnotation.getKey()));
 				synonyms.remove(termAnnotation.getKey());
 				synonyms.retainAll(termAnnotations.keySet());
 				for (IRI synonym : synonyms) {
@@ -115,37 +133,117 @@ public class SuggestAnnotationWorker implements ServiceWorker {
 
 	@Override
 	public Object processRequest(Environment environment, Object input) throws ServiceWorkerException {
+		return ServiceWorker.join(processRequestAsync(environment, input, Runnable::run));
+	}
+
+	/**
+	 * Composes the futures of the adapters instead of waiting for them.
+	 * 
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Object> processRequestAsync(Environment environment, Object input,
+			Executor executor) {
 		// load environment
 		Annotator annotator = environment.getAnnotator();
 		SemanticDataSource semanticDataSource = environment.getSemanticDataSource();
 
-		// respond
-		try {
-			Map<String, Map<IRI, Double>> termsSuggestions = annotator
-					.proposeAnnotations(((SuggestRequest) input).text, ((SuggestRequest) input).scopes);
+		// filters the proposed annotations, once their synonyms are known
+		Function<Map<String, Map<IRI, Double>>, CompletableFuture<Map<String, Map<IRI, Double>>>> filter = termsSuggestions -> {
 			filterWorseLongerEquals(termsSuggestions);
-			filterWorseSynonyms(termsSuggestions, semanticDataSource);
-
-			List<AnnotationSuggestion> annotationSuggestions = new ArrayList<AnnotationSuggestion>();
-			for (Entry<String, Map<IRI, Double>> termSuggestions : termsSuggestions.entrySet()) {
-				AnnotationSuggestion annotationSuggestion = new AnnotationSuggestion();
-				annotationSuggestion.term = termSuggestions.getKey();
-				annotationSuggestion.annotations = new ArrayList<Annotation>();
-				for (Entry<IRI, Double> termSuggestion : termSuggestions.getValue().entrySet()) {
-					IRI iri = termSuggestion.getKey();
-					annotationSuggestion.annotations.add(new Annotation(iri, termSuggestion.getValue(),
-							semanticDataSource.getLabel(iri).orElse(iri.getIRIString())));
+			List<IRI> iris = iris(termsSuggestions);
+			List<CompletableFuture<Collection<IRI>>> synonyms = new ArrayList<CompletableFuture<Collection<IRI>>>();
+			for (IRI iri : iris) {
+				synonyms.add(semanticDataSource.getSynonymsAsync(iri, executor));
+			}
+			return CompletableFutures.map(CompletableFutures.all(synonyms), synonymLists -> {
+				Map<IRI, Collection<IRI>> synonymsByIri = new HashMap<IRI, Collection<IRI>>();
+				for (int i = 0; i < iris.size(); i++) {
+					synonymsByIri.put(iris.get(i), synonymLists.get(i));
 				}
-				annotationSuggestions.add(annotationSuggestion);
+				filterWorseSynonyms(termsSuggestions, synonymsByIri);
+				return termsSuggestions;
+			});
+		};
+		// labels the filtered annotations
+		Function<Map<String, Map<IRI, Double>>, CompletableFuture<Object>> label = termsSuggestions -> {
+			List<IRI> iris = iris(termsSuggestions);
+			List<CompletableFuture<Collection<String>>> labels = new ArrayList<CompletableFuture<Collection<String>>>();
+			for (IRI iri : iris) {
+				labels.add(semanticDataSource.getLabelsAsync(iri, executor));
 			}
+			return CompletableFutures.map(CompletableFutures.all(labels), labelLists -> {
+				Map<IRI, String> labelByIri = new HashMap<IRI, String>();
+				for (int i = 0; i < iris.size(); i++) {
+					Collection<String> iriLabels = labelLists.get(i);
+					labelByIri.put(iris.get(i),
+							iriLabels.isEmpty() ? iris.get(i).getIRIString() : iriLabels.iterator().next());
+				}
+				return annotationSuggestions(termsSuggestions, labelByIri::get);
+			});
+		};
+
+		return ServiceWorker.timed(environment, this, () -> {
+			CompletableFuture<Map<String, Map<IRI, Double>>> proposed = annotator
+					.proposeAnnotationsAsync(((SuggestRequest) input).text, ((SuggestRequest) input).scopes, executor);
+			CompletableFuture<Object> suggestions = CompletableFutures.compose(
+					CompletableFutures.compose(proposed, Deadline.wrap(filter)), Deadline.wrap(label));
+			return CompletableFutures.handle(suggestions, (content, e) -> {
+				if (e != null) {
+					if (e instanceof CompletionException && e.getCause() != null) {
+						e = e.getCause();
+					}
+					if (e instanceof AnnotatorException) {
+						throw new CompletionException(new ServiceWorkerException(500, e));
+					} else if (e instanceof SemanticDataSourceException) {
+						throw new CompletionException(
+								new ServiceWorkerException("Failed to get a label of an annotation.", 500, e));
+					}
+					throw (e instanceof CompletionException) ? (CompletionException) e : new CompletionException(e);
+				}
+				return content;
+			});
+		});
+	}
 
-			return annotationSuggestions;
+	/**
+	 * @param termsSuggestions
+	 * @return the distinct {@link IRI}s of the given suggestions
+	 */
+	private static List<IRI> iris(Map<String, Map<IRI, Double>> termsSuggestions) {
+		Set<IRI> iris = new LinkedHashSet<IRI>();
+		for (Map<IRI, Double> termSuggestions : termsSuggestions.values()) {
+			iris.addAll(termSuggestions.keySet());
+		}
+		return new ArrayList<IRI>(iris);
+	}
 
-		} catch (SemanticDataSourceException e) {
-			throw new ServiceWorkerException("Failed to get a label of an annotation.", 500, e);
-		} catch (AnnotatorException e) {
-			throw new ServiceWorkerException(500, e);
+	private static List<AnnotationSuggestion> annotationSuggestions(Map<String, Map<IRI, Double>> termsSuggestions,
+			Function<IRI, String> labels) {
+		List<AnnotationSuggestion> annotationSuggestions = new ArrayList<AnnotationSuggestion>();
+		for (Entry<String, Map<IRI, Double>> termSuggestions : termsSuggestions.entrySet()) {
+			AnnotationSuggestion annotationSuggestion = new AnnotationSuggestion();
+			annotationSuggestion.term = termSuggestions.getKey();
+			annotationSuggestion.annotations = new ArrayList<Annotation>();
+			for (Entry<IRI, Double> termSuggestion : termSuggestions.getValue().entrySet()) {
+				IRI iri = termSuggestion.getKey();
+				annotationSuggestion.annotations
+						.add(new Annotation(iri, termSuggestion.getValue(), labels.apply(iri)));
+			}
+			annotationSuggestions.add(annotationSuggestion);
 		}
+		return annotationSuggestions;
+	}
+
+	@Override
+	public String cacheKey(Object input) {
+		return CacheableServiceWorker.scopesKey(((SuggestRequest) input).scopes) + "\n"
+				+ ((SuggestRequest) input).text;
+	}
+
+	@Override
+	public String cacheVersion(Environment environment) {
+		return Long.toString(environment.getAdapterVersion().get());
 	}
 
 }
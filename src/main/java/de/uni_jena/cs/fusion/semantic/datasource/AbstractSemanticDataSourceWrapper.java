@@ -20,6 +20,8 @@ package de.uni_jena.cs.fusion.semantic.datasource;
  * #L%
  */
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.net.URL;
 import java.util.Collection;
 import java.util.List;
@@ -40,13 +42,26 @@ import org.semanticweb.owlapi.model.IRI;
  * @since 0.1.2
  *
  */
-public abstract class AbstractSemanticDataSourceWrapper implements SemanticDataSource {
+public abstract class AbstractSemanticDataSourceWrapper implements SemanticDataSource, Closeable {
 
 	/**
 	 * The wrapped {@link SemanticDataSource}.
 	 */
 	private SemanticDataSource semanticDataSource;
 
+	/**
+	 * Closes the wrapped {@link SemanticDataSource}, if it is
+	 * {@link Closeable}.
+	 * 
+	 * @since 0.3.9
+	 */
+	@Override
+	public void close() throws IOException {
+		if (semanticDataSource instanceof Closeable) {
+			((Closeable) semanticDataSource).close();
+		}
+	}
+
 	@Override
 	public Collection<IRI> getAllBroaders(IRI iri) throws SemanticDataSourceException {
 		return semanticDataSource.getAllBroaders(iri);
@@ -28,9 +28,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.semanticweb.owlapi.model.IRI;
 
+import de.uni_jena.cs.fusion.util.concurrent.CompletableFutures;
+
 /**
  * <p>
  * A {@link SemanticDataSource} provides semantic concepts from some kind of
@@ -44,6 +48,14 @@ import org.semanticweb.owlapi.model.IRI;
  * A {@link SemanticDataSource} might also provide further data. This must by
  * indicated be the respective {@code providing*()} method.
  * </p>
+ * <p>
+ * Some methods have an asynchronous variant returning a
+ * {@link CompletableFuture}. By default, these execute the synchronous method
+ * with the given {@link Executor}. Implementations sending requests to remote
+ * services may override them to not block a thread while waiting. Failures
+ * complete the futures exceptionally, cancelling the futures cancels the
+ * requests.
+ * </p>
  * 
  * @author Jan Martin Keil
  * @since 0.1
@@ -239,6 +251,21 @@ public interface SemanticDataSource {
 		throw new UnsupportedOperationException();
 	};
 
+	/**
+	 * Asynchronous variant of {@link #getDescriptions(IRI)}.
+	 * 
+	 * @param iri
+	 *            {@link IRI} of the concept
+	 * @param executor
+	 *            {@link Executor} to execute blocking calls with
+	 * @return future of the result of {@link #getDescriptions(IRI)}
+	 * 
+	 * @since 0.3.9
+	 */
+	default CompletableFuture<Collection<String>> getDescriptionsAsync(IRI iri, Executor executor) {
+		return CompletableFutures.supply(() -> getDescriptions(iri), executor);
+	}
+
 	/**
 	 * <p>
 	 * Returns an {@link Optional} containing one label of the given concept, if
@@ -286,6 +313,21 @@ public interface SemanticDataSource {
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * Asynchronous variant of {@link #getLabels(IRI)}.
+	 * 
+	 * @param iri
+	 *            {@link IRI} of the concept
+	 * @param executor
+	 *            {@link Executor} to execute blocking calls with
+	 * @return future of the result of {@link #getLabels(IRI)}
+	 * 
+	 * @since 0.3.9
+	 */
+	default CompletableFuture<Collection<String>> getLabelsAsync(IRI iri, Executor executor) {
+		return CompletableFutures.supply(() -> getLabels(iri), executor);
+	}
+
 	/**
 	 * <p>
 	 * Matches a given {@link Collection} of terms with the concepts of this
@@ -355,6 +397,25 @@ public interface SemanticDataSource {
 		return results;
 	}
 
+	/**
+	 * Asynchronous variant of {@link #getMatches(Collection, Collection)}.
+	 * 
+	 * @param terms
+	 *            {@link Collection} of terms to match
+	 * @param scopes
+	 *            {@link Collection} of scopes
+	 * @param executor
+	 *            {@link Executor} to execute blocking calls with
+	 * @return future of the result of
+	 *         {@link #getMatches(Collection, Collection)}
+	 * 
+	 * @since 0.3.9
+	 */
+	default CompletableFuture<Map<String, Map<IRI, Double>>> getMatchesAsync(Collection<String> terms,
+			Collection<IRI> scopes, Executor executor) {
+		return CompletableFutures.supply(() -> getMatches(terms, scopes), executor);
+	}
+
 	/**
 	 * <p>
 	 * Matches a given term with the concepts of this
@@ -546,6 +607,25 @@ public interface SemanticDataSource {
 		return results;
 	}
 
+	/**
+	 * Asynchronous variant of {@link #getSuggestions(Collection, Collection)}.
+	 * 
+	 * @param stumps
+	 *            {@link Collection} of term stumps to complete
+	 * @param scopes
+	 *            {@link Collection} of scopes
+	 * @param executor
+	 *            {@link Executor} to execute blocking calls with
+	 * @return future of the result of
+	 *         {@link #getSuggestions(Collection, Collection)}
+	 * 
+	 * @since 0.3.9
+	 */
+	default CompletableFuture<Map<String, Map<IRI, String>>> getSuggestionsAsync(Collection<String> stumps,
+			Collection<IRI> scopes, Executor executor) {
+		return CompletableFutures.supply(() -> getSuggestions(stumps, scopes), executor);
+	}
+
 	/**
 	 * <p>
 	 * Suggest completions for a given term stump based on the concepts of this
@@ -619,6 +699,21 @@ public interface SemanticDataSource {
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * Asynchronous variant of {@link #getSynonyms(IRI)}.
+	 * 
+	 * @param iri
+	 *            {@link IRI} of the concept
+	 * @param executor
+	 *            {@link Executor} to execute blocking calls with
+	 * @return future of the result of {@link #getSynonyms(IRI)}
+	 * 
+	 * @since 0.3.9
+	 */
+	default CompletableFuture<Collection<IRI>> getSynonymsAsync(IRI iri, Executor executor) {
+		return CompletableFutures.supply(() -> getSynonyms(iri), executor);
+	}
+
 	/**
 	 * Returns a unique identifier of the {@link SemanticDataSource}s. The
 	 * method {@link #getDataUID} will be utilize to distinguish
@@ -20,18 +20,26 @@ package de.uni_jena.cs.fusion.semantic.datasource;
  * #L%
  */
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -48,8 +56,11 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 
+import de.uni_jena.cs.fusion.util.concurrent.CompletableFutures;
+import de.uni_jena.cs.fusion.util.deadline.Deadline;
 import de.uni_jena.cs.fusion.util.maintainer.Maintainable;
 import de.uni_jena.cs.fusion.util.maintainer.MaintenanceException;
+import de.uni_jena.cs.fusion.util.profiler.Profile;
 
 /**
  * <p>
@@ -70,7 +81,17 @@ import de.uni_jena.cs.fusion.util.maintainer.MaintenanceException;
  * 
  * <p>
  * If a <b>multithreaded</b> {@link ExecutorService} is provided the gathered
- * {@link SemanticDataSource}s will be called parallel.
+ * {@link SemanticDataSource}s will be called parallel. Labels, descriptions and
+ * synonyms are requested with the asynchronous methods of the
+ * {@link SemanticDataSource}s, which do not occupy a thread of the
+ * {@link ExecutorService} while waiting for remote services.
+ * </p>
+ * 
+ * <p>
+ * The asynchronous methods of this manager call the adapters like the
+ * synchronous methods, but return a future of the combined results instead of
+ * waiting for them. They call the adapters with the {@link ExecutorService} of
+ * this manager instead of the given {@link Executor}.
  * </p>
  * 
  * <p>
@@ -82,7 +103,7 @@ import de.uni_jena.cs.fusion.util.maintainer.MaintenanceException;
  * @since 0.1
  *
  */
-public final class SemanticDataSourceManager implements Maintainable, SemanticDataSource {
+public final class SemanticDataSourceManager implements Maintainable, SemanticDataSource, Closeable {
 
 	static final Logger log = LoggerFactory.getLogger(SemanticDataSourceManager.class);
 	private final Set<SemanticDataSource> adapters = new HashSet<SemanticDataSource>();
@@ -99,24 +120,75 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 		this.executor = executor;
 	}
 
+	/**
+	 * Waits for the result of the given {@link Future}. If a {@link Deadline} is
+	 * active and the result is not available until the deadline, the adapter will
+	 * be recorded as skipped. The future does not get canceled in this case to
+	 * allow the adapter to fill its cache for later requests. If the current
+	 * thread gets interrupted, the future will be canceled.
+	 * 
+	 * @param future
+	 * @param adapter
+	 *            the adapter providing the result
+	 * @return the result of the given {@link Future}
+	 * @throws TimeoutException
+	 *             if the deadline has been missed
+	 * @throws ExecutionException
+	 *             if the call failed
+	 * @throws SemanticDataSourceException
+	 *             if the current thread has been interrupted
+	 * 
+	 * @since 0.3.9
+	 */
+	private static <T> T await(Future<T> future, SemanticDataSource adapter, String callDescription)
+			throws TimeoutException, ExecutionException, SemanticDataSourceException {
+		Deadline deadline = Deadline.current();
+		try {
+			if (deadline != null) {
+				return future.get(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+			} else {
+				return future.get();
+			}
+		} catch (TimeoutException e) {
+			log.debug("Deadline missed by " + name(adapter) + " for " + callDescription + ".");
+			deadline.skip(name(adapter));
+			throw e;
+		} catch (InterruptedException e) {
+			// keep interrupt status to cancel the remaining calls
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+			throw new SemanticDataSourceException("Interrupted while waiting for " + callDescription + ".", e);
+		}
+	}
+
 	/**
 	 * Returns the result of the given {@link Future}. If an
 	 * {@link SemanticDataSourceException} occurred during the execution, the
 	 * exception will be logged and the {@code other} value will be returned. If any
 	 * other kind of exceptions occurred, an {@link SemanticDataSourceException}
-	 * will be thrown.
+	 * will be thrown. If a {@link Deadline} is active and the result is not
+	 * available until the deadline, the adapter will be recorded as skipped and the
+	 * {@code other} value will be returned.
 	 * 
 	 * @param future
+	 * @param adapter
+	 *            the adapter providing the result
 	 * @param other
 	 * @return the result of the given {@link Future}
 	 * @throws SemanticDataSourceException
 	 */
-	private static Boolean ensureBoolean(Future<Boolean> future, Boolean other) throws SemanticDataSourceException {
+	private static Boolean ensureBoolean(Future<Boolean> future, SemanticDataSource adapter, String callDescription,
+			Boolean other) throws SemanticDataSourceException {
 		try {
-			return future.get();
+			return await(future, adapter, callDescription);
+		} catch (TimeoutException e) {
+			return other;
 		} catch (ExecutionException e) {
-			log.warn("Execution Error, continue processing using other result:", e.getCause());
+			log.warn("Execution Error for " + callDescription + ". Continue processing using other result:",
+					e.getCause());
 			return other;
+		} catch (SemanticDataSourceException e) {
+			throw e;
 		} catch (Throwable e) {
 			throw new SemanticDataSourceException(e);
 		}
@@ -125,16 +197,23 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 	/**
 	 * Returns the result of the given {@link Future}. If an
 	 * {@link ExecutionException} occurred during the execution or the result was
-	 * {@code null}, this will be logged and an empty result will be returned.
+	 * {@code null}, this will be logged and an empty result will be returned. If a
+	 * {@link Deadline} is active and the result is not available until the
+	 * deadline, the adapter will be recorded as skipped and an empty result will be
+	 * returned.
 	 * 
 	 * @param future
+	 * @param adapter
+	 *            the adapter providing the result
 	 * @return the result of the given {@link Future}
 	 * @throws SemanticDataSourceException
 	 */
-	private static <T> Collection<T> ensureCollection(Future<Collection<T>> future, String callDescription)
-			throws SemanticDataSourceException {
+	private static <T> Collection<T> ensureCollection(Future<Collection<T>> future, SemanticDataSource adapter,
+			String callDescription) throws SemanticDataSourceException {
 		try {
-			return Objects.requireNonNull(future.get());
+			return Objects.requireNonNull(await(future, adapter, callDescription));
+		} catch (TimeoutException e) {
+			return Collections.emptyList();
 		} catch (ExecutionException e) {
 			log.warn("Execution Error for " + callDescription + ". Continue processing using empty result:",
 					e.getCause());
@@ -143,6 +222,8 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 			log.warn("SemanticDataSource returned null for " + callDescription
 					+ ". Continue processing using empty result.");
 			return Collections.emptyList();
+		} catch (SemanticDataSourceException e) {
+			throw e;
 		} catch (Throwable e) {
 			throw new SemanticDataSourceException(e);
 		}
@@ -153,16 +234,22 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 	 * {@link SemanticDataSourceException} occurred during the execution, the
 	 * exception will be logged and an empty result will be returned. If any other
 	 * kind of exceptions occurred, an {@link SemanticDataSourceException} will be
-	 * thrown.
+	 * thrown. If a {@link Deadline} is active and the result is not available
+	 * until the deadline, the adapter will be recorded as skipped and an empty
+	 * result will be returned.
 	 * 
 	 * @param future
+	 * @param adapter
+	 *            the adapter providing the result
 	 * @return the result of the given {@link Future}
 	 * @throws SemanticDataSourceException
 	 */
-	private static <S, T> Map<S, T> ensureMap(Future<Map<S, T>> future, String callDescription)
-			throws SemanticDataSourceException {
+	private static <S, T> Map<S, T> ensureMap(Future<Map<S, T>> future, SemanticDataSource adapter,
+			String callDescription) throws SemanticDataSourceException {
 		try {
-			return Objects.requireNonNull(future.get());
+			return Objects.requireNonNull(await(future, adapter, callDescription));
+		} catch (TimeoutException e) {
+			return Collections.emptyMap();
 		} catch (ExecutionException e) {
 			log.warn("Execution Error for " + callDescription + ". Continue processing using empty result:",
 					e.getCause());
@@ -171,11 +258,114 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 			log.warn("SemanticDataSource returned null for " + callDescription
 					+ ". Continue processing using empty result.");
 			return Collections.emptyMap();
+		} catch (SemanticDataSourceException e) {
+			throw e;
 		} catch (Throwable e) {
 			throw new SemanticDataSourceException(e);
 		}
 	}
 
+	/**
+	 * Asynchronous variant of {@link #ensureCollection} and {@link #ensureMap}:
+	 * Returns a future of the result of the given future. If the adapter
+	 * failed or returned {@code null}, this will be logged and the
+	 * {@code other} value will be returned. If a {@link Deadline} is active in
+	 * the current thread and the result is not available until the deadline,
+	 * the adapter will be recorded as skipped and the {@code other} value will
+	 * be returned. Cancelling the returned future cancels the given future.
+	 * 
+	 * @param future
+	 * @param adapter
+	 *            the adapter providing the result
+	 * @param other
+	 * @return future of the result of the given future
+	 * 
+	 * @since 0.3.9
+	 */
+	private static <T> CompletableFuture<T> ensureAsync(CompletableFuture<T> future, SemanticDataSource adapter,
+			String callDescription, T other) {
+		Deadline deadline = Deadline.current();
+		if (deadline != null) {
+			// like await, the deadline does not cancel to allow caching
+			future = CompletableFutures.within(future, deadline.remaining(TimeUnit.NANOSECONDS),
+					TimeUnit.NANOSECONDS);
+		}
+		return CompletableFutures.handle(future, (result, e) -> {
+			Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+			if (cause instanceof TimeoutException) {
+				log.debug("Deadline missed by " + name(adapter) + " for " + callDescription + ".");
+				deadline.skip(name(adapter));
+				return other;
+			} else if (cause instanceof CancellationException) {
+				return other;
+			} else if (cause != null) {
+				log.warn("Execution Error for " + callDescription + ". Continue processing using other result:",
+						cause);
+				return other;
+			} else if (result == null) {
+				log.warn("SemanticDataSource returned null for " + callDescription
+						+ ". Continue processing using other result.");
+				return other;
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * @param futures
+	 *            futures of the results of the adapters
+	 * @return future of the union of the results
+	 * 
+	 * @since 0.3.9
+	 */
+	private static <T> CompletableFuture<Collection<T>> unionAsync(List<CompletableFuture<Collection<T>>> futures) {
+		return CompletableFutures.map(CompletableFutures.all(futures), results -> {
+			Set<T> union = new HashSet<T>();
+			for (Collection<T> result : results) {
+				union.addAll(result);
+			}
+			return union;
+		});
+	}
+
+	/**
+	 * @param futures
+	 *            futures of the results of the adapters
+	 * @return future of the merged results per key
+	 * 
+	 * @since 0.3.9
+	 */
+	private static <V> CompletableFuture<Map<String, Map<IRI, V>>> mergeAsync(
+			List<CompletableFuture<Map<String, Map<IRI, V>>>> futures) {
+		return CompletableFutures.map(CompletableFutures.all(futures), results -> {
+			Map<String, Map<IRI, V>> merged = new HashMap<String, Map<IRI, V>>();
+			for (Map<String, Map<IRI, V>> result : results) {
+				for (String key : result.keySet()) {
+					merged.putIfAbsent(key, new HashMap<IRI, V>());
+					merged.get(key).putAll(result.get(key));
+				}
+			}
+			return merged;
+		});
+	}
+
+	/**
+	 * Cancels the given futures, if the current thread has been interrupted, to
+	 * release the adapters from the abandoned calls.
+	 * 
+	 * @param futures
+	 *            futures of the calls
+	 * 
+	 * @since 0.3.9
+	 */
+	private static void cancelIfInterrupted(Collection<? extends Future<?>> futures) {
+		if (Thread.currentThread().isInterrupted()) {
+			for (Future<?> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
 	private void logScheduleError(Throwable e) {
 		log.error("Scheduling Error, continue scheduling scipping current SemanticDataSource:", e.getCause());
 	}
@@ -484,88 +674,131 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 
 	@Override
 	public Collection<String> getAlternativeLabels(IRI iri) throws SemanticDataSourceException {
-		Collection<Future<Collection<String>>> futures = new ArrayList<Future<Collection<String>>>();
+		Map<Future<Collection<String>>, SemanticDataSource> futures = new LinkedHashMap<Future<Collection<String>>, SemanticDataSource>();
 		for (SemanticDataSource adapter : this.adapters) {
 			try {
 				if (adapter.providingAlternativeLabels() && adapter.hasSuitableNamespace(iri)) {
-					futures.add(this.executor.submit(() -> {
+					futures.put(this.executor.submit(() -> {
 						return adapter.getAlternativeLabels(iri);
-					}));
+					}), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
 		Set<String> results = new HashSet<String>();
-		for (Future<Collection<String>> future : futures) {
-			results.addAll(ensureCollection(future, "getAlternativeLabels(\"" + iri + "\")"));
+		for (Entry<Future<Collection<String>>, SemanticDataSource> future : futures.entrySet()) {
+			results.addAll(ensureCollection(future.getKey(), future.getValue(), "getAlternativeLabels(\"" + iri + "\")"));
 		}
 		return results;
 	}
 
 	@Override
 	public Collection<IRI> getBroaders(IRI iri) throws SemanticDataSourceException {
-		Collection<Future<Collection<IRI>>> futures = new ArrayList<Future<Collection<IRI>>>();
+		Map<Future<Collection<IRI>>, SemanticDataSource> futures = new LinkedHashMap<Future<Collection<IRI>>, SemanticDataSource>();
 		for (SemanticDataSource adapter : this.adapters) {
 			try {
 				if (adapter.providingBroaders() && adapter.hasSuitableNamespace(iri)) {
-					futures.add(this.executor.submit(() -> {
+					futures.put(this.executor.submit(() -> {
 						return adapter.getBroaders(iri);
-					}));
+					}), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
 		Set<IRI> results = new HashSet<IRI>();
-		for (Future<Collection<IRI>> future : futures) {
-			results.addAll(ensureCollection(future, "getBroaders(\"" + iri + "\")"));
+		for (Entry<Future<Collection<IRI>>, SemanticDataSource> future : futures.entrySet()) {
+			results.addAll(ensureCollection(future.getKey(), future.getValue(), "getBroaders(\"" + iri + "\")"));
 		}
 		return results;
 	}
 
 	@Override
 	public Collection<String> getDescriptions(IRI iri) throws SemanticDataSourceException {
-		Collection<Future<Collection<String>>> futures = new ArrayList<Future<Collection<String>>>();
+		Map<Future<Collection<String>>, SemanticDataSource> futures = new LinkedHashMap<Future<Collection<String>>, SemanticDataSource>();
 		for (SemanticDataSource adapter : this.adapters) {
 			try {
 				if (adapter.providingDescriptions() && adapter.hasSuitableNamespace(iri)) {
-					futures.add(this.executor.submit(() -> {
-						return adapter.getDescriptions(iri);
-					}));
+					futures.put(adapter.getDescriptionsAsync(iri, this.executor), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
 		Set<String> results = new HashSet<String>();
-		for (Future<Collection<String>> future : futures) {
-			results.addAll(ensureCollection(future, "getDescriptions(\"" + iri + "\")"));
+		try {
+			for (Entry<Future<Collection<String>>, SemanticDataSource> future : futures.entrySet()) {
+				results.addAll(
+						ensureCollection(future.getKey(), future.getValue(), "getDescriptions(\"" + iri + "\")"));
+			}
+		} finally {
+			cancelIfInterrupted(futures.keySet());
 		}
 		return results;
 	}
 
+	/**
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Collection<String>> getDescriptionsAsync(IRI iri, Executor executor) {
+		List<CompletableFuture<Collection<String>>> futures = new ArrayList<CompletableFuture<Collection<String>>>();
+		for (SemanticDataSource adapter : this.adapters) {
+			try {
+				if (adapter.providingDescriptions() && adapter.hasSuitableNamespace(iri)) {
+					futures.add(ensureAsync(adapter.getDescriptionsAsync(iri, this.executor), adapter,
+							"getDescriptions(\"" + iri + "\")", Collections.emptyList()));
+				}
+			} catch (Throwable e) {
+				logScheduleError(e);
+			}
+		}
+		return unionAsync(futures);
+	}
+
 	@Override
 	public Collection<String> getLabels(IRI iri) throws SemanticDataSourceException {
-		Collection<Future<Collection<String>>> futures = new ArrayList<Future<Collection<String>>>();
+		Map<Future<Collection<String>>, SemanticDataSource> futures = new LinkedHashMap<Future<Collection<String>>, SemanticDataSource>();
 		for (SemanticDataSource adapter : this.adapters) {
 			try {
 				if (adapter.providingLabels() && adapter.hasSuitableNamespace(iri)) {
-					futures.add(this.executor.submit(() -> {
-						return adapter.getLabels(iri);
-					}));
+					futures.put(adapter.getLabelsAsync(iri, this.executor), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
 		Set<String> results = new HashSet<String>();
-		for (Future<Collection<String>> future : futures) {
-			results.addAll(ensureCollection(future, "getLabels(\"" + iri + "\")"));
+		try {
+			for (Entry<Future<Collection<String>>, SemanticDataSource> future : futures.entrySet()) {
+				results.addAll(ensureCollection(future.getKey(), future.getValue(), "getLabels(\"" + iri + "\")"));
+			}
+		} finally {
+			cancelIfInterrupted(futures.keySet());
 		}
 		return results;
 	}
 
+	/**
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Collection<String>> getLabelsAsync(IRI iri, Executor executor) {
+		List<CompletableFuture<Collection<String>>> futures = new ArrayList<CompletableFuture<Collection<String>>>();
+		for (SemanticDataSource adapter : this.adapters) {
+			try {
+				if (adapter.providingLabels() && adapter.hasSuitableNamespace(iri)) {
+					futures.add(ensureAsync(adapter.getLabelsAsync(iri, this.executor), adapter,
+							"getLabels(\"" + iri + "\")", Collections.emptyList()));
+				}
+			} catch (Throwable e) {
+				logScheduleError(e);
+			}
+		}
+		return unionAsync(futures);
+	}
+
 	@Override
 	public Map<String, Map<IRI, Double>> getMatches(Collection<String> terms) throws SemanticDataSourceException {
 		return getMatchesSpecifiedAdapter(terms, this.adapters);
@@ -577,6 +810,28 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 		return getMatchesSpecifiedAdapter(terms, getRelevantAdapters(scopes));
 	}
 
+	/**
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Map<String, Map<IRI, Double>>> getMatchesAsync(Collection<String> terms,
+			Collection<IRI> scopes, Executor executor) {
+		List<CompletableFuture<Map<String, Map<IRI, Double>>>> futures = new ArrayList<CompletableFuture<Map<String, Map<IRI, Double>>>>();
+		for (SemanticDataSource adapter : getRelevantAdapters(scopes)) {
+			try {
+				if (adapter.providingMatch()) {
+					futures.add(ensureAsync(CompletableFutures.supply(Profile.wrap(() -> {
+						return adapter.getMatches(terms);
+					}, name(adapter) + ".getMatches"), this.executor), adapter,
+							"getMatchesSpecifiedAdapter(" + terms + ")", Collections.emptyMap()));
+				}
+			} catch (Throwable e) {
+				logScheduleError(e);
+			}
+		}
+		return mergeAsync(futures);
+	}
+
 	@Override
 	public Map<IRI, Double> getMatches(String term) throws SemanticDataSourceException {
 		return getMatchesSpecifiedAdapter(term, this.adapters);
@@ -600,21 +855,22 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 	 */
 	private Map<String, Map<IRI, Double>> getMatchesSpecifiedAdapter(Collection<String> terms,
 			Collection<SemanticDataSource> adapters) throws SemanticDataSourceException {
-		Collection<Future<Map<String, Map<IRI, Double>>>> futures = new ArrayList<Future<Map<String, Map<IRI, Double>>>>();
+		Map<Future<Map<String, Map<IRI, Double>>>, SemanticDataSource> futures = new LinkedHashMap<Future<Map<String, Map<IRI, Double>>>, SemanticDataSource>();
 		for (SemanticDataSource adapter : adapters) {
 			try {
 				if (adapter.providingMatch()) {
-					futures.add(this.executor.submit(() -> {
+					futures.put(this.executor.submit(Profile.wrap(() -> {
 						return adapter.getMatches(terms);
-					}));
+					}, name(adapter) + ".getMatches")), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
 		Map<String, Map<IRI, Double>> results = new HashMap<String, Map<IRI, Double>>();
-		for (Future<Map<String, Map<IRI, Double>>> future : futures) {
-			Map<String, Map<IRI, Double>> result = ensureMap(future, "getMatchesSpecifiedAdapter(" + terms + ")");
+		for (Entry<Future<Map<String, Map<IRI, Double>>>, SemanticDataSource> future : futures.entrySet()) {
+			Map<String, Map<IRI, Double>> result = ensureMap(future.getKey(), future.getValue(),
+					"getMatchesSpecifiedAdapter(" + terms + ")");
 			for (String key : result.keySet()) {
 				results.putIfAbsent(key, new HashMap<IRI, Double>());
 				results.get(key).putAll(result.get(key));
@@ -636,25 +892,42 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 	 */
 	private Map<IRI, Double> getMatchesSpecifiedAdapter(String term, Collection<SemanticDataSource> adapters)
 			throws SemanticDataSourceException {
-		Collection<Future<Map<IRI, Double>>> futures = new ArrayList<Future<Map<IRI, Double>>>();
+		Map<Future<Map<IRI, Double>>, SemanticDataSource> futures = new LinkedHashMap<Future<Map<IRI, Double>>, SemanticDataSource>();
 		for (SemanticDataSource adapter : adapters) {
 			try {
 				if (adapter.providingMatch()) {
-					futures.add(this.executor.submit(() -> {
+					futures.put(this.executor.submit(Profile.wrap(() -> {
 						return adapter.getMatches(term);
-					}));
+					}, name(adapter) + ".getMatches")), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
 		Map<IRI, Double> results = new HashMap<IRI, Double>();
-		for (Future<Map<IRI, Double>> future : futures) {
-			results.putAll(ensureMap(future, "getMatchesSpecifiedAdapter(\"" + term + "\")"));
+		for (Entry<Future<Map<IRI, Double>>, SemanticDataSource> future : futures.entrySet()) {
+			results.putAll(ensureMap(future.getKey(), future.getValue(),
+					"getMatchesSpecifiedAdapter(\"" + term + "\")"));
 		}
 		return results;
 	}
 
+	/**
+	 * Returns a readable name of an adapter including its wrapped adapters.
+	 * 
+	 * @param adapter
+	 *            the adapter to name
+	 * @return the name of the adapter
+	 */
+	private static String name(SemanticDataSource adapter) {
+		if (adapter instanceof AbstractSemanticDataSourceWrapper) {
+			return adapter.getClass().getSimpleName() + "("
+					+ name(((AbstractSemanticDataSourceWrapper) adapter).getWrapped()) + ")";
+		} else {
+			return adapter.getClass().getSimpleName();
+		}
+	}
+
 	@Override
 	public Collection<String> getNamespaces() throws SemanticDataSourceException {
 		return Collections.unmodifiableCollection(this.namespaces);
@@ -662,21 +935,21 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 
 	@Override
 	public Collection<IRI> getNarrowers(IRI iri) throws SemanticDataSourceException {
-		Collection<Future<Collection<IRI>>> futures = new ArrayList<Future<Collection<IRI>>>();
+		Map<Future<Collection<IRI>>, SemanticDataSource> futures = new LinkedHashMap<Future<Collection<IRI>>, SemanticDataSource>();
 		for (SemanticDataSource adapter : this.adapters) {
 			try {
 				if (adapter.providingNarrowers() && adapter.hasSuitableNamespace(iri)) {
-					futures.add(this.executor.submit(() -> {
+					futures.put(this.executor.submit(() -> {
 						return adapter.getNarrowers(iri);
-					}));
+					}), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
 		Set<IRI> results = new HashSet<IRI>();
-		for (Future<Collection<IRI>> future : futures) {
-			results.addAll(ensureCollection(future, "getNarrowers(\"" + iri + "\")"));
+		for (Entry<Future<Collection<IRI>>, SemanticDataSource> future : futures.entrySet()) {
+			results.addAll(ensureCollection(future.getKey(), future.getValue(), "getNarrowers(\"" + iri + "\")"));
 		}
 		return results;
 	}
@@ -698,21 +971,21 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 
 	@Override
 	public Collection<IRI> getReplacedBy(IRI iri) throws SemanticDataSourceException {
-		Collection<Future<Collection<IRI>>> futures = new ArrayList<Future<Collection<IRI>>>();
+		Map<Future<Collection<IRI>>, SemanticDataSource> futures = new LinkedHashMap<Future<Collection<IRI>>, SemanticDataSource>();
 		for (SemanticDataSource adapter : this.adapters) {
 			try {
 				if (adapter.providingDeprecation() && adapter.hasSuitableNamespace(iri)) {
-					futures.add(this.executor.submit(() -> {
+					futures.put(this.executor.submit(() -> {
 						return adapter.getReplacedBy(iri);
-					}));
+					}), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
 		Set<IRI> results = new HashSet<IRI>();
-		for (Future<Collection<IRI>> future : futures) {
-			results.addAll(ensureCollection(future, "getReplacedBy(\"" + iri + "\")"));
+		for (Entry<Future<Collection<IRI>>, SemanticDataSource> future : futures.entrySet()) {
+			results.addAll(ensureCollection(future.getKey(), future.getValue(), "getReplacedBy(\"" + iri + "\")"));
 		}
 		return results;
 	}
@@ -724,21 +997,21 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 
 	@Override
 	public Collection<IRI> getSignature() throws SemanticDataSourceException {
-		Collection<Future<Collection<IRI>>> futures = new ArrayList<Future<Collection<IRI>>>();
+		Map<Future<Collection<IRI>>, SemanticDataSource> futures = new LinkedHashMap<Future<Collection<IRI>>, SemanticDataSource>();
 		for (SemanticDataSource adapter : this.adapters) {
 			try {
 				if (adapter.providingSignature()) {
-					futures.add(this.executor.submit(() -> {
+					futures.put(this.executor.submit(() -> {
 						return adapter.getSignature();
-					}));
+					}), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
 		Set<IRI> results = new HashSet<IRI>();
-		for (Future<Collection<IRI>> future : futures) {
-			results.addAll(ensureCollection(future, "getSignature()"));
+		for (Entry<Future<Collection<IRI>>, SemanticDataSource> future : futures.entrySet()) {
+			results.addAll(ensureCollection(future.getKey(), future.getValue(), "getSignature()"));
 		}
 		return results;
 	}
@@ -754,6 +1027,28 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 		return getSuggestionsSpecifiedAdapter(stumps, getRelevantAdapters(scopes));
 	}
 
+	/**
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Map<String, Map<IRI, String>>> getSuggestionsAsync(Collection<String> stumps,
+			Collection<IRI> scopes, Executor executor) {
+		List<CompletableFuture<Map<String, Map<IRI, String>>>> futures = new ArrayList<CompletableFuture<Map<String, Map<IRI, String>>>>();
+		for (SemanticDataSource adapter : getRelevantAdapters(scopes)) {
+			try {
+				if (adapter.providingSuggest()) {
+					futures.add(ensureAsync(CompletableFutures.supply(() -> {
+						return adapter.getSuggestions(stumps);
+					}, this.executor), adapter, "getSuggestionsSpecifiedAdapter(" + stumps + ")",
+							Collections.emptyMap()));
+				}
+			} catch (Throwable e) {
+				logScheduleError(e);
+			}
+		}
+		return mergeAsync(futures);
+	}
+
 	@Override
 	public Map<IRI, String> getSuggestions(String stump) throws SemanticDataSourceException {
 		return getSuggestionsSpecifiedAdapter(stump, this.adapters);
@@ -778,25 +1073,30 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 	 */
 	private Map<String, Map<IRI, String>> getSuggestionsSpecifiedAdapter(Collection<String> stumps,
 			Collection<SemanticDataSource> adapters) throws SemanticDataSourceException {
-		Collection<Future<Map<String, Map<IRI, String>>>> futures = new ArrayList<Future<Map<String, Map<IRI, String>>>>();
+		Map<Future<Map<String, Map<IRI, String>>>, SemanticDataSource> futures = new LinkedHashMap<Future<Map<String, Map<IRI, String>>>, SemanticDataSource>();
 		for (SemanticDataSource adapter : adapters) {
 			try {
 				if (adapter.providingSuggest()) {
-					futures.add(this.executor.submit(() -> {
+					futures.put(this.executor.submit(() -> {
 						return adapter.getSuggestions(stumps);
-					}));
+					}), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
 		Map<String, Map<IRI, String>> results = new HashMap<String, Map<IRI, String>>();
-		for (Future<Map<String, Map<IRI, String>>> future : futures) {
-			Map<String, Map<IRI, String>> result = ensureMap(future, "getSuggestionsSpecifiedAdapter(" + stumps + ")");
-			for (String key : result.keySet()) {
-				results.putIfAbsent(key, new HashMap<IRI, String>());
-				results.get(key).putAll(result.get(key));
+		try {
+			for (Entry<Future<Map<String, Map<IRI, String>>>, SemanticDataSource> future : futures.entrySet()) {
+				Map<String, Map<IRI, String>> result = ensureMap(future.getKey(), future.getValue(),
+						"getSuggestionsSpecifiedAdapter(" + stumps + ")");
+				for (String key : result.keySet()) {
+					results.putIfAbsent(key, new HashMap<IRI, String>());
+					results.get(key).putAll(result.get(key));
+				}
 			}
+		} finally {
+			cancelIfInterrupted(futures.keySet());
 		}
 		return results;
 	}
@@ -815,63 +1115,89 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 	 */
 	private Map<IRI, String> getSuggestionsSpecifiedAdapter(String stump, Collection<SemanticDataSource> adapters)
 			throws SemanticDataSourceException {
-		Collection<Future<Map<IRI, String>>> futures = new ArrayList<Future<Map<IRI, String>>>();
+		Map<Future<Map<IRI, String>>, SemanticDataSource> futures = new LinkedHashMap<Future<Map<IRI, String>>, SemanticDataSource>();
 		for (SemanticDataSource adapter : adapters) {
 			try {
 				if (adapter.providingSuggest()) {
-					futures.add(this.executor.submit(() -> {
+					futures.put(this.executor.submit(() -> {
 						return adapter.getSuggestions(stump);
-					}));
+					}), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
 		Map<IRI, String> results = new HashMap<IRI, String>();
-		for (Future<Map<IRI, String>> future : futures) {
-			results.putAll(ensureMap(future, "getSuggestionsSpecifiedAdapter(\"" + stump + "\")"));
+		try {
+			for (Entry<Future<Map<IRI, String>>, SemanticDataSource> future : futures.entrySet()) {
+				results.putAll(ensureMap(future.getKey(), future.getValue(),
+						"getSuggestionsSpecifiedAdapter(\"" + stump + "\")"));
+			}
+		} finally {
+			cancelIfInterrupted(futures.keySet());
 		}
 		return results;
 	}
 
 	@Override
 	public Collection<IRI> getSynonyms(IRI iri) throws SemanticDataSourceException {
-		Collection<Future<Collection<IRI>>> futures = new ArrayList<Future<Collection<IRI>>>();
+		Map<Future<Collection<IRI>>, SemanticDataSource> futures = new LinkedHashMap<Future<Collection<IRI>>, SemanticDataSource>();
 		for (SemanticDataSource adapter : this.adapters) {
 			try {
 				if (adapter.providingSynonyms() && adapter.hasSuitableNamespace(iri)) {
-					futures.add(this.executor.submit(() -> {
-						return adapter.getSynonyms(iri);
-					}));
+					futures.put(adapter.getSynonymsAsync(iri, this.executor), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
 		Set<IRI> results = new HashSet<IRI>();
-		for (Future<Collection<IRI>> future : futures) {
-			results.addAll(ensureCollection(future, "getSynonyms(\"" + iri + "\")"));
+		try {
+			for (Entry<Future<Collection<IRI>>, SemanticDataSource> future : futures.entrySet()) {
+				results.addAll(ensureCollection(future.getKey(), future.getValue(), "getSynonyms(\"" + iri + "\")"));
+			}
+		} finally {
+			cancelIfInterrupted(futures.keySet());
 		}
 		return results;
 	}
 
+	/**
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Collection<IRI>> getSynonymsAsync(IRI iri, Executor executor) {
+		List<CompletableFuture<Collection<IRI>>> futures = new ArrayList<CompletableFuture<Collection<IRI>>>();
+		for (SemanticDataSource adapter : this.adapters) {
+			try {
+				if (adapter.providingSynonyms() && adapter.hasSuitableNamespace(iri)) {
+					futures.add(ensureAsync(adapter.getSynonymsAsync(iri, this.executor), adapter,
+							"getSynonyms(\"" + iri + "\")", Collections.emptyList()));
+				}
+			} catch (Throwable e) {
+				logScheduleError(e);
+			}
+		}
+		return unionAsync(futures);
+	}
+
 	@Override
 	public List<URL> getUrls(IRI iri) throws SemanticDataSourceException {
-		Collection<Future<Collection<URL>>> futures = new ArrayList<Future<Collection<URL>>>();
+		Map<Future<Collection<URL>>, SemanticDataSource> futures = new LinkedHashMap<Future<Collection<URL>>, SemanticDataSource>();
 		for (SemanticDataSource adapter : this.adapters) {
 			try {
 				if (adapter.providingURLs() && adapter.hasSuitableNamespace(iri)) {
-					futures.add(this.executor.submit(() -> {
+					futures.put(this.executor.submit(() -> {
 						return adapter.getUrls(iri);
-					}));
+					}), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
 		List<URL> results = new ArrayList<URL>();
-		for (Future<Collection<URL>> future : futures) {
-			results.addAll(ensureCollection(future, "getUrls(\"" + iri + "\")"));
+		for (Entry<Future<Collection<URL>>, SemanticDataSource> future : futures.entrySet()) {
+			results.addAll(ensureCollection(future.getKey(), future.getValue(), "getUrls(\"" + iri + "\")"));
 		}
 		return results;
 	}
@@ -879,20 +1205,20 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 	@Override
 	public boolean isDeprecated(IRI iri) throws SemanticDataSourceException {
 		// TODO improve parallel execution (do not wait for falses)
-		Collection<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+		Map<Future<Boolean>, SemanticDataSource> futures = new LinkedHashMap<Future<Boolean>, SemanticDataSource>();
 		for (SemanticDataSource adapter : this.adapters) {
 			try {
 				if (adapter.providingDeprecation() && adapter.hasSuitableNamespace(iri)) {
-					futures.add(this.executor.submit(() -> {
+					futures.put(this.executor.submit(() -> {
 						return adapter.isDeprecated(iri);
-					}));
+					}), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
-		for (Future<Boolean> future : futures) {
-			if (ensureBoolean(future, false)) {
+		for (Entry<Future<Boolean>, SemanticDataSource> future : futures.entrySet()) {
+			if (ensureBoolean(future.getKey(), future.getValue(), "isDeprecated(\"" + iri + "\")", false)) {
 				return true;
 			}
 		}
@@ -902,26 +1228,45 @@ public final class SemanticDataSourceManager implements Maintainable, SemanticDa
 	@Override
 	public boolean isPresent(IRI iri) throws SemanticDataSourceException {
 		// TODO improve parallel execution (do not wait for falses)
-		Collection<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+		Map<Future<Boolean>, SemanticDataSource> futures = new LinkedHashMap<Future<Boolean>, SemanticDataSource>();
 		for (SemanticDataSource adapter : this.adapters) {
 			try {
 				if (adapter.hasSuitableNamespace(iri)) {
-					futures.add(this.executor.submit(() -> {
+					futures.put(this.executor.submit(() -> {
 						return adapter.isPresent(iri);
-					}));
+					}), adapter);
 				}
 			} catch (Throwable e) {
 				logScheduleError(e);
 			}
 		}
-		for (Future<Boolean> future : futures) {
-			if (ensureBoolean(future, false)) {
+		for (Entry<Future<Boolean>, SemanticDataSource> future : futures.entrySet()) {
+			if (ensureBoolean(future.getKey(), future.getValue(), "isPresent(\"" + iri + "\")", false)) {
 				return true;
 			}
 		}
 		return false;
 	}
 
+	/**
+	 * Closes all registered {@link Closeable} adapters to release their
+	 * connections and threads.
+	 * 
+	 * @since 0.3.9
+	 */
+	@Override
+	public void close() {
+		for (SemanticDataSource adapter : this.adapters) {
+			if (adapter instanceof Closeable) {
+				try {
+					((Closeable) adapter).close();
+				} catch (IOException e) {
+					log.warn("Failed to close \"" + adapter.toString() + "\".", e);
+				}
+			}
+		}
+	}
+
 	@Override
 	public void maintain() throws MaintenanceException {
 		for (SemanticDataSource adapter : this.adapters) {
@@ -34,6 +34,10 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import javax.sql.DataSource;
 
@@ -42,8 +46,10 @@ import org.semanticweb.owlapi.model.IRI;
 import de.uni_jena.cs.fusion.semantic.datasource.AbstractSemanticDataSourceWrapper;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSource;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceException;
+import de.uni_jena.cs.fusion.util.concurrent.CompletableFutures;
 import de.uni_jena.cs.fusion.util.maintainer.Maintainable;
 import de.uni_jena.cs.fusion.util.maintainer.MaintenanceException;
+import de.uni_jena.cs.fusion.util.profiler.Profile;
 
 /**
  * <p>
@@ -53,6 +59,12 @@ import de.uni_jena.cs.fusion.util.maintainer.MaintenanceException;
  * </p>
  * 
  * <p>
+ * The asynchronous methods access the database with the given {@link Executor}
+ * and forward cache misses to the asynchronous methods of the wrapped
+ * {@link SemanticDataSource}.
+ * </p>
+ * 
+ * <p>
  * The {@link DatabaseCacheWrapper} requires a database table with the following
  * columns:
  * </p>
@@ -280,6 +292,20 @@ public final class DatabaseCacheWrapper extends AbstractSemanticDataSourceWrappe
 		}
 	}
 
+	/**
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Collection<String>> getDescriptionsAsync(IRI iri, Executor executor) {
+		if (getWrapped().providingDescriptions()) {
+			return cachedAsync(Task.GET_DESCRIPTIONS, iri.getIRIString(),
+					() -> loadCollection(Task.GET_DESCRIPTIONS, iri.getIRIString(), String.class),
+					() -> getWrapped().getDescriptionsAsync(iri, executor), executor);
+		} else {
+			return CompletableFutures.failed(new UnsupportedOperationException());
+		}
+	}
+
 	@Override
 	public Collection<String> getLabels(IRI iri) throws SemanticDataSourceException {
 		if (getWrapped().providingLabels()) {
@@ -294,6 +320,20 @@ public final class DatabaseCacheWrapper extends AbstractSemanticDataSourceWrappe
 		}
 	}
 
+	/**
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Collection<String>> getLabelsAsync(IRI iri, Executor executor) {
+		if (getWrapped().providingLabels()) {
+			return cachedAsync(Task.GET_LABELS, iri.getIRIString(),
+					() -> loadCollection(Task.GET_LABELS, iri.getIRIString(), String.class),
+					() -> getWrapped().getLabelsAsync(iri, executor), executor);
+		} else {
+			return CompletableFutures.failed(new UnsupportedOperationException());
+		}
+	}
+
 	@Override
 	public Map<String, Map<IRI, Double>> getMatches(Collection<String> terms) throws SemanticDataSourceException {
 		if (getWrapped().providingMatch()) {
@@ -440,6 +480,20 @@ public final class DatabaseCacheWrapper extends AbstractSemanticDataSourceWrappe
 		}
 	}
 
+	/**
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Collection<IRI>> getSynonymsAsync(IRI iri, Executor executor) {
+		if (getWrapped().providingSynonyms()) {
+			return cachedAsync(Task.GET_SYNONYMS, iri.getIRIString(),
+					() -> loadCollection(Task.GET_SYNONYMS, iri.getIRIString(), IRI.class),
+					() -> getWrapped().getSynonymsAsync(iri, executor), executor);
+		} else {
+			return CompletableFutures.failed(new UnsupportedOperationException());
+		}
+	}
+
 	@Override
 	public List<URL> getUrls(IRI iri) throws SemanticDataSourceException {
 		if (getWrapped().providingURLs()) {
@@ -478,6 +532,36 @@ public final class DatabaseCacheWrapper extends AbstractSemanticDataSourceWrappe
 		return result;
 	}
 
+	/**
+	 * Loads a result from the cache or, in case of a miss, requests it and puts
+	 * it into the cache. The cache gets accessed with the given
+	 * {@link Executor}.
+	 * 
+	 * @param task
+	 *            the cached task
+	 * @param key
+	 *            the key of the result
+	 * @param load
+	 *            loads the result from the cache or returns <code>null</code>
+	 * @param request
+	 *            requests the result in case of a miss
+	 * @param executor
+	 *            {@link Executor} to access the cache with
+	 * @return future of the result
+	 */
+	private <T> CompletableFuture<T> cachedAsync(Task task, String key, Callable<T> load,
+			Supplier<CompletableFuture<T>> request, Executor executor) {
+		return CompletableFutures.compose(CompletableFutures.supply(load, executor), cached -> {
+			if (cached != null) {
+				return CompletableFuture.completedFuture(cached);
+			}
+			return CompletableFutures.compose(request.get(), result -> CompletableFutures.supply(() -> {
+				put(task, key, result);
+				return result;
+			}, executor));
+		});
+	}
+
 	private <T> T load(Task task, String key, Class<T> type) throws SemanticDataSourceException {
 		try (Connection connection = datasource.getConnection()) {
 			try (PreparedStatement statement = connection.prepareStatement(this.loadSQL)) {
@@ -485,7 +569,9 @@ public final class DatabaseCacheWrapper extends AbstractSemanticDataSourceWrappe
 				statement.setInt(2, task.id);
 				statement.setString(3, key);
 				try (ResultSet resultSet = statement.executeQuery()) {
-					if (resultSet.next()) {
+					boolean hit = resultSet.next();
+					Profile.cacheAccess("adapter cache " + getWrapped().getClass().getSimpleName(), hit);
+					if (hit) {
 						try {
 							Object deserialized = new ObjectInputStream(resultSet.getBinaryStream(1)).readObject();
 							if (type.isAssignableFrom(deserialized.getClass())) {
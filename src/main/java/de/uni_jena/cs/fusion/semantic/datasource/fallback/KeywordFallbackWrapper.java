@@ -32,6 +32,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import javax.sql.DataSource;
 
@@ -40,6 +42,7 @@ import org.semanticweb.owlapi.model.IRI;
 import de.uni_jena.cs.fusion.semantic.datasource.AbstractSemanticDataSourceWrapper;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSource;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceException;
+import de.uni_jena.cs.fusion.util.concurrent.CompletableFutures;
 import de.uni_jena.cs.fusion.util.stopwords.StopWords;
 
 /**
@@ -54,6 +57,11 @@ import de.uni_jena.cs.fusion.util.stopwords.StopWords;
  * <code>string:</code>.
  * </p>
  * 
+ * <p>
+ * The asynchronous methods forward to the asynchronous methods of the wrapped
+ * {@link SemanticDataSource}.
+ * </p>
+ * 
  * @author Jan Martin Keil
  * @since 0.1
  *
@@ -115,6 +123,14 @@ public class KeywordFallbackWrapper extends AbstractSemanticDataSourceWrapper {
 		return broaders;
 	}
 
+	/**
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Collection<String>> getDescriptionsAsync(IRI iri, Executor executor) {
+		return this.getWrapped().getDescriptionsAsync(iri, executor);
+	}
+
 	@Override
 	public Collection<String> getLabels(IRI iri) throws SemanticDataSourceException {
 		if (iri.getIRIString().startsWith(namespace)) {
@@ -126,35 +142,27 @@ public class KeywordFallbackWrapper extends AbstractSemanticDataSourceWrapper {
 		}
 	}
 
+	/**
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Collection<String>> getLabelsAsync(IRI iri, Executor executor) {
+		if (iri.getIRIString().startsWith(namespace)) {
+			return CompletableFuture.completedFuture(Collections.singleton(extractLabel(iri)));
+		} else if (this.getWrapped().providingLabels()) {
+			return this.getWrapped().getLabelsAsync(iri, executor);
+		} else {
+			return CompletableFuture.completedFuture(Collections.emptySet());
+		}
+	}
+
 	@Override
 	public Map<String, Map<IRI, Double>> getMatches(Collection<String> terms) throws SemanticDataSourceException {
 		if (this.getWrapped().providingMatch()) {
 			Map<String, Map<IRI, Double>> wrappedMatches = this.getWrapped().getMatches(terms);
-			Map<String, Map<IRI, Double>> matches = new HashMap<String, Map<IRI, Double>>();
-			for (String term : terms) {
-				if (validWord(term)) {
-					if (wrappedMatches.get(term).isEmpty()) {
-						matches.put(term, Collections.singletonMap(createIRI(term), this.ranking));
-					} else {
-						Map<IRI, Double> match = new HashMap<IRI, Double>();
-						match.putAll(wrappedMatches.get(term));
-						matches.put(term, match);
-					}
-				} else {
-					matches.put(term, wrappedMatches.get(term));
-				}
-			}
-			return matches;
+			return withFallback(terms, wrappedMatches);
 		} else {
-			Map<String, Map<IRI, Double>> matches = new HashMap<String, Map<IRI, Double>>();
-			for (String term : terms) {
-				if (validWord(term)) {
-					matches.put(term, Collections.singletonMap(createIRI(term), this.ranking));
-				} else {
-					matches.put(term, Collections.emptyMap());
-				}
-			}
-			return matches;
+			return fallback(terms);
 		}
 	}
 
@@ -164,41 +172,41 @@ public class KeywordFallbackWrapper extends AbstractSemanticDataSourceWrapper {
 		if (this.getWrapped().providingMatch()) {
 			if (scopes.contains(scope)) {
 				Map<String, Map<IRI, Double>> wrappedMatches = this.getWrapped().getMatches(terms, scopes);
-				Map<String, Map<IRI, Double>> matches = new HashMap<String, Map<IRI, Double>>();
-				for (String term : terms) {
-					if (validWord(term)) {
-						if (wrappedMatches.get(term).isEmpty()) {
-							matches.put(term, Collections.singletonMap(createIRI(term), this.ranking));
-						} else {
-							Map<IRI, Double> match = new HashMap<IRI, Double>();
-							match.putAll(wrappedMatches.get(term));
-							matches.put(term, match);
-						}
-					} else {
-						matches.put(term, wrappedMatches.get(term));
-					}
-				}
-				return matches;
+				return withFallback(terms, wrappedMatches);
 			} else {
 				return this.getWrapped().getMatches(terms, scopes);
 			}
 		} else {
 			if (scopes.contains(scope)) {
-				Map<String, Map<IRI, Double>> matches = new HashMap<String, Map<IRI, Double>>();
-				for (String term : terms) {
-					if (validWord(term)) {
-						matches.put(term, Collections.singletonMap(createIRI(term), this.ranking));
-					} else {
-						matches.put(term, Collections.emptyMap());
-					}
-				}
-				return matches;
+				return fallback(terms);
 			} else {
 				return Collections.emptyMap();
 			}
 		}
 	}
 
+	/**
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Map<String, Map<IRI, Double>>> getMatchesAsync(Collection<String> terms,
+			Collection<IRI> scopes, Executor executor) {
+		if (this.getWrapped().providingMatch()) {
+			if (scopes.contains(scope)) {
+				return CompletableFutures.map(this.getWrapped().getMatchesAsync(terms, scopes, executor),
+						wrappedMatches -> withFallback(terms, wrappedMatches));
+			} else {
+				return this.getWrapped().getMatchesAsync(terms, scopes, executor);
+			}
+		} else {
+			if (scopes.contains(scope)) {
+				return CompletableFuture.completedFuture(fallback(terms));
+			} else {
+				return CompletableFuture.completedFuture(Collections.emptyMap());
+			}
+		}
+	}
+
 	@Override
 	public Map<IRI, Double> getMatches(String term) throws SemanticDataSourceException {
 		if (this.getWrapped().providingMatch()) {
@@ -251,6 +259,35 @@ public class KeywordFallbackWrapper extends AbstractSemanticDataSourceWrapper {
 		return scopes;
 	}
 
+	/**
+	 * Forwards to the wrapped {@link SemanticDataSource} to restrict the
+	 * suggestions to its adapters of the given scopes.
+	 * 
+	 * @since 0.3.9
+	 */
+	@Override
+	public Map<String, Map<IRI, String>> getSuggestions(Collection<String> stumps, Collection<IRI> scopes)
+			throws SemanticDataSourceException {
+		return this.getWrapped().getSuggestions(stumps, scopes);
+	}
+
+	/**
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Map<String, Map<IRI, String>>> getSuggestionsAsync(Collection<String> stumps,
+			Collection<IRI> scopes, Executor executor) {
+		return this.getWrapped().getSuggestionsAsync(stumps, scopes, executor);
+	}
+
+	/**
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Collection<IRI>> getSynonymsAsync(IRI iri, Executor executor) {
+		return this.getWrapped().getSynonymsAsync(iri, executor);
+	}
+
 	@Override
 	public Collection<IRI> getSignature() throws SemanticDataSourceException {
 		List<IRI> result = new ArrayList<IRI>(this.getWrapped().getSignature());
@@ -292,6 +329,50 @@ public class KeywordFallbackWrapper extends AbstractSemanticDataSourceWrapper {
 		this.getWrapped().setMatchThreshold(threshold);
 	}
 
+	/**
+	 * @param terms
+	 *            the matched terms
+	 * @return the fall back matches of the given terms
+	 */
+	private Map<String, Map<IRI, Double>> fallback(Collection<String> terms) {
+		Map<String, Map<IRI, Double>> matches = new HashMap<String, Map<IRI, Double>>();
+		for (String term : terms) {
+			if (validWord(term)) {
+				matches.put(term, Collections.singletonMap(createIRI(term), this.ranking));
+			} else {
+				matches.put(term, Collections.emptyMap());
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * @param terms
+	 *            the matched terms
+	 * @param wrappedMatches
+	 *            the matches of the wrapped {@link SemanticDataSource}
+	 * @return the given matches and fall back matches of the terms without
+	 *         any match
+	 */
+	private Map<String, Map<IRI, Double>> withFallback(Collection<String> terms,
+			Map<String, Map<IRI, Double>> wrappedMatches) {
+		Map<String, Map<IRI, Double>> matches = new HashMap<String, Map<IRI, Double>>();
+		for (String term : terms) {
+			if (validWord(term)) {
+				if (wrappedMatches.get(term).isEmpty()) {
+					matches.put(term, Collections.singletonMap(createIRI(term), this.ranking));
+				} else {
+					Map<IRI, Double> match = new HashMap<IRI, Double>();
+					match.putAll(wrappedMatches.get(term));
+					matches.put(term, match);
+				}
+			} else {
+				matches.put(term, wrappedMatches.get(term));
+			}
+		}
+		return matches;
+	}
+
 	private boolean validWord(String word) {
 		return !word.contains(" ") && !StopWords.isStopWord(word);
 	}
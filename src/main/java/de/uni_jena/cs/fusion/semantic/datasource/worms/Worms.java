@@ -20,6 +20,8 @@ package de.uni_jena.cs.fusion.semantic.datasource.worms;
  * #L%
  */
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -33,6 +35,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.apache.http.client.config.RequestConfig;
@@ -45,17 +51,28 @@ import org.semanticweb.owlapi.model.IRI;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSource;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceException;
 import de.uni_jena.cs.fusion.similarity.jarowinkler.JaroWinklerSimilarity;
+import de.uni_jena.cs.fusion.util.concurrent.CompletableFutures;
 import de.uni_jena.cs.fusion.worms.client.AphiaRecord;
 import de.uni_jena.cs.fusion.worms.client.Classification;
 import de.uni_jena.cs.fusion.worms.client.ExternalIdentifierSource;
 import de.uni_jena.cs.fusion.worms.client.WormsClient;
 import de.uni_jena.cs.fusion.worms.client.WormsClientException;
+import de.uni_jena.cs.fusion.worms.client.async.AsyncWormsClient;
+import de.uni_jena.cs.fusion.worms.client.async.AsyncWormsClientException;
 
 /**
  * <p>
  * A {@link SemanticDataSource} implementing the
  * <a href="http://www.marinespecies.org/rest/">WoRMS REST webservice</a>.
  * </p>
+ * <p>
+ * Labels, descriptions and synonyms are requested with the
+ * {@link AsyncWormsClient} without blocking a thread in
+ * {@link #getLabelsAsync(IRI, Executor)},
+ * {@link #getDescriptionsAsync(IRI, Executor)} and
+ * {@link #getSynonymsAsync(IRI, Executor)}. Cancelling their futures aborts
+ * the outstanding requests.
+ * </p>
  * 
  * <ul>
  * <li>TODO parallelize {@link #getMatches(Collection)} and
@@ -67,12 +84,13 @@ import de.uni_jena.cs.fusion.worms.client.WormsClientException;
  * @author Jan Martin Keil
  *
  */
-public class Worms implements SemanticDataSource {
+public class Worms implements SemanticDataSource, Closeable {
 
 	private final static int HTTP_TIMEOUT = 30000; // milliseconds
 	private final static int HTTP_CACHE_MAX_OBJECT_NUMBER = 10000;
 	private final static int HTTP_CACHE_MAX_OBJECT_AGE = 604800; // seconds
 	private final static int HTTP_CACHE_MAX_OBJECT_SIZE = 8192; // bytes
+	private final static int HTTP_MAX_CONNECTIONS_PER_HOST = 10;
 
 	private final static String NAMESPACE_WORMS = "urn:lsid:marinespecies.org:taxname:";
 	private static Map<ExternalIdentifierSource, String> NAMESPACES_MAP_MODIFIABLE = new HashMap<ExternalIdentifierSource, String>();
@@ -85,6 +103,7 @@ public class Worms implements SemanticDataSource {
 		return IRI.create(NAMESPACE_WORMS + aphiaID);
 	}
 
+	private final CloseableHttpClient httpClient;
 	private WormsClient client;
 
 	{
@@ -93,11 +112,19 @@ public class Worms implements SemanticDataSource {
 				.setHeuristicDefaultLifetime(HTTP_CACHE_MAX_OBJECT_AGE).build();
 		RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(HTTP_TIMEOUT)
 				.setSocketTimeout(HTTP_TIMEOUT).build();
-		@SuppressWarnings("resource")
-		CloseableHttpClient httpClient = CachingHttpClients.custom().setCacheConfig(cacheConfig)
+		httpClient = CachingHttpClients.custom().setCacheConfig(cacheConfig)
 				.setDefaultRequestConfig(requestConfig).build();
 		client = new WormsClient(httpClient);
 	}
+	private final AsyncWormsClient asyncClient;
+	{
+		try {
+			asyncClient = new AsyncWormsClient(AsyncWormsClient.SERVICE_DEFAULT_URL, HTTP_MAX_CONNECTIONS_PER_HOST,
+					HTTP_TIMEOUT);
+		} catch (AsyncWormsClientException e) {
+			throw new IllegalStateException(e);
+		}
+	}
 	private double matchThreshold = 0.95;
 
 	private final boolean useTaxaMatch;
@@ -110,6 +137,21 @@ public class Worms implements SemanticDataSource {
 		this.useTaxaMatch = useTaxaMatch;
 	}
 
+	/**
+	 * Closes the HTTP clients and stops the I/O threads of the
+	 * {@link AsyncWormsClient}.
+	 * 
+	 * @since 0.3.9
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			asyncClient.close();
+		} finally {
+			httpClient.close();
+		}
+	}
+
 	@Override
 	public Collection<IRI> getAllBroaders(IRI iri) throws SemanticDataSourceException {
 		try {
@@ -151,6 +193,34 @@ public class Worms implements SemanticDataSource {
 		}
 	}
 
+	/**
+	 * Returns a future of the AphiaID of a concept, which requires a request
+	 * for external IRIs only.
+	 * 
+	 * @param iri
+	 *            {@link IRI} of the concept
+	 * @return future of the AphiaID
+	 */
+	private CompletableFuture<Long> getAphiaIdAsync(IRI iri) {
+		try {
+			if (isInternal(iri)) {
+				return CompletableFuture.completedFuture(getInternalId(iri));
+			}
+			ExternalIdentifierSource source = getExternalSource(iri)
+					.orElseThrow(() -> new SemanticDataSourceException("Unknown external IRI \"" + iri + "\"."));
+			return CompletableFutures
+					.map(asyncClient.aphiaRecordByExternalId(getExternalId(iri, source), source.name()), record -> {
+						if (Objects.isNull(record)) {
+							throw new CompletionException(
+									new SemanticDataSourceException("Unknown external IRI \"" + iri + "\"."));
+						}
+						return record.aphiaId;
+					});
+		} catch (SemanticDataSourceException e) {
+			return CompletableFutures.failed(e);
+		}
+	}
+
 	@Override
 	public Collection<IRI> getBroaders(IRI iri) throws SemanticDataSourceException {
 		try {
@@ -170,27 +240,66 @@ public class Worms implements SemanticDataSource {
 		}
 	}
 
-	@Override
-	public Collection<String> getDescriptions(IRI iri) throws SemanticDataSourceException {
+	/**
+	 * Waits for the completion of requests of the {@link AsyncWormsClient} in
+	 * the synchronous methods. Cancels the requests, if they time out or the
+	 * current thread gets interrupted.
+	 * 
+	 * @param future
+	 *            future of the requests
+	 * @return result of the requests
+	 * @throws SemanticDataSourceException
+	 *             if the requests failed, timed out or the current thread was
+	 *             interrupted
+	 */
+	private static <T> T await(CompletableFuture<T> future) throws SemanticDataSourceException {
 		try {
-			AphiaRecord record = Objects.requireNonNull(client.aphiaRecordByAphiaId(getAphiaId(iri)),
-					"Record for " + iri + " not present.");
-			Collection<String> descriptions = new ArrayList<String>();
-			if (Objects.nonNull(record.taxonomicRank)) {
-				descriptions.add("Rank: " + record.taxonomicRank);
-			}
-			if (Objects.nonNull(record.authority)) {
-				descriptions.add("Authority: " + record.authority);
-			}
-			if (Objects.nonNull(record.citation)) {
-				descriptions.add("Source: " + record.citation);
+			return AsyncWormsClient.await(future, HTTP_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (AsyncWormsClientException e) {
+			if (e.getCause() instanceof SemanticDataSourceException) {
+				throw (SemanticDataSourceException) e.getCause();
 			}
-			return descriptions;
-		} catch (NullPointerException | WormsClientException e) {
 			throw new SemanticDataSourceException(e);
 		}
 	}
 
+	private static AphiaRecord present(IRI iri, AphiaRecord record) {
+		if (Objects.isNull(record)) {
+			throw new CompletionException(new SemanticDataSourceException("Record for " + iri + " not present."));
+		}
+		return record;
+	}
+
+	@Override
+	public Collection<String> getDescriptions(IRI iri) throws SemanticDataSourceException {
+		return await(getDescriptionsAsync(iri, Runnable::run));
+	}
+
+	/**
+	 * Does not use the given {@link Executor}, as all requests are
+	 * asynchronous.
+	 * 
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Collection<String>> getDescriptionsAsync(IRI iri, Executor executor) {
+		return CompletableFutures.compose(getAphiaIdAsync(iri),
+				aphiaId -> CompletableFutures.map(asyncClient.aphiaRecordByAphiaId(aphiaId), record -> {
+					present(iri, record);
+					Collection<String> descriptions = new ArrayList<String>();
+					if (Objects.nonNull(record.taxonomicRank)) {
+						descriptions.add("Rank: " + record.taxonomicRank);
+					}
+					if (Objects.nonNull(record.authority)) {
+						descriptions.add("Authority: " + record.authority);
+					}
+					if (Objects.nonNull(record.citation)) {
+						descriptions.add("Source: " + record.citation);
+					}
+					return descriptions;
+				}));
+	}
+
 	private String getExternalId(IRI iri, ExternalIdentifierSource source) {
 		return iri.getIRIString().substring(NAMESPACES_MAP.get(source).length());
 	}
@@ -227,20 +336,29 @@ public class Worms implements SemanticDataSource {
 
 	@Override
 	public Collection<String> getLabels(IRI iri) throws SemanticDataSourceException {
-		try {
-			AphiaRecord record = Objects.requireNonNull(client.aphiaRecordByAphiaId(getAphiaId(iri)),
-					"Record for " + iri + " not present.");
-			Collection<String> labels = new ArrayList<String>(2);
-			if (Objects.nonNull(record.scientificName)) {
-				labels.add(record.scientificName);
-				if (Objects.nonNull(record.authority)) {
-					labels.add(record.scientificName + " " + record.authority);
-				}
-			}
-			return labels;
-		} catch (NullPointerException | WormsClientException e) {
-			throw new SemanticDataSourceException(e);
-		}
+		return await(getLabelsAsync(iri, Runnable::run));
+	}
+
+	/**
+	 * Does not use the given {@link Executor}, as all requests are
+	 * asynchronous.
+	 * 
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Collection<String>> getLabelsAsync(IRI iri, Executor executor) {
+		return CompletableFutures.compose(getAphiaIdAsync(iri),
+				aphiaId -> CompletableFutures.map(asyncClient.aphiaRecordByAphiaId(aphiaId), record -> {
+					present(iri, record);
+					Collection<String> labels = new ArrayList<String>(2);
+					if (Objects.nonNull(record.scientificName)) {
+						labels.add(record.scientificName);
+						if (Objects.nonNull(record.authority)) {
+							labels.add(record.scientificName + " " + record.authority);
+						}
+					}
+					return labels;
+				}));
 	}
 
 	@Override
@@ -344,38 +462,60 @@ public class Worms implements SemanticDataSource {
 
 	@Override
 	public Collection<IRI> getSynonyms(IRI iri) throws SemanticDataSourceException {
-		try {
-			long aphiaID = getAphiaId(iri);
-			Collection<IRI> synonyms = new HashSet<IRI>();
+		return await(getSynonymsAsync(iri, Runnable::run));
+	}
 
-			// add WORMS IRI (might not be the the ID from the given IRI)
-			synonyms.add(IRI.create(NAMESPACE_WORMS + aphiaID));
+	/**
+	 * Does not use the given {@link Executor}, as all requests are
+	 * asynchronous. A failed request cancels the outstanding requests.
+	 * 
+	 * @since 0.3.9
+	 */
+	@Override
+	public CompletableFuture<Collection<IRI>> getSynonymsAsync(IRI iri, Executor executor) {
+		return CompletableFutures.compose(getAphiaIdAsync(iri), aphiaID -> {
+			// send all requests at once and collect the responses
+			List<CompletableFuture<Collection<IRI>>> requests = new ArrayList<CompletableFuture<Collection<IRI>>>();
 
 			// add WOMRS synonyms
-			client.aphiaSynonymsByAphiaId(aphiaID).stream().map(record -> IRI.create(record.lsid))
-					.forEach(synonyms::add);
+			requests.add(CompletableFutures.map(asyncClient.aphiaSynonymsByAphiaId(aphiaID),
+					records -> records.stream().map(record -> IRI.create(record.lsid)).collect(Collectors.toList())));
 
 			// add WORMS valid
-			synonyms.add(getIRI(client.aphiaRecordByAphiaId(aphiaID).validAphiaId));
+			requests.add(CompletableFutures.map(asyncClient.aphiaRecordByAphiaId(aphiaID),
+					record -> Collections.singleton(getIRI(present(iri, record).validAphiaId))));
 
 			// add external synonyms
 			for (Entry<ExternalIdentifierSource, String> namespace : NAMESPACES_MAP.entrySet()) {
 				// TODO remote Issue: e.g. for tsn externalID is an number
-				client.aphiaExternalIdByAphiaId(aphiaID, namespace.getKey()).stream()
-						.map(externalID -> IRI.create(namespace.getValue() + externalID)).forEach(synonyms::add);
+				requests.add(CompletableFutures.map(
+						asyncClient.aphiaExternalIdByAphiaId(aphiaID, namespace.getKey().name()),
+						externalIDs -> externalIDs.stream()
+								.map(externalID -> IRI.create(namespace.getValue() + externalID))
+								.collect(Collectors.toList())));
 			}
 
 			// add external LSIDs
-			client.aphiaExternalIdByAphiaId(aphiaID, ExternalIdentifierSource.lsid).stream()
-					.map(externalID -> IRI.create(externalID)).forEach(synonyms::add);
+			requests.add(CompletableFutures.map(
+					asyncClient.aphiaExternalIdByAphiaId(aphiaID, ExternalIdentifierSource.lsid.name()),
+					externalIDs -> externalIDs.stream().map(IRI::create).collect(Collectors.toList())));
 
-			// remove given IRI
-			synonyms.remove(iri);
+			return CompletableFutures.map(CompletableFutures.all(requests), responses -> {
+				Collection<IRI> synonyms = new HashSet<IRI>();
 
-			return synonyms;
-		} catch (WormsClientException e) {
-			throw new SemanticDataSourceException(e);
-		}
+				// add WORMS IRI (might not be the the ID from the given IRI)
+				synonyms.add(getIRI(aphiaID));
+
+				for (Collection<IRI> response : responses) {
+					synonyms.addAll(response);
+				}
+
+				// remove given IRI
+				synonyms.remove(iri);
+
+				return synonyms;
+			});
+		});
 	}
 
 	@Override
@@ -0,0 +1,283 @@
+package de.uni_jena.cs.fusion.util.concurrent;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Composes {@link CompletableFuture}s, so that cancelling the composed future
+ * cancels the futures it has been composed of. Futures derived by
+ * {@link CompletableFuture#thenApply(Function)} and alike do not propagate
+ * their cancellation, which would keep abandoned upstream requests running.
+ * 
+ * @since 0.3.9
+ *
+ */
+public final class CompletableFutures {
+
+	/**
+	 * completes the futures returned by
+	 * {@link #within(CompletableFuture, long, TimeUnit)} on timeout
+	 */
+	private final static ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+		Thread thread = new Thread(runnable, "CompletableFutures timer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	static {
+		timer.setRemoveOnCancelPolicy(true);
+	}
+
+	private CompletableFutures() {
+	}
+
+	/**
+	 * Executes the given {@link Callable} with the given {@link Executor}.
+	 * Cancelling the returned future interrupts the execution.
+	 * 
+	 * @param callable
+	 *            the {@link Callable} to execute
+	 * @param executor
+	 *            the {@link Executor} to execute the {@link Callable} with
+	 * @return future of the result of the {@link Callable}
+	 */
+	public static <T> CompletableFuture<T> supply(Callable<T> callable, Executor executor) {
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		FutureTask<T> task = new FutureTask<T>(callable) {
+			@Override
+			protected void done() {
+				if (isCancelled()) {
+					result.cancel(false);
+				} else {
+					try {
+						result.complete(get());
+					} catch (ExecutionException e) {
+						result.completeExceptionally(e.getCause());
+					} catch (InterruptedException e) {
+						// unreachable, as the task is done
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		};
+		cancelling(result, task);
+		executor.execute(task);
+		return result;
+	}
+
+	/**
+	 * @param e
+	 *            the cause of the failure
+	 * @return a future completed exceptionally with the given cause
+	 */
+	public static <T> CompletableFuture<T> failed(Throwable e) {
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		future.completeExceptionally(e);
+		return future;
+	}
+
+	/**
+	 * Applies the given {@link Function} to the result of the given future.
+	 * Cancelling the returned future cancels the given future.
+	 * 
+	 * @param source
+	 *            the future providing the argument of the {@link Function}
+	 * @param function
+	 *            the {@link Function} to apply
+	 * @return future of the result of the {@link Function}
+	 */
+	public static <T, R> CompletableFuture<R> map(CompletableFuture<T> source,
+			Function<? super T, ? extends R> function) {
+		return cancelling(source.thenApply(function), source);
+	}
+
+	/**
+	 * Applies the given {@link Function} returning a future to the result of
+	 * the given future. Cancelling the returned future cancels the given future
+	 * and the future returned by the {@link Function}.
+	 * 
+	 * @param source
+	 *            the future providing the argument of the {@link Function}
+	 * @param function
+	 *            the {@link Function} to apply
+	 * @return future of the result of the future returned by the
+	 *         {@link Function}
+	 */
+	public static <T, R> CompletableFuture<R> compose(CompletableFuture<T> source,
+			Function<? super T, ? extends CompletableFuture<R>> function) {
+		CompletableFuture<R> result = new CompletableFuture<R>();
+		cancelling(result, source);
+		source.whenComplete((value, e) -> {
+			if (e != null) {
+				result.completeExceptionally(e);
+				return;
+			}
+			CompletableFuture<R> next;
+			try {
+				next = function.apply(value);
+			} catch (Throwable t) {
+				result.completeExceptionally(t);
+				return;
+			}
+			cancelling(result, next);
+			next.whenComplete((nextValue, nextException) -> {
+				if (nextException != null) {
+					result.completeExceptionally(nextException);
+				} else {
+					result.complete(nextValue);
+				}
+			});
+		});
+		return result;
+	}
+
+	/**
+	 * Executes the given {@link Callable} returning a future with the given
+	 * {@link Executor}. Cancelling the returned future interrupts the execution
+	 * and cancels the future returned by the {@link Callable}.
+	 * 
+	 * @param callable
+	 *            the {@link Callable} to execute
+	 * @param executor
+	 *            the {@link Executor} to execute the {@link Callable} with
+	 * @return future of the result of the future returned by the
+	 *         {@link Callable}
+	 */
+	public static <T> CompletableFuture<T> compose(Callable<CompletableFuture<T>> callable, Executor executor) {
+		return compose(supply(callable, executor), future -> future);
+	}
+
+	/**
+	 * Applies the given {@link BiFunction} to the result or the failure of the
+	 * given future. Cancelling the returned future cancels the given future.
+	 * 
+	 * @param source
+	 *            the future providing the arguments of the {@link BiFunction}
+	 * @param function
+	 *            the {@link BiFunction} to apply
+	 * @return future of the result of the {@link BiFunction}
+	 */
+	public static <T, R> CompletableFuture<R> handle(CompletableFuture<T> source,
+			BiFunction<? super T, Throwable, ? extends R> function) {
+		return cancelling(source.handle(function), source);
+	}
+
+	/**
+	 * Returns a future completing like the given future or, if the given
+	 * future does not complete within the given time, exceptionally with a
+	 * {@link TimeoutException}. The timeout does not cancel the given future,
+	 * but cancelling the returned future does.
+	 * 
+	 * @param source
+	 *            the future to wait for
+	 * @param timeout
+	 *            maximum time to wait
+	 * @param unit
+	 *            unit of the timeout
+	 * @return future of the result of the given future
+	 */
+	public static <T> CompletableFuture<T> within(CompletableFuture<T> source, long timeout, TimeUnit unit) {
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		cancelling(result, source);
+		ScheduledFuture<?> expiry = timer.schedule(() -> result.completeExceptionally(new TimeoutException()),
+				timeout, unit);
+		source.whenComplete((value, e) -> {
+			expiry.cancel(false);
+			if (e != null) {
+				result.completeExceptionally(e);
+			} else {
+				result.complete(value);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Collects the results of the given futures in the given order. The
+	 * returned future fails as soon as one of the given futures fails.
+	 * Cancelling or failing of the returned future cancels the outstanding
+	 * given futures.
+	 * 
+	 * @param futures
+	 *            the futures to collect the results of
+	 * @return future of the results of the given futures
+	 */
+	public static <T> CompletableFuture<List<T>> all(List<? extends CompletableFuture<? extends T>> futures) {
+		CompletableFuture<List<T>> result = new CompletableFuture<List<T>>();
+		if (futures.isEmpty()) {
+			result.complete(Collections.emptyList());
+			return result;
+		}
+		AtomicInteger remaining = new AtomicInteger(futures.size());
+		for (CompletableFuture<? extends T> future : futures) {
+			future.whenComplete((value, e) -> {
+				if (e != null) {
+					result.completeExceptionally(e);
+				} else if (remaining.decrementAndGet() == 0) {
+					List<T> values = new ArrayList<T>(futures.size());
+					for (CompletableFuture<? extends T> completed : futures) {
+						values.add(completed.join());
+					}
+					result.complete(values);
+				}
+			});
+		}
+		// skip outstanding futures in case of failure
+		result.whenComplete((values, e) -> {
+			if (e != null) {
+				for (CompletableFuture<? extends T> future : futures) {
+					future.cancel(true);
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Cancels the given source, if the given result gets cancelled.
+	 * 
+	 * @return the given result
+	 */
+	private static <T> CompletableFuture<T> cancelling(CompletableFuture<T> result, Future<?> source) {
+		result.whenComplete((value, e) -> {
+			if (result.isCancelled()) {
+				source.cancel(true);
+			}
+		});
+		return result;
+	}
+}
@@ -0,0 +1,77 @@
+package de.uni_jena.cs.fusion.util.context;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Value bound to the current thread for the duration of a {@link Scope}.
+ * Scopes may be nested and restore the previously bound value on close.
+ * 
+ * @since 0.3.9
+ *
+ * @param <T>
+ *            type of the bound value
+ */
+public class ThreadContext<T> {
+
+	private final ThreadLocal<T> current = new ThreadLocal<T>();
+
+	/**
+	 * @return the value bound to the current thread or <code>null</code>, if
+	 *         no value is bound
+	 */
+	public T current() {
+		return this.current.get();
+	}
+
+	/**
+	 * Binds a value to the current thread until the returned scope gets
+	 * closed.
+	 * 
+	 * @param value
+	 *            value to bind
+	 * @return scope to close after the work using the value
+	 */
+	public Scope bind(T value) {
+		T previous = this.current.get();
+		this.current.set(value);
+		return () -> {
+			if (previous == null) {
+				this.current.remove();
+			} else {
+				this.current.set(previous);
+			}
+		};
+	}
+
+	/**
+	 * Binding of a value to the current thread, that gets released on
+	 * {@link #close()}.
+	 */
+	@FunctionalInterface
+	public interface Scope extends AutoCloseable {
+
+		/**
+		 * Restores the value bound to the current thread before this scope.
+		 */
+		@Override
+		void close();
+	}
+}
@@ -0,0 +1,162 @@
+package de.uni_jena.cs.fusion.util.deadline;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import de.uni_jena.cs.fusion.util.context.ThreadContext;
+import de.uni_jena.cs.fusion.util.context.ThreadContext.Scope;
+
+/**
+ * Time budget of a single request. A deadline is bound to the current thread
+ * with {@link #activate()} and will be picked up by components waiting for
+ * slow sources via {@link #current()}. Sources missing the deadline get
+ * skipped and recorded with {@link #skip(String)}. Tasks and continuations
+ * running in other threads have to be wrapped with {@link #wrap(Callable)} or
+ * {@link #wrap(Function)} to stay subject to the deadline.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class Deadline {
+
+	private final static ThreadContext<Deadline> CURRENT = new ThreadContext<Deadline>();
+
+	/**
+	 * expiry in terms of {@link System#nanoTime()}
+	 */
+	private final long expiry;
+	private final Set<String> skipped = new TreeSet<String>();
+
+	/**
+	 * @param budget
+	 *            time available from now on
+	 * @param unit
+	 *            unit of the budget
+	 */
+	public Deadline(long budget, TimeUnit unit) {
+		this.expiry = System.nanoTime() + unit.toNanos(budget);
+	}
+
+	/**
+	 * Returns the deadline bound to the current thread.
+	 * 
+	 * @return the current deadline or <code>null</code>, if no deadline is
+	 *         active
+	 */
+	public static Deadline current() {
+		return CURRENT.current();
+	}
+
+	/**
+	 * Wraps a task to run with the deadline of the current thread.
+	 * 
+	 * @param task
+	 *            task to wrap
+	 * @return the wrapped task or the task itself, if no deadline is active
+	 */
+	public static <T> Callable<T> wrap(Callable<T> task) {
+		Deadline deadline = current();
+		if (deadline == null) {
+			return task;
+		}
+		return () -> {
+			try (Scope scope = deadline.activate()) {
+				return task.call();
+			}
+		};
+	}
+
+	/**
+	 * Wraps a function, e.g. a continuation of a future, to run with the
+	 * deadline of the current thread.
+	 * 
+	 * @param function
+	 *            function to wrap
+	 * @return the wrapped function or the function itself, if no deadline is
+	 *         active
+	 */
+	public static <T, R> Function<T, R> wrap(Function<T, R> function) {
+		Deadline deadline = current();
+		if (deadline == null) {
+			return function;
+		}
+		return argument -> {
+			try (Scope scope = deadline.activate()) {
+				return function.apply(argument);
+			}
+		};
+	}
+
+	/**
+	 * Binds this deadline to the current thread until the returned scope gets
+	 * closed.
+	 * 
+	 * @return scope to close after the work subject to the deadline
+	 */
+	public Scope activate() {
+		return CURRENT.bind(this);
+	}
+
+	/**
+	 * @param unit
+	 *            unit of the result
+	 * @return the remaining time, <code>0</code> if the deadline has passed
+	 */
+	public long remaining(TimeUnit unit) {
+		return unit.convert(Math.max(0, this.expiry - System.nanoTime()), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Records a source skipped for missing the deadline.
+	 * 
+	 * @param source
+	 *            name of the source
+	 */
+	public void skip(String source) {
+		synchronized (this.skipped) {
+			this.skipped.add(source);
+		}
+	}
+
+	/**
+	 * @return <code>true</code>, if any source has been skipped
+	 */
+	public boolean isPartial() {
+		synchronized (this.skipped) {
+			return !this.skipped.isEmpty();
+		}
+	}
+
+	/**
+	 * @return names of the skipped sources in alphabetical order
+	 */
+	public Collection<String> getSkipped() {
+		synchronized (this.skipped) {
+			return new TreeSet<String>(this.skipped);
+		}
+	}
+}
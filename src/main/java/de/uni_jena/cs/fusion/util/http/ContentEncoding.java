@@ -0,0 +1,101 @@
+package de.uni_jena.cs.fusion.util.http;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Negotiation of the HTTP content encoding of responses.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class ContentEncoding {
+
+	public final static String GZIP = "gzip";
+	public final static String DEFLATE = "deflate";
+
+	/**
+	 * Determines the content encoding to use, preferring gzip over deflate.
+	 * 
+	 * @param acceptEncoding
+	 *            value of the <code>Accept-Encoding</code> header, might be
+	 *            <code>null</code>
+	 * @return {@link #GZIP}, {@link #DEFLATE} or <code>null</code> for no
+	 *         encoding
+	 */
+	public static String negotiate(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return null;
+		}
+		Map<String, Double> qualities = new HashMap<String, Double>();
+		for (String element : acceptEncoding.split(",")) {
+			String[] parts = element.split(";");
+			double quality = 1;
+			for (int i = 1; i < parts.length; i++) {
+				String parameter = parts[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						quality = Double.parseDouble(parameter.substring(2));
+					} catch (NumberFormatException e) {
+						quality = 0;
+					}
+				}
+			}
+			qualities.put(parts[0].trim().toLowerCase(), quality);
+		}
+		// explicitly listed codings take precedence over the wildcard
+		double wildcard = qualities.getOrDefault("*", 0.0);
+		if (qualities.getOrDefault(GZIP, qualities.getOrDefault("x-gzip", wildcard)) > 0) {
+			return GZIP;
+		} else if (qualities.getOrDefault(DEFLATE, wildcard) > 0) {
+			return DEFLATE;
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Wraps an {@link OutputStream} to encode the written content.
+	 * 
+	 * @param output
+	 *            the {@link OutputStream} to wrap
+	 * @param encoding
+	 *            {@link #GZIP}, {@link #DEFLATE} or <code>null</code> for no
+	 *            encoding
+	 * @return an {@link OutputStream} that finishes the encoding on close
+	 * @throws IOException
+	 */
+	public static OutputStream encode(OutputStream output, String encoding) throws IOException {
+		if (GZIP.equals(encoding)) {
+			return new GZIPOutputStream(output, 8192);
+		} else if (DEFLATE.equals(encoding)) {
+			return new DeflaterOutputStream(output);
+		} else {
+			return output;
+		}
+	}
+}
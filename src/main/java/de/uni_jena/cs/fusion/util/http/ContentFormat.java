@@ -0,0 +1,137 @@
+package de.uni_jena.cs.fusion.util.http;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Formats of the JSON data model and the negotiation of the format of
+ * responses.
+ * 
+ * @since 0.3.9
+ *
+ */
+public enum ContentFormat {
+	JSON("application/json", new JsonFactory()),
+	SMILE("application/x-jackson-smile", new SmileFactory()),
+	CBOR("application/cbor", new CBORFactory());
+
+	private final String mediaType;
+	private final JsonFactory factory;
+
+	private ContentFormat(String mediaType, JsonFactory factory) {
+		this.mediaType = mediaType;
+		this.factory = factory;
+		// do not close target stream after writing
+		this.factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	}
+
+	/**
+	 * @return the media type of the format
+	 */
+	public String getMediaType() {
+		return this.mediaType;
+	}
+
+	/**
+	 * @return the {@link JsonFactory} reading and writing the format
+	 */
+	public JsonFactory getFactory() {
+		return this.factory;
+	}
+
+	/**
+	 * @return <code>true</code>, if the format is not a text format
+	 */
+	public boolean isBinary() {
+		return this != JSON;
+	}
+
+	/**
+	 * Determines the format of a response. Binary formats are only used, if
+	 * explicitly preferred over JSON, so that wildcards result in JSON.
+	 * 
+	 * @param accept
+	 *            value of the <code>Accept</code> header, might be
+	 *            <code>null</code>
+	 * @return the format to use
+	 */
+	public static ContentFormat negotiate(String accept) {
+		if (accept == null) {
+			return JSON;
+		}
+		Map<String, Double> qualities = new HashMap<String, Double>();
+		for (String element : accept.split(",")) {
+			String[] parts = element.split(";");
+			double quality = 1;
+			for (int i = 1; i < parts.length; i++) {
+				String parameter = parts[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						quality = Double.parseDouble(parameter.substring(2));
+					} catch (NumberFormatException e) {
+						quality = 0;
+					}
+				}
+			}
+			qualities.merge(parts[0].trim().toLowerCase(), quality, Math::max);
+		}
+		double json = qualities.getOrDefault(JSON.mediaType,
+				qualities.getOrDefault("application/*", qualities.getOrDefault("*/*", 0.0)));
+		ContentFormat preferred = JSON;
+		double preferredQuality = json;
+		for (ContentFormat format : values()) {
+			double quality = qualities.getOrDefault(format.mediaType, 0.0);
+			if (format.isBinary() && quality > preferredQuality) {
+				preferred = format;
+				preferredQuality = quality;
+			}
+		}
+		return preferred;
+	}
+
+	/**
+	 * Determines the format of a request body.
+	 * 
+	 * @param contentType
+	 *            value of the <code>Content-Type</code> header, might be
+	 *            <code>null</code>
+	 * @return the format of the body or <code>null</code>, if the content type
+	 *         is not a format of the JSON data model
+	 */
+	public static ContentFormat of(String contentType) {
+		if (contentType != null) {
+			String mediaType = contentType.split(";")[0].trim().toLowerCase();
+			for (ContentFormat format : values()) {
+				if (format.mediaType.equals(mediaType)) {
+					return format;
+				}
+			}
+		}
+		return null;
+	}
+}
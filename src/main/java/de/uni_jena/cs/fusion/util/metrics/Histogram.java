@@ -0,0 +1,226 @@
+package de.uni_jena.cs.fusion.util.metrics;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of non-negative values with log-linear buckets, like
+ * HdrHistogram. Values below 128 are counted exactly, larger values with a
+ * relative error below 1/64. Quantiles and the maximum cover the values
+ * recorded within a sliding time window, which advances in steps of a fifth
+ * of the window, whereas count and sum cover all recorded values.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class Histogram {
+
+	/**
+	 * number of bits of the value distinguished within a power of two
+	 */
+	private final static int PRECISION = 6;
+	private final static int EXACT = 1 << (PRECISION + 1);
+	private final static int HALF = 1 << PRECISION;
+	private final static int MAX_SHIFT = 63 - PRECISION;
+	/**
+	 * number of steps of the sliding window
+	 */
+	private final static int STEPS = 5;
+
+	/**
+	 * counts of the steps of the window, the current step at {@link #step}
+	 */
+	private final Step[] steps = new Step[STEPS];
+	private final long stepDuration;
+	private volatile int step = 0;
+	/**
+	 * end of the current step in terms of {@link System#nanoTime()}
+	 */
+	private volatile long stepEnd;
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+
+	private static class Step {
+		final AtomicLongArray counts = new AtomicLongArray(EXACT + MAX_SHIFT * HALF);
+		final AtomicLong max = new AtomicLong();
+
+		void clear() {
+			for (int i = 0; i < this.counts.length(); i++) {
+				this.counts.set(i, 0);
+			}
+			this.max.set(0);
+		}
+	}
+
+	/**
+	 * Creates a histogram with quantiles of the last ten minutes.
+	 */
+	public Histogram() {
+		this(10, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * @param window
+	 *            time window of the quantiles and the maximum
+	 * @param unit
+	 *            unit of the window
+	 */
+	public Histogram(long window, TimeUnit unit) {
+		if (window < 1) {
+			throw new IllegalArgumentException("Window must be positive.");
+		}
+		for (int i = 0; i < STEPS; i++) {
+			this.steps[i] = new Step();
+		}
+		this.stepDuration = Math.max(1, unit.toNanos(window) / STEPS);
+		this.stepEnd = System.nanoTime() + this.stepDuration;
+	}
+
+	/**
+	 * @param value
+	 *            the value to record, negative values are recorded as
+	 *            <code>0</code>
+	 */
+	public void record(long value) {
+		value = Math.max(0, value);
+		Step current = current();
+		current.counts.incrementAndGet(index(value));
+		current.max.accumulateAndGet(value, Math::max);
+		this.count.increment();
+		this.sum.add(value);
+	}
+
+	/**
+	 * @return the current step, after advancing the window if required
+	 */
+	private Step current() {
+		long now = System.nanoTime();
+		if (now - this.stepEnd >= 0) {
+			advance(now);
+		}
+		return this.steps[this.step];
+	}
+
+	private synchronized void advance(long now) {
+		if (now - this.stepEnd >= this.stepDuration * STEPS) {
+			// whole window expired
+			for (Step expired : this.steps) {
+				expired.clear();
+			}
+			this.stepEnd = now + this.stepDuration;
+			return;
+		}
+		while (now - this.stepEnd >= 0) {
+			int next = (this.step + 1) % STEPS;
+			this.steps[next].clear();
+			this.step = next;
+			this.stepEnd += this.stepDuration;
+		}
+	}
+
+	private static int index(long value) {
+		if (value < EXACT) {
+			return (int) value;
+		}
+		// shift leaving the highest PRECISION + 1 bits
+		int shift = 63 - Long.numberOfLeadingZeros(value) - PRECISION;
+		return EXACT + (shift - 1) * HALF + (int) ((value >>> shift) - HALF);
+	}
+
+	/**
+	 * @return the middle of the range of values counted at the index
+	 */
+	private static long value(int index) {
+		if (index < EXACT) {
+			return index;
+		}
+		int shift = (index - EXACT) / HALF + 1;
+		long lowest = ((long) ((index - EXACT) % HALF + HALF)) << shift;
+		return lowest + ((1L << shift) - 1) / 2;
+	}
+
+	/**
+	 * @param quantile
+	 *            the quantile between <code>0</code> and <code>1</code>
+	 * @return the estimated value at the quantile of the values recorded
+	 *         within the window or <code>0</code>, if none has been recorded
+	 */
+	public long quantile(double quantile) {
+		current();
+		long total = 0;
+		long[] snapshot = new long[EXACT + MAX_SHIFT * HALF];
+		for (Step part : this.steps) {
+			for (int i = 0; i < snapshot.length; i++) {
+				long counted = part.counts.get(i);
+				snapshot[i] += counted;
+				total += counted;
+			}
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long max = getMax();
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		if (rank >= total) {
+			return max;
+		}
+		long seen = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				// never exceed the actual maximum
+				return Math.min(value(i), max);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return number of all recorded values
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * @return sum of all recorded values
+	 */
+	public long getSum() {
+		return this.sum.sum();
+	}
+
+	/**
+	 * @return maximum of the values recorded within the window or
+	 *         <code>0</code>, if none has been recorded
+	 */
+	public long getMax() {
+		current();
+		long max = 0;
+		for (Step part : this.steps) {
+			max = Math.max(max, part.max.get());
+		}
+		return max;
+	}
+}
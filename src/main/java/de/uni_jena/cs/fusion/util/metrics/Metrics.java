@@ -0,0 +1,230 @@
+package de.uni_jena.cs.fusion.util.metrics;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of {@link Timer}s, gauges and counters, written in the Prometheus text
+ * exposition format. Each metric is identified by a name and a single label.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class Metrics {
+
+	/**
+	 * quantiles of the latencies to expose
+	 */
+	private final static double[] QUANTILES = { 0.5, 0.95, 0.99 };
+	private final static double NANOS_PER_SECOND = 1e9;
+
+	private final ConcurrentMap<String, Family<Timer>> timers = new ConcurrentSkipListMap<String, Family<Timer>>();
+	private final ConcurrentMap<String, Family<DoubleSupplier>> gauges = new ConcurrentSkipListMap<String, Family<DoubleSupplier>>();
+	private final ConcurrentMap<String, Family<LongSupplier>> counters = new ConcurrentSkipListMap<String, Family<LongSupplier>>();
+
+	private static class Family<T> {
+		final String help;
+		final String label;
+		final ConcurrentMap<String, T> members = new ConcurrentHashMap<String, T>();
+
+		Family(String help, String label) {
+			this.help = help;
+			this.label = label;
+		}
+	}
+
+	/**
+	 * Returns the {@link Timer} of a name and label value, created on first
+	 * use.
+	 * 
+	 * @param name
+	 *            name of the metric
+	 * @param help
+	 *            description of the metric
+	 * @param label
+	 *            name of the label
+	 * @param value
+	 *            value of the label
+	 * @return the {@link Timer}
+	 */
+	public Timer timer(String name, String help, String label, String value) {
+		return this.timers.computeIfAbsent(name, key -> new Family<Timer>(help, label)).members
+				.computeIfAbsent(value, key -> new Timer());
+	}
+
+	/**
+	 * Registers a gauge, replacing any previous gauge of the same name and
+	 * label value.
+	 * 
+	 * @param name
+	 *            name of the metric
+	 * @param help
+	 *            description of the metric
+	 * @param label
+	 *            name of the label
+	 * @param value
+	 *            value of the label
+	 * @param gauge
+	 *            supplier of the current value
+	 */
+	public void gauge(String name, String help, String label, String value, LongSupplier gauge) {
+		this.gauges.computeIfAbsent(name, key -> new Family<DoubleSupplier>(help, label)).members.put(value,
+				gauge::getAsLong);
+	}
+
+	/**
+	 * Registers a gauge of a ratio, replacing any previous gauge of the same
+	 * name and label value.
+	 * 
+	 * @param name
+	 *            name of the metric
+	 * @param help
+	 *            description of the metric
+	 * @param label
+	 *            name of the label
+	 * @param value
+	 *            value of the label
+	 * @param ratio
+	 *            supplier of the current ratio
+	 */
+	public void ratio(String name, String help, String label, String value, DoubleSupplier ratio) {
+		this.gauges.computeIfAbsent(name, key -> new Family<DoubleSupplier>(help, label)).members.put(value, ratio);
+	}
+
+	/**
+	 * Registers a counter, replacing any previous counter of the same name and
+	 * label value.
+	 * 
+	 * @param name
+	 *            name of the metric, ending with <code>_total</code>
+	 * @param help
+	 *            description of the metric
+	 * @param label
+	 *            name of the label
+	 * @param value
+	 *            value of the label
+	 * @param counter
+	 *            supplier of the current count
+	 */
+	public void counter(String name, String help, String label, String value, LongSupplier counter) {
+		this.counters.computeIfAbsent(name, key -> new Family<LongSupplier>(help, label)).members.put(value, counter);
+	}
+
+	/**
+	 * Writes all metrics in the Prometheus text exposition format.
+	 * 
+	 * @param out
+	 *            target to write to
+	 * @throws IOException
+	 */
+	public void write(Appendable out) throws IOException {
+		for (Map.Entry<String, Family<Timer>> family : this.timers.entrySet()) {
+			String name = family.getKey();
+			String label = family.getValue().label;
+			List<Map.Entry<String, Timer>> members = new ArrayList<Map.Entry<String, Timer>>(
+					new ConcurrentSkipListMap<String, Timer>(family.getValue().members).entrySet());
+
+			header(out, name + "_duration_seconds", family.getValue().help + " latency in seconds", "summary");
+			for (Map.Entry<String, Timer> member : members) {
+				Histogram latency = member.getValue().getLatency();
+				for (double quantile : QUANTILES) {
+					sample(out, name + "_duration_seconds", label, member.getKey(), "quantile",
+							Double.toString(quantile), latency.quantile(quantile) / NANOS_PER_SECOND);
+				}
+				sample(out, name + "_duration_seconds_sum", label, member.getKey(), null, null,
+						latency.getSum() / NANOS_PER_SECOND);
+				sample(out, name + "_duration_seconds_count", label, member.getKey(), null, null,
+						latency.getCount());
+			}
+			header(out, name + "_duration_seconds_max", family.getValue().help + " maximum latency in seconds",
+					"gauge");
+			for (Map.Entry<String, Timer> member : members) {
+				sample(out, name + "_duration_seconds_max", label, member.getKey(), null, null,
+						member.getValue().getLatency().getMax() / NANOS_PER_SECOND);
+			}
+			header(out, name + "s_total", family.getValue().help + " count", "counter");
+			for (Map.Entry<String, Timer> member : members) {
+				sample(out, name + "s_total", label, member.getKey(), null, null,
+						member.getValue().getLatency().getCount());
+			}
+			header(out, name + "_errors_total", family.getValue().help + " failure count", "counter");
+			for (Map.Entry<String, Timer> member : members) {
+				sample(out, name + "_errors_total", label, member.getKey(), null, null,
+						member.getValue().getErrors());
+			}
+			header(out, name + "s_in_flight", family.getValue().help + " count in progress", "gauge");
+			for (Map.Entry<String, Timer> member : members) {
+				sample(out, name + "s_in_flight", label, member.getKey(), null, null,
+						member.getValue().getInFlight());
+			}
+		}
+		for (Map.Entry<String, Family<DoubleSupplier>> family : this.gauges.entrySet()) {
+			header(out, family.getKey(), family.getValue().help, "gauge");
+			for (Map.Entry<String, DoubleSupplier> member : new ConcurrentSkipListMap<String, DoubleSupplier>(
+					family.getValue().members).entrySet()) {
+				sample(out, family.getKey(), family.getValue().label, member.getKey(), null, null,
+						member.getValue().getAsDouble());
+			}
+		}
+		for (Map.Entry<String, Family<LongSupplier>> family : this.counters.entrySet()) {
+			header(out, family.getKey(), family.getValue().help, "counter");
+			for (Map.Entry<String, LongSupplier> member : new ConcurrentSkipListMap<String, LongSupplier>(
+					family.getValue().members).entrySet()) {
+				sample(out, family.getKey(), family.getValue().label, member.getKey(), null, null,
+						member.getValue().getAsLong());
+			}
+		}
+	}
+
+	private static void header(Appendable out, String name, String help, String type) throws IOException {
+		out.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n"))
+				.append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void sample(Appendable out, String name, String label, String value, String extraLabel,
+			String extraValue, double sample) throws IOException {
+		out.append(name).append('{').append(label).append("=\"").append(escape(value)).append('"');
+		if (extraLabel != null) {
+			out.append(',').append(extraLabel).append("=\"").append(escape(extraValue)).append('"');
+		}
+		out.append("} ");
+		if (sample == Math.rint(sample) && !Double.isInfinite(sample)) {
+			out.append(Long.toString((long) sample));
+		} else {
+			out.append(Double.toString(sample));
+		}
+		out.append('\n');
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
@@ -0,0 +1,79 @@
+package de.uni_jena.cs.fusion.util.metrics;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latency, the number of calls and of failed calls and the number
+ * of calls in progress of an operation.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class Timer {
+
+	private final Histogram latency = new Histogram();
+	private final LongAdder errors = new LongAdder();
+	private final AtomicLong inFlight = new AtomicLong();
+
+	/**
+	 * Marks the start of a call.
+	 * 
+	 * @return the start time to pass to {@link #stop(long, boolean)}
+	 */
+	public long start() {
+		this.inFlight.incrementAndGet();
+		return System.nanoTime();
+	}
+
+	/**
+	 * Marks the end of a call.
+	 * 
+	 * @param start
+	 *            the start time returned by {@link #start()}
+	 * @param failed
+	 *            <code>true</code>, if the call failed
+	 */
+	public void stop(long start, boolean failed) {
+		this.latency.record(System.nanoTime() - start);
+		if (failed) {
+			this.errors.increment();
+		}
+		this.inFlight.decrementAndGet();
+	}
+
+	/**
+	 * @return {@link Histogram} of the latencies in nanoseconds
+	 */
+	public Histogram getLatency() {
+		return this.latency;
+	}
+
+	public long getErrors() {
+		return this.errors.sum();
+	}
+
+	public long getInFlight() {
+		return this.inFlight.get();
+	}
+}
@@ -0,0 +1,238 @@
+package de.uni_jena.cs.fusion.util.profiler;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.uni_jena.cs.fusion.util.context.ThreadContext;
+import de.uni_jena.cs.fusion.util.context.ThreadContext.Scope;
+
+/**
+ * Collects timings and diagnostic details of a single request. A profile is
+ * bound to the current thread with {@link #activate()} and will be picked up
+ * by instrumented components via {@link #current()}. Tasks handed over to other
+ * threads have to be wrapped with {@link #wrap(Callable, String)} to stay
+ * inside the profile.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class Profile {
+
+	private final static ThreadContext<Profile> CURRENT = new ThreadContext<Profile>();
+
+	private final List<Stage> stages = Collections.synchronizedList(new ArrayList<Stage>());
+	private final List<Call> calls = Collections.synchronizedList(new ArrayList<Call>());
+	private final Map<String, CacheAccesses> caches = Collections
+			.synchronizedMap(new LinkedHashMap<String, CacheAccesses>());
+
+	/**
+	 * Returns the profile bound to the current thread.
+	 * 
+	 * @return the current profile or <code>null</code>, if no profile is active
+	 */
+	public static Profile current() {
+		return CURRENT.current();
+	}
+
+	/**
+	 * Binds this profile to the current thread until the returned scope gets
+	 * closed.
+	 * 
+	 * @return scope to close after the profiled work
+	 */
+	public Scope activate() {
+		return CURRENT.bind(this);
+	}
+
+	/**
+	 * Wraps a task to record it as a call of the given name into the profile of
+	 * the current thread and to run it inside of this profile.
+	 * 
+	 * @param task
+	 *            task to wrap
+	 * @param name
+	 *            name of the call
+	 * @return the wrapped task or the task itself, if no profile is active
+	 */
+	public static <T> Callable<T> wrap(Callable<T> task, String name) {
+		Profile profile = current();
+		if (profile == null) {
+			return task;
+		}
+		return () -> {
+			long start = System.nanoTime();
+			boolean failed = true;
+			try (Scope scope = profile.activate()) {
+				T result = task.call();
+				failed = false;
+				return result;
+			} finally {
+				profile.calls.add(new Call(name, System.nanoTime() - start, failed));
+			}
+		};
+	}
+
+	/**
+	 * Records a cache access into the profile of the current thread, if any.
+	 * 
+	 * @param cache
+	 *            name of the cache
+	 * @param hit
+	 *            <code>true</code> if the requested value was cached
+	 */
+	public static void cacheAccess(String cache, boolean hit) {
+		Profile profile = current();
+		if (profile != null) {
+			CacheAccesses accesses;
+			synchronized (profile.caches) {
+				accesses = profile.caches.computeIfAbsent(cache, k -> new CacheAccesses());
+			}
+			(hit ? accesses.hits : accesses.misses).incrementAndGet();
+		}
+	}
+
+	/**
+	 * Starts a new stage of this profile. The duration of the stage is measured
+	 * until {@link Stage#close()}.
+	 * 
+	 * @param name
+	 *            name of the stage
+	 * @return the started stage
+	 */
+	public Stage stage(String name) {
+		Stage stage = new Stage(name);
+		this.stages.add(stage);
+		return stage;
+	}
+
+	public List<Stage> getStages() {
+		synchronized (this.stages) {
+			return new ArrayList<Stage>(this.stages);
+		}
+	}
+
+	public List<Call> getCalls() {
+		synchronized (this.calls) {
+			return new ArrayList<Call>(this.calls);
+		}
+	}
+
+	public Map<String, CacheAccesses> getCaches() {
+		synchronized (this.caches) {
+			return new LinkedHashMap<String, CacheAccesses>(this.caches);
+		}
+	}
+
+	public static class Stage implements AutoCloseable {
+		private final String name;
+		private final long start = System.nanoTime();
+		private long duration = -1;
+		private final Map<String, Object> details = Collections.synchronizedMap(new LinkedHashMap<String, Object>());
+
+		private Stage(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Adds a detail to this stage.
+		 * 
+		 * @param key
+		 *            name of the detail
+		 * @param value
+		 *            value of the detail, serializable by the response writer
+		 * @return this stage
+		 */
+		public Stage detail(String key, Object value) {
+			this.details.put(key, value);
+			return this;
+		}
+
+		@Override
+		public void close() {
+			this.duration = System.nanoTime() - this.start;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * @return duration of the stage in milliseconds or <code>-1</code>, if the
+		 *         stage has not been closed
+		 */
+		public double getMillis() {
+			return (this.duration < 0) ? -1 : this.duration / 1e6;
+		}
+
+		public Map<String, Object> getDetails() {
+			synchronized (this.details) {
+				return new LinkedHashMap<String, Object>(this.details);
+			}
+		}
+	}
+
+	public static class Call {
+		private final String name;
+		private final long duration;
+		private final boolean failed;
+
+		private Call(String name, long duration, boolean failed) {
+			this.name = name;
+			this.duration = duration;
+			this.failed = failed;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * @return duration of the call in milliseconds
+		 */
+		public double getMillis() {
+			return this.duration / 1e6;
+		}
+
+		public boolean isFailed() {
+			return this.failed;
+		}
+	}
+
+	public static class CacheAccesses {
+		private final AtomicLong hits = new AtomicLong();
+		private final AtomicLong misses = new AtomicLong();
+
+		public long getHits() {
+			return this.hits.get();
+		}
+
+		public long getMisses() {
+			return this.misses.get();
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package de.uni_jena.cs.fusion.util.quota;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Admission control of requests, combining a rate limit per client and a
+ * concurrency limit per endpoint with a short bounded wait. Overload is
+ * rejected immediately instead of delaying all requests.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class AdmissionControl {
+
+	/**
+	 * maximum number of clients to track, least recently seen clients are
+	 * forgotten first
+	 */
+	private final static long MAX_CLIENTS = 100000;
+	/**
+	 * seconds to wait before retrying, if an endpoint is overloaded
+	 */
+	private final static long RETRY_AFTER = 1;
+
+	private final ToIntFunction<String> concurrency;
+	private final int maxWaiting;
+	private final long maxWait;
+	private final long burst;
+	private final double rate;
+	private final ConcurrentMap<String, Quota> endpoints = new ConcurrentHashMap<String, Quota>();
+	private final Cache<String, TokenBucket> clients;
+
+	/**
+	 * @param concurrency
+	 *            maximum number of concurrent requests per endpoint
+	 * @param maxWaiting
+	 *            maximum number of requests waiting per endpoint
+	 * @param maxWait
+	 *            maximum time a request waits for an endpoint
+	 * @param burst
+	 *            maximum number of requests of a client in a burst
+	 * @param rate
+	 *            sustained number of requests of a client per second
+	 * @param unit
+	 *            time unit of the maximum wait
+	 */
+	public AdmissionControl(ToIntFunction<String> concurrency, int maxWaiting, long maxWait, long burst,
+			double rate, TimeUnit unit) {
+		if (burst < 1 || !(rate > 0)) {
+			throw new IllegalArgumentException("Burst and rate must be positive.");
+		}
+		this.concurrency = concurrency;
+		this.maxWaiting = maxWaiting;
+		this.maxWait = unit.toNanos(maxWait);
+		this.burst = burst;
+		this.rate = rate;
+		// idle clients have a full bucket and can be forgotten
+		this.clients = CacheBuilder.newBuilder().maximumSize(MAX_CLIENTS)
+				.expireAfterAccess((long) Math.ceil(burst / rate) + 1, TimeUnit.SECONDS).build();
+	}
+
+	/**
+	 * Charges requests to the rate limit of a client.
+	 * 
+	 * @param client
+	 *            key of the client
+	 * @param cost
+	 *            number of requests to charge
+	 * @throws AdmissionException
+	 *             if the client exceeded its rate limit
+	 */
+	public void checkRate(String client, long cost) throws AdmissionException {
+		long wait;
+		try {
+			wait = this.clients.get(client, () -> new TokenBucket(this.burst, this.rate, TimeUnit.SECONDS))
+					.tryConsume(cost);
+		} catch (ExecutionException e) {
+			throw new AdmissionException(e.getCause());
+		}
+		if (wait > 0) {
+			throw new AdmissionException("Too many requests.", Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait)));
+		}
+	}
+
+	/**
+	 * Reserves a slot of an endpoint, waiting shortly if all slots are in use.
+	 * The slot has to be released with {@link Quota#release()} after
+	 * processing the request.
+	 * 
+	 * @param endpoint
+	 *            key of the endpoint
+	 * @return the reserved {@link Quota}
+	 * @throws AdmissionException
+	 *             if the endpoint is overloaded
+	 */
+	public Quota enter(String endpoint) throws AdmissionException {
+		Quota quota = this.endpoints.computeIfAbsent(endpoint,
+				key -> new Quota(this.concurrency.applyAsInt(key), this.maxWaiting));
+		try {
+			if (quota.tryReserve(this.maxWait, TimeUnit.NANOSECONDS)) {
+				return quota;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		throw new AdmissionException("Too many concurrent requests.", RETRY_AFTER);
+	}
+}
@@ -0,0 +1,69 @@
+package de.uni_jena.cs.fusion.util.quota;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * 
+ * @since 0.3.9
+ *
+ */
+public class AdmissionException extends Exception {
+	private static final long serialVersionUID = 4718202530417963021L;
+	private final long retryAfter;
+
+	public AdmissionException() {
+		this.retryAfter = 0;
+	}
+
+	public AdmissionException(String message) {
+		super(message);
+		this.retryAfter = 0;
+	}
+
+	public AdmissionException(Throwable cause) {
+		super(cause);
+		this.retryAfter = 0;
+	}
+
+	public AdmissionException(String message, Throwable cause) {
+		super(message, cause);
+		this.retryAfter = 0;
+	}
+
+	/**
+	 * @param message
+	 *            the detail message
+	 * @param retryAfter
+	 *            seconds to wait before retrying
+	 */
+	public AdmissionException(String message, long retryAfter) {
+		super(message);
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * @return seconds to wait before retrying
+	 */
+	public long getRetryAfter() {
+		return this.retryAfter;
+	}
+
+}
@@ -20,13 +20,39 @@ package de.uni_jena.cs.fusion.util.quota;
  * #L%
  */
 
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of concurrent uses of a resource. Waiting threads are
+ * served in the order of their arrival.
+ * 
+ * @since 0.1
+ *
+ */
 public class Quota {
 
-	private final long quota;
-	private Integer used = 0;
+	private final Semaphore permits;
+	private final int maxWaiting;
+	private final AtomicInteger waiting = new AtomicInteger();
 
 	public Quota(long quota) {
-		this.quota = quota;
+		this(quota, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param quota
+	 *            maximum number of concurrent uses
+	 * @param maxWaiting
+	 *            maximum number of threads waiting in
+	 *            {@link #tryReserve(long, TimeUnit)}
+	 * 
+	 * @since 0.3.9
+	 */
+	public Quota(long quota, int maxWaiting) {
+		this.permits = new Semaphore((int) Math.min(quota, Integer.MAX_VALUE), true);
+		this.maxWaiting = maxWaiting;
 	}
 
 	/**
@@ -35,20 +61,36 @@ public class Quota {
 	 * @throws InterruptedException
 	 */
 	public void reserve() throws InterruptedException {
-		boolean approval = false;
-		while (!approval) {
-			synchronized (used) {
-				if (used < quota) {
-					approval = true;
-					used++;
-				}
-			}
-			if (!approval) {
-				// wait until an other thread released
-				synchronized (this) {
-					this.wait();
-				}
-			}
+		this.permits.acquire();
+	}
+
+	/**
+	 * Reserves one piece of the quota or waits up to the given time, if the
+	 * quota is exhausted. Fails immediately, if the maximum number of threads
+	 * is already waiting.
+	 * 
+	 * @param timeout
+	 *            maximum time to wait
+	 * @param unit
+	 *            unit of the timeout
+	 * @return <code>true</code>, if a piece of the quota has been reserved
+	 * @throws InterruptedException
+	 * 
+	 * @since 0.3.9
+	 */
+	public boolean tryReserve(long timeout, TimeUnit unit) throws InterruptedException {
+		// NOTE: tryAcquire() without timeout would ignore the fairness
+		if (this.permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+			return true;
+		}
+		if (this.waiting.incrementAndGet() > this.maxWaiting) {
+			this.waiting.decrementAndGet();
+			return false;
+		}
+		try {
+			return this.permits.tryAcquire(timeout, unit);
+		} finally {
+			this.waiting.decrementAndGet();
 		}
 	}
 
@@ -56,12 +98,25 @@ public class Quota {
 	 * Releases one piece of the quota and notifies a waiting thread.
 	 */
 	public void release() {
-		synchronized (used) {
-			used--;
-		}
-		synchronized (this) {
-			this.notify();
-		}
+		this.permits.release();
+	}
+
+	/**
+	 * @return number of currently available pieces of the quota
+	 * 
+	 * @since 0.3.9
+	 */
+	public int available() {
+		return this.permits.availablePermits();
+	}
+
+	/**
+	 * @return estimated number of threads waiting for a piece of the quota
+	 * 
+	 * @since 0.3.9
+	 */
+	public int waiting() {
+		return this.permits.getQueueLength();
 	}
 
 }
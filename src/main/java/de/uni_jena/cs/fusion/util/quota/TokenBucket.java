@@ -0,0 +1,99 @@
+package de.uni_jena.cs.fusion.util.quota;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate of operations while permitting bursts. The bucket holds up
+ * to a capacity of tokens, refilled at a constant rate. Each operation
+ * consumes tokens and is rejected, if not enough tokens are available.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class TokenBucket {
+
+	private final double capacity;
+	/**
+	 * tokens per nanosecond
+	 */
+	private final double rate;
+	private final LongSupplier clock;
+	private double tokens;
+	private long updated;
+
+	/**
+	 * @param capacity
+	 *            maximum number of tokens, determining the maximum burst
+	 * @param rate
+	 *            number of tokens refilled per time unit
+	 * @param unit
+	 *            time unit of the rate
+	 */
+	public TokenBucket(long capacity, double rate, TimeUnit unit) {
+		this(capacity, rate, unit, System::nanoTime);
+	}
+
+	/**
+	 * @param clock
+	 *            source of the current time in nanoseconds
+	 */
+	TokenBucket(long capacity, double rate, TimeUnit unit, LongSupplier clock) {
+		if (capacity < 1 || !(rate > 0)) {
+			throw new IllegalArgumentException("Capacity and rate must be positive.");
+		}
+		this.capacity = capacity;
+		this.rate = rate / unit.toNanos(1);
+		this.clock = clock;
+		this.tokens = capacity;
+		this.updated = clock.getAsLong();
+	}
+
+	/**
+	 * Consumes the given number of tokens, if available.
+	 * 
+	 * @param count
+	 *            number of tokens to consume, at most the capacity
+	 * @return <code>0</code>, if the tokens have been consumed, otherwise the
+	 *         time in nanoseconds until enough tokens will be available
+	 */
+	public synchronized long tryConsume(long count) {
+		long now = this.clock.getAsLong();
+		this.tokens = Math.min(this.capacity, this.tokens + (now - this.updated) * this.rate);
+		this.updated = now;
+		double required = Math.min(count, this.capacity);
+		if (this.tokens >= required) {
+			this.tokens -= required;
+			return 0;
+		} else {
+			return Math.max(1, (long) Math.ceil((required - this.tokens) / this.rate));
+		}
+	}
+
+	/**
+	 * @return number of currently available tokens
+	 */
+	public synchronized double available() {
+		return Math.min(this.capacity, this.tokens + (this.clock.getAsLong() - this.updated) * this.rate);
+	}
+}
@@ -0,0 +1,327 @@
+package de.uni_jena.cs.fusion.util.trie;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <p>
+ * Immutable prefix index returning the top ranked entries for a prefix
+ * without traversing the matching entries.
+ * </p>
+ * 
+ * <p>
+ * The keys are stored in a sorted array and each node of the path compressed
+ * trie refers to the range of keys starting with its prefix. Each node holds
+ * the precomputed top entries of its range with distinct values, ranked by
+ * descending weight, ascending key length and key. A lookup therefore only
+ * costs the descent along the prefix.
+ * </p>
+ * 
+ * @param <T>
+ *            type of the values
+ * 
+ * @since 0.3.9
+ *
+ */
+public class CompletionTrie<T> {
+
+	private final String[] keys;
+	private final String[] texts;
+	private final Object[] values;
+	private final long[] weights;
+	private final Node root;
+	private final int capacity;
+
+	/**
+	 * Entry returned by a lookup.
+	 */
+	public static class Completion<T> {
+		public final String text;
+		public final T value;
+		public final long weight;
+
+		private Completion(String text, T value, long weight) {
+			this.text = text;
+			this.value = value;
+			this.weight = weight;
+		}
+
+		@Override
+		public String toString() {
+			return "{" + text + ":" + value + ":" + weight + "}";
+		}
+	}
+
+	public static class Builder<T> {
+		private final List<String> texts = new ArrayList<String>();
+		private final List<T> values = new ArrayList<T>();
+		private final List<Long> weights = new ArrayList<Long>();
+
+		/**
+		 * @param text
+		 *            text to complete, matched case insensitive
+		 * @param value
+		 *            value of the text
+		 * @param weight
+		 *            weight of the entry, higher weights rank first
+		 * @return this {@link Builder}
+		 */
+		public Builder<T> add(String text, T value, long weight) {
+			texts.add(text);
+			values.add(value);
+			weights.add(weight);
+			return this;
+		}
+
+		/**
+		 * @param capacity
+		 *            maximum number of completions per prefix
+		 * @return the {@link CompletionTrie} containing the added entries
+		 */
+		public CompletionTrie<T> build(int capacity) {
+			return new CompletionTrie<T>(texts, values, weights, capacity);
+		}
+	}
+
+	private static class Node {
+		/**
+		 * length of the common prefix of the keys of this node
+		 */
+		final int depth;
+		/**
+		 * index of a key starting with the prefix of this node
+		 */
+		final int first;
+		/**
+		 * number of keys starting with the prefix of this node
+		 */
+		final int size;
+		/**
+		 * sorted characters following the prefix in the keys of the children
+		 */
+		final char[] labels;
+		final Node[] children;
+		/**
+		 * indices of the top entries in rank order
+		 */
+		final int[] top;
+
+		Node(int depth, int first, int size, char[] labels, Node[] children, int[] top) {
+			this.depth = depth;
+			this.first = first;
+			this.size = size;
+			this.labels = labels;
+			this.children = children;
+			this.top = top;
+		}
+	}
+
+	private CompletionTrie(List<String> texts, List<T> values, List<Long> weights, int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive.");
+		}
+		this.capacity = capacity;
+		int size = texts.size();
+		String[] unsortedKeys = new String[size];
+		Integer[] order = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			unsortedKeys[i] = normalize(texts.get(i));
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparing((Integer i) -> unsortedKeys[i]));
+		this.keys = new String[size];
+		this.texts = new String[size];
+		this.values = new Object[size];
+		this.weights = new long[size];
+		for (int i = 0; i < size; i++) {
+			this.keys[i] = unsortedKeys[order[i]];
+			this.texts[i] = texts.get(order[i]);
+			this.values[i] = values.get(order[i]);
+			this.weights[i] = weights.get(order[i]);
+		}
+		this.root = (size > 0) ? build(0, size) : null;
+	}
+
+	private static String normalize(String text) {
+		return text.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Compares entries by descending weight, ascending key length and key.
+	 */
+	private int compare(int a, int b) {
+		if (weights[a] != weights[b]) {
+			return Long.compare(weights[b], weights[a]);
+		} else if (keys[a].length() != keys[b].length()) {
+			return Integer.compare(keys[a].length(), keys[b].length());
+		} else {
+			return Integer.compare(a, b);
+		}
+	}
+
+	private Node build(int from, int to) {
+		int depth = commonPrefixLength(keys[from], keys[to - 1]);
+		// keys equal to the prefix come first
+		int start = from;
+		while (start < to && keys[start].length() == depth) {
+			start++;
+		}
+		List<Integer> candidates = new ArrayList<Integer>();
+		for (int i = from; i < start; i++) {
+			candidates.add(i);
+		}
+		List<Character> labels = new ArrayList<Character>();
+		List<Node> children = new ArrayList<Node>();
+		while (start < to) {
+			char label = keys[start].charAt(depth);
+			int end = start + 1;
+			while (end < to && keys[end].charAt(depth) == label) {
+				end++;
+			}
+			Node child = build(start, end);
+			labels.add(label);
+			children.add(child);
+			for (int index : child.top) {
+				candidates.add(index);
+			}
+			start = end;
+		}
+		candidates.sort(this::compare);
+		int[] top = new int[Math.min(capacity, candidates.size())];
+		int count = 0;
+		for (int index : candidates) {
+			if (count == top.length) {
+				break;
+			}
+			if (!containsValue(top, count, values[index])) {
+				top[count++] = index;
+			}
+		}
+		char[] labelArray = new char[labels.size()];
+		for (int i = 0; i < labelArray.length; i++) {
+			labelArray[i] = labels.get(i);
+		}
+		return new Node(depth, from, to - from, labelArray, children.toArray(new Node[children.size()]),
+				Arrays.copyOf(top, count));
+	}
+
+	private boolean containsValue(int[] indices, int count, Object value) {
+		for (int i = 0; i < count; i++) {
+			if (values[indices[i]].equals(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int commonPrefixLength(String a, String b) {
+		int length = Math.min(a.length(), b.length());
+		for (int i = 0; i < length; i++) {
+			if (a.charAt(i) != b.charAt(i)) {
+				return i;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the top ranked completions of a prefix with distinct values.
+	 * 
+	 * @param prefix
+	 *            prefix to complete, matched case insensitive
+	 * @param limit
+	 *            maximum number of completions, effectively limited by the
+	 *            capacity of this trie
+	 * @return {@link List} of {@link Completion}s in rank order
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Completion<T>> complete(String prefix, int limit) {
+		Node node = find(normalize(prefix));
+		if (node == null) {
+			return Collections.emptyList();
+		}
+		List<Completion<T>> completions = new ArrayList<Completion<T>>();
+		for (int i = 0; i < node.top.length && i < limit; i++) {
+			int index = node.top[i];
+			completions.add(new Completion<T>(texts[index], (T) values[index], weights[index]));
+		}
+		return completions;
+	}
+
+	/**
+	 * Returns whether {@link #complete(String, int)} returns all entries
+	 * starting with a prefix, including all texts of values with several
+	 * matching texts.
+	 * 
+	 * @param prefix
+	 *            prefix to complete, matched case insensitive
+	 * @param limit
+	 *            maximum number of completions
+	 * @return <code>true</code>, if no matching entry gets omitted
+	 * 
+	 * @since 0.3.9
+	 */
+	public boolean isExhaustive(String prefix, int limit) {
+		Node node = find(normalize(prefix));
+		return node == null || node.size == node.top.length && node.top.length <= limit;
+	}
+
+	/**
+	 * @param key
+	 *            normalized prefix
+	 * @return the node of the keys starting with the prefix or
+	 *         <code>null</code>, if no key starts with the prefix
+	 */
+	private Node find(String key) {
+		Node node = root;
+		int matched = 0;
+		while (node != null) {
+			int length = Math.min(key.length(), node.depth);
+			if (!keys[node.first].regionMatches(matched, key, matched, length - matched)) {
+				return null;
+			}
+			if (key.length() <= node.depth) {
+				return node;
+			}
+			int child = Arrays.binarySearch(node.labels, key.charAt(node.depth));
+			if (child < 0) {
+				return null;
+			}
+			matched = node.depth + 1;
+			node = node.children[child];
+		}
+		return null;
+	}
+
+	/**
+	 * @return number of entries of this trie
+	 */
+	public int size() {
+		return keys.length;
+	}
+}
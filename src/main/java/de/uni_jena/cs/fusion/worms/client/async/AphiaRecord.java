@@ -0,0 +1,46 @@
+package de.uni_jena.cs.fusion.worms.client.async;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Record of a taxon as returned by the WoRMS REST webservice.
+ * 
+ * @since 0.3.9
+ *
+ */
+public class AphiaRecord {
+	@JsonProperty("AphiaID")
+	public long aphiaId;
+	public String url;
+	@JsonProperty("scientificname")
+	public String scientificName;
+	public String authority;
+	public String status;
+	@JsonProperty("rank")
+	public String taxonomicRank;
+	@JsonProperty("valid_AphiaID")
+	public long validAphiaId;
+	public String citation;
+	public String lsid;
+}
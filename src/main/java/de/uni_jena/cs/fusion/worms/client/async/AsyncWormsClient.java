@@ -0,0 +1,307 @@
+package de.uni_jena.cs.fusion.worms.client.async;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * <p>
+ * A non-blocking client for the
+ * <a href="http://www.marinespecies.org/rest/">WoRMS REST webservice</a>.
+ * </p>
+ * 
+ * <p>
+ * All requests are executed by a small number of I/O threads and return a
+ * {@link CompletableFuture}, so that concurrent requests do not occupy a
+ * thread each while waiting for the service. Connections are pooled and kept
+ * alive, and the number of concurrent connections per host is limited. Further
+ * requests wait for a free connection. Cancelling a returned future aborts its
+ * request.
+ * </p>
+ * 
+ * @since 0.3.9
+ *
+ */
+public class AsyncWormsClient implements Closeable {
+
+	public final static String SERVICE_DEFAULT_URL = "http://www.marinespecies.org/rest/";
+	private final static int SERVICE_DEFAULT_MAX_CONNECTIONS_PER_HOST = 10;
+	private final static int SERVICE_DEFAULT_TIMEOUT = 30000; // milliseconds
+	private final static int IO_THREADS = 2;
+	private final static long KEEP_ALIVE = 30000; // milliseconds
+
+	private final static ObjectMapper JSON = new ObjectMapper()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+	private final static JavaType RECORD = JSON.getTypeFactory().constructType(AphiaRecord.class);
+	private final static JavaType RECORDS = JSON.getTypeFactory().constructCollectionType(List.class,
+			AphiaRecord.class);
+	private final static JavaType VERNACULARS = JSON.getTypeFactory().constructCollectionType(List.class,
+			Vernacular.class);
+	private final static JavaType STRINGS = JSON.getTypeFactory().constructCollectionType(List.class,
+			String.class);
+
+	private final String serviceUrl;
+	private final CloseableHttpAsyncClient httpClient;
+
+	/**
+	 * Constructs an {@link AsyncWormsClient} for the public WoRMS webservice
+	 * with at most 10 concurrent connections.
+	 * 
+	 * @throws AsyncWormsClientException
+	 *             if the I/O threads could not be started
+	 */
+	public AsyncWormsClient() throws AsyncWormsClientException {
+		this(SERVICE_DEFAULT_URL, SERVICE_DEFAULT_MAX_CONNECTIONS_PER_HOST, SERVICE_DEFAULT_TIMEOUT);
+	}
+
+	/**
+	 * @param serviceUrl
+	 *            base URL of the webservice, ending with a slash
+	 * @param maxConnectionsPerHost
+	 *            maximum number of concurrent connections to one host
+	 * @param timeout
+	 *            timeout in milliseconds to connect, to wait for a free
+	 *            connection and between two packets of a response
+	 * @throws AsyncWormsClientException
+	 *             if the I/O threads could not be started
+	 */
+	public AsyncWormsClient(String serviceUrl, int maxConnectionsPerHost, int timeout)
+			throws AsyncWormsClientException {
+		this.serviceUrl = Objects.requireNonNull(serviceUrl);
+		ThreadFactory threadFactory = new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "worms-client-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+		try {
+			PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+					new DefaultConnectingIOReactor(IOReactorConfig.custom().setIoThreadCount(IO_THREADS)
+							.setConnectTimeout(timeout).setSoTimeout(timeout).setSoKeepAlive(true).build(),
+							threadFactory));
+			connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+			connectionManager.setMaxTotal(maxConnectionsPerHost);
+			// keep connections alive as long as permitted by the service
+			ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+				long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+				return (duration > 0) ? duration : KEEP_ALIVE;
+			};
+			this.httpClient = HttpAsyncClients.custom().setConnectionManager(connectionManager)
+					.setKeepAliveStrategy(keepAliveStrategy).setThreadFactory(threadFactory)
+					.setDefaultRequestConfig(RequestConfig.custom().setConnectTimeout(timeout)
+							.setSocketTimeout(timeout).setConnectionRequestTimeout(timeout).build())
+					.build();
+		} catch (IOReactorException e) {
+			throw new AsyncWormsClientException("Failed to start I/O reactor.", e);
+		}
+		this.httpClient.start();
+	}
+
+	/**
+	 * @param aphiaId
+	 *            AphiaID of the taxon
+	 * @return future of the record of the taxon, completed with
+	 *         <code>null</code> if the taxon does not exist
+	 */
+	public CompletableFuture<AphiaRecord> aphiaRecordByAphiaId(long aphiaId) {
+		return request("AphiaRecordByAphiaID/" + aphiaId, RECORD, null);
+	}
+
+	/**
+	 * @param id
+	 *            external identifier of the taxon
+	 * @param type
+	 *            type of the external identifier, e.g. <code>ncbi</code>
+	 * @return future of the record of the taxon, completed with
+	 *         <code>null</code> if the taxon does not exist
+	 */
+	public CompletableFuture<AphiaRecord> aphiaRecordByExternalId(String id, String type) {
+		return request("AphiaRecordByExternalID/" + encode(id) + "?type=" + encode(type), RECORD, null);
+	}
+
+	/**
+	 * @param aphiaId
+	 *            AphiaID of the taxon
+	 * @return future of the records of the synonyms of the taxon
+	 */
+	public CompletableFuture<List<AphiaRecord>> aphiaSynonymsByAphiaId(long aphiaId) {
+		return request("AphiaSynonymsByAphiaID/" + aphiaId, RECORDS, Collections.emptyList());
+	}
+
+	/**
+	 * @param aphiaId
+	 *            AphiaID of the taxon
+	 * @return future of the vernacular names of the taxon
+	 */
+	public CompletableFuture<List<Vernacular>> aphiaVernacularsByAphiaId(long aphiaId) {
+		return request("AphiaVernacularsByAphiaID/" + aphiaId, VERNACULARS, Collections.emptyList());
+	}
+
+	/**
+	 * @param aphiaId
+	 *            AphiaID of the taxon
+	 * @param type
+	 *            type of the external identifiers, e.g. <code>ncbi</code>
+	 * @return future of the external identifiers of the taxon
+	 */
+	public CompletableFuture<List<String>> aphiaExternalIdByAphiaId(long aphiaId, String type) {
+		return request("AphiaExternalIDByAphiaID/" + aphiaId + "?type=" + encode(type), STRINGS,
+				Collections.emptyList());
+	}
+
+	private static String encode(String value) {
+		try {
+			return URLEncoder.encode(Objects.requireNonNull(value), "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			// unreachable, as UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param path
+	 *            path and query relative to the service URL
+	 * @param type
+	 *            type of the response content
+	 * @param noContent
+	 *            result in case of status code 204 (no content)
+	 * @return future of the response content
+	 */
+	private <T> CompletableFuture<T> request(String path, JavaType type, T noContent) {
+		String url = serviceUrl + path;
+		HttpGet httpGet = new HttpGet(url);
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		Future<HttpResponse> execution = httpClient.execute(httpGet, new FutureCallback<HttpResponse>() {
+
+			@Override
+			public void completed(HttpResponse response) {
+				int status = response.getStatusLine().getStatusCode();
+				if (status == HttpStatus.SC_NO_CONTENT) {
+					result.complete(noContent);
+				} else if (status != HttpStatus.SC_OK || response.getEntity() == null) {
+					result.completeExceptionally(
+							new AsyncWormsClientException("\"" + url + "\" returned status " + status + "."));
+				} else {
+					try (InputStream content = response.getEntity().getContent()) {
+						result.complete(JSON.readValue(content, type));
+					} catch (IOException e) {
+						result.completeExceptionally(
+								new AsyncWormsClientException("\"" + url + "\" returned invalid response.", e));
+					}
+				}
+			}
+
+			@Override
+			public void failed(Exception e) {
+				result.completeExceptionally(new AsyncWormsClientException("Request failed on \"" + url + "\".", e));
+			}
+
+			@Override
+			public void cancelled() {
+				result.cancel(false);
+			}
+		});
+		// abort the request, if the result is not needed anymore
+		result.whenComplete((value, e) -> {
+			if (result.isCancelled()) {
+				httpGet.abort();
+				execution.cancel(true);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.httpClient.close();
+	}
+
+	/**
+	 * Waits for the completion of a future of this client.
+	 * 
+	 * @param future
+	 *            the future to wait for
+	 * @param timeout
+	 *            maximum time to wait
+	 * @param unit
+	 *            unit of the timeout
+	 * @return the result of the future
+	 * @throws AsyncWormsClientException
+	 *             if the request failed, timed out or the current thread was
+	 *             interrupted, in the later cases the request gets cancelled
+	 */
+	public static <T> T await(CompletableFuture<T> future, long timeout, TimeUnit unit)
+			throws AsyncWormsClientException {
+		try {
+			return future.get(timeout, unit);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof AsyncWormsClientException) {
+				throw (AsyncWormsClientException) e.getCause();
+			}
+			throw new AsyncWormsClientException(e.getCause());
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new AsyncWormsClientException("Interrupted while waiting for response.", e);
+		} catch (TimeoutException | CancellationException e) {
+			future.cancel(true);
+			throw new AsyncWormsClientException("Request timed out or cancelled.", e);
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package de.uni_jena.cs.fusion.worms.client.async;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+public class AsyncWormsClientException extends Exception {
+	private static final long serialVersionUID = 3866160514416211549L;
+
+	public AsyncWormsClientException() {
+	}
+
+	public AsyncWormsClientException(String message) {
+		super(message);
+	}
+
+	public AsyncWormsClientException(Throwable cause) {
+		super(cause);
+	}
+
+	public AsyncWormsClientException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
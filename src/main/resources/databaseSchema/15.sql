@@ -0,0 +1,91 @@
+---
+-- #%L
+-- LakeBase Semantic Service
+-- %%
+-- Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+-- %%
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+-- 
+--      http://www.apache.org/licenses/LICENSE-2.0
+-- 
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+-- #L%
+---
+CREATE TABLE semantic.concept_narrower_count (
+	concept_id bigint NOT NULL,
+	narrower_count bigint NOT NULL,
+	CONSTRAINT concept_narrower_count_pk
+		PRIMARY KEY (concept_id),
+	CONSTRAINT concept_narrower_count_fk
+		FOREIGN KEY (concept_id)
+		REFERENCES semantic.concept (concept_id)
+		ON UPDATE CASCADE
+		ON DELETE CASCADE
+);
+
+COMMENT ON TABLE semantic.concept_narrower_count IS 'Contains the precomputed number of narrower concepts per concept, according to semantic.concept_hierarchy. Concepts without entry do not have narrower concepts.';
+COMMENT ON COLUMN semantic.concept_narrower_count.concept_id IS 'ID of the concept.';
+COMMENT ON COLUMN semantic.concept_narrower_count.narrower_count IS 'Number of narrower concepts, including transitive narrower concepts and synonyms.';
+
+CREATE TABLE semantic.search_index (
+	searched_concept_id bigint NOT NULL,
+	annotated_concept_id bigint NOT NULL,
+	package_id bigint NOT NULL,
+	object_id bigint,
+	column_id bigint,
+	row_id bigint,
+	meta_id bigint,
+	ranking numeric NOT NULL
+);
+
+CREATE INDEX search_index_searched ON semantic.search_index (searched_concept_id, package_id, object_id, column_id, row_id);
+CREATE INDEX search_index_annotated ON semantic.search_index (annotated_concept_id);
+CREATE INDEX search_index_entity ON semantic.search_index (package_id, object_id, column_id, row_id, meta_id);
+
+COMMENT ON TABLE semantic.search_index IS 'Contains rankings of data entities per concept, based on the concept hierarchy and the annoations. Materialized replacement of semantic.search, which is maintained incrementally on changes of semantic.annotation and semantic.concept_hierarchy.';
+COMMENT ON COLUMN semantic.search_index.searched_concept_id IS 'ID of the searched concept.';
+COMMENT ON COLUMN semantic.search_index.annotated_concept_id IS 'ID of the annotated concept.';
+COMMENT ON COLUMN semantic.search_index.package_id IS 'PackageID of the entity.';
+COMMENT ON COLUMN semantic.search_index.object_id IS 'ObjectID of the entity.';
+COMMENT ON COLUMN semantic.search_index.column_id IS 'ColumnID of the entity.';
+COMMENT ON COLUMN semantic.search_index.row_id IS 'RowID of the entity.';
+COMMENT ON COLUMN semantic.search_index.meta_id IS 'MetaID of the entity.';
+COMMENT ON COLUMN semantic.search_index.ranking IS 'Ranking of the entity for this concept.';
+
+INSERT INTO semantic.concept_narrower_count (concept_id, narrower_count)
+	SELECT broader_concept_id, COUNT(*)
+		FROM semantic.concept_hierarchy
+		GROUP BY broader_concept_id;
+
+INSERT INTO semantic.search_index
+	SELECT h.broader_concept_id,
+			a.concept_id,
+			a.package_id,
+			a.object_id,
+			a.column_id,
+			a.row_id,
+			a.meta_id,
+			(1.0 + COALESCE(n.narrower_count, 0)) / (1.0 + COALESCE(b.narrower_count, 0))
+		FROM semantic.annotation a
+			INNER JOIN semantic.concept_hierarchy h
+				ON h.narrower_concept_id = a.concept_id
+			LEFT JOIN semantic.concept_narrower_count n
+				ON n.concept_id = h.narrower_concept_id
+			LEFT JOIN semantic.concept_narrower_count b
+				ON b.concept_id = h.broader_concept_id
+	UNION
+	SELECT a.concept_id,
+			a.concept_id,
+			a.package_id,
+			a.object_id,
+			a.column_id,
+			a.row_id,
+			a.meta_id,
+			1.0
+		FROM semantic.annotation a;
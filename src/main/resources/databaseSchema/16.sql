@@ -0,0 +1,34 @@
+---
+-- #%L
+-- LakeBase Semantic Service
+-- %%
+-- Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+-- %%
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+-- 
+--      http://www.apache.org/licenses/LICENSE-2.0
+-- 
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+-- #L%
+---
+CREATE TABLE semantic.deprecation_check (
+	concept_id bigint NOT NULL,
+	checked timestamp with time zone NOT NULL,
+	CONSTRAINT deprecation_check_pk
+		PRIMARY KEY (concept_id),
+	CONSTRAINT deprecation_check_fk
+		FOREIGN KEY (concept_id)
+		REFERENCES semantic.concept (concept_id)
+		ON UPDATE CASCADE
+		ON DELETE CASCADE
+);
+
+COMMENT ON TABLE semantic.deprecation_check IS 'Contains the time of the last deprecation check per concept, to skip recently checked concepts in the annotation maintenance. Concepts without entry have not been checked yet.';
+COMMENT ON COLUMN semantic.deprecation_check.concept_id IS 'ID of the checked concept.';
+COMMENT ON COLUMN semantic.deprecation_check.checked IS 'Time of the last successful deprecation check.';
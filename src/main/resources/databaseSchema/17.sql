@@ -0,0 +1,46 @@
+---
+-- #%L
+-- LakeBase Semantic Service
+-- %%
+-- Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+-- %%
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+-- 
+--      http://www.apache.org/licenses/LICENSE-2.0
+-- 
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+-- #L%
+---
+CREATE TABLE semantic.annotation_task (
+	task_id bigserial NOT NULL,
+	job_id uuid NOT NULL,
+	annotation text NOT NULL,
+	state text NOT NULL DEFAULT 'queued',
+	attempts integer NOT NULL DEFAULT 0,
+	available timestamp with time zone NOT NULL DEFAULT current_timestamp,
+	updated timestamp with time zone NOT NULL DEFAULT current_timestamp,
+	error text,
+	CONSTRAINT annotation_task_pk
+		PRIMARY KEY (task_id),
+	CONSTRAINT annotation_task_state
+		CHECK (state IN ('queued', 'running', 'done', 'failed'))
+);
+
+CREATE INDEX annotation_task_job ON semantic.annotation_task (job_id);
+CREATE INDEX annotation_task_pending ON semantic.annotation_task (available) WHERE state IN ('queued', 'running');
+
+COMMENT ON TABLE semantic.annotation_task IS 'Contains the texts of annotation jobs submitted to /annotation/set, shared by all service instances. Workers claim tasks with SELECT ... FOR UPDATE SKIP LOCKED.';
+COMMENT ON COLUMN semantic.annotation_task.task_id IS 'ID of the task, determines the processing order.';
+COMMENT ON COLUMN semantic.annotation_task.job_id IS 'ID of the job the task belongs to.';
+COMMENT ON COLUMN semantic.annotation_task.annotation IS 'JSON of the text to annotate, its entities and its accepted and rejected annotations.';
+COMMENT ON COLUMN semantic.annotation_task.state IS 'Processing state: queued, running, done or failed.';
+COMMENT ON COLUMN semantic.annotation_task.attempts IS 'Number of processing attempts.';
+COMMENT ON COLUMN semantic.annotation_task.available IS 'Time the task may be claimed, either for the next attempt of a queued task or to take over a running task of a crashed worker.';
+COMMENT ON COLUMN semantic.annotation_task.updated IS 'Time of the last state change.';
+COMMENT ON COLUMN semantic.annotation_task.error IS 'Message of the last failed attempt.';
@@ -0,0 +1,22 @@
+---
+-- #%L
+-- LakeBase Semantic Service
+-- %%
+-- Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+-- %%
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+-- 
+--      http://www.apache.org/licenses/LICENSE-2.0
+-- 
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+-- #L%
+---
+ALTER TABLE semantic.search_index DROP COLUMN ranking;
+
+COMMENT ON TABLE semantic.search_index IS 'Contains the data entities per searched concept together with the annotated concept, based on the concept hierarchy and the annotations. Rankings get computed on search from semantic.concept_narrower_count. Materialized replacement of semantic.search, which is maintained incrementally on changes of semantic.annotation and semantic.concept_hierarchy.';
@@ -0,0 +1,50 @@
+---
+-- #%L
+-- LakeBase Semantic Service
+-- %%
+-- Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+-- %%
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+-- 
+--      http://www.apache.org/licenses/LICENSE-2.0
+-- 
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+-- #L%
+---
+CREATE TABLE semantic.data_version (
+	version bigint NOT NULL
+);
+
+INSERT INTO semantic.data_version (version) VALUES (0);
+
+COMMENT ON TABLE semantic.data_version IS 'Contains the version of the annotations and the concept hierarchy shared by all service instances. Incremented inside of each changing transaction right before its commit, so that the versions follow the commit order.';
+COMMENT ON COLUMN semantic.data_version.version IS 'Version of the last committed change.';
+
+CREATE TABLE semantic.data_change (
+	version bigint NOT NULL,
+	origin uuid NOT NULL,
+	created timestamp with time zone NOT NULL DEFAULT current_timestamp,
+	rebuild boolean NOT NULL,
+	narrower_concept_ids bigint[] NOT NULL,
+	annotated_concept_ids bigint[] NOT NULL,
+	package_ids bigint[] NOT NULL,
+	CONSTRAINT data_change_pk
+		PRIMARY KEY (version)
+);
+
+CREATE INDEX data_change_created ON semantic.data_change (created);
+
+COMMENT ON TABLE semantic.data_change IS 'Contains the changes of the search index per version, used by the other service instances to update their in-memory search index.';
+COMMENT ON COLUMN semantic.data_change.version IS 'Version of the change, see semantic.data_version.';
+COMMENT ON COLUMN semantic.data_change.origin IS 'ID of the service instance that made the change.';
+COMMENT ON COLUMN semantic.data_change.created IS 'Time of the change.';
+COMMENT ON COLUMN semantic.data_change.rebuild IS 'Whether the whole search index has been rebuilt.';
+COMMENT ON COLUMN semantic.data_change.narrower_concept_ids IS 'IDs of the concepts with changed narrowers.';
+COMMENT ON COLUMN semantic.data_change.annotated_concept_ids IS 'IDs of the concepts with changed broaders or annotations.';
+COMMENT ON COLUMN semantic.data_change.package_ids IS 'IDs of the packages with changed annotations.';
@@ -0,0 +1,262 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.model.IRI;
+
+import de.uni_jena.cs.fusion.lakebase.model.Annotation;
+import de.uni_jena.cs.fusion.lakebase.model.AnnotationJobStatus;
+import de.uni_jena.cs.fusion.lakebase.model.AnnotationJobStatus.State;
+import de.uni_jena.cs.fusion.lakebase.model.EntitiesAnnotation;
+import de.uni_jena.cs.fusion.lakebase.model.Entity;
+import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceManager;
+
+/**
+ * 
+ * @since 0.3.9
+ *
+ */
+public class AnnotationJobQueueTest {
+
+	private final static ThreadFactory threadFactory = runnable -> {
+		Thread thread = new Thread(runnable);
+		thread.setDaemon(true);
+		return thread;
+	};
+
+	@Test
+	public void capacity() throws Exception {
+		DataSource dbm = DatabaseManagerTest.createTestDatabaseManager();
+		AnnotationManager am = annotationManager(dbm);
+
+		try (AnnotationWriter writer = new AnnotationWriter(dbm, am, 10, 10, TimeUnit.MILLISECONDS)) {
+			AnnotationJobStatus status;
+
+			// instance without workers
+			try (AnnotationJobQueue queue = new AnnotationJobQueue(dbm, new CountingAnnotator(0), writer, 2, 0,
+					threadFactory)) {
+				status = queue.submit(new EntitiesAnnotation[] { annotation(1L, "a"), annotation(2L, "b") });
+				assertEquals(State.queued, status.status);
+				assertEquals(2, status.total);
+				assertEquals(2, queue.size());
+				assertEquals(State.queued, queue.getStatus(status.job).status);
+
+				// queue full
+				try {
+					queue.submit(new EntitiesAnnotation[] { annotation(3L, "c") });
+					fail("Expected exception not thrown.");
+				} catch (RejectedExecutionException e) {
+				}
+				// job exceeds capacity
+				try {
+					queue.submit(new EntitiesAnnotation[] { annotation(3L, "c"), annotation(4L, "d"),
+							annotation(5L, "e") });
+					fail("Expected exception not thrown.");
+				} catch (IllegalArgumentException e) {
+				}
+				assertNull(queue.getStatus("unknown"));
+				assertNull(queue.getStatus("00000000-0000-0000-0000-000000000000"));
+			}
+
+			// jobs survive the instance
+			try (AnnotationJobQueue queue = new AnnotationJobQueue(dbm, new CountingAnnotator(0), writer, 2, 1,
+					threadFactory)) {
+				status = await(queue, status.job);
+				assertEquals(State.done, status.status);
+				assertEquals(2, status.done);
+				assertEquals(0, status.failed);
+				assertEquals(0, queue.size());
+				assertEquals(IRI.create("http://example.org/b"),
+						am.getAcceptedAnnotations(1L, 2L, null, null, null).get("b"));
+
+				// capacity available again
+				queue.submit(new EntitiesAnnotation[] { annotation(3L, "c") });
+			}
+		}
+	}
+
+	@Test
+	public void twoInstances() throws Exception {
+		DataSource dbm = DatabaseManagerTest.createTestDatabaseManager();
+		int texts = 20;
+		EntitiesAnnotation[] annotations = new EntitiesAnnotation[texts];
+		for (int i = 0; i < texts; i++) {
+			annotations[i] = annotation(i, "t" + i);
+		}
+
+		AnnotationManager am1 = annotationManager(dbm);
+		AnnotationManager am2 = annotationManager(dbm);
+		CountingAnnotator annotator1 = new CountingAnnotator(50);
+		CountingAnnotator annotator2 = new CountingAnnotator(50);
+		try (AnnotationWriter writer1 = new AnnotationWriter(dbm, am1, 10, 10, TimeUnit.MILLISECONDS);
+				AnnotationWriter writer2 = new AnnotationWriter(dbm, am2, 10, 10, TimeUnit.MILLISECONDS);
+				AnnotationJobQueue queue1 = new AnnotationJobQueue(dbm, annotator1, writer1, 100, 2, threadFactory);
+				AnnotationJobQueue queue2 = new AnnotationJobQueue(dbm, annotator2, writer2, 100, 2,
+						threadFactory)) {
+			queue1.setPolling(50, 60000, TimeUnit.MILLISECONDS);
+			queue2.setPolling(50, 60000, TimeUnit.MILLISECONDS);
+
+			AnnotationJobStatus status = await(queue2, queue1.submit(annotations).job);
+			assertEquals(State.done, status.status);
+			assertEquals(texts, status.done);
+		}
+
+		// each text processed once, by both instances
+		assertEquals(texts, annotator1.calls.get() + annotator2.calls.get());
+		assertTrue(annotator1.calls.get() > 0);
+		assertTrue(annotator2.calls.get() > 0);
+		for (int i = 0; i < texts; i++) {
+			assertEquals(IRI.create("http://example.org/t" + i),
+					am1.getAcceptedAnnotations(1L, (long) i, null, null, null).get("t" + i));
+		}
+	}
+
+	@Test
+	public void retry() throws Exception {
+		DataSource dbm = DatabaseManagerTest.createTestDatabaseManager();
+		AnnotationManager am = annotationManager(dbm);
+		AtomicInteger flakyCalls = new AtomicInteger();
+		AtomicInteger failCalls = new AtomicInteger();
+		Annotator annotator = new Annotator(new SemanticDataSourceManager()) {
+			@Override
+			public Map<String, IRI> determineAnnotations(String query, Map<String, IRI> predefined,
+					Map<String, Collection<IRI>> excluded, Collection<Scope> scopes) throws AnnotatorException {
+				if (query.equals("flaky") && flakyCalls.incrementAndGet() == 1) {
+					throw new AnnotatorException("Temporarily failed to annotate.");
+				}
+				if (query.equals("fail")) {
+					failCalls.incrementAndGet();
+					throw new AnnotatorException("Failed to annotate.");
+				}
+				return super.determineAnnotations(query, predefined, excluded, scopes);
+			}
+		};
+
+		try (AnnotationWriter writer = new AnnotationWriter(dbm, am, 10, 10, TimeUnit.MILLISECONDS);
+				AnnotationJobQueue queue = new AnnotationJobQueue(dbm, annotator, writer, 10, 1, threadFactory)) {
+			queue.setRetry(3, 10, TimeUnit.MILLISECONDS);
+			queue.setPolling(10, 60000, TimeUnit.MILLISECONDS);
+
+			AnnotationJobStatus status = await(queue,
+					queue.submit(new EntitiesAnnotation[] { annotation(1L, "flaky"), annotation(2L, "fail") }).job);
+			assertEquals(State.failed, status.status);
+			assertEquals(1, status.done);
+			assertEquals(1, status.failed);
+			assertEquals(2, flakyCalls.get());
+			assertEquals(3, failCalls.get());
+			assertEquals(IRI.create("http://example.org/flaky"),
+					am.getAcceptedAnnotations(1L, 1L, null, null, null).get("flaky"));
+		}
+	}
+
+	@Test
+	public void exhaustedLease() throws Exception {
+		DataSource dbm = DatabaseManagerTest.createTestDatabaseManager();
+		AnnotationManager am = annotationManager(dbm);
+		CountingAnnotator annotator = new CountingAnnotator(0);
+
+		try (AnnotationWriter writer = new AnnotationWriter(dbm, am, 10, 10, TimeUnit.MILLISECONDS)) {
+			String job;
+			try (AnnotationJobQueue queue = new AnnotationJobQueue(dbm, annotator, writer, 10, 0, threadFactory)) {
+				job = queue.submit(new EntitiesAnnotation[] { annotation(1L, "crashed") }).job;
+			}
+			// last of the default attempts by a crashed worker
+			try (Connection connection = dbm.getConnection(); Statement statement = connection.createStatement()) {
+				statement.execute("UPDATE semantic.annotation_task SET state = 'running', attempts = 5, "
+						+ "available = now() - interval '1 second'");
+			}
+
+			try (AnnotationJobQueue queue = new AnnotationJobQueue(dbm, annotator, writer, 10, 1, threadFactory)) {
+				AnnotationJobStatus status = await(queue, job);
+				assertEquals(State.failed, status.status);
+				assertEquals(1, status.failed);
+				assertEquals(0, annotator.calls.get());
+			}
+		}
+	}
+
+	private static AnnotationManager annotationManager(DataSource dbm) {
+		return new AnnotationManager(dbm, new SemanticDataSourceManager(), new ConceptManager(dbm),
+				new DataVersion());
+	}
+
+	private static AnnotationJobStatus await(AnnotationJobQueue queue, String job) throws Exception {
+		long deadline = System.currentTimeMillis() + 30000;
+		AnnotationJobStatus status = queue.getStatus(job);
+		while ((status.status == State.queued || status.status == State.running)
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+			status = queue.getStatus(job);
+		}
+		return status;
+	}
+
+	private static EntitiesAnnotation annotation(long object, String term) {
+		return new EntitiesAnnotation(term, Collections.emptyList(),
+				Collections.singletonList(new Entity(1L, object, null, null, null)),
+				Collections.singletonList(new Annotation(term, IRI.create("http://example.org/" + term), null)),
+				Collections.emptyList());
+	}
+
+	/**
+	 * {@link Annotator} counting and delaying the determination of annotations
+	 */
+	private static class CountingAnnotator extends Annotator {
+		final AtomicInteger calls = new AtomicInteger();
+		final long delay;
+
+		CountingAnnotator(long delay) {
+			super(new SemanticDataSourceManager());
+			this.delay = delay;
+		}
+
+		@Override
+		public Map<String, IRI> determineAnnotations(String query, Map<String, IRI> predefined,
+				Map<String, Collection<IRI>> excluded, Collection<Scope> scopes) throws AnnotatorException {
+			calls.incrementAndGet();
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return super.determineAnnotations(query, predefined, excluded, scopes);
+		}
+	}
+
+}
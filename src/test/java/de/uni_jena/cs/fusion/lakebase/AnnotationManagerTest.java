@@ -25,17 +25,30 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.DataSource;
 
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import de.uni_jena.cs.fusion.lakebase.model.Entity;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSource;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceException;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceManager;
@@ -50,6 +63,8 @@ import de.uni_jena.cs.fusion.util.maintainer.MaintenanceException;
  */
 public class AnnotationManagerTest {
 
+	private final static Logger log = LoggerFactory.getLogger(AnnotationManagerTest.class);
+
 	static DataSource dbm;
 	static AnnotationManager am;
 
@@ -472,11 +487,277 @@ public class AnnotationManagerTest {
 
 		am.setAnnotations(1L, 1L, 1L, 1L, 1L, Collections.singletonMap("a", oldIri),
 				Collections.singletonMap("b", Collections.singleton(oldIri)));
+		// replaced and replacing concept rejected for the same term
+		am.setAnnotations(2L, 2L, 2L, 2L, 2L, Collections.emptyMap(),
+				Collections.singletonMap("c", Arrays.asList(oldIri, newIri)));
 
 		am.maintain();
 
 		assertEquals(newIri, am.getAcceptedAnnotations(1L, 1L, 1L, 1L, 1L).get("a"));
 		assertTrue(am.getRejectedAnnotations(1L, 1L, 1L, 1L, 1L).get("b").contains(newIri));
+		assertEquals(Collections.singletonList(newIri), am.getRejectedAnnotations(2L, 2L, 2L, 2L, 2L).get("c"));
+	}
+
+	@Test
+	public void maintainIncremental() throws Exception {
+		AtomicInteger checks = new AtomicInteger();
+		SemanticDataSource adapter = new SemanticDataSource() {
+			@Override
+			public Collection<String> getNamespaces() {
+				return Collections.emptyList();
+			}
+
+			@Override
+			public Collection<IRI> getScopes() {
+				return Collections.emptyList();
+			}
+
+			@Override
+			public boolean isPresent(IRI iri) {
+				return true;
+			}
+
+			@Override
+			public boolean providingDeprecation() {
+				return true;
+			}
+
+			@Override
+			public boolean isDeprecated(IRI iri) {
+				checks.incrementAndGet();
+				return iri.getIRIString().startsWith("http://example.org/deprecated");
+			}
+
+			@Override
+			public Collection<IRI> getReplacedBy(IRI iri) {
+				return Collections.singleton(IRI.create(iri.getIRIString().replace("deprecated", "replacing")));
+			}
+		};
+		AnnotationManager am = new AnnotationManager(dbm, adapter, new ConceptManager(dbm));
+		am.setDeprecationCheck(4, 1, TimeUnit.HOURS);
+
+		for (long i = 0; i < 10; i++) {
+			am.setAnnotations(23L, i, null, null, null,
+					Collections.singletonMap("a", IRI.create("http://example.org/deprecated" + i)),
+					Collections.singletonMap("b", Collections.singleton(IRI.create("http://example.org/kept" + i))));
+		}
+
+		am.maintain();
+		int firstChecks = checks.get();
+		assertTrue(firstChecks >= 20);
+		for (long i = 0; i < 10; i++) {
+			assertEquals(IRI.create("http://example.org/replacing" + i),
+					am.getAcceptedAnnotations(23L, i, null, null, null).get("a"));
+			assertTrue(am.getRejectedAnnotations(23L, i, null, null, null).get("b")
+					.contains(IRI.create("http://example.org/kept" + i)));
+		}
+
+		// only the replacing concepts have not been checked recently
+		am.maintain();
+		assertEquals(firstChecks + 10, checks.get());
+		am.maintain();
+		assertEquals(firstChecks + 10, checks.get());
+
+		// check again after the interval
+		am.setDeprecationCheck(4, 0, TimeUnit.HOURS);
+		am.maintain();
+		assertTrue(checks.get() >= firstChecks + 30);
+	}
+
+	@Test
+	public void batchAnnotations() throws AnnotationManagerException, SQLException {
+		Entity cell = new Entity(21L, 21L, 21L, 21L, null);
+		Entity column = new Entity(21L, 21L, 21L, null, null);
+		Entity meta = new Entity(21L, null, null, null, 21L);
+		am.setAnnotations(21L, 21L, 21L, 21L, null, Collections.singletonMap("x", IRI.create("http://example.org/x")),
+				Collections.emptyMap());
+
+		try (Connection connection = dbm.getConnection()) {
+			am.setAnnotations(connection, Arrays.asList(
+					new EntityAnnotations(cell, Collections.singletonMap("a", IRI.create("http://example.org/a")),
+							Collections.emptyMap()),
+					new EntityAnnotations(column, Collections.singletonMap("b", IRI.create("http://example.org/b")),
+							Collections.singletonMap("b", Arrays.asList(IRI.create("http://example.org/c"),
+									IRI.create("http://example.org/d")))),
+					new EntityAnnotations(meta, Collections.singletonMap("c", IRI.create("http://example.org/c")),
+							Collections.emptyMap()),
+					// last occurrence applies
+					new EntityAnnotations(meta, Collections.singletonMap("d", IRI.create("http://example.org/d")),
+							Collections.emptyMap())));
+		}
+
+		// previous annotations replaced
+		assertEquals(Collections.singletonMap("a", IRI.create("http://example.org/a")),
+				am.getAcceptedAnnotations(21L, 21L, 21L, 21L, null));
+		assertEquals(Collections.singletonMap("b", IRI.create("http://example.org/b")),
+				am.getAcceptedAnnotations(21L, 21L, 21L, null, null));
+		assertEquals(2, am.getRejectedAnnotations(21L, 21L, 21L, null, null).get("b").size());
+		assertEquals(Collections.singletonMap("d", IRI.create("http://example.org/d")),
+				am.getAcceptedAnnotations(21L, null, null, null, 21L));
+	}
+
+	@Test
+	public void exportImport() throws AnnotationManagerException {
+		am.setAnnotations(24L, 24L, null, null, null, Collections.singletonMap("a", IRI.create("http://example.org/a")),
+				Collections.singletonMap("b", Arrays.asList(IRI.create("http://example.org/c"),
+						IRI.create("http://example.org/d"))));
+		am.setAnnotations(24L, 24L, 24L, null, null, Collections.emptyMap(),
+				Collections.singletonMap("e", Collections.singletonList(IRI.create("http://example.org/e"))));
+		Map<String, IRI> cellAnnotations = new HashMap<String, IRI>();
+		cellAnnotations.put("f", IRI.create("http://example.org/f"));
+		cellAnnotations.put("g", IRI.create("http://example.org/g"));
+		am.setAnnotations(24L, 24L, 24L, 24L, null, cellAnnotations, Collections.emptyMap());
+
+		// export with small fetch size
+		List<EntityAnnotations> exported = new ArrayList<EntityAnnotations>();
+		assertEquals(3, am.exportAnnotations(24L, 2, exported::add));
+		assertEquals(3, exported.size());
+		assertEquals(new Entity(24L, 24L, null, null, null), exported.get(0).entity);
+		assertEquals(Collections.singletonMap("a", IRI.create("http://example.org/a")), exported.get(0).annotations);
+		assertEquals(2, exported.get(0).rejections.get("b").size());
+		assertEquals(new Entity(24L, 24L, 24L, null, null), exported.get(1).entity);
+		assertTrue(exported.get(1).annotations.isEmpty());
+		assertEquals(cellAnnotations, exported.get(2).annotations);
+
+		// import into another package with small batch size
+		List<EntityAnnotations> imported = new ArrayList<EntityAnnotations>();
+		for (EntityAnnotations entry : exported) {
+			Entity entity = new Entity(25L, entry.entity.objectID, entry.entity.columnID, entry.entity.rowID,
+					entry.entity.metaID);
+			imported.add(new EntityAnnotations(entity, entry.annotations, entry.rejections));
+		}
+		assertEquals(3, am.importAnnotations(imported.iterator(), 2));
+		assertEquals(Collections.singletonMap("a", IRI.create("http://example.org/a")),
+				am.getAcceptedAnnotations(25L, 24L, null, null, null));
+		assertEquals(2, am.getRejectedAnnotations(25L, 24L, null, null, null).get("b").size());
+		assertEquals(1, am.getRejectedAnnotations(25L, 24L, 24L, null, null).get("e").size());
+		assertEquals(cellAnnotations, am.getAcceptedAnnotations(25L, 24L, 24L, 24L, null));
+	}
+
+	@Test
+	public void multipleEntities() throws AnnotationManagerException {
+		Entity object = new Entity(26L, 26L, null, null, null);
+		Entity column = new Entity(26L, 26L, 26L, null, null);
+		Entity cell = new Entity(26L, 26L, 26L, 26L, null);
+		Entity unannotated = new Entity(26L, 26L, 27L, null, null);
+		am.setAnnotations(26L, 26L, null, null, null, Collections.singletonMap("a", IRI.create("http://example.org/a")),
+				Collections.emptyMap());
+		am.setAnnotations(26L, 26L, 26L, null, null, Collections.singletonMap("b", IRI.create("http://example.org/b")),
+				Collections.singletonMap("c", Arrays.asList(IRI.create("http://example.org/c"),
+						IRI.create("http://example.org/d"))));
+		am.setAnnotations(26L, 26L, 26L, 26L, null, Collections.singletonMap("e", IRI.create("http://example.org/e")),
+				Collections.emptyMap());
+
+		List<Entity> entities = Arrays.asList(object, column, unannotated, column);
+		Map<Entity, Map<String, IRI>> accepted = am.getAcceptedAnnotations(entities);
+		Map<Entity, Map<String, List<IRI>>> rejected = am.getRejectedAnnotations(entities);
+
+		// same results as per entity, without subordinated entities
+		assertEquals(3, accepted.size());
+		assertFalse(accepted.containsKey(cell));
+		for (Entity entity : entities) {
+			assertEquals(am.getAcceptedAnnotations(entity.packageID, entity.objectID, entity.columnID, entity.rowID,
+					entity.metaID), accepted.get(entity));
+			assertEquals(am.getRejectedAnnotations(entity.packageID, entity.objectID, entity.columnID, entity.rowID,
+					entity.metaID).keySet(), rejected.get(entity).keySet());
+		}
+		assertEquals(2, rejected.get(column).get("c").size());
+		assertTrue(accepted.get(unannotated).isEmpty());
+		assertTrue(am.getAcceptedAnnotations(Collections.emptyList()).isEmpty());
+	}
+
+	/**
+	 * Compares the throughput of annotating the cells of a table with 10k cells
+	 * using one statement per term, as before the bulk insert, using
+	 * {@link AnnotationManager#setAnnotations(Connection, long, Long, Long, Long, Long, Map, Map)}
+	 * per cell and using a single batch. Only executed with
+	 * <code>-Dbenchmark=true</code>.
+	 */
+	@Test
+	public void benchmark() throws Exception {
+		Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+		final int rows = 1000;
+		final int columns = 10;
+
+		List<EntityAnnotations> cells = new ArrayList<EntityAnnotations>();
+		for (long row = 0; row < rows; row++) {
+			for (long column = 0; column < columns; column++) {
+				Map<String, IRI> annotations = new HashMap<String, IRI>();
+				annotations.put("a" + column, IRI.create("http://example.org/c" + (row % 100)));
+				annotations.put("b" + column, IRI.create("http://example.org/c" + ((row + column) % 100)));
+				cells.add(new EntityAnnotations(new Entity(22L, 22L, column, row, null), annotations,
+						Collections.singletonMap("c", Collections.singleton(IRI.create("http://example.org/r")))));
+			}
+		}
+
+		long startTime = System.currentTimeMillis();
+		try (Connection connection = dbm.getConnection()) {
+			connection.setAutoCommit(false);
+			try (PreparedStatement delete = connection.prepareStatement(
+					"DELETE FROM semantic.annotation WHERE package_id = ? AND object_id = ? AND column_id = ? AND row_id = ? AND meta_id IS NULL");
+					PreparedStatement deleteRejected = connection.prepareStatement(
+							"DELETE FROM semantic.rejected_annotation WHERE package_id = ? AND object_id = ? AND column_id = ? AND row_id = ? AND meta_id IS NULL");
+					PreparedStatement insert = connection.prepareStatement(
+							"INSERT INTO semantic.annotation (package_id, object_id, column_id, row_id, concept_id, term) SELECT ?, ?, ?, ?, concept_id, ? FROM semantic.concept WHERE concept_iri = ?");
+					PreparedStatement insertRejected = connection.prepareStatement(
+							"INSERT INTO semantic.rejected_annotation (package_id, object_id, column_id, row_id, concept_id, term) SELECT ?, ?, ?, ?, concept_id, ? FROM semantic.concept WHERE concept_iri = ?");
+					PreparedStatement concept = connection.prepareStatement(
+							"INSERT INTO semantic.concept (concept_iri) VALUES (?) ON CONFLICT DO NOTHING")) {
+				for (EntityAnnotations cell : cells) {
+					for (PreparedStatement statement : Arrays.asList(delete, deleteRejected)) {
+						statement.setLong(1, cell.entity.packageID);
+						statement.setLong(2, cell.entity.objectID);
+						statement.setLong(3, cell.entity.columnID);
+						statement.setLong(4, cell.entity.rowID);
+						statement.execute();
+					}
+					for (Entry<String, IRI> annotation : cell.annotations.entrySet()) {
+						insert(concept, insert, cell.entity, annotation.getKey(), annotation.getValue());
+					}
+					for (Entry<String, Collection<IRI>> rejection : cell.rejections.entrySet()) {
+						for (IRI iri : rejection.getValue()) {
+							insert(concept, insertRejected, cell.entity, rejection.getKey(), iri);
+						}
+					}
+				}
+			}
+			connection.rollback();
+		}
+		log.info("{} cells with one statement per term took {} ms", cells.size(),
+				System.currentTimeMillis() - startTime);
+
+		startTime = System.currentTimeMillis();
+		try (Connection connection = dbm.getConnection(); Transaction transaction = Transaction.begin(connection)) {
+			for (EntityAnnotations cell : cells) {
+				am.setAnnotations(connection, cell.entity.packageID, cell.entity.objectID, cell.entity.columnID,
+						cell.entity.rowID, cell.entity.metaID, cell.annotations, cell.rejections);
+			}
+			transaction.rollback();
+		}
+		log.info("{} cells with one call per cell took {} ms", cells.size(), System.currentTimeMillis() - startTime);
+
+		startTime = System.currentTimeMillis();
+		try (Connection connection = dbm.getConnection(); Transaction transaction = Transaction.begin(connection)) {
+			am.setAnnotations(connection, cells);
+			transaction.commit();
+		}
+		log.info("{} cells in one batch took {} ms", cells.size(), System.currentTimeMillis() - startTime);
+
+		assertEquals(2, am.getAcceptedAnnotations(22L, 22L, 3L, 5L, null).size());
+		assertEquals(1, am.getRejectedAnnotations(22L, 22L, 3L, 5L, null).size());
+	}
+
+	private static void insert(PreparedStatement concept, PreparedStatement insert, Entity entity, String term,
+			IRI iri) throws SQLException {
+		concept.setString(1, iri.getIRIString());
+		concept.execute();
+		insert.setLong(1, entity.packageID);
+		insert.setLong(2, entity.objectID);
+		insert.setLong(3, entity.columnID);
+		insert.setLong(4, entity.rowID);
+		insert.setString(5, term);
+		insert.setString(6, iri.getIRIString());
+		insert.execute();
 	}
 
 }
@@ -0,0 +1,86 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.model.IRI;
+
+import de.uni_jena.cs.fusion.lakebase.model.Entity;
+import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceManager;
+
+/**
+ * 
+ * @since 0.3.9
+ *
+ */
+public class AnnotationWriterTest {
+
+	@Test
+	public void write() throws Exception {
+		DataSource dbm = DatabaseManagerTest.createTestDatabaseManager();
+		DataVersion version = new DataVersion();
+		AnnotationManager am = new AnnotationManager(dbm, new SemanticDataSourceManager(), new ConceptManager(dbm),
+				version);
+
+		CompletableFuture<Void> a, b, invalid, c;
+		try (AnnotationWriter writer = new AnnotationWriter(dbm, am, 2, 1, TimeUnit.SECONDS)) {
+			a = writer.submit(annotations(new Entity(1L, 1L, null, null, null), "a"));
+			b = writer.submit(annotations(new Entity(1L, 2L, null, null, null), "b"));
+			// column without object
+			invalid = writer.submit(annotations(new Entity(1L, null, 3L, null, null), "c"));
+			c = writer.submit(annotations(new Entity(1L, 3L, null, null, null), "c"));
+		}
+
+		// pending submissions written on close
+		a.get();
+		b.get();
+		c.get();
+		try {
+			invalid.get();
+			fail("Expected exception not thrown.");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+
+		assertEquals(IRI.create("http://example.org/a"), am.getAcceptedAnnotations(1L, 1L, null, null, null).get("a"));
+		assertEquals(IRI.create("http://example.org/b"), am.getAcceptedAnnotations(1L, 2L, null, null, null).get("b"));
+		assertEquals(IRI.create("http://example.org/c"), am.getAcceptedAnnotations(1L, 3L, null, null, null).get("c"));
+		assertTrue(version.get() > 0);
+	}
+
+	private static Collection<EntityAnnotations> annotations(Entity entity, String term) {
+		return Collections.singletonList(new EntityAnnotations(entity,
+				Collections.singletonMap(term, IRI.create("http://example.org/" + term)), Collections.emptyMap()));
+	}
+
+}
@@ -168,6 +168,17 @@ public class AnnotatorTest {
 		assertTrue(annotationResult.containsKey("metre"));
 	}
 
+	@Test
+	public void proposeAnnotationsAsync() throws Exception {
+		String query = "alfa bravo, charlie metre";
+		Map<String, Map<IRI, Double>> annotationResult = annotator
+				.proposeAnnotationsAsync(query, Collections.singleton(Scope.all), Runnable::run).get();
+		assertEquals(annotator.proposeAnnotations(query, Collections.singleton(Scope.all)), annotationResult);
+		assertTrue(annotationResult.containsKey("alfa bravo"));
+		assertTrue(annotationResult.containsKey("charlie"));
+		assertTrue(annotationResult.containsKey("metre"));
+	}
+
 	@Test
 	public void getAnnotationsSlightlyMisspelledTerms() throws AnnotatorException {
 		Map<String, Map<IRI, Double>> annotationResult;
@@ -23,13 +23,32 @@ package de.uni_jena.cs.fusion.lakebase;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.semanticweb.owlapi.model.IRI;
 
 import de.uni_jena.cs.fusion.lakebase.model.Completion;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSource;
@@ -110,6 +129,273 @@ public class CompleterTest {
 		assertTrue(completion.isEmpty());
 	}
 
+	@Test
+	public void completionIndex() throws Exception {
+		DataSource dbm = DatabaseManagerTest.createTestDatabaseManager();
+		ConceptManager cm = new ConceptManager(dbm);
+		cm.add(IRI.create("http://www.example.org/ontologies/suggestor/test/star_system"));
+		try (Connection connection = dbm.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute("INSERT INTO semantic.annotation "
+					+ "(package_id, object_id, column_id, row_id, concept_id, term) "
+					+ "SELECT i, NULL, NULL, NULL, c.concept_id, 'term' FROM generate_series(1, 2) AS i "
+					+ "INNER JOIN semantic.concept c "
+					+ "ON c.concept_iri = 'http://www.example.org/ontologies/suggestor/test/star_system'");
+		}
+		CompletionIndex index = new CompletionIndex(cm,
+				Arrays.asList(suggestionTestAdapter(), suggestionTestUnitAdapter()), 10);
+		Completer indexCompleter = new Completer(new SemanticDataSourceManager(), index);
+		assertFalse(index.isReady());
+		assertTrue(indexCompleter.complete("star", Collections.singleton(Scope.all)).isEmpty());
+		index.rebuild();
+		assertTrue(index.isReady());
+
+		List<Completion> completion;
+
+		// ranked by usage
+		completion = indexCompleter.complete("star", Collections.singleton(Scope.all));
+		assertEquals(1, completion.size());
+		assertEquals("star", completion.get(0).stump);
+		assertEquals(2, completion.get(0).completions.size());
+		assertEquals("star system", completion.get(0).completions.get(0).label);
+		assertEquals("star", completion.get(0).completions.get(1).label);
+
+		completion = indexCompleter.complete("main seque", Collections.singleton(Scope.all));
+		assertEquals(2, completion.size());
+
+		completion = indexCompleter.complete("kilo", Collections.singleton(Scope.unit));
+		assertEquals(1, completion.size());
+		assertEquals(1, completion.get(0).completions.size());
+
+		completion = indexCompleter.complete("kilo", Collections.singleton(Scope.species));
+		assertTrue(completion.isEmpty());
+	}
+
+	@Test
+	public void session() throws Exception {
+		CountingIndex index = new CountingIndex(new CountingAdapter(
+				Arrays.asList("sequence", "sequel", "series", "main sequence star")));
+		Completer sessionCompleter = new Completer(new SemanticDataSourceManager(), index,
+				new CompletionSessions(100, 1, TimeUnit.MINUTES));
+		List<Completion> completion;
+
+		completion = sessionCompleter.complete("sequ", Collections.singleton(Scope.all), "a");
+		assertEquals(1, completion.size());
+		assertEquals(2, completion.get(0).completions.size());
+		assertEquals(1, index.lookups.get());
+
+		// narrowed locally
+		completion = sessionCompleter.complete("seque", Collections.singleton(Scope.all), "a");
+		assertEquals(1, completion.size());
+		assertEquals("seque", completion.get(0).stump);
+		assertEquals(2, completion.get(0).completions.size());
+		assertEquals(1, index.lookups.get());
+		completion = sessionCompleter.complete("sequen", Collections.singleton(Scope.all), "a");
+		assertEquals(1, completion.get(0).completions.size());
+		assertEquals("sequence", completion.get(0).completions.get(0).label);
+		assertEquals(1, index.lookups.get());
+
+		// new stump requires lookup, extended stump gets narrowed
+		completion = sessionCompleter.complete("main sequen", Collections.singleton(Scope.all), "a");
+		assertEquals(2, completion.size());
+		assertEquals(2, index.lookups.get());
+
+		// exhausted candidates require lookup
+		completion = sessionCompleter.complete("sequenx", Collections.singleton(Scope.all), "a");
+		assertTrue(completion.isEmpty());
+		assertEquals(3, index.lookups.get());
+
+		// separated by session and scopes
+		sessionCompleter.complete("seque", Collections.singleton(Scope.all), "b");
+		assertEquals(4, index.lookups.get());
+		sessionCompleter.complete("seque", Collections.singleton(Scope.unit), "b");
+		assertEquals(5, index.lookups.get());
+
+		// without session
+		sessionCompleter.complete("seque", Collections.singleton(Scope.all));
+		sessionCompleter.complete("sequen", Collections.singleton(Scope.all));
+		assertEquals(7, index.lookups.get());
+	}
+
+	@Test
+	public void sessionTruncated() throws Exception {
+		List<String> labels = new ArrayList<String>();
+		for (int i = 0; i <= Completer.LIMIT; i++) {
+			labels.add("sequence " + i);
+		}
+		CountingIndex index = new CountingIndex(new CountingAdapter(labels));
+		Completer sessionCompleter = new Completer(new SemanticDataSourceManager(), index,
+				new CompletionSessions(100, 1, TimeUnit.MINUTES));
+
+		sessionCompleter.complete("sequ", Collections.singleton(Scope.all), "a");
+		sessionCompleter.complete("seque", Collections.singleton(Scope.all), "a");
+		assertEquals(2, index.lookups.get());
+	}
+
+	@Test
+	public void sessionAlternativeLabels() throws Exception {
+		CountingAdapter adapter = new CountingAdapter(Arrays.asList("sequence", "sequencing kit"));
+		// second label of the sequence, not returned for "sequ"
+		adapter.labels.put("sequencing", IRI.create("http://example.org/sequence"));
+		CountingIndex index = new CountingIndex(adapter);
+		Completer sessionCompleter = new Completer(new SemanticDataSourceManager(), index,
+				new CompletionSessions(100, 1, TimeUnit.MINUTES));
+
+		sessionCompleter.complete("sequ", Collections.singleton(Scope.all), "a");
+		List<Completion> completion = sessionCompleter.complete("sequenci", Collections.singleton(Scope.all),
+				"a");
+		assertEquals(2, index.lookups.get());
+		assertEquals(2, completion.get(0).completions.size());
+		assertEquals("sequencing", completion.get(0).completions.get(0).label);
+	}
+
+	@Test
+	public void sessionAdapter() throws Exception {
+		CountingAdapter adapter = new CountingAdapter(Arrays.asList("sequence", "sequel"));
+		SemanticDataSourceManager adapterManager = new SemanticDataSourceManager();
+		adapterManager.registerAdapter(adapter);
+		Completer sessionCompleter = new Completer(adapterManager, null,
+				new CompletionSessions(100, 1, TimeUnit.MINUTES));
+
+		// adapters do not report exhaustive suggestions
+		sessionCompleter.complete("sequ", Collections.singleton(Scope.all), "a");
+		List<Completion> completion = sessionCompleter.complete("seque", Collections.singleton(Scope.all), "a");
+		assertEquals(2, completion.get(0).completions.size());
+		assertEquals(2, adapter.calls.get());
+	}
+
+	@Test
+	public void sessionCancellation() throws Exception {
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountingAdapter adapter = new CountingAdapter(Arrays.asList("sequence")) {
+			@Override
+			public Map<IRI, String> getSuggestions(String stump) throws SemanticDataSourceException {
+				if (stump.startsWith("block")) {
+					blocked.countDown();
+					try {
+						// released by cancellation only
+						new CountDownLatch(1).await();
+					} catch (InterruptedException e) {
+						throw new SemanticDataSourceException(e);
+					}
+				}
+				return super.getSuggestions(stump);
+			}
+		};
+		// single adapter thread, blocked until the superseded call gets cancelled
+		SemanticDataSourceManager adapterManager = new SemanticDataSourceManager();
+		adapterManager.registerAdapter(adapter);
+		Completer sessionCompleter = new Completer(adapterManager, null,
+				new CompletionSessions(100, 1, TimeUnit.MINUTES));
+
+		CompletableFuture<List<Completion>> superseded = CompletableFuture.supplyAsync(() -> {
+			try {
+				return sessionCompleter.complete("blocking", Collections.singleton(Scope.all), "a");
+			} catch (SemanticDataSourceException e) {
+				throw new CompletionException(e);
+			}
+		});
+		assertTrue(blocked.await(10, TimeUnit.SECONDS));
+		List<Completion> completion = sessionCompleter.complete("sequ", Collections.singleton(Scope.all), "a");
+		assertEquals(1, completion.size());
+		try {
+			superseded.get(10, TimeUnit.SECONDS);
+			fail("Superseded call not cancelled.");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof CancellationException);
+		}
+	}
+
+	private static class CountingIndex extends CompletionIndex {
+		final AtomicInteger lookups = new AtomicInteger();
+
+		CountingIndex(SemanticDataSource adapter) throws Exception {
+			super(new ConceptManager(DatabaseManagerTest.createTestDatabaseManager()),
+					Collections.singleton(adapter), Completer.LIMIT);
+			rebuild();
+		}
+
+		@Override
+		public Completions lookup(String stump, Collection<IRI> scopes) {
+			lookups.incrementAndGet();
+			return super.lookup(stump, scopes);
+		}
+	}
+
+	private static class CountingAdapter implements SemanticDataSource {
+		private final Map<String, IRI> labels = new HashMap<String, IRI>();
+		final AtomicInteger calls = new AtomicInteger();
+
+		CountingAdapter(List<String> labels) {
+			for (String label : labels) {
+				this.labels.put(label, IRI.create("http://example.org/" + label.replace(' ', '_')));
+			}
+		}
+
+		@Override
+		public Map<String, Map<IRI, String>> getSuggestions(Collection<String> stumps)
+				throws SemanticDataSourceException {
+			calls.incrementAndGet();
+			return SemanticDataSource.super.getSuggestions(stumps);
+		}
+
+		@Override
+		public Map<IRI, String> getSuggestions(String stump) throws SemanticDataSourceException {
+			Map<IRI, String> results = new HashMap<IRI, String>();
+			for (Map.Entry<String, IRI> label : labels.entrySet()) {
+				if (label.getKey().startsWith(stump) && results.size() < Completer.LIMIT) {
+					results.put(label.getValue(), label.getKey());
+				}
+			}
+			return results;
+		}
+
+		@Override
+		public boolean providingSuggest() {
+			return true;
+		}
+
+		@Override
+		public Collection<IRI> getSignature() {
+			return new HashSet<IRI>(labels.values());
+		}
+
+		@Override
+		public boolean providingSignature() {
+			return true;
+		}
+
+		@Override
+		public Collection<String> getLabels(IRI iri) {
+			List<String> results = new ArrayList<String>();
+			for (Map.Entry<String, IRI> label : labels.entrySet()) {
+				if (label.getValue().equals(iri)) {
+					results.add(label.getKey());
+				}
+			}
+			return results;
+		}
+
+		@Override
+		public boolean providingLabels() {
+			return true;
+		}
+
+		@Override
+		public Collection<String> getNamespaces() {
+			return Collections.singleton("http://example.org/");
+		}
+
+		@Override
+		public Collection<IRI> getScopes() {
+			return Scope.all.getIris();
+		}
+
+		@Override
+		public boolean isPresent(IRI iri) {
+			return labels.containsValue(iri);
+		}
+	}
+
 	private static SemanticDataSource suggestionTestAdapter() throws SemanticDataSourceException {
 		return OntologyDataSourceFactory
 				.ontology(new File(Thread.currentThread().getContextClassLoader()
@@ -0,0 +1,89 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.model.IRI;
+
+/**
+ * 
+ * @since 0.3.9
+ *
+ */
+public class ConceptManagerTest {
+
+	@Test
+	public void dictionary() throws Exception {
+		DataSource dbm = DatabaseManagerTest.createTestDatabaseManager();
+		ConceptManager cm = new ConceptManager(dbm);
+		IRI a = IRI.create("http://example.org/a");
+		IRI b = IRI.create("http://example.org/b");
+		IRI c = IRI.create("http://example.org/c");
+
+		assertTrue(cm.add(a));
+		assertFalse(cm.add(a));
+		assertTrue(cm.addAll(Arrays.asList(a, b)));
+		assertFalse(cm.addAll(Arrays.asList(a, b)));
+
+		try (Connection connection = dbm.getConnection()) {
+			Map<IRI, Long> ids = cm.getIds(connection, Arrays.asList(a, b, c));
+			assertEquals(2, ids.size());
+			assertNotNull(ids.get(a));
+			assertNotNull(ids.get(b));
+			assertNull(cm.getId(connection, c));
+
+			// known concepts from other instances
+			assertEquals(ids, new ConceptManager(dbm).getIds(connection, Arrays.asList(a, b, c)));
+		}
+	}
+
+	@Test
+	public void dictionaryRollback() throws Exception {
+		DataSource dbm = DatabaseManagerTest.createTestDatabaseManager();
+		ConceptManager cm = new ConceptManager(dbm);
+		IRI d = IRI.create("http://example.org/d");
+
+		try (Connection connection = dbm.getConnection(); Transaction transaction = Transaction.begin(connection)) {
+			assertTrue(cm.addAll(connection, Arrays.asList(d)));
+			assertNotNull(cm.getId(connection, d));
+			transaction.rollback();
+		}
+
+		// not remembered as known
+		try (Connection connection = dbm.getConnection()) {
+			assertNull(cm.getId(connection, d));
+		}
+		assertTrue(cm.add(d));
+	}
+
+}
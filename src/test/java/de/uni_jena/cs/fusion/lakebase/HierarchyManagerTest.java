@@ -21,9 +21,15 @@ package de.uni_jena.cs.fusion.lakebase;
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.sql.Connection;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
 
 import javax.sql.DataSource;
 
@@ -190,4 +196,54 @@ public class HierarchyManagerTest {
 		assertTrue(result.contains(IRI.create("g")));
 	}
 
+	@Test
+	public void collections() throws Exception {
+		ds = DatabaseManagerTest.createTestDatabaseManager();
+		sds = new HierarchyTestDataSource();
+		cm = new ConceptManager(ds);
+
+		sds.setRelation("a", "b");
+		sds.setRelation("b", "c");
+		sds.setRelation("c", "d");
+		sds.setRelation("d", "c");
+
+		hm = new HierarchyManager(ds, sds, cm);
+
+		hm.add(IRI.create("a"));
+		hm.add(IRI.create("b"));
+		hm.add(IRI.create("c"));
+		hm.add(IRI.create("d"));
+
+		Collection<IRI> iris = Arrays.asList(IRI.create("a"), IRI.create("b"), IRI.create("c"), IRI.create("d"),
+				IRI.create("x"));
+
+		Map<IRI, Boolean> contains = hm.contains(iris);
+		assertEquals(5, contains.size());
+		assertTrue(contains.get(IRI.create("a")));
+		assertTrue(contains.get(IRI.create("d")));
+		assertFalse(contains.get(IRI.create("x")));
+
+		Map<IRI, Collection<IRI>> broaders = hm.getBroaders(iris);
+		Map<IRI, Collection<IRI>> narrowers = hm.getNarrowers(iris);
+		Map<IRI, Collection<IRI>> synonyms = hm.getSynonyms(iris);
+		for (IRI iri : iris) {
+			assertEquals(new HashSet<IRI>(hm.getBroaders(iri)), new HashSet<IRI>(broaders.get(iri)));
+			assertEquals(new HashSet<IRI>(hm.getNarrowers(iri)), new HashSet<IRI>(narrowers.get(iri)));
+			assertEquals(new HashSet<IRI>(hm.getSynonyms(iri)), new HashSet<IRI>(synonyms.get(iri)));
+		}
+		assertTrue(synonyms.get(IRI.create("c")).contains(IRI.create("d")));
+		assertTrue(broaders.get(IRI.create("x")).isEmpty());
+
+		try (Connection connection = ds.getConnection()) {
+			hm.beginSnapshot(connection);
+			Map<IRI, Collection<IRI>> typeBroaders = hm.getBroaders(iris,
+					Arrays.asList(IRI.create("b"), IRI.create("x")), connection);
+			connection.commit();
+			assertTrue(typeBroaders.get(IRI.create("a")).isEmpty());
+			assertTrue(typeBroaders.get(IRI.create("b")).isEmpty());
+			assertEquals(Collections.singletonList(IRI.create("b")), typeBroaders.get(IRI.create("c")));
+			assertEquals(Collections.singletonList(IRI.create("b")), typeBroaders.get(IRI.create("d")));
+		}
+	}
+
 }
@@ -0,0 +1,260 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.uni_jena.cs.fusion.lakebase.model.Entity;
+import de.uni_jena.cs.fusion.lakebase.model.SearchPage;
+import de.uni_jena.cs.fusion.lakebase.model.SearchResponse;
+import de.uni_jena.cs.fusion.semantic.datasource.HierarchyTestDataSource;
+
+/**
+ * 
+ * @since 0.3.9
+ *
+ */
+public class InvertedSearchIndexTest {
+
+	private final static Logger log = LoggerFactory.getLogger(InvertedSearchIndexTest.class);
+
+	private DataSource dbm;
+	private ConceptManager cm;
+	private HierarchyTestDataSource semanticDataSource;
+	private InvertedSearchIndex invertedIndex;
+	private SearchIndex searchIndex;
+	private Searcher sqlSearcher;
+	private Searcher memorySearcher;
+
+	@Before
+	public void init() throws Exception {
+		dbm = DatabaseManagerTest.createTestDatabaseManager();
+		cm = new ConceptManager(dbm);
+		semanticDataSource = new HierarchyTestDataSource();
+		invertedIndex = new InvertedSearchIndex();
+		searchIndex = new SearchIndex(dbm, invertedIndex);
+		sqlSearcher = new Searcher(dbm);
+		memorySearcher = new Searcher(dbm, new DataVersion(), 0, invertedIndex);
+	}
+
+	private static Collection<IRI> iris(String... names) {
+		Collection<IRI> iris = new ArrayList<IRI>();
+		for (String name : names) {
+			iris.add(IRI.create("http://www.example.org/" + name));
+		}
+		return iris;
+	}
+
+	private static Map<Entity, Double> map(List<SearchResponse> results) {
+		Map<Entity, Double> map = new HashMap<Entity, Double>();
+		for (SearchResponse result : results) {
+			map.put(result.entity, result.rank);
+		}
+		assertEquals(results.size(), map.size());
+		return map;
+	}
+
+	private void assertEqualResults(Collection<IRI> include, Collection<IRI> exclude, Entity entity)
+			throws SearcherException {
+		Map<Entity, Double> expected = map(sqlSearcher.search(include, exclude, entity));
+		Map<Entity, Double> actual = map(memorySearcher.search(include, exclude, entity));
+		assertEquals(expected.keySet(), actual.keySet());
+		for (Entity key : expected.keySet()) {
+			assertEquals(expected.get(key), actual.get(key), 1e-9);
+		}
+	}
+
+	private void assertEqualResults() throws SearcherException {
+		List<Entity> entities = Arrays.asList(null, new Entity(1, null, null, null, null),
+				new Entity(1, 1L, null, null, null), new Entity(1, 1L, 1L, null, null),
+				new Entity(1, 1L, 1L, 1L, null));
+		for (Entity entity : entities) {
+			assertEqualResults(iris("a"), Collections.emptySet(), entity);
+			assertEqualResults(iris("ab", "b"), Collections.emptySet(), entity);
+			assertEqualResults(iris("a", "ba-ca"), iris("aba"), entity);
+			assertEqualResults(iris("a"), iris("ab", "c"), entity);
+			assertEqualResults(iris("unknown"), Collections.emptySet(), entity);
+		}
+	}
+
+	@Test
+	public void sameResults() throws Exception {
+		semanticDataSource.setRelation("http://www.example.org/a", "http://www.example.org/aa");
+		semanticDataSource.setRelation("http://www.example.org/a", "http://www.example.org/ab");
+		semanticDataSource.setRelation("http://www.example.org/ab", "http://www.example.org/aba");
+		semanticDataSource.setRelation("http://www.example.org/b", "http://www.example.org/ba-ca");
+		semanticDataSource.setRelation("http://www.example.org/c", "http://www.example.org/ba-ca");
+		DataVersion version = new DataVersion();
+		HierarchyManager hm = new HierarchyManager(dbm, semanticDataSource, cm, version, searchIndex);
+		AnnotationManager am = new AnnotationManager(dbm, semanticDataSource, cm, version, searchIndex);
+
+		// set annotations
+		am.setAnnotations(1L, null, null, null, null,
+				Collections.singletonMap("a", IRI.create("http://www.example.org/a")), Collections.emptyMap());
+		am.setAnnotations(1L, 1L, null, null, null,
+				Collections.singletonMap("aa", IRI.create("http://www.example.org/aa")), Collections.emptyMap());
+		am.setAnnotations(1L, 1L, 1L, null, null,
+				Collections.singletonMap("ab", IRI.create("http://www.example.org/ab")), Collections.emptyMap());
+		am.setAnnotations(1L, 1L, 1L, 1L, null,
+				Collections.singletonMap("aba", IRI.create("http://www.example.org/aba")), Collections.emptyMap());
+		am.setAnnotations(1L, 1L, 2L, 1L, null,
+				Collections.singletonMap("ba-ca", IRI.create("http://www.example.org/ba-ca")), Collections.emptyMap());
+		am.setAnnotations(1L, 2L, null, null, 1L,
+				Collections.singletonMap("aba", IRI.create("http://www.example.org/aba")), Collections.emptyMap());
+		Map<String, IRI> map = new HashMap<String, IRI>();
+		map.put("aa", IRI.create("http://www.example.org/aa"));
+		map.put("ba-ca", IRI.create("http://www.example.org/ba-ca"));
+		am.setAnnotations(2L, 1L, 1L, 1L, null, map, Collections.emptyMap());
+		am.setAnnotations(3L, null, null, null, null,
+				Collections.singletonMap("c", IRI.create("http://www.example.org/c")), Collections.emptyMap());
+		assertEqualResults();
+
+		// change hierarchy
+		hm.setBroader(IRI.create("http://www.example.org/c"), IRI.create("http://www.example.org/a"));
+		assertEqualResults();
+
+		// change annotations
+		am.copyAnnotation(new Entity(1L, 1L, null, null, null), new Entity(3L, 5L, null, null, null));
+		am.removeAnnotationsWithin(1L, 1L, 1L, null, null);
+		am.setAnnotations(2L, 1L, 1L, 1L, null,
+				Collections.singletonMap("ab", IRI.create("http://www.example.org/ab")), Collections.emptyMap());
+		assertEqualResults();
+
+		// rebuild
+		searchIndex.rebuild();
+		assertEqualResults();
+
+		// pages
+		Entity inside = new Entity(1, null, null, null, null);
+		SearchPage expected = sqlSearcher.search(iris("a"), Collections.emptySet(), inside, 1, null);
+		SearchPage actual = memorySearcher.search(iris("a"), Collections.emptySet(), inside, 1, null);
+		assertEquals(entities(expected), entities(actual));
+		expected = sqlSearcher.search(iris("a"), Collections.emptySet(), inside, 1, expected.next);
+		actual = memorySearcher.search(iris("a"), Collections.emptySet(), inside, 1, actual.next);
+		assertEquals(entities(expected), entities(actual));
+		assertEquals(expected.next == null, actual.next == null);
+	}
+
+	@Test
+	public void committedChanges() throws Exception {
+		AnnotationManager am = new AnnotationManager(dbm, semanticDataSource, cm, new DataVersion(), searchIndex);
+		searchIndex.rebuild();
+		am.setAnnotations(1L, null, null, null, null,
+				Collections.singletonMap("a", IRI.create("http://www.example.org/a")), Collections.emptyMap());
+		assertEquals(1, invertedIndex.size());
+
+		// uncommitted and rolled back changes not visible
+		try (Connection connection = dbm.getConnection(); Transaction transaction = Transaction.begin(connection)) {
+			am.setAnnotations(connection, 2L, null, null, null, null,
+					Collections.singletonMap("a", IRI.create("http://www.example.org/a")), Collections.emptyMap());
+			assertEquals(1, invertedIndex.size());
+			transaction.rollback();
+		}
+		assertEquals(1, invertedIndex.size());
+		assertEqualResults(iris("a"), Collections.emptySet(), null);
+
+		// entities without annotations removed
+		am.removeAnnotations(1L, null, null, null, null);
+		assertEquals(0, invertedIndex.size());
+		assertEqualResults(iris("a"), Collections.emptySet(), null);
+	}
+
+	private static List<Entity> entities(SearchPage page) {
+		List<Entity> entities = new ArrayList<Entity>();
+		for (SearchResponse result : page.results) {
+			entities.add(result.entity);
+		}
+		return entities;
+	}
+
+	/**
+	 * Compares the latency of searches using the in-memory index and the
+	 * database on a generated dataset of one million annotations. Only
+	 * executed with <code>-Dbenchmark=true</code>.
+	 */
+	@Test
+	public void benchmark() throws Exception {
+		Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+
+		final int concepts = 10000;
+		final int annotations = 1000000;
+		final int searches = 100;
+
+		// hierarchy of depth three: h0-h9 > g0-g99 > c0-c9999
+		for (int i = 0; i < concepts; i++) {
+			semanticDataSource.setRelation("http://www.example.org/g" + (i % 100), "http://www.example.org/c" + i);
+			semanticDataSource.setRelation("http://www.example.org/h" + (i % 10),
+					"http://www.example.org/g" + (i % 100));
+		}
+		HierarchyManager hm = new HierarchyManager(dbm, semanticDataSource, cm, new DataVersion(), searchIndex);
+		List<IRI> conceptIris = new ArrayList<IRI>();
+		for (int i = 0; i < concepts; i++) {
+			conceptIris.add(IRI.create("http://www.example.org/c" + i));
+		}
+		hm.addAll(conceptIris);
+		// one annotation per field of 1000 packages with 10 objects and 100 rows
+		try (Connection connection = dbm.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute("INSERT INTO semantic.annotation "
+					+ "(package_id, object_id, column_id, row_id, concept_id, term) "
+					+ "SELECT i / 1000, (i / 100) % 10, NULL, i % 100, c.concept_id, 'term' "
+					+ "FROM generate_series(0, " + (annotations - 1) + ") AS i "
+					+ "INNER JOIN semantic.concept c ON c.concept_iri = 'http://www.example.org/c' || ((i * 7919) % "
+					+ concepts + ")");
+		}
+		long startTime = System.currentTimeMillis();
+		searchIndex.rebuild();
+		log.info("rebuild took {} ms", System.currentTimeMillis() - startTime);
+
+		List<Entity> entities = Arrays.asList(null, new Entity(42, null, null, null, null),
+				new Entity(42, 3L, null, null, null));
+		for (Entity entity : entities) {
+			log.info("inside {}: {} searches on database took {} ms, in memory {} ms", entity, searches,
+					time(sqlSearcher, entity, searches), time(memorySearcher, entity, searches));
+		}
+	}
+
+	private long time(Searcher searcher, Entity entity, int searches) throws SearcherException {
+		long startTime = System.currentTimeMillis();
+		for (int i = 0; i < searches; i++) {
+			searcher.search(iris((i % 2 == 0) ? "h" + (i % 10) : "g" + (i % 100)), iris("c" + i), entity, 20, null);
+		}
+		return System.currentTimeMillis() - startTime;
+	}
+}
@@ -0,0 +1,70 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ResponseCacheTest {
+
+	@Test
+	public void tag() {
+		ResponseCache cache = new ResponseCache(1024, 1, TimeUnit.MINUTES);
+		assertEquals(cache.tag("/complete", null, "a", "1"), cache.tag("/complete", null, "a", "1"));
+		assertNotEquals(cache.tag("/complete", null, "a", "1"), cache.tag("/complete", null, "a", "2"));
+		assertNotEquals(cache.tag("/complete", null, "a", "1"), cache.tag("/describe", null, "a", "1"));
+		assertNotEquals(cache.tag("/complete", null, "a", "1"), cache.tag("/complete", "f", "a", "1"));
+		// parts are separated unambiguously
+		assertNotEquals(cache.tag("ab", "c"), cache.tag("a", "bc"));
+		assertEquals(60, cache.getMaxAge());
+	}
+
+	@Test
+	public void matches() {
+		assertFalse(ResponseCache.matches(null, "\"a\""));
+		assertTrue(ResponseCache.matches("\"a\"", "\"a\""));
+		assertTrue(ResponseCache.matches("W/\"a\"", "\"a\""));
+		assertTrue(ResponseCache.matches("\"b\", \"a\"", "\"a\""));
+		assertTrue(ResponseCache.matches("*", "\"a\""));
+		assertFalse(ResponseCache.matches("\"b\"", "\"a\""));
+		assertFalse(ResponseCache.matches("\"a-gzip\"", "\"a\""));
+	}
+
+	@Test
+	public void capacity() {
+		ResponseCache cache = new ResponseCache(1024, 1, TimeUnit.MINUTES);
+		cache.put("a", new ResponseCache.Entry("text/plain", new byte[100]));
+		assertNotNull(cache.get("a"));
+		assertNull(cache.get("b"));
+		for (int i = 0; i < 100; i++) {
+			cache.put(Integer.toString(i), new ResponseCache.Entry("text/plain", new byte[100]));
+		}
+		assertNull(cache.get("a"));
+	}
+}
@@ -0,0 +1,200 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.uni_jena.cs.fusion.lakebase.model.Entity;
+import de.uni_jena.cs.fusion.semantic.datasource.HierarchyTestDataSource;
+
+/**
+ * 
+ * @since 0.3.9
+ *
+ */
+public class SearchIndexTest {
+
+	private final static Logger log = LoggerFactory.getLogger(SearchIndexTest.class);
+
+	private final static String indexQuery = "SELECT s.concept_iri, c.concept_iri, i.package_id, i.object_id, i.column_id, i.row_id, i.meta_id, "
+			+ "ROUND((1.0 + COALESCE(n.narrower_count, 0)) / (1.0 + COALESCE(b.narrower_count, 0)), 10) "
+			+ "FROM semantic.search_index i "
+			+ "INNER JOIN semantic.concept s ON s.concept_id = i.searched_concept_id "
+			+ "INNER JOIN semantic.concept c ON c.concept_id = i.annotated_concept_id "
+			+ "LEFT JOIN semantic.concept_narrower_count n ON n.concept_id = i.annotated_concept_id "
+			+ "LEFT JOIN semantic.concept_narrower_count b ON b.concept_id = i.searched_concept_id";
+	private final static String viewQuery = "SELECT searched_concept_iri, annotated_concept_iri, package_id, object_id, column_id, row_id, meta_id, ROUND(ranking, 10) "
+			+ "FROM semantic.search";
+
+	private DataSource dbm;
+	private ConceptManager cm;
+	private HierarchyTestDataSource semanticDataSource;
+
+	@Before
+	public void init() throws Exception {
+		dbm = DatabaseManagerTest.createTestDatabaseManager();
+		cm = new ConceptManager(dbm);
+		semanticDataSource = new HierarchyTestDataSource();
+	}
+
+	private List<String> rows(String query) throws SQLException {
+		List<String> rows = new ArrayList<String>();
+		try (Connection connection = dbm.getConnection(); Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery(query)) {
+			int columns = resultSet.getMetaData().getColumnCount();
+			while (resultSet.next()) {
+				StringBuilder row = new StringBuilder();
+				for (int i = 1; i <= columns; i++) {
+					row.append(resultSet.getString(i)).append('|');
+				}
+				rows.add(row.toString());
+			}
+		}
+		Collections.sort(rows);
+		return rows;
+	}
+
+	@Test
+	public void incrementalMaintenance() throws Exception {
+		semanticDataSource.setRelation("http://www.example.org/a", "http://www.example.org/aa");
+		semanticDataSource.setRelation("http://www.example.org/a", "http://www.example.org/ab");
+		semanticDataSource.setRelation("http://www.example.org/ab", "http://www.example.org/aba");
+		semanticDataSource.setRelation("http://www.example.org/b", "http://www.example.org/ba-ca");
+		semanticDataSource.setRelation("http://www.example.org/c", "http://www.example.org/ba-ca");
+		HierarchyManager hm = new HierarchyManager(dbm, semanticDataSource, cm);
+		AnnotationManager am = new AnnotationManager(dbm, semanticDataSource, cm);
+		SearchIndex index = new SearchIndex(dbm);
+
+		// set annotations
+		am.setAnnotations(1L, 1L, 1L, 1L, 1L, Collections.singletonMap("a", IRI.create("http://www.example.org/a")),
+				Collections.emptyMap());
+		am.setAnnotations(2L, 1L, 1L, 1L, 1L,
+				Collections.singletonMap("ba-ca", IRI.create("http://www.example.org/ba-ca")), Collections.emptyMap());
+		Map<String, IRI> map = new HashMap<String, IRI>();
+		map.put("aa", IRI.create("http://www.example.org/aa"));
+		map.put("aba", IRI.create("http://www.example.org/aba"));
+		am.setAnnotations(3L, 1L, 1L, 1L, 1L, map, Collections.emptyMap());
+		am.setAnnotations(4L, 1L, null, null, null,
+				Collections.singletonMap("ab", IRI.create("http://www.example.org/ab")), Collections.emptyMap());
+		assertEquals(rows(viewQuery), rows(indexQuery));
+
+		// change hierarchy
+		hm.setBroader(IRI.create("http://www.example.org/a"), IRI.create("http://www.example.org/root"));
+		hm.setSynonym(IRI.create("http://www.example.org/aba"), IRI.create("http://www.example.org/abb"));
+		assertEquals(rows(viewQuery), rows(indexQuery));
+
+		// replace annotations
+		am.setAnnotations(1L, 1L, 1L, 1L, 1L,
+				Collections.singletonMap("aba", IRI.create("http://www.example.org/aba")), Collections.emptyMap());
+		assertEquals(rows(viewQuery), rows(indexQuery));
+
+		// copy annotations
+		am.copyAnnotation(new Entity(3L, 1L, null, null, null), new Entity(5L, 2L, null, null, null));
+		assertEquals(rows(viewQuery), rows(indexQuery));
+
+		// remove annotations
+		am.removeAnnotations(2L, 1L, 1L, 1L, 1L);
+		am.removeAnnotationsWithin(3L, null, null, null, null);
+		assertEquals(rows(viewQuery), rows(indexQuery));
+
+		// rebuild
+		List<String> expected = rows(indexQuery);
+		index.rebuild();
+		assertEquals(expected, rows(indexQuery));
+	}
+
+	/**
+	 * Compares the latency of searches using the materialized index and the
+	 * former view. Only logs the results, as timings depend on the test
+	 * environment.
+	 */
+	@Test
+	public void benchmark() throws Exception {
+		Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+
+		final int concepts = 300;
+		final int packages = 500;
+		final int searches = 100;
+
+		// generate a hierarchy of depth three
+		for (int i = 0; i < concepts; i++) {
+			String concept = "http://www.example.org/c" + i;
+			semanticDataSource.setRelation("http://www.example.org/g" + (i % 30), concept);
+			semanticDataSource.setRelation("http://www.example.org/h" + (i % 3), "http://www.example.org/g" + (i % 30));
+		}
+		new HierarchyManager(dbm, semanticDataSource, cm);
+		AnnotationManager am = new AnnotationManager(dbm, semanticDataSource, cm);
+		for (long p = 0; p < packages; p++) {
+			Map<String, IRI> map = new HashMap<String, IRI>();
+			map.put("x", IRI.create("http://www.example.org/c" + (p % concepts)));
+			map.put("y", IRI.create("http://www.example.org/c" + ((p * 7) % concepts)));
+			am.setAnnotations(p, 1L, null, null, null, map, Collections.emptyMap());
+		}
+		assertEquals(rows(viewQuery), rows(indexQuery));
+
+		long viewTime = time(
+				"SELECT package_id, SUM(ranking) FROM semantic.search WHERE searched_concept_iri = ? GROUP BY package_id",
+				searches);
+		long indexTime = time(
+				"SELECT i.package_id, SUM((1.0 + COALESCE(n.narrower_count, 0)) / (1.0 + COALESCE(b.narrower_count, 0))) FROM semantic.search_index i "
+						+ "LEFT JOIN semantic.concept_narrower_count n ON n.concept_id = i.annotated_concept_id "
+						+ "LEFT JOIN semantic.concept_narrower_count b ON b.concept_id = i.searched_concept_id "
+						+ "WHERE i.searched_concept_id IN (SELECT concept_id FROM semantic.concept WHERE concept_iri = ?) GROUP BY i.package_id",
+				searches);
+		log.info("{} searches on view took {} ms, on index {} ms", searches, viewTime, indexTime);
+	}
+
+	private long time(String query, int searches) throws SQLException {
+		long startTime = System.currentTimeMillis();
+		try (Connection connection = dbm.getConnection();
+				PreparedStatement statement = connection.prepareStatement(query)) {
+			for (int i = 0; i < searches; i++) {
+				statement.setString(1, "http://www.example.org/" + (i % 2 == 0 ? "h" + (i % 3) : "g" + (i % 30)));
+				try (ResultSet resultSet = statement.executeQuery()) {
+					while (resultSet.next()) {
+						// consume results
+					}
+				}
+			}
+		}
+		return System.currentTimeMillis() - startTime;
+	}
+}
@@ -21,15 +21,20 @@ package de.uni_jena.cs.fusion.lakebase;
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
@@ -38,10 +43,13 @@ import org.junit.Test;
 import org.semanticweb.owlapi.model.IRI;
 
 import de.uni_jena.cs.fusion.lakebase.model.Entity;
+import de.uni_jena.cs.fusion.lakebase.model.SearchPage;
 import de.uni_jena.cs.fusion.lakebase.model.SearchResponse;
 import de.uni_jena.cs.fusion.semantic.datasource.HierarchyTestDataSource;
 import de.uni_jena.cs.fusion.semantic.datasource.SemanticDataSourceException;
+import de.uni_jena.cs.fusion.util.context.ThreadContext;
 import de.uni_jena.cs.fusion.util.maintainer.MaintenanceException;
+import de.uni_jena.cs.fusion.util.profiler.Profile;
 
 /**
  * 
@@ -139,4 +147,107 @@ public class SearcherTest {
 
 	}
 
+	@Test
+	public void searchPaging() throws Exception {
+		semanticDataSource = new HierarchyTestDataSource();
+		semanticDataSource.setRelation("http://www.example.org/a", "http://www.example.org/aa");
+		semanticDataSource.setRelation("http://www.example.org/a", "http://www.example.org/ab");
+		semanticDataSource.setRelation("http://www.example.org/ab", "http://www.example.org/aba");
+		hm = new HierarchyManager(dbm, semanticDataSource, cm);
+
+		this.am.setAnnotations(1L, 1L, 1L, 1L, 1L,
+				Collections.singletonMap("a", IRI.create("http://www.example.org/a")), Collections.emptyMap());
+		this.am.setAnnotations(2L, 1L, 1L, 1L, 1L,
+				Collections.singletonMap("ab", IRI.create("http://www.example.org/ab")), Collections.emptyMap());
+		this.am.setAnnotations(3L, 1L, 1L, 1L, 1L,
+				Collections.singletonMap("aa", IRI.create("http://www.example.org/aa")), Collections.emptyMap());
+		this.am.setAnnotations(4L, 1L, 1L, 1L, 1L,
+				Collections.singletonMap("aba", IRI.create("http://www.example.org/aba")), Collections.emptyMap());
+
+		Set<IRI> include = Collections.singleton(IRI.create("http://www.example.org/a"));
+
+		SearchPage page = this.search.search(include, Collections.emptySet(), null, 2, null);
+		assertEquals(Arrays.asList(new SearchResponse(new Entity(1, null, null, null, null), 1d),
+				new SearchResponse(new Entity(2, null, null, null, null), 2 / 4d)), page.results);
+		assertNotNull(page.next);
+		assertTrue(Searcher.isValidCursor(page.next));
+		assertFalse(Searcher.isValidCursor("invalid"));
+		assertFalse(Searcher.isValidCursor("%%%"));
+
+		page = this.search.search(include, Collections.emptySet(), null, 2, page.next);
+		assertEquals(Arrays.asList(new SearchResponse(new Entity(3, null, null, null, null), 1 / 4d),
+				new SearchResponse(new Entity(4, null, null, null, null), 1 / 4d)), page.results);
+		assertNull(page.next);
+
+		// entities of equal rank
+		page = this.search.search(include, Collections.emptySet(), null, 3, null);
+		assertEquals(3, page.results.size());
+		page = this.search.search(include, Collections.emptySet(), null, 3, page.next);
+		assertEquals(Collections.singletonList(new SearchResponse(new Entity(4, null, null, null, null), 1 / 4d)),
+				page.results);
+		assertNull(page.next);
+	}
+
+	@Test
+	public void searchCache() throws Exception {
+		semanticDataSource = new HierarchyTestDataSource();
+		semanticDataSource.setRelation("http://www.example.org/a", "http://www.example.org/aa");
+		DataVersion version = new DataVersion();
+		hm = new HierarchyManager(dbm, semanticDataSource, cm, version);
+		am = new AnnotationManager(dbm, semanticDataSource, cm, version);
+		search = new Searcher(dbm, version, 10);
+
+		this.am.setAnnotations(1L, 1L, 1L, 1L, 1L,
+				Collections.singletonMap("aa", IRI.create("http://www.example.org/aa")), Collections.emptyMap());
+
+		Set<IRI> include = new HashSet<IRI>();
+		include.add(IRI.create("http://www.example.org/a"));
+		List<SearchResponse> result = this.search.search(include, Collections.emptySet(), null);
+		assertEquals(1, result.size());
+		assertEquals(0, this.search.getCacheStats().hitCount());
+
+		// equal search
+		assertEquals(result, this.search.search(new HashSet<IRI>(include), Collections.emptySet(), null));
+		assertEquals(1, this.search.getCacheStats().hitCount());
+
+		// changed annotations
+		this.am.setAnnotations(2L, 1L, 1L, 1L, 1L,
+				Collections.singletonMap("a", IRI.create("http://www.example.org/a")), Collections.emptyMap());
+		result = this.search.search(include, Collections.emptySet(), null);
+		assertEquals(2, result.size());
+		assertEquals(1, this.search.getCacheStats().hitCount());
+
+		// changed hierarchy
+		this.hm.setBroader(IRI.create("http://www.example.org/b"), IRI.create("http://www.example.org/a"));
+		this.search.search(include, Collections.emptySet(), null);
+		assertEquals(1, this.search.getCacheStats().hitCount());
+	}
+
+	@Test
+	public void searchProfile() throws Exception {
+		semanticDataSource = new HierarchyTestDataSource();
+		semanticDataSource.setRelation("http://www.example.org/a", "http://www.example.org/aa");
+		hm = new HierarchyManager(dbm, semanticDataSource, cm);
+		search = new Searcher(dbm, new DataVersion(), 10);
+
+		this.am.setAnnotations(1L, 1L, 1L, 1L, 1L,
+				Collections.singletonMap("aa", IRI.create("http://www.example.org/aa")), Collections.emptyMap());
+		Set<IRI> include = Collections.singleton(IRI.create("http://www.example.org/a"));
+
+		Profile profile = new Profile();
+		try (ThreadContext.Scope scope = profile.activate()) {
+			this.search.search(include, Collections.emptySet(), null);
+			this.search.search(include, Collections.emptySet(), null);
+		}
+		assertNull(Profile.current());
+		assertEquals(1, profile.getCaches().get("search result cache").getHits());
+		assertEquals(1, profile.getCaches().get("search result cache").getMisses());
+
+		List<String> plan = this.search.explain(include, Collections.emptySet(), null, null, null);
+		assertFalse(plan.isEmpty());
+		assertTrue(plan.stream().anyMatch(line -> line.toLowerCase().contains("execution time")));
+		plan = this.search.explain(include, Collections.emptySet(), null, 1, null);
+		assertTrue(plan.stream().anyMatch(line -> line.contains("Limit")));
+	}
+
 }
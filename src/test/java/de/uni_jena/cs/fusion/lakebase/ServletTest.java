@@ -20,9 +20,14 @@ package de.uni_jena.cs.fusion.lakebase;
  * #L%
  */
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.sql.DataSource;
 
@@ -39,12 +44,14 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import de.uni_jena.cs.fusion.lakebase.model.AnnotationCopyRequest;
+import de.uni_jena.cs.fusion.lakebase.model.BatchRequest;
 import de.uni_jena.cs.fusion.lakebase.model.CompleteRequest;
 import de.uni_jena.cs.fusion.lakebase.model.EntitiesAnnotation;
 import de.uni_jena.cs.fusion.lakebase.model.Entity;
 import de.uni_jena.cs.fusion.lakebase.model.SearchRequest;
 import de.uni_jena.cs.fusion.lakebase.model.SuggestRequest;
 import de.uni_jena.cs.fusion.lakebase.servlet.worker.AnnotationCopyWorker;
+import de.uni_jena.cs.fusion.lakebase.servlet.worker.BatchWorker;
 import de.uni_jena.cs.fusion.lakebase.servlet.worker.CompleteWorker;
 import de.uni_jena.cs.fusion.lakebase.servlet.worker.DeleteAnnotationWorker;
 import de.uni_jena.cs.fusion.lakebase.servlet.worker.DescribeWorker;
@@ -69,6 +76,7 @@ public class ServletTest {
 	private final static SearchWorker searchWorker = new SearchWorker();
 	private final static CompleteWorker completeWorker = new CompleteWorker();
 	private final static DescribeWorker describeWorker = new DescribeWorker();
+	private final static BatchWorker batchWorker = new BatchWorker();
 
 	@BeforeClass
 	public static void initClass() throws Exception {
@@ -181,6 +189,63 @@ public class ServletTest {
 		JSONAssert.assertEquals(expected, outputString(describeWorker, input), JSONCompareMode.LENIENT);
 	}
 
+	@Test
+	public void batch() throws Exception {
+		Object input = Lists.newArrayList(
+				new BatchRequest("/describe",
+						jsonMapper.readTree("[\"http://www.ontology-of-units-of-measure.org/resource/om-2/hectare\"]"),
+						null),
+				new BatchRequest("/complete", jsonMapper.getNodeFactory().textNode("millimetre per"), "unit"),
+				new BatchRequest("/describe",
+						jsonMapper.getNodeFactory()
+								.textNode("[\"http://www.ontology-of-units-of-measure.org/resource/om-2/hectare\"]"),
+						null),
+				new BatchRequest("/annotation/set", jsonMapper.readTree("[]"), null),
+				new BatchRequest("/complete", null, null)).toArray(new BatchRequest[0]);
+		String expected = "[{\"status\":200,\"content\":[{\"iri\":\"http://www.ontology-of-units-of-measure.org/resource/om-2/hectare\",\"labels\":[\"hectare\"]}]},{\"status\":200,\"content\":[{\"stump\":\"millimetre per\"}]},{\"status\":200,\"content\":[{\"iri\":\"http://www.ontology-of-units-of-measure.org/resource/om-2/hectare\",\"labels\":[\"hectare\"]}]},{\"status\":400},{\"status\":400}]";
+		JSONAssert.assertEquals(expected,
+				jsonMapper.writeValueAsString(
+						batchWorker.processRequestAsync(environment, input, environment.getRequestExecutor()).get()),
+				JSONCompareMode.LENIENT);
+		JSONAssert.assertEquals(expected, outputString(batchWorker, input), JSONCompareMode.LENIENT);
+
+		// too many calls
+		try {
+			batchWorker.processRequest(environment, new BatchRequest[BatchWorker.MAX_SIZE + 1]);
+			fail("Expected exception not thrown.");
+		} catch (ServiceWorkerException e) {
+			assertEquals(413, e.getCode());
+		}
+	}
+
+	@Test
+	public void asyncProcessing() throws Exception {
+		Object input = Lists.newArrayList(new Entity(1L, 1L, 1L, null, null)).toArray(new Entity[0]);
+		String expected = "[{\"entities\":[{\"package\":1,\"object\":1,\"column\":1}],\"accepted\":[],\"rejected\":[]}]";
+		JSONAssert.assertEquals(expected,
+				jsonMapper.writeValueAsString(getAnnotationWorker
+						.processRequestAsync(environment, input, environment.getRequestExecutor()).get()),
+				JSONCompareMode.LENIENT);
+
+		// failures complete the future
+		try {
+			getAnnotationWorker.processRequestAsync(environment, new Entity[] { new Entity(1L, null, 1L, null, null) },
+					environment.getRequestExecutor()).get();
+			fail("Expected exception not thrown.");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+
+		// saturated executor rejects immediately
+		try {
+			getAnnotationWorker.processRequestAsync(environment, input, runnable -> {
+				throw new RejectedExecutionException();
+			});
+			fail("Expected exception not thrown.");
+		} catch (RejectedExecutionException e) {
+		}
+	}
+
 	private String outputString(ServiceWorker worker, Object input)
 			throws ServiceWorkerException, JsonProcessingException {
 		Object output = worker.processRequest(environment, input);
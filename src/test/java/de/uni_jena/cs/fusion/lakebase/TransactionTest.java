@@ -0,0 +1,113 @@
+package de.uni_jena.cs.fusion.lakebase;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+
+/**
+ * 
+ * @since 0.3.9
+ *
+ */
+public class TransactionTest {
+
+	@Test
+	public void afterCommit() throws Exception {
+		DataSource dbm = DatabaseManagerTest.createTestDatabaseManager();
+		AtomicInteger counter = new AtomicInteger();
+		Runnable action = counter::incrementAndGet;
+
+		try (Connection connection = dbm.getConnection()) {
+			// auto commit
+			Transaction.afterCommit(connection, action);
+			assertEquals(1, counter.get());
+
+			try (Transaction transaction = Transaction.begin(connection)) {
+				Transaction.afterCommit(connection, action);
+				Transaction.afterCommit(connection, action);
+				assertEquals(1, counter.get());
+				transaction.commit();
+				// once per commit
+				assertEquals(2, counter.get());
+
+				Transaction.afterCommit(connection, action);
+				transaction.rollback();
+				transaction.commit();
+				assertEquals(2, counter.get());
+
+				Transaction.afterCommit(connection, action);
+			}
+			// discarded on close
+			assertEquals(2, counter.get());
+			assertTrue(connection.getAutoCommit());
+
+			// without transaction
+			connection.setAutoCommit(false);
+			try {
+				Transaction.afterCommit(connection, action);
+				fail("Expected exception not thrown.");
+			} catch (IllegalStateException e) {
+				// expected
+			} finally {
+				connection.setAutoCommit(true);
+			}
+		}
+	}
+
+	@Test
+	public void beforeCommit() throws Exception {
+		DataSource dbm = DatabaseManagerTest.createTestDatabaseManager();
+		AtomicInteger counter = new AtomicInteger();
+		Object key = new Object();
+		Transaction.Preparation preparation = counter::incrementAndGet;
+
+		try (Connection connection = dbm.getConnection()) {
+			// auto commit
+			assertNull(Transaction.beforeCommit(connection, key, () -> preparation));
+
+			try (Transaction transaction = Transaction.begin(connection)) {
+				assertSame(preparation, Transaction.beforeCommit(connection, key, () -> preparation));
+				// registered once per key
+				assertSame(preparation, Transaction.beforeCommit(connection, key, () -> null));
+				assertEquals(0, counter.get());
+				transaction.commit();
+				assertEquals(1, counter.get());
+
+				Transaction.beforeCommit(connection, key, () -> preparation);
+				transaction.rollback();
+				transaction.commit();
+				assertEquals(1, counter.get());
+			}
+		}
+	}
+}
@@ -20,12 +20,26 @@ package de.uni_jena.cs.fusion.semantic.datasource;
  * #L%
  */
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.junit.Test;
 import org.semanticweb.owlapi.model.IRI;
 
+import de.uni_jena.cs.fusion.util.context.ThreadContext;
+import de.uni_jena.cs.fusion.util.deadline.Deadline;
+import de.uni_jena.cs.fusion.util.profiler.Profile;
+
 public class SemanticDataSourceManagerTest {
 	
 	@Test
@@ -55,5 +69,118 @@ public class SemanticDataSourceManagerTest {
 		assertTrue(manager.getAllNarrowers(IRI.create("a")).contains(IRI.create("c")));
 		assertFalse(manager.getAllNarrowers(IRI.create("a")).contains(IRI.create("a")));
 	}
-	
+
+	@Test
+	public void profileMatches() throws SemanticDataSourceException {
+		SemanticDataSourceManager manager = new SemanticDataSourceManager();
+		manager.registerAdapter(new MatchEverythingTestDataSource());
+		Profile profile = new Profile();
+		try (ThreadContext.Scope scope = profile.activate()) {
+			manager.getMatches("a");
+		}
+		assertEquals(1, profile.getCalls().size());
+		assertEquals("MatchEverythingTestDataSource.getMatches", profile.getCalls().get(0).getName());
+		assertFalse(profile.getCalls().get(0).isFailed());
+
+		// not profiled
+		manager.getMatches("b");
+		assertEquals(1, profile.getCalls().size());
+	}
+
+	private static class SlowTestDataSource extends MatchEverythingTestDataSource {
+		@Override
+		public Map<IRI, Double> getMatches(String term) throws SemanticDataSourceException {
+			try {
+				Thread.sleep(2000);
+			} catch (InterruptedException e) {
+				throw new SemanticDataSourceException(e);
+			}
+			return Collections.singletonMap(IRI.create("slow:" + term), 1.0);
+		}
+
+		@Override
+		public Collection<String> getNamespaces() {
+			return Collections.singleton("slow:");
+		}
+
+		@Override
+		public Collection<String> getLabels(IRI iri) throws SemanticDataSourceException {
+			try {
+				Thread.sleep(2000);
+			} catch (InterruptedException e) {
+				throw new SemanticDataSourceException(e);
+			}
+			return Collections.singleton("slow");
+		}
+
+		@Override
+		public boolean providingLabels() {
+			return true;
+		}
+	}
+
+	@Test
+	public void deadlineMatches() throws SemanticDataSourceException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			SemanticDataSourceManager manager = new SemanticDataSourceManager(executor);
+			manager.registerAdapter(new MatchEverythingTestDataSource());
+			manager.registerAdapter(new SlowTestDataSource());
+			Deadline deadline = new Deadline(200, TimeUnit.MILLISECONDS);
+			long start = System.nanoTime();
+			Map<IRI, Double> matches;
+			try (ThreadContext.Scope scope = deadline.activate()) {
+				matches = manager.getMatches("a");
+			}
+			assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+			assertEquals(Collections.singleton(IRI.create("a")), matches.keySet());
+			assertTrue(deadline.isPartial());
+			assertEquals(Collections.singleton("SlowTestDataSource"), deadline.getSkipped());
+
+			// without deadline
+			assertEquals(2, manager.getMatches("a").size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void deadlineLabels() throws SemanticDataSourceException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			SemanticDataSourceManager manager = new SemanticDataSourceManager(executor);
+			manager.registerAdapter(new SlowTestDataSource());
+			Deadline deadline = new Deadline(200, TimeUnit.MILLISECONDS);
+			long start = System.nanoTime();
+			Collection<String> labels;
+			try (ThreadContext.Scope scope = deadline.activate()) {
+				labels = manager.getLabels(IRI.create("slow:a"));
+			}
+			assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+			assertTrue(labels.isEmpty());
+			assertEquals(Collections.singleton("SlowTestDataSource"), deadline.getSkipped());
+
+			// without deadline
+			assertEquals(Collections.singleton("slow"), manager.getLabels(IRI.create("slow:a")));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void close() throws SemanticDataSourceException {
+		AtomicBoolean closed = new AtomicBoolean();
+		class CloseableTestDataSource extends MatchEverythingTestDataSource implements Closeable {
+			@Override
+			public void close() {
+				closed.set(true);
+			}
+		}
+		SemanticDataSourceManager manager = new SemanticDataSourceManager();
+		manager.registerAdapter(new MatchEverythingTestDataSource());
+		manager.registerAdapter(new CloseableTestDataSource());
+		manager.close();
+		assertTrue(closed.get());
+	}
+
 }
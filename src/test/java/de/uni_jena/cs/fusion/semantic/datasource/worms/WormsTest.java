@@ -32,6 +32,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.jena.ext.com.google.common.collect.Lists;
 import org.junit.BeforeClass;
@@ -73,6 +74,20 @@ public class WormsTest {
 		assertTrue(labels.contains("Biota"));
 	}
 
+	@Test
+	public void getLabelsAsync() throws Exception {
+		assertTrue(semanticDataSource
+				.getLabelsAsync(IRI.create("urn:lsid:marinespecies.org:taxname:248099"), Runnable::run).get()
+				.contains("Aphanizomenon flos-aquae"));
+
+		try {
+			semanticDataSource.getLabelsAsync(IRI.create("urn:lsid:marinespecies.org:taxname:0"), Runnable::run).get();
+			throw new AssertionError("Did not throw expected exception.");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof SemanticDataSourceException);
+		}
+	}
+
 	@Test
 	public void getAlternativeLabels() throws SemanticDataSourceException {
 		Collection<String> labels;
@@ -0,0 +1,187 @@
+package de.uni_jena.cs.fusion.util.concurrent;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+public class CompletableFuturesTest {
+
+	@Test
+	public void supply() throws Exception {
+		assertEquals("a", CompletableFutures.supply(() -> "a", Runnable::run).get());
+		CompletableFuture<String> failed = CompletableFutures.supply(() -> {
+			throw new IllegalStateException();
+		}, Runnable::run);
+		try {
+			failed.get();
+			fail("Expected exception not thrown.");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void supplyCancel() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			CountDownLatch started = new CountDownLatch(1);
+			CountDownLatch interrupted = new CountDownLatch(1);
+			CompletableFuture<String> future = CompletableFutures.supply(() -> {
+				started.countDown();
+				try {
+					Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+				return "a";
+			}, executor);
+			started.await();
+			future.cancel(false);
+			assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void map() throws Exception {
+		CompletableFuture<String> source = new CompletableFuture<String>();
+		CompletableFuture<Integer> mapped = CompletableFutures.map(source, String::length);
+		source.complete("abc");
+		assertEquals(3, mapped.get().intValue());
+
+		source = new CompletableFuture<String>();
+		mapped = CompletableFutures.map(source, String::length);
+		mapped.cancel(false);
+		assertTrue(source.isCancelled());
+	}
+
+	@Test
+	public void compose() throws Exception {
+		CompletableFuture<String> source = new CompletableFuture<String>();
+		CompletableFuture<Integer> next = new CompletableFuture<Integer>();
+		CompletableFuture<Integer> composed = CompletableFutures.compose(source, value -> next);
+		source.complete("abc");
+		assertFalse(composed.isDone());
+		next.complete(3);
+		assertEquals(3, composed.get().intValue());
+
+		// cancel before the source completed
+		CompletableFuture<String> source2 = new CompletableFuture<String>();
+		CompletableFuture<Integer> next2 = new CompletableFuture<Integer>();
+		CompletableFutures.compose(source2, value -> next2).cancel(false);
+		assertTrue(source2.isCancelled());
+		assertFalse(next2.isDone());
+
+		// cancel after the source completed
+		CompletableFuture<String> source3 = new CompletableFuture<String>();
+		CompletableFuture<Integer> next3 = new CompletableFuture<Integer>();
+		CompletableFuture<Integer> composed3 = CompletableFutures.compose(source3, value -> next3);
+		source3.complete("abc");
+		composed3.cancel(false);
+		assertTrue(next3.isCancelled());
+	}
+
+	@Test
+	public void composeCallable() throws Exception {
+		CompletableFuture<Integer> next = new CompletableFuture<Integer>();
+		CompletableFuture<Integer> composed = CompletableFutures.compose(() -> next, Runnable::run);
+		assertFalse(composed.isDone());
+		composed.cancel(false);
+		assertTrue(next.isCancelled());
+	}
+
+	@Test
+	public void handle() throws Exception {
+		CompletableFuture<String> source = new CompletableFuture<String>();
+		CompletableFuture<String> handled = CompletableFutures.handle(source, (value, e) -> (e != null) ? "b" : value);
+		source.completeExceptionally(new IllegalStateException());
+		assertEquals("b", handled.get());
+
+		source = new CompletableFuture<String>();
+		CompletableFutures.handle(source, (value, e) -> value).cancel(false);
+		assertTrue(source.isCancelled());
+	}
+
+	@Test
+	public void within() throws Exception {
+		CompletableFuture<String> source = new CompletableFuture<String>();
+		CompletableFuture<String> bounded = CompletableFutures.within(source, 1, TimeUnit.MINUTES);
+		source.complete("a");
+		assertEquals("a", bounded.get());
+
+		// timeout keeps the source running
+		source = new CompletableFuture<String>();
+		try {
+			CompletableFutures.within(source, 10, TimeUnit.MILLISECONDS).get();
+			fail("Expected exception not thrown.");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		assertFalse(source.isDone());
+
+		// cancellation cancels the source
+		CompletableFutures.within(source, 1, TimeUnit.MINUTES).cancel(false);
+		assertTrue(source.isCancelled());
+	}
+
+	@Test
+	public void all() throws Exception {
+		CompletableFuture<String> first = new CompletableFuture<String>();
+		CompletableFuture<String> second = new CompletableFuture<String>();
+		CompletableFuture<List<String>> all = CompletableFutures.all(Arrays.asList(first, second));
+		second.complete("b");
+		assertFalse(all.isDone());
+		first.complete("a");
+		assertEquals(Arrays.asList("a", "b"), all.get());
+
+		// failure cancels outstanding futures
+		first = new CompletableFuture<String>();
+		second = new CompletableFuture<String>();
+		all = CompletableFutures.all(Arrays.asList(first, second));
+		first.completeExceptionally(new IllegalStateException());
+		assertTrue(all.isCompletedExceptionally());
+		assertTrue(second.isCancelled());
+
+		// cancellation cancels outstanding futures
+		first = new CompletableFuture<String>();
+		second = new CompletableFuture<String>();
+		CompletableFutures.all(Arrays.asList(first, second)).cancel(false);
+		assertTrue(first.isCancelled());
+		assertTrue(second.isCancelled());
+	}
+}
@@ -0,0 +1,70 @@
+package de.uni_jena.cs.fusion.util.http;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class ContentEncodingTest {
+
+	@Test
+	public void negotiate() {
+		assertNull(ContentEncoding.negotiate(null));
+		assertNull(ContentEncoding.negotiate(""));
+		assertNull(ContentEncoding.negotiate("identity"));
+		assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("gzip"));
+		assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("deflate, gzip;q=0.5"));
+		assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("*"));
+		assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate("deflate"));
+		assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate("gzip;q=0, deflate"));
+		assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate("gzip;q=0, *"));
+		assertNull(ContentEncoding.negotiate("gzip;q=0, deflate;q=0"));
+	}
+
+	@Test
+	public void encode() throws Exception {
+		String content = "{\"a\":\"aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa\"}";
+
+		ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+		try (OutputStream out = ContentEncoding.encode(gzip, ContentEncoding.GZIP)) {
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+		assertEquals(content, IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(gzip.toByteArray())),
+				StandardCharsets.UTF_8));
+
+		ByteArrayOutputStream deflate = new ByteArrayOutputStream();
+		try (OutputStream out = ContentEncoding.encode(deflate, ContentEncoding.DEFLATE)) {
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+		assertEquals(content, IOUtils.toString(
+				new InflaterInputStream(new ByteArrayInputStream(deflate.toByteArray())), StandardCharsets.UTF_8));
+	}
+}
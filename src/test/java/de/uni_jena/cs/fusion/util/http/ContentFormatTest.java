@@ -0,0 +1,85 @@
+package de.uni_jena.cs.fusion.util.http;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.uni_jena.cs.fusion.lakebase.model.Entity;
+import de.uni_jena.cs.fusion.lakebase.model.SearchPage;
+import de.uni_jena.cs.fusion.lakebase.model.SearchResponse;
+
+public class ContentFormatTest {
+
+	@Test
+	public void negotiate() {
+		assertEquals(ContentFormat.JSON, ContentFormat.negotiate(null));
+		assertEquals(ContentFormat.JSON, ContentFormat.negotiate(""));
+		assertEquals(ContentFormat.JSON, ContentFormat.negotiate("*/*"));
+		assertEquals(ContentFormat.JSON, ContentFormat.negotiate("application/*"));
+		assertEquals(ContentFormat.JSON, ContentFormat.negotiate("application/json"));
+		assertEquals(ContentFormat.SMILE, ContentFormat.negotiate("application/x-jackson-smile"));
+		assertEquals(ContentFormat.CBOR, ContentFormat.negotiate("application/cbor"));
+		assertEquals(ContentFormat.CBOR, ContentFormat.negotiate("application/cbor, */*;q=0.1"));
+		assertEquals(ContentFormat.SMILE,
+				ContentFormat.negotiate("application/cbor;q=0.5, application/x-jackson-smile, application/json;q=0.8"));
+		assertEquals(ContentFormat.JSON, ContentFormat.negotiate("application/cbor;q=0.5, application/json"));
+		assertEquals(ContentFormat.JSON, ContentFormat.negotiate("application/cbor, */*"));
+		assertEquals(ContentFormat.JSON, ContentFormat.negotiate("application/cbor;q=0"));
+	}
+
+	@Test
+	public void of() {
+		assertNull(ContentFormat.of(null));
+		assertNull(ContentFormat.of("text/plain"));
+		assertEquals(ContentFormat.JSON, ContentFormat.of("application/json; charset=UTF-8"));
+		assertEquals(ContentFormat.SMILE, ContentFormat.of("application/x-jackson-smile"));
+		assertEquals(ContentFormat.CBOR, ContentFormat.of("Application/CBOR"));
+	}
+
+	@Test
+	public void roundTrip() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		SearchPage page = new SearchPage(Arrays.asList(new SearchResponse(new Entity(1L, 2L, 3L, null, null), 0.5),
+				new SearchResponse(new Entity(1L, null, null, null, 4L), 0.25)), "next");
+		JsonNode expected = mapper.valueToTree(page);
+		for (ContentFormat format : ContentFormat.values()) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try (JsonGenerator generator = format.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+				mapper.writeValue(generator, page);
+			}
+			assertTrue(out.size() > 0);
+			assertEquals(format.name(), expected, mapper.readTree(format.getFactory().createParser(out.toByteArray())));
+		}
+	}
+}
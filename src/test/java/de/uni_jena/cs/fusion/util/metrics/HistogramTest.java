@@ -0,0 +1,105 @@
+package de.uni_jena.cs.fusion.util.metrics;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+	@Test
+	public void quantiles() {
+		Histogram histogram = new Histogram();
+		assertEquals(0, histogram.quantile(0.5));
+		for (long i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		// small values are exact
+		assertEquals(50, histogram.quantile(0.5));
+		assertEquals(95, histogram.quantile(0.95));
+		assertEquals(99, histogram.quantile(0.99));
+		assertEquals(100, histogram.quantile(1));
+		assertEquals(100, histogram.getMax());
+		assertEquals(100, histogram.getCount());
+		assertEquals(5050, histogram.getSum());
+	}
+
+	@Test
+	public void precision() {
+		for (long value = 128; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 7) {
+			Histogram histogram = new Histogram();
+			histogram.record(value);
+			histogram.record(value * 2);
+			long estimate = histogram.quantile(0.5);
+			assertTrue(value + " estimated as " + estimate, Math.abs(estimate - value) <= value / 64);
+		}
+		Histogram histogram = new Histogram();
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.quantile(1));
+	}
+
+	@Test
+	public void window() throws Exception {
+		Histogram histogram = new Histogram(100, TimeUnit.MILLISECONDS);
+		histogram.record(1000);
+		assertEquals(1000, histogram.quantile(0.5));
+		assertEquals(1000, histogram.getMax());
+		Thread.sleep(150);
+		histogram.record(10);
+		// expired values excluded from quantiles and maximum only
+		assertEquals(10, histogram.quantile(0.5));
+		assertEquals(10, histogram.getMax());
+		assertEquals(2, histogram.getCount());
+		assertEquals(1010, histogram.getSum());
+	}
+
+	@Test
+	public void concurrentRecording() throws Exception {
+		Histogram histogram = new Histogram();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(() -> {
+					for (long j = 0; j < 10000; j++) {
+						histogram.record(j);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(80000, histogram.getCount());
+		assertEquals(9999, histogram.getMax());
+	}
+}
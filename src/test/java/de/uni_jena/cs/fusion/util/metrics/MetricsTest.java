@@ -0,0 +1,66 @@
+package de.uni_jena.cs.fusion.util.metrics;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MetricsTest {
+
+	@Test
+	public void write() throws Exception {
+		Metrics metrics = new Metrics();
+		Timer timer = metrics.timer("test_request", "Test request", "path", "/a\"b");
+		timer.stop(timer.start(), false);
+		timer.stop(timer.start(), true);
+		long start = timer.start();
+		metrics.gauge("test_queue_size", "Queued tasks", "executor", "request", () -> 7);
+		metrics.ratio("test_cache_hit_ratio", "Cache hit ratio", "cache", "search", () -> 0.25);
+		metrics.counter("test_cache_hits_total", "Cache hits", "cache", "search", () -> 3);
+
+		StringBuilder out = new StringBuilder();
+		metrics.write(out);
+		List<String> lines = Arrays.asList(out.toString().split("\n"));
+
+		assertTrue(lines.contains("# TYPE test_request_duration_seconds summary"));
+		assertTrue(lines.stream().anyMatch(line -> line.startsWith(
+				"test_request_duration_seconds{path=\"/a\\\"b\",quantile=\"0.99\"} ")));
+		assertTrue(lines.contains("test_request_duration_seconds_count{path=\"/a\\\"b\"} 2"));
+		assertTrue(lines.contains("# TYPE test_requests_total counter"));
+		assertTrue(lines.contains("test_requests_total{path=\"/a\\\"b\"} 2"));
+		assertTrue(lines.contains("test_request_errors_total{path=\"/a\\\"b\"} 1"));
+		assertTrue(lines.contains("test_requests_in_flight{path=\"/a\\\"b\"} 1"));
+		assertTrue(lines.contains("# TYPE test_queue_size gauge"));
+		assertTrue(lines.contains("test_queue_size{executor=\"request\"} 7"));
+		assertTrue(lines.contains("test_cache_hit_ratio{cache=\"search\"} 0.25"));
+		assertTrue(lines.contains("# TYPE test_cache_hits_total counter"));
+		assertTrue(lines.contains("test_cache_hits_total{cache=\"search\"} 3"));
+
+		timer.stop(start, false);
+		assertEquals(0, timer.getInFlight());
+		assertEquals(3, timer.getLatency().getCount());
+	}
+}
@@ -0,0 +1,116 @@
+package de.uni_jena.cs.fusion.util.quota;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class AdmissionControlTest {
+
+	@Test
+	public void clientRate() throws Exception {
+		AdmissionControl admission = new AdmissionControl(endpoint -> 10, 10, 0, 5, 0.001, TimeUnit.MILLISECONDS);
+		admission.checkRate("a", 5);
+		try {
+			admission.checkRate("a", 1);
+			fail("Expected exception not thrown.");
+		} catch (AdmissionException e) {
+			assertTrue(e.getRetryAfter() >= 1);
+		}
+		// other clients are not affected
+		for (int i = 0; i < 5; i++) {
+			admission.checkRate("b", 1);
+		}
+	}
+
+	@Test
+	public void endpointConcurrency() throws Exception {
+		AdmissionControl admission = new AdmissionControl(endpoint -> endpoint.equals("/slow") ? 2 : 10, 4, 20,
+				100, 1, TimeUnit.MILLISECONDS);
+		Quota first = admission.enter("/slow");
+		admission.enter("/slow");
+		try {
+			admission.enter("/slow");
+			fail("Expected exception not thrown.");
+		} catch (AdmissionException e) {
+			assertEquals(1, e.getRetryAfter());
+		}
+		// other endpoints are not affected
+		admission.enter("/fast").release();
+		// released slots are reused
+		first.release();
+		admission.enter("/slow");
+	}
+
+	@Test
+	public void concurrentRequests() throws Exception {
+		AdmissionControl admission = new AdmissionControl(endpoint -> 4, 1000, 10, 100, 0.001,
+				TimeUnit.SECONDS);
+		AtomicInteger concurrent = new AtomicInteger();
+		AtomicInteger maxConcurrent = new AtomicInteger();
+		AtomicInteger admitted = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int i = 0; i < 16; i++) {
+				String client = "client" + (i % 2);
+				futures.add(executor.submit(() -> {
+					for (int j = 0; j < 20; j++) {
+						try {
+							admission.checkRate(client, 1);
+						} catch (AdmissionException e) {
+							continue;
+						}
+						Quota quota = admission.enter("/endpoint");
+						try {
+							admitted.incrementAndGet();
+							maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+							Thread.sleep(1);
+							concurrent.decrementAndGet();
+						} finally {
+							quota.release();
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertTrue(maxConcurrent.get() <= 4);
+		// each client is limited to its burst
+		assertEquals(200, admitted.get());
+	}
+}
@@ -0,0 +1,136 @@
+package de.uni_jena.cs.fusion.util.quota;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class QuotaTest {
+
+	@Test
+	public void limit() throws Exception {
+		Quota quota = new Quota(3);
+		AtomicInteger concurrent = new AtomicInteger();
+		AtomicInteger maxConcurrent = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int i = 0; i < 200; i++) {
+				futures.add(executor.submit(() -> {
+					quota.reserve();
+					try {
+						maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+						Thread.sleep(1);
+						concurrent.decrementAndGet();
+					} finally {
+						quota.release();
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertTrue(maxConcurrent.get() <= 3);
+		assertEquals(3, quota.available());
+	}
+
+	@Test
+	public void boundedWaiting() throws Exception {
+		Quota quota = new Quota(1, 1);
+		assertTrue(quota.tryReserve(0, TimeUnit.MILLISECONDS));
+		// exhausted quota times out
+		assertFalse(quota.tryReserve(10, TimeUnit.MILLISECONDS));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Boolean> waiting = executor.submit(() -> quota.tryReserve(10, TimeUnit.SECONDS));
+			while (quota.waiting() < 1) {
+				Thread.sleep(1);
+			}
+			// full waiting queue fails immediately
+			long start = System.nanoTime();
+			assertFalse(quota.tryReserve(10, TimeUnit.SECONDS));
+			assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+			// released piece is passed to the waiting thread
+			quota.release();
+			assertTrue(waiting.get());
+			assertEquals(0, quota.available());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void fairness() throws Exception {
+		Quota quota = new Quota(1);
+		quota.reserve();
+		int threads = 8;
+		List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+		CountDownLatch done = new CountDownLatch(threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int i = 0; i < threads; i++) {
+				int id = i;
+				executor.submit(() -> {
+					try {
+						if (quota.tryReserve(10, TimeUnit.SECONDS)) {
+							order.add(id);
+							quota.release();
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					done.countDown();
+				});
+				// wait until the thread is enqueued to determine the arrival order
+				while (quota.waiting() < i + 1) {
+					Thread.sleep(1);
+				}
+			}
+			quota.release();
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < threads; i++) {
+			expected.add(i);
+		}
+		assertEquals(expected, order);
+	}
+}
@@ -0,0 +1,81 @@
+package de.uni_jena.cs.fusion.util.quota;
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+	@Test
+	public void burstAndRefill() {
+		AtomicLong clock = new AtomicLong();
+		TokenBucket bucket = new TokenBucket(3, 2, TimeUnit.SECONDS, clock::get);
+		assertEquals(0, bucket.tryConsume(1));
+		assertEquals(0, bucket.tryConsume(2));
+		// empty bucket needs half a second for the next token
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(500), bucket.tryConsume(1));
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+		assertEquals(0, bucket.tryConsume(1));
+		// refill is limited by the capacity
+		clock.addAndGet(TimeUnit.HOURS.toNanos(1));
+		assertEquals(3, bucket.available(), 0);
+		assertEquals(0, bucket.tryConsume(3));
+		assertTrue(bucket.tryConsume(1) > 0);
+	}
+
+	@Test
+	public void concurrentConsumption() throws Exception {
+		// stopped clock, no refill
+		TokenBucket bucket = new TokenBucket(1000, 1, TimeUnit.SECONDS, () -> 0);
+		AtomicInteger consumed = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int i = 0; i < 16; i++) {
+				futures.add(executor.submit(() -> {
+					for (int j = 0; j < 100; j++) {
+						if (bucket.tryConsume(1) == 0) {
+							consumed.incrementAndGet();
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1000, consumed.get());
+	}
+}
@@ -0,0 +1,146 @@
+package de.uni_jena.cs.fusion.util.trie;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class CompletionTrieTest {
+
+	private static List<String> texts(List<CompletionTrie.Completion<Integer>> completions) {
+		return completions.stream().map(completion -> completion.text).collect(Collectors.toList());
+	}
+
+	@Test
+	public void empty() {
+		CompletionTrie<Integer> trie = new CompletionTrie.Builder<Integer>().build(10);
+		assertEquals(0, trie.size());
+		assertTrue(trie.complete("", 10).isEmpty());
+		assertTrue(trie.complete("a", 10).isEmpty());
+	}
+
+	@Test
+	public void complete() {
+		CompletionTrie<Integer> trie = new CompletionTrie.Builder<Integer>().add("Lake", 1, 5).add("lake shore", 2, 1)
+				.add("Lakes", 3, 0).add("lagoon", 4, 9).add("river", 5, 2).add("Lake Constance", 6, 7).build(3);
+
+		assertEquals(6, trie.size());
+		assertEquals(3, trie.complete("", 10).size());
+		assertEquals(texts(trie.complete("", 10)), texts(trie.complete("l", 10)));
+		assertEquals(Arrays.asList("lagoon", "Lake Constance", "Lake"), texts(trie.complete("la", 10)));
+		assertEquals(Arrays.asList("Lake Constance", "Lake", "lake shore"), texts(trie.complete("LAKE", 10)));
+		assertEquals(Arrays.asList("Lake Constance", "lake shore"), texts(trie.complete("lake ", 10)));
+		assertEquals(Arrays.asList("lake shore"), texts(trie.complete("lake s", 10)));
+		assertEquals(Arrays.asList("Lakes"), texts(trie.complete("lakes", 10)));
+		assertEquals(Arrays.asList("lagoon"), texts(trie.complete("la", 1)));
+		assertTrue(trie.complete("lakeside", 10).isEmpty());
+		assertTrue(trie.complete("lb", 10).isEmpty());
+		assertTrue(trie.complete("x", 10).isEmpty());
+	}
+
+	@Test
+	public void ties() {
+		CompletionTrie<Integer> trie = new CompletionTrie.Builder<Integer>().add("abc", 1, 0).add("ab", 2, 0)
+				.add("abd", 3, 0).add("abcd", 4, 1).build(10);
+		assertEquals(Arrays.asList("abcd", "ab", "abc", "abd"), texts(trie.complete("a", 10)));
+	}
+
+	@Test
+	public void distinctValues() {
+		CompletionTrie<Integer> trie = new CompletionTrie.Builder<Integer>().add("meter", 1, 3).add("metre", 1, 3)
+				.add("metal", 2, 1).add("meteor", 3, 0).build(2);
+		List<CompletionTrie.Completion<Integer>> completions = trie.complete("met", 10);
+		assertEquals(2, completions.size());
+		assertEquals(1, (int) completions.get(0).value);
+		assertEquals("meter", completions.get(0).text);
+		assertEquals(2, (int) completions.get(1).value);
+	}
+
+	@Test
+	public void exhaustive() {
+		CompletionTrie<Integer> trie = new CompletionTrie.Builder<Integer>().add("meter", 1, 3).add("metre", 1, 3)
+				.add("metal", 2, 1).add("river", 3, 0).build(10);
+		// several texts of one value
+		assertFalse(trie.isExhaustive("met", 10));
+		assertFalse(trie.isExhaustive("", 10));
+		assertTrue(trie.isExhaustive("meta", 10));
+		assertTrue(trie.isExhaustive("r", 10));
+		assertTrue(trie.isExhaustive("x", 10));
+
+		trie = new CompletionTrie.Builder<Integer>().add("a", 1, 0).add("ab", 2, 0).add("abc", 3, 0).build(2);
+		// truncated by capacity
+		assertFalse(trie.isExhaustive("a", 10));
+		assertTrue(trie.isExhaustive("ab", 10));
+		// truncated by limit
+		assertFalse(trie.isExhaustive("ab", 1));
+	}
+
+	@Test
+	public void randomized() {
+		Random random = new Random(0);
+		String[] texts = new String[2000];
+		long[] weights = new long[texts.length];
+		CompletionTrie.Builder<Integer> builder = new CompletionTrie.Builder<Integer>();
+		for (int i = 0; i < texts.length; i++) {
+			StringBuilder text = new StringBuilder();
+			for (int length = 1 + random.nextInt(8); length > 0; length--) {
+				text.append((char) ('a' + random.nextInt(3)));
+			}
+			texts[i] = text.toString();
+			weights[i] = random.nextInt(20);
+			builder.add(texts[i], i, weights[i]);
+		}
+		CompletionTrie<Integer> trie = builder.build(5);
+		for (String prefix : new String[] { "", "a", "ab", "abc", "cba", "aaaa", "bcabca" }) {
+			List<CompletionTrie.Completion<Integer>> completions = trie.complete(prefix, 5);
+			long matching = 0;
+			long minimum = Long.MAX_VALUE;
+			Set<Integer> values = new HashSet<Integer>();
+			for (CompletionTrie.Completion<Integer> completion : completions) {
+				values.add(completion.value);
+				assertTrue(completion.text.startsWith(prefix));
+				assertTrue(completion.weight <= minimum);
+				minimum = completion.weight;
+			}
+			for (int i = 0; i < texts.length; i++) {
+				if (texts[i].startsWith(prefix)) {
+					matching++;
+					if (completions.size() == 5 && !values.contains(i)) {
+						// no omitted entry ranks higher
+						assertTrue(weights[i] <= minimum);
+					}
+				}
+			}
+			assertEquals(Math.min(5, matching), completions.size());
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package de.uni_jena.cs.fusion.worms.client.async;
+
+
+/*-
+ * #%L
+ * LakeBase Semantic Service
+ * %%
+ * Copyright (C) 2018 Heinz Nixdorf Chair for Distributed Information Systems, Friedrich Schiller University Jena
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class AsyncWormsClientTest {
+
+	private final static int MAX_CONNECTIONS_PER_HOST = 4;
+	private final static long DELAY = 100; // milliseconds
+
+	private static HttpServer server;
+	private static ExecutorService serverExecutor;
+	private static AsyncWormsClient client;
+
+	private final static AtomicInteger concurrent = new AtomicInteger();
+	private final static AtomicInteger maxConcurrent = new AtomicInteger();
+
+	@BeforeClass
+	public static void startServer() throws IOException, AsyncWormsClientException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/rest/AphiaRecordByAphiaID/127160",
+				exchange -> respond(exchange, 200, "{\"AphiaID\":127160,\"url\":"
+						+ "\"http://www.marinespecies.org/aphia.php?p=taxdetails&id=127160\","
+						+ "\"scientificname\":\"Solea solea\",\"authority\":\"(Linnaeus, 1758)\","
+						+ "\"status\":\"accepted\",\"rank\":\"Species\",\"valid_AphiaID\":127160,"
+						+ "\"lsid\":\"urn:lsid:marinespecies.org:taxname:127160\",\"unknown\":true}"));
+		server.createContext("/rest/AphiaRecordByAphiaID/1", exchange -> respond(exchange, 204, null));
+		server.createContext("/rest/AphiaRecordByAphiaID/2", exchange -> respond(exchange, 500, "error"));
+		server.createContext("/rest/AphiaRecordByExternalID/", exchange -> {
+			if (exchange.getRequestURI().getRawQuery().equals("type=ncbi")) {
+				respond(exchange, 200, "{\"AphiaID\":127160,\"valid_AphiaID\":127160}");
+			} else {
+				respond(exchange, 204, null);
+			}
+		});
+		server.createContext("/rest/AphiaSynonymsByAphiaID/127160", exchange -> respond(exchange, 200,
+				"[{\"AphiaID\":154705,\"lsid\":\"urn:lsid:marinespecies.org:taxname:154705\",\"valid_AphiaID\":127160}]"));
+		server.createContext("/rest/AphiaSynonymsByAphiaID/1", exchange -> respond(exchange, 204, null));
+		server.createContext("/rest/AphiaVernacularsByAphiaID/127160", exchange -> respond(exchange, 200,
+				"[{\"vernacular\":\"common sole\",\"language_code\":\"eng\",\"language\":\"English\"}]"));
+		server.createContext("/rest/AphiaExternalIDByAphiaID/127160",
+				exchange -> respond(exchange, 200, "[\"" + exchange.getRequestURI().getRawQuery() + "\"]"));
+		server.createContext("/rest/AphiaExternalIDByAphiaID/3", exchange -> {
+			int current = concurrent.incrementAndGet();
+			maxConcurrent.accumulateAndGet(current, Math::max);
+			try {
+				Thread.sleep(DELAY);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				concurrent.decrementAndGet();
+			}
+			respond(exchange, 200, "[\"1\"]");
+		});
+		// serve more requests at once than permitted for the client
+		serverExecutor = Executors.newFixedThreadPool(4 * MAX_CONNECTIONS_PER_HOST);
+		server.setExecutor(serverExecutor);
+		server.start();
+		client = new AsyncWormsClient("http://localhost:" + server.getAddress().getPort() + "/rest/",
+				MAX_CONNECTIONS_PER_HOST, 10000);
+	}
+
+	@AfterClass
+	public static void stopServer() throws IOException {
+		client.close();
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		if (body == null) {
+			exchange.sendResponseHeaders(status, -1);
+		} else {
+			byte[] content = body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(status, content.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(content);
+			}
+		}
+		exchange.close();
+	}
+
+	@Test
+	public void aphiaRecordByAphiaId() throws Exception {
+		AphiaRecord record = client.aphiaRecordByAphiaId(127160).get();
+		assertEquals(127160, record.aphiaId);
+		assertEquals(127160, record.validAphiaId);
+		assertEquals("Solea solea", record.scientificName);
+		assertEquals("(Linnaeus, 1758)", record.authority);
+		assertEquals("Species", record.taxonomicRank);
+		assertEquals("urn:lsid:marinespecies.org:taxname:127160", record.lsid);
+
+		assertNull(client.aphiaRecordByAphiaId(1).get());
+	}
+
+	@Test
+	public void aphiaRecordByAphiaIdFailure() throws Exception {
+		try {
+			client.aphiaRecordByAphiaId(2).get();
+			fail("Exception expected.");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof AsyncWormsClientException);
+		}
+		try {
+			AsyncWormsClient.await(client.aphiaRecordByAphiaId(2), 1, TimeUnit.SECONDS);
+			fail("Exception expected.");
+		} catch (AsyncWormsClientException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void aphiaRecordByExternalId() throws Exception {
+		assertEquals(127160, client.aphiaRecordByExternalId("8255", "ncbi").get().aphiaId);
+		assertNull(client.aphiaRecordByExternalId("8255", "tsn").get());
+	}
+
+	@Test
+	public void aphiaSynonymsByAphiaId() throws Exception {
+		List<AphiaRecord> synonyms = client.aphiaSynonymsByAphiaId(127160).get();
+		assertEquals(1, synonyms.size());
+		assertEquals(154705, synonyms.get(0).aphiaId);
+		assertEquals(Collections.emptyList(), client.aphiaSynonymsByAphiaId(1).get());
+	}
+
+	@Test
+	public void aphiaVernacularsByAphiaId() throws Exception {
+		List<Vernacular> vernaculars = client.aphiaVernacularsByAphiaId(127160).get();
+		assertEquals(1, vernaculars.size());
+		assertEquals("common sole", vernaculars.get(0).vernacular);
+		assertEquals("eng", vernaculars.get(0).languageCode);
+	}
+
+	@Test
+	public void aphiaExternalIdByAphiaId() throws Exception {
+		assertEquals(Collections.singletonList("type=ncbi"), client.aphiaExternalIdByAphiaId(127160, "ncbi").get());
+	}
+
+	@Test
+	public void concurrency() throws Exception {
+		int requestCount = 10 * MAX_CONNECTIONS_PER_HOST;
+		long start = System.nanoTime();
+		List<CompletableFuture<List<String>>> requests = new ArrayList<CompletableFuture<List<String>>>();
+		for (int i = 0; i < requestCount; i++) {
+			requests.add(client.aphiaExternalIdByAphiaId(3, "ncbi"));
+		}
+		CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+		long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		for (CompletableFuture<List<String>> request : requests) {
+			assertEquals(Collections.singletonList("1"), request.get());
+		}
+		// per host limit respected
+		assertTrue(maxConcurrent.get() <= MAX_CONNECTIONS_PER_HOST);
+		// requests executed concurrently
+		assertTrue(maxConcurrent.get() > 1);
+		assertTrue(duration < requestCount * DELAY);
+	}
+
+	@Test
+	public void cancel() throws Exception {
+		CompletableFuture<List<String>> request = client.aphiaExternalIdByAphiaId(3, "ncbi");
+		assertTrue(request.cancel(true));
+		assertTrue(request.isCancelled());
+		// client remains usable
+		assertEquals("Solea solea", client.aphiaRecordByAphiaId(127160).get().scientificName);
+	}
+}